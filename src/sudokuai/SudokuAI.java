@@ -1,16 +1,16 @@
 package sudokuai;
 
 import java.awt.EventQueue;
-import javax.swing.UIManager;
-import javax.swing.UnsupportedLookAndFeelException;
 
 /**
- * Main Class to instantiate the application
+ * Main Class to instantiate the application. The GUI shows a 9x9 board, or
+ * another size set with the sudokuai.boxSize system property, for example
+ * -Dsudokuai.boxSize=4 for 16x16
  * @author Nik Bradley
  */
 public class SudokuAI implements Runnable {
     
-    private static final int BOXSIZE = 3;
+    private static final int BOXSIZE = Integer.getInteger("sudokuai.boxSize", 3);
 
     /**
      * Runs the application by creating a model and a view, giving the view sight of the model
@@ -19,25 +19,21 @@ public class SudokuAI implements Runnable {
     public void run() {
         SudokuSolverModel sudokuModel = new SudokuSolverModel_AI(BOXSIZE);
 
-        SudokuSolverView sudokuView = new SudokuSolverView();
+        SudokuSolverView sudokuView = new SudokuSolverView(BOXSIZE);
         sudokuView.setSudokuModel(sudokuModel);
         sudokuView.setVisible(true);
     }
 
     /**
-     * starts the GUI
+     * starts the GUI, or with any arguments solves puzzles from the command
+     * line without it, see SudokuCommandLine
      * @param args 
      */
     public static void main(String args[]) {
-        tryToSetSystemLookAndFeel();
-        EventQueue.invokeLater(new SudokuAI());
-    }
-
-    private static void tryToSetSystemLookAndFeel() {
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException ex) {
-            System.out.println("Couldn't set LAF");
+        if (args.length > 0) {
+            System.exit(SudokuCommandLine.run(args));
         }
+        SudokuSolverView.tryToSetSystemLookAndFeel();                                   //Kept out of this class so the command line never loads Swing
+        EventQueue.invokeLater(new SudokuAI());
     }
 }
\ No newline at end of file
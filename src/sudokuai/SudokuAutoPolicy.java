@@ -0,0 +1,334 @@
+package sudokuai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Policy Sudoku_AI_Auto uses to pick an algorithm for a puzzle from its
+ * SudokuPuzzleFeatures. Each algorithm has a linear model predicting the
+ * logarithm of its solve time in nanoseconds from the features, and the
+ * algorithm predicted fastest is picked. Fitting log time rather than time
+ * keeps a few runaway searches from swamping the fit.
+ *
+ * The models are fitted by ridge regression from timings of the algorithms
+ * on a corpus of puzzles. A policy may leave out the later features, their
+ * coefficients all 0, and then only the feature stages it uses are worked
+ * out, since on some corpora the time the later stages take outweighs the
+ * better picks they allow. The default policy is read from the RESOURCE file
+ * next to this class, written by SudokuAutoPolicyFit from the benchmark
+ * corpus. To refit it after changing an algorithm run
+ *
+ * java -cp build/classes:build/test/classes sudokuai.SudokuAutoPolicyFit -o src/sudokuai/auto-policy.txt
+ *
+ * and rebuild. The file is plain text, one algorithm per line, its name then
+ * a coefficient for each feature, separated by tabs, so a policy can also be
+ * tuned by hand.
+ *
+ * A policy never changes once built, so it can be shared between threads.
+ *
+ * @author Nik Bradley
+ */
+final class SudokuAutoPolicy {
+
+    //CLASS VARIABLES
+    static final String RESOURCE = "auto-policy.txt";                                           //Default policy, next to this class
+    static final double DEFAULTRIDGE = 1e-3;                                                    //Ridge penalty, keeps the fit stable when features move together
+
+    //DATA STRUCTURES
+    private final List<String> algorithms;                                                      //Algorithms to pick from, as given to Sudoku_AI_Factory
+    private final double[][] coefficients;                                                      //Model of each algorithm, one coefficient per feature
+    private final int lastFeature;                                                              //Last feature any model uses
+
+    /**
+     * Constructor for the class
+     *
+     * @param algorithms the algorithms to pick from
+     * @param coefficients the model of each algorithm, one coefficient per
+     * feature
+     * @throws IllegalArgumentException if there are no algorithms or a model
+     * has the wrong number of coefficients
+     */
+    SudokuAutoPolicy(List<String> algorithms, double[][] coefficients) {
+        if (algorithms.isEmpty() || algorithms.size() != coefficients.length) {
+            throw new IllegalArgumentException("Expected a model for each of " + algorithms.size() + " algorithms");
+        }
+        this.algorithms = Collections.unmodifiableList(new ArrayList<>(algorithms));
+        this.coefficients = new double[coefficients.length][];
+        for (int a = 0; a < coefficients.length; a++) {
+            if (coefficients[a].length != SudokuPuzzleFeatures.COUNT) {
+                throw new IllegalArgumentException("Expected " + SudokuPuzzleFeatures.COUNT + " coefficients for "
+                        + algorithms.get(a) + " but got " + coefficients[a].length);
+            }
+            this.coefficients[a] = coefficients[a].clone();
+        }
+        int last = SudokuPuzzleFeatures.BIAS;
+        for (double[] model : coefficients) {
+            for (int f = last + 1; f < model.length; f++) {
+                if (model[f] != 0) {
+                    last = f;
+                }
+            }
+        }
+        lastFeature = last;
+    }
+
+    /**
+     * Holds the default policy, read the first time it is needed
+     */
+    private static final class DefaultHolder {
+
+        static final SudokuAutoPolicy POLICY = readResource();
+
+        private static SudokuAutoPolicy readResource() {
+            InputStream in = SudokuAutoPolicy.class.getResourceAsStream(RESOURCE);
+            if (in == null) {
+                throw new IllegalStateException("Missing resource " + RESOURCE);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return read(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Gets the default policy, fitted to the benchmark corpus
+     *
+     * @return the policy read from RESOURCE
+     * @throws IllegalStateException if the resource is missing
+     * @throws IllegalArgumentException if the resource is not a valid policy
+     */
+    static SudokuAutoPolicy getDefault() {
+        return DefaultHolder.POLICY;
+    }
+
+    /**
+     * Reads a policy written by write. Blank lines and lines starting with #
+     * are skipped.
+     *
+     * @param in the policy
+     * @return the policy
+     * @throws IOException if the input can not be read
+     * @throws IllegalArgumentException if a line is not a valid model
+     */
+    static SudokuAutoPolicy read(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        List<String> algorithms = new ArrayList<>();
+        List<double[]> coefficients = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length != SudokuPuzzleFeatures.COUNT + 1) {
+                throw new IllegalArgumentException("Expected a name and " + SudokuPuzzleFeatures.COUNT
+                        + " coefficients on line " + lineNumber);
+            }
+            double[] model = new double[SudokuPuzzleFeatures.COUNT];
+            try {
+                for (int f = 0; f < model.length; f++) {
+                    model[f] = Double.parseDouble(fields[f + 1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid coefficient on line " + lineNumber, e);
+            }
+            algorithms.add(fields[0]);
+            coefficients.add(model);
+        }
+        return new SudokuAutoPolicy(algorithms, coefficients.toArray(new double[0][]));
+    }
+
+    /**
+     * Writes the policy in the form read reads
+     *
+     * @param out where to write the policy
+     * @throws IOException if the output can not be written
+     */
+    void write(Writer out) throws IOException {
+        out.write("# Sudoku_AI_Auto policy, the predicted log(nanoseconds) of each algorithm is the sum of its\n");
+        out.write("# coefficient times the feature, for the features:");
+        for (String name : SudokuPuzzleFeatures.NAMES) {
+            out.write(" " + name);
+        }
+        out.write("\n");
+        for (int a = 0; a < algorithms.size(); a++) {
+            out.write(algorithms.get(a));
+            for (double coefficient : coefficients[a]) {
+                out.write("\t" + coefficient);
+            }
+            out.write("\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * Fits a policy to timings of the algorithms by ridge regression of the
+     * log times on the features, with a penalty of DEFAULTRIDGE. The bias is
+     * not penalised.
+     *
+     * @param algorithms the algorithms timed
+     * @param features the features of each puzzle timed
+     * @param nanos the time each algorithm took on each puzzle, indexed by
+     * puzzle then algorithm
+     * @param lastFeature index of the last feature to use, the coefficients
+     * of those after it are 0
+     * @return the fitted policy
+     * @throws IllegalArgumentException if there are no puzzles, or not a time
+     * for every algorithm on every puzzle
+     */
+    static SudokuAutoPolicy fit(List<String> algorithms, List<double[]> features, List<long[]> nanos, int lastFeature) {
+        int count = lastFeature + 1;
+        if (features.isEmpty() || features.size() != nanos.size()) {
+            throw new IllegalArgumentException("Expected the times of every puzzle, got " + nanos.size()
+                    + " for " + features.size() + " puzzles");
+        }
+
+        double[][] gram = new double[count][count];                                             //Features times their transpose, shared by every algorithm
+        for (double[] x : features) {
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < count; j++) {
+                    gram[i][j] += x[i] * x[j];
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (i != SudokuPuzzleFeatures.BIAS) {
+                gram[i][i] += DEFAULTRIDGE * features.size();
+            }
+        }
+
+        double[][] coefficients = new double[algorithms.size()][];
+        for (int a = 0; a < algorithms.size(); a++) {
+            double[] moment = new double[count];
+            for (int p = 0; p < features.size(); p++) {
+                if (nanos.get(p).length != algorithms.size()) {
+                    throw new IllegalArgumentException("Expected " + algorithms.size() + " times for puzzle " + p);
+                }
+                double logTime = Math.log(Math.max(1, nanos.get(p)[a]));
+                for (int i = 0; i < count; i++) {
+                    moment[i] += features.get(p)[i] * logTime;
+                }
+            }
+            coefficients[a] = Arrays.copyOf(solveLinear(gram, moment), SudokuPuzzleFeatures.COUNT);
+        }
+        return new SudokuAutoPolicy(algorithms, coefficients);
+    }
+
+    /**
+     * Solves a small linear system by Gaussian elimination with partial
+     * pivoting
+     *
+     * @param matrix the system's matrix, not changed
+     * @param vector the right hand side, not changed
+     * @return the solution
+     */
+    private static double[] solveLinear(double[][] matrix, double[] vector) {
+        int n = vector.length;
+        double[][] a = new double[n][];
+        for (int i = 0; i < n; i++) {
+            a[i] = new double[n + 1];
+            System.arraycopy(matrix[i], 0, a[i], 0, n);
+            a[i][n] = vector[i];
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            if (a[col][col] == 0) {                                                             //Feature never varies, leave its coefficient at 0
+                continue;
+            }
+            for (int row = col + 1; row < n; row++) {
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k <= n; k++) {
+                    a[row][k] -= factor * a[col][k];
+                }
+            }
+        }
+        double[] solution = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            if (a[row][row] == 0) {
+                continue;
+            }
+            double sum = a[row][n];
+            for (int k = row + 1; k < n; k++) {
+                sum -= a[row][k] * solution[k];
+            }
+            solution[row] = sum / a[row][row];
+        }
+        return solution;
+    }
+
+    /**
+     * Predicts the log of each algorithm's solve time in nanoseconds
+     *
+     * @param features the puzzle's features, from SudokuPuzzleFeatures
+     * @param algorithm index of the algorithm in getAlgorithmNames
+     * @return the predicted log time
+     */
+    double predictLogNanos(double[] features, int algorithm) {
+        double prediction = 0;
+        for (int f = 0; f < features.length; f++) {
+            prediction += coefficients[algorithm][f] * features[f];
+        }
+        return prediction;
+    }
+
+    /**
+     * Picks the algorithm predicted to solve a puzzle fastest
+     *
+     * @param features the puzzle's features, from SudokuPuzzleFeatures
+     * @return index of the algorithm in getAlgorithmNames
+     */
+    int choose(double[] features) {
+        int best = 0;
+        double bestPrediction = predictLogNanos(features, 0);
+        for (int a = 1; a < algorithms.size(); a++) {
+            double prediction = predictLogNanos(features, a);
+            if (prediction < bestPrediction) {
+                best = a;
+                bestPrediction = prediction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the last feature the policy uses, the features after it need not
+     * be worked out
+     *
+     * @return index of the feature in SudokuPuzzleFeatures
+     */
+    int getLastFeature() {
+        return lastFeature;
+    }
+
+    /**
+     * Gets the algorithms the policy picks from
+     *
+     * @return the names as given to Sudoku_AI_Factory
+     */
+    List<String> getAlgorithmNames() {
+        return algorithms;
+    }
+
+}
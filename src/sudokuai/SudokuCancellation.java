@@ -0,0 +1,107 @@
+package sudokuai;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a solve be stopped from outside, either by cancelling it from another
+ * thread or by giving it a deadline. The Sudoku_AI algorithms check it every
+ * CHECKINTERVAL search nodes, so checking costs next to nothing and a stopped
+ * solve ends within a few hundred nodes.
+ *
+ * A cancellation can have a parent, it is then also stopped when the parent
+ * is. The parallel search uses this to stop its tasks either when one of them
+ * finds the answer or when the caller cancels.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuCancellation {
+
+    //CLASS VARIABLES
+    static final int CHECKINTERVAL = 256;                                                       //Search nodes between checks
+    private static final long NODEADLINE = Long.MAX_VALUE;                                      //Marks a cancellation without a deadline
+
+    //DATA STRUCTURES
+    private final SudokuCancellation parent;                                                    //Also stops this one when stopped, may be null
+    private final long deadline;                                                                //System.nanoTime() to stop at, or NODEADLINE
+    private volatile boolean cancelled;                                                         //Set by cancel(), read by the solving thread
+
+    /**
+     * Constructor for the class, only stopped by calling cancel
+     */
+    public SudokuCancellation() {
+        this(null, NODEADLINE);
+    }
+
+    /**
+     * Constructor for the class, stopped by calling cancel or when the parent
+     * is stopped
+     *
+     * @param parent the cancellation this one follows
+     */
+    public SudokuCancellation(SudokuCancellation parent) {
+        this(parent, NODEADLINE);
+    }
+
+    private SudokuCancellation(SudokuCancellation parent, long deadline) {
+        this.parent = parent;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a cancellation that times out after the given time from now, it
+     * can also be cancelled early
+     *
+     * @param timeout the time allowed
+     * @param unit the unit of the timeout
+     * @return the cancellation
+     */
+    public static SudokuCancellation withTimeout(long timeout, TimeUnit unit) {
+        return withTimeout(null, timeout, unit);
+    }
+
+    /**
+     * Creates a cancellation that times out after the given time from now, it
+     * is also stopped by calling cancel or when the parent is stopped
+     *
+     * @param parent the cancellation this one follows, may be null
+     * @param timeout the time allowed
+     * @param unit the unit of the timeout
+     * @return the cancellation
+     */
+    public static SudokuCancellation withTimeout(SudokuCancellation parent, long timeout, TimeUnit unit) {
+        return new SudokuCancellation(parent, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Asks every solve using this cancellation to stop, safe to call from any
+     * thread
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether cancel has been called, on this or a parent
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Checks whether a solve should stop and why
+     *
+     * @return CANCELLED or TIMED_OUT, or null to carry on
+     */
+    SudokuSolveResult.Status getStopStatus() {
+        if (cancelled) {
+            return SudokuSolveResult.Status.CANCELLED;
+        }
+        if (deadline != NODEADLINE && System.nanoTime() - deadline >= 0) {                     //Compared by difference, nanoTime can overflow
+            return SudokuSolveResult.Status.TIMED_OUT;
+        }
+        return parent == null ? null : parent.getStopStatus();
+    }
+
+}
@@ -0,0 +1,870 @@
+package sudokuai;
+
+import java.util.Arrays;
+
+/**
+ * Reduces a 9x9 puzzle to the canonical form of every puzzle it can be turned
+ * into by the transforms that keep a sudoku valid: relabelling the digits,
+ * swapping rows within a band, swapping bands, the same for columns and
+ * stacks, and transposing. Two puzzles have the same canonical form exactly
+ * when one is a transform of the other, so it can be used to find duplicates
+ * in a corpus, and a solution found for the canonical form solves both once it
+ * is mapped back through each puzzle's transform, as Sudoku_AI_Cached does.
+ *
+ * The canonical form is the minlex form, the transform whose cells read row
+ * by row are lexicographically smallest with empty cells as 0 and the digits
+ * relabelled in order of first appearance. Of the roughly 1.2 trillion
+ * transforms only a handful are ever looked at:
+ *
+ * The form is built a row at a time, keeping only the partial transforms,
+ * the candidates, whose rows so far are the smallest. A candidate fixes the
+ * transpose and the rows used so far, the order of the stacks once a row has
+ * a value, but not the order of the columns within each stack. Columns that
+ * have read the same in every row so far are kept as a group in any order,
+ * and a group is only split by the first row that reads differently in its
+ * columns, with the empty cells first, then the smallest label first. New
+ * values that fill the rest of a group are not put in any order: they wait as
+ * a run, each taking the label of the position its column ends up at once the
+ * rows below split the run, so a row of new values is one candidate rather
+ * than one for every order of its columns. Only columns that tie on the
+ * smallest label are tried in each order, each of which gives a candidate,
+ * so the candidates stay few. Which cells of a row hold a value is worked out
+ * from a bit mask first, which rules out most rows without reading them, and
+ * the rest are dropped at the first cell that makes them larger than the
+ * smallest so far.
+ *
+ * Nearly full grids are the slowest, their rows tie on many column orders
+ * until the rows below tell them apart, and a full grid takes some 25 times
+ * as long as a typical puzzle.
+ *
+ * A puzzle with a value repeated in a row or column has no solution, and the
+ * form found for it is still one of its transforms, but not always the same
+ * one for every transform of it.
+ *
+ * Not thread safe, each thread needs its own canonicalizer. All the working
+ * storage is kept between puzzles, so once warmed up canonicalizing allocates
+ * only the Form it returns.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuCanonicalizer {
+
+    //CLASS VARIABLES
+    private static final int BOXSIZE = 3;                                                       //Only standard 9x9 puzzles are canonicalized
+    private static final int BOARDSIZE = BOXSIZE * BOXSIZE;                                     //length of rows & columns
+    private static final int CELLS = BOARDSIZE * BOARDSIZE;                                     //Number of cells on the board
+    private static final int LABELS = BOARDSIZE + 1;                                            //Labels stored per candidate, index 0 is the empty cell
+    private static final int[][] STACKORDERS = {
+        {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};                      //Every order of the stacks
+    private static final int ALLCOLUMNS = (1 << BOARDSIZE) - 1;                                 //Every column, as bits
+    private static final int TRAIL = 4 * CELLS;                                                 //Room for the entries set while a row is read
+    private static final int STACKGROUPS = 1 | (1 << BOXSIZE) | (1 << (2 * BOXSIZE));           //Bits of the first column of each stack, where groups always start
+
+    //DATA STRUCTURES
+    private final int[][] grids = new int[2][CELLS];                                            //The puzzle and its transpose, 0 for an empty cell
+    private final int[][] rowMasks = new int[2][BOARDSIZE];                                     //Columns of each row of grids that hold a value, as bits
+    private final int[] bestRow = new int[BOARDSIZE];                                           //Smallest row found at the current level
+    private final int[] row = new int[BOARDSIZE];                                               //Row being compared with bestRow
+    private final int[] columns = new int[BOARDSIZE];                                           //Source column read at each position, -1 while it has none
+    private final int[] columnPositions = new int[BOARDSIZE];                                   //Position each source column is read at, -1 while it has none
+    private final int[] labels = new int[LABELS];                                               //Labels while a row is read, -1 less its column for a value waiting
+    private final int[] columnGroups = new int[BOARDSIZE];                                      //Start of the group of the candidate each source column is in
+    private final int[] groupOf = new int[BOARDSIZE];                                           //Start of the group of the candidate each position is in
+    private final int[] blockStarts = new int[BOARDSIZE];                                       //At the start of each run, where its empty cells in the row start, -1 until reached
+    private final int[] blockEnds = new int[BOARDSIZE];                                         //At the start of each run, where its empty cells in the row end
+    private final int[] runLabels = new int[BOARDSIZE];                                         //At the start of each run of the row read, the label of its first position
+    private final int[] runRows = new int[BOARDSIZE];                                           //At the start of each run of the row read, the source row of its values
+    private final int[] peeks = new int[CELLS];                                                 //Label each column would read at each position
+    private final int[] comparedAt = new int[BOARDSIZE + 1];                                    //Before each position, 0 while the row matches bestRow, less than 0 once smaller
+    private final int[][] trailArrays = new int[TRAIL][];                                       //Entries set while a row is read, to undo them
+    private final int[] trailIndexes = new int[TRAIL];
+    private final int[] trailValues = new int[TRAIL];
+    private final int[] seen = new int[2 << BOARDSIZE];                                         //Stamp of the level each empty candidate was last kept at
+    private int stamp;                                                                          //Changes for every level of every puzzle, so seen never needs clearing
+    private int bestFilled;                                                                     //Cells of bestRow that hold a value, as bits with the first cell highest
+    private boolean found;                                                                      //True once bestRow holds a row at the current level
+    private Candidates reading;                                                                 //Candidates holding the one a row is being read for
+    private int readIndex;                                                                      //Index of that candidate
+    private int readLevel;                                                                      //The row being filled
+    private int source;                                                                         //The source row being read
+    private int readFilled;                                                                     //Cells of the row being read that hold a value, as filledCells gives them
+    private int[] grid;                                                                         //The grid the row is read from
+    private int rowStart;                                                                       //Index in grid of the source row
+    private int emptyColumns;                                                                   //Columns of the source row that are empty, as bits
+    private int singles;                                                                        //Positions of the candidate whose group is a single column, as bits
+    private int trailSize;                                                                      //Entries in the trail
+    private Candidates candidates = new Candidates();                                           //Partial transforms tied for the smallest rows so far
+    private Candidates extended = new Candidates();                                             //Candidates extended by one more row
+
+    /**
+     * Finds the canonical form of a puzzle
+     *
+     * @param puzzle a 9x9 puzzle, empty cells are null
+     * @return the canonical form and the transform to it
+     * @throws IllegalArgumentException if the puzzle is not 9x9 or has a value
+     * outside 1-9
+     */
+    public Form canonicalize(Integer[][] puzzle) {
+        if (puzzle.length != BOARDSIZE) {
+            throw new IllegalArgumentException("Only 9x9 puzzles can be canonicalized");
+        }
+        for (int r = 0; r < BOARDSIZE; r++) {
+            if (puzzle[r].length != BOARDSIZE) {
+                throw new IllegalArgumentException("Only 9x9 puzzles can be canonicalized");
+            }
+            for (int c = 0; c < BOARDSIZE; c++) {
+                Integer value = puzzle[r][c];
+                if (value != null && (value < 1 || value > BOARDSIZE)) {
+                    throw new IllegalArgumentException("Invalid value " + value + " at row " + r + ", column " + c);
+                }
+                grids[0][r * BOARDSIZE + c] = value == null ? 0 : value;
+                grids[1][c * BOARDSIZE + r] = value == null ? 0 : value;
+            }
+        }
+        return canonicalize();
+    }
+
+    /**
+     * Finds the canonical form of a puzzle written as SudokuPuzzleFormat
+     * parses it, 81 characters with '0' or '.' for an empty cell
+     *
+     * @param puzzle the puzzle
+     * @return the canonical form and the transform to it
+     * @throws IllegalArgumentException if the puzzle is not 81 cells or has a
+     * value outside 1-9
+     */
+    public Form canonicalize(CharSequence puzzle) {
+        if (puzzle.length() != CELLS) {
+            throw new IllegalArgumentException("Expected " + CELLS + " cells but got " + puzzle.length());
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            char c = puzzle.charAt(cell);
+            int value = c == '.' ? 0 : c - '0';
+            if (value < 0 || value > BOARDSIZE) {
+                throw new IllegalArgumentException("Invalid value '" + c + "' at cell " + cell);
+            }
+            grids[0][cell] = value;
+            grids[1][(cell % BOARDSIZE) * BOARDSIZE + cell / BOARDSIZE] = value;
+        }
+        return canonicalize();
+    }
+
+    /**
+     * Finds the canonical form of the puzzle in grids
+     *
+     * @return the canonical form and the transform to it
+     */
+    private Form canonicalize() {
+        for (int t = 0; t < 2; t++) {
+            for (int r = 0; r < BOARDSIZE; r++) {
+                int mask = 0;
+                for (int c = 0; c < BOARDSIZE; c++) {
+                    if (grids[t][r * BOARDSIZE + c] != 0) {
+                        mask |= 1 << c;
+                    }
+                }
+                rowMasks[t][r] = mask;
+            }
+        }
+
+        candidates.size = 0;
+        for (int c = 0; c < BOARDSIZE; c++) {
+            columns[c] = c;
+        }
+        for (int t = 0; t < 2; t++) {                                                           //The order of the stacks is left until a row has a value
+            int i = candidates.add(t, 0, 1, STACKGROUPS, 0);
+            candidates.setColumns(i, columns);
+            Arrays.fill(candidates.labels, i * LABELS, (i + 1) * LABELS, 0);
+        }
+
+        boolean empty = true;                                                                   //True while every row read is empty
+        for (int level = 0; level < BOARDSIZE; level++) {
+            if (empty) {
+                empty = extendEmpty(level);
+            } else {
+                extend(level);
+            }
+        }
+        return new Form(candidates, 0, grids[candidates.transposed[0]]);
+    }
+
+    /**
+     * Tries every source row that can go in the next row of each candidate
+     * while every row read so far is empty, and keeps the ones that make it
+     * smallest. The values of the first row with any are all new and labelled
+     * in order, so it is smallest with its stacks in order of how many values
+     * they hold, and which cells hold a value decides between rows. Only the
+     * rows that reach the smallest are read, in every order of the stacks that
+     * does that.
+     *
+     * @param level the row being filled
+     * @return true if the smallest row is empty too
+     */
+    private boolean extendEmpty(int level) {
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates.size; i++) {
+            for (int options = nextRows(candidates, i, level); options != 0; options &= options - 1) {
+                int r = Integer.numberOfTrailingZeros(options);
+                least = Math.min(least, sortedStacksFilled(rowMasks[candidates.transposed[i]][r]));
+            }
+        }
+
+        extended.size = 0;
+        found = false;
+        stamp++;
+        for (int i = 0; i < candidates.size; i++) {
+            for (int options = nextRows(candidates, i, level); options != 0; options &= options - 1) {
+                int r = Integer.numberOfTrailingZeros(options);
+                int rowMask = rowMasks[candidates.transposed[i]][r];
+                if (sortedStacksFilled(rowMask) != least) {
+                    continue;
+                }
+                if (least == 0) {                                                               //Still empty, the order of the rows used so far doesn't matter
+                    int key = (candidates.transposed[i] << BOARDSIZE) | candidates.used[i] | (1 << r);
+                    if (seen[key] != stamp) {
+                        seen[key] = stamp;
+                        read(candidates, i, level, r, least, found ? 0 : -1);
+                    }
+                    continue;
+                }
+                for (int[] stackOrder : STACKORDERS) {
+                    if (stackValues(rowMask, stackOrder[0]) > stackValues(rowMask, stackOrder[1])
+                            || stackValues(rowMask, stackOrder[1]) > stackValues(rowMask, stackOrder[2])) {
+                        continue;
+                    }
+                    for (int c = 0; c < BOARDSIZE; c++) {                                       //The candidate takes each order in turn
+                        columns[c] = stackOrder[c / BOXSIZE] * BOXSIZE + c % BOXSIZE;
+                    }
+                    candidates.setColumns(i, columns);
+                    read(candidates, i, level, r, least, found ? 0 : -1);
+                }
+            }
+        }
+        swapCandidates();
+        return least == 0;
+    }
+
+    /**
+     * Works out which cells of a source row hold a value when it is the first
+     * row with any and its stacks are put in order of how many values they
+     * hold
+     *
+     * @param rowMask columns of the source row that hold a value, as bits
+     * @return the cells holding a value, as filledCells gives them
+     */
+    private static int sortedStacksFilled(int rowMask) {
+        int a = stackValues(rowMask, 0);
+        int b = stackValues(rowMask, 1);
+        int c = stackValues(rowMask, 2);
+        int least = Math.min(a, Math.min(b, c));
+        int most = Math.max(a, Math.max(b, c));
+        int middle = a + b + c - least - most;
+        return (((1 << least) - 1) << (2 * BOXSIZE)) | (((1 << middle) - 1) << BOXSIZE) | ((1 << most) - 1);
+    }
+
+    private static int stackValues(int rowMask, int stack) {
+        return Integer.bitCount((rowMask >> (stack * BOXSIZE)) & ((1 << BOXSIZE) - 1));
+    }
+
+    /**
+     * Tries every source row that can go in the next row of each candidate,
+     * and keeps the ones that make it smallest
+     *
+     * @param level the row being filled
+     */
+    private void extend(int level) {
+        extended.size = 0;
+        found = false;
+        for (int i = 0; i < candidates.size; i++) {
+            for (int options = nextRows(candidates, i, level); options != 0; options &= options - 1) {
+                int r = Integer.numberOfTrailingZeros(options);
+                int filled = filledCells(candidates, i, rowMasks[candidates.transposed[i]][r]);
+                int first = Integer.highestOneBit(filled ^ bestFilled);                         //First cell where one row is empty and the other isn't
+                boolean decided = found && first != 0 && (filled & -(first << 1)) == 0;        //Every cell before it is empty in both, so it decides
+                if (decided && filled > bestFilled) {
+                    continue;
+                }
+                read(candidates, i, level, r, filled, found && !decided ? 0 : -1);
+            }
+        }
+        swapCandidates();
+    }
+
+    private void swapCandidates() {
+        Candidates swap = candidates;
+        candidates = extended;
+        extended = swap;
+    }
+
+    /**
+     * Works out which cells of a source row hold a value when it is read as the
+     * next row of a candidate, without reading the values. Each group of
+     * columns puts its empty cells first, so only the count of values in each
+     * group matters.
+     *
+     * @param from the candidates
+     * @param i index of the candidate
+     * @param rowMask columns of the source row that hold a value, as bits
+     * @return the cells holding a value, as bits with the first cell highest,
+     * so a row with an empty cell first where another has a value compares
+     * smaller
+     */
+    private static int filledCells(Candidates from, int i, int rowMask) {
+        int filled = 0;
+        for (int starts = from.groupStarts[i]; starts != 0; ) {
+            int start = Integer.numberOfTrailingZeros(starts);
+            starts &= starts - 1;
+            int end = starts == 0 ? BOARDSIZE : Integer.numberOfTrailingZeros(starts);
+            int values = Integer.bitCount(rowMask & from.groupColumns[i * BOARDSIZE + start]);
+            filled |= ((1 << values) - 1) << (BOARDSIZE - end);
+        }
+        return filled;
+    }
+
+    /**
+     * Reads a source row as the next row of a candidate in every column order
+     * that reads smallest, and adds a candidate for each one that is no larger
+     * than bestRow, dropping the candidates added before if it is smaller
+     *
+     * @param from the candidates
+     * @param i index of the candidate
+     * @param level the row being filled
+     * @param r the source row
+     * @param filled the cells of the row that hold a value, as filledCells
+     * gives them
+     * @param compared 0 to compare the row with bestRow, less than 0 if it is
+     * already known to be smaller or there is no bestRow
+     */
+    private void read(Candidates from, int i, int level, int r, int filled, int compared) {
+        reading = from;
+        readIndex = i;
+        readLevel = level;
+        source = r;
+        readFilled = filled;
+        grid = grids[from.transposed[i]];
+        rowStart = r * BOARDSIZE;
+        emptyColumns = ~rowMasks[from.transposed[i]][r];
+        System.arraycopy(from.labels, i * LABELS, labels, 0, LABELS);
+        int starts = from.groupStarts[i];
+        singles = starts & ((starts >> 1) | (1 << (BOARDSIZE - 1)));
+        if (singles != ALLCOLUMNS) {                                                            //Once every column is on its own there is nothing else to set up
+            Arrays.fill(columnPositions, -1);
+            Arrays.fill(columns, -1);
+            Arrays.fill(blockStarts, -1);
+            for (int k = 0, start = 0; k < BOARDSIZE; k++) {
+                if ((starts & (1 << k)) != 0) {
+                    start = k;
+                    for (int group = from.groupColumns[i * BOARDSIZE + k]; group != 0; group &= group - 1) {
+                        columnGroups[Integer.numberOfTrailingZeros(group)] = k;
+                    }
+                }
+                groupOf[k] = start;
+            }
+        }
+        trailSize = 0;
+        comparedAt[0] = compared;
+        readFrom(0, from.next[i], 0, 0);
+    }
+
+    /**
+     * Reads the rest of the row from a position on, in every column order
+     * that can still read smallest. The columns of a group are put empty cells
+     * first, then the smallest label first, trying each column that gives it.
+     * New values that fill the rest of a group are not ordered at all but left
+     * waiting as a run, their labels going by the positions their columns
+     * end up at, which the rows below decide. A waiting value read again takes
+     * the first position of its run still free, the smallest label it can have.
+     *
+     * @param k the position to read
+     * @param next label the next new value gets
+     * @param starts groups of the columns read so far, a bit at the start of
+     * each
+     * @param waiting runs of values still waiting, a bit at the start of each
+     */
+    private void readFrom(int k, int next, int starts, int waiting) {
+        for (; k < BOARDSIZE && (singles & (1 << k)) != 0; k++) {                               //A single column, nothing to order
+            int c = reading.columns[readIndex * BOARDSIZE + k];
+            columns[k] = c;
+            int label = readLabel(c, next);
+            if (!compare(k, label)) {
+                return;
+            }
+            if (label == next) {
+                next++;
+            }
+            starts |= 1 << k;
+        }
+        if (k == BOARDSIZE) {
+            addRead(next, starts, waiting);
+            return;
+        }
+        int mark = trailSize;
+        int start = groupOf[k];
+        boolean run = (reading.pending[readIndex] & (1 << start)) != 0;
+        if (run && columns[k] >= 0) {                                                           //Taken by a waiting value read earlier
+            int label = readLabel(columns[k], next);
+            if (compare(k, label)) {
+                readFrom(k + 1, label == next ? next + 1 : next, starts | (1 << k), waiting);
+            }
+            undo(mark);
+            return;
+        }
+
+        int open = reading.groupColumns[readIndex * BOARDSIZE + start];
+        if (run) {
+            for (int group = open; group != 0; group &= group - 1) {
+                int c = Integer.numberOfTrailingZeros(group);
+                if (columnPositions[c] >= 0) {
+                    open &= ~(1 << c);
+                }
+            }
+        } else {
+            for (int p = start; p < k; p++) {                                                   //Any other group is read in order, so only needs the columns it has put
+                open &= ~(1 << columns[p]);
+            }
+        }
+        int empty = open & emptyColumns;
+        if (empty != 0 && (!run || blockStarts[start] < 0)) {                                   //Empty cells first, as one group
+            int end = k + Integer.bitCount(empty);
+            for (int p = k; p < end; p++) {
+                if (!compare(p, 0)) {
+                    return;
+                }
+            }
+            if (run) {                                                                          //Left free, waiting values read later may still take them
+                set(blockStarts, start, k);
+                set(blockEnds, start, end);
+                readFrom(end, next, starts, waiting);
+            } else {
+                for (int p = k; empty != 0; empty &= empty - 1) {
+                    columns[p++] = Integer.numberOfTrailingZeros(empty);
+                }
+                readFrom(end, next, starts | (1 << k), waiting);
+            }
+            undo(mark);
+            return;
+        }
+
+        int least = Integer.MAX_VALUE;
+        int filled = open & ~emptyColumns;
+        for (int values = filled; values != 0; values &= values - 1) {
+            int c = Integer.numberOfTrailingZeros(values);
+            peeks[k * BOARDSIZE + c] = peekLabel(c, k, next);
+            least = Math.min(least, peeks[k * BOARDSIZE + c]);
+        }
+        if (comparedAt[k] == 0 && least > bestRow[k]) {
+            return;
+        }
+        if (least == next && !run && Integer.bitCount(filled) > 1 && !hasRepeats()) {           //Only new values left, they wait as a run
+            int end = k + Integer.bitCount(filled);
+            for (int p = k; p < end; p++) {
+                if (!compare(p, next + p - k)) {
+                    return;
+                }
+            }
+            for (int p = k; filled != 0; filled &= filled - 1) {
+                int c = Integer.numberOfTrailingZeros(filled);
+                columns[p++] = c;
+                set(labels, grid[rowStart + c], -1 - c);
+            }
+            runLabels[k] = next;
+            runRows[k] = source;
+            readFrom(end, next + end - k, starts | (1 << k), waiting | (1 << k));
+            undo(mark);
+            return;
+        }
+        for (int values = filled; values != 0; values &= values - 1) {                          //Each column giving the smallest label in turn
+            int c = Integer.numberOfTrailingZeros(values);
+            if (peeks[k * BOARDSIZE + c] != least) {
+                continue;
+            }
+            if (run) {
+                place(c, k);
+            } else {
+                columns[k] = c;
+            }
+            if (compare(k, readLabel(c, next))) {
+                readFrom(k + 1, least == next ? next + 1 : next, starts | (1 << k), waiting);
+            }
+            undo(mark);
+        }
+    }
+
+    /**
+     * Checks if the source row has a value twice, so a value read again could
+     * not tell which of its new labels it has
+     */
+    private boolean hasRepeats() {
+        int values = 0;
+        for (int c = 0; c < BOARDSIZE; c++) {
+            int value = grid[rowStart + c];
+            if (value != 0 && (values & (1 << value)) != 0) {
+                return true;
+            }
+            values |= 1 << value;
+        }
+        return false;
+    }
+
+    /**
+     * Compares the label read at a position with bestRow
+     *
+     * @return false if the row is now larger than bestRow
+     */
+    private boolean compare(int k, int label) {
+        int compared = comparedAt[k];
+        if (compared == 0 && label != bestRow[k]) {
+            if (label > bestRow[k]) {
+                return false;
+            }
+            compared = -1;
+        }
+        row[k] = label;
+        comparedAt[k + 1] = compared;
+        return true;
+    }
+
+    /**
+     * Adds a candidate for the row read. The empty cells of a run left free
+     * wait as a run of their own, or take their label if there is only one.
+     */
+    private void addRead(int next, int starts, int waiting) {
+        if (comparedAt[BOARDSIZE] < 0) {                                                        //A new smallest row, drop the candidates tied for the old one
+            extended.size = 0;
+            System.arraycopy(row, 0, bestRow, 0, BOARDSIZE);
+            bestFilled = readFilled;
+            found = true;
+            Arrays.fill(comparedAt, 0);                                                         //Every row still being read matches it so far
+        }
+        int mark = trailSize;
+        int base = readIndex * BOARDSIZE;
+        for (int runs = reading.pending[readIndex]; runs != 0; runs &= runs - 1) {
+            int start = Integer.numberOfTrailingZeros(runs);
+            if (blockStarts[start] < 0) {
+                continue;
+            }
+            int free = blockStarts[start];
+            for (; free < blockEnds[start] && columns[free] >= 0; free++) {
+                starts |= 1 << free;                                                            //Taken by a waiting value, in the order it was read
+            }
+            int left = blockEnds[start] - free;
+            if (left == 0) {
+                continue;
+            }
+            starts |= 1 << free;
+            int p = free;
+            for (int group = reading.groupColumns[base + start]; group != 0; group &= group - 1) {
+                int c = Integer.numberOfTrailingZeros(group);
+                if (columnPositions[c] >= 0) {
+                    continue;
+                }
+                if (left == 1) {
+                    place(c, p);
+                } else {                                                                        //Its value keeps waiting, on the same column
+                    set(columnPositions, c, p);
+                    set(columns, p, c);
+                }
+                p++;
+            }
+            if (left > 1) {
+                runLabels[free] = reading.runLabels[base + start] + free - start;
+                runRows[free] = reading.runRows[base + start];
+                waiting |= 1 << free;
+            }
+        }
+        extended.addRow(reading, readIndex, readLevel, source, columns, labels, next, starts, waiting, runLabels,
+                runRows);
+        undo(mark);
+    }
+
+    /**
+     * Puts a column at a position, which gives its waiting value a label
+     */
+    private void place(int c, int k) {
+        set(columnPositions, c, k);
+        set(columns, k, c);
+        int start = columnGroups[c];
+        if ((reading.pending[readIndex] & (1 << start)) != 0) {
+            int base = readIndex * BOARDSIZE;
+            set(labels, grid[reading.runRows[base + start] * BOARDSIZE + c], reading.runLabels[base + start] + k - start);
+        }
+    }
+
+    /**
+     * Reads the label of the value in a column just placed, giving a new value
+     * the next label and a waiting value the first free position of its run
+     */
+    private int readLabel(int c, int next) {
+        int value = grid[rowStart + c];
+        if (value == 0) {
+            return 0;
+        }
+        int label = labels[value];
+        if (label == 0) {
+            set(labels, value, next);
+            return next;
+        }
+        if (label < 0) {
+            int column = -1 - label;
+            place(column, freePosition(columnGroups[column], column, -1));
+            return labels[value];
+        }
+        return label;
+    }
+
+    /**
+     * Works out the label the value in a column would read with the column
+     * at a position, without placing it
+     */
+    private int peekLabel(int c, int k, int next) {
+        int value = grid[rowStart + c];
+        if (value == 0) {
+            return 0;
+        }
+        int label = labels[value];
+        if (label >= 0) {
+            return label == 0 ? next : label;
+        }
+        int column = -1 - label;
+        int start = columnGroups[column];
+        int position = column == c ? k : freePosition(start, column, k);
+        return reading.runLabels[readIndex * BOARDSIZE + start] + position - start;
+    }
+
+    /**
+     * Finds the first position of a run still free for one of its columns.
+     * Once the run has been reached its empty cells are kept together, so a
+     * column empty in the row read only goes among them and the rest only go
+     * after them.
+     *
+     * @param start the start of the run
+     * @param c the column
+     * @param skip a position taken by another column, or -1
+     */
+    private int freePosition(int start, int c, int skip) {
+        int blockStart = blockStarts[start];
+        boolean inBlock = blockStart >= 0 && (emptyColumns & (1 << c)) != 0;
+        for (int k = inBlock ? blockStart : start; ; k++) {
+            boolean block = blockStart >= 0 && k >= blockStart && k < blockEnds[start];
+            if (columns[k] < 0 && k != skip && block == inBlock) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * Sets an entry of the working storage, remembering the old value for undo
+     */
+    private void set(int[] array, int index, int value) {
+        trailArrays[trailSize] = array;
+        trailIndexes[trailSize] = index;
+        trailValues[trailSize++] = array[index];
+        array[index] = value;
+    }
+
+    /**
+     * Puts back every entry set since the trail held mark entries
+     */
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            trailSize--;
+            trailArrays[trailSize][trailIndexes[trailSize]] = trailValues[trailSize];
+        }
+    }
+    /**
+     * Works out the source rows that can go in a row of a candidate, the rest
+     * of the band started by the rows above it, or any row of an unused band
+     * when it starts a band
+     *
+     * @param from the candidates
+     * @param i index of the candidate
+     * @param level the row being filled
+     * @return the source rows, as bits
+     */
+    private static int nextRows(Candidates from, int i, int level) {
+        int used = from.used[i];
+        int bandRows = (1 << BOXSIZE) - 1;
+        if (level % BOXSIZE != 0) {
+            int band = from.rows[i * BOARDSIZE + level - 1] / BOXSIZE;
+            return (bandRows << (band * BOXSIZE)) & ~used;
+        }
+        int options = 0;
+        for (int band = 0; band < BOXSIZE; band++) {
+            if (((used >> (band * BOXSIZE)) & bandRows) == 0) {
+                options |= bandRows << (band * BOXSIZE);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Partial transforms, the transpose, the order of the stacks and of the
+     * groups of columns, and the source rows of the rows filled so far, with
+     * the labels given to the values seen in them. Held as parallel arrays
+     * that grow as needed and are reused.
+     */
+    private static final class Candidates {
+
+        private int size;                                                                       //Number of candidates held
+        private int[] transposed = new int[64];                                                 //1 if the rows are read from the transpose
+        private int[] used = new int[64];                                                       //Source rows used so far, as bits
+        private int[] next = new int[64];                                                       //Label the next new value gets
+        private int[] groupStarts = new int[64];                                                //A bit at the first column of each group of columns
+        private int[] pending = new int[64];                                                    //A bit at the first column of each run of values waiting for their labels
+        private int[] columns = new int[64 * BOARDSIZE];                                        //Source column of each column, any order within a group
+        private int[] groupColumns = new int[64 * BOARDSIZE];                                   //At the first column of each group, the source columns in it as bits
+        private int[] rows = new int[64 * BOARDSIZE];                                           //Source row of each row filled so far
+        private int[] labels = new int[64 * LABELS];                                            //Label of each source value seen so far, 0 if none yet, -1 less its column if waiting
+        private int[] runLabels = new int[64 * BOARDSIZE];                                      //At the start of each run, the label of its first position
+        private int[] runRows = new int[64 * BOARDSIZE];                                        //At the start of each run, the source row of its values
+
+        int add(int t, int usedRows, int nextLabel, int starts, int runs) {
+            if (size == transposed.length) {
+                int capacity = size * 2;
+                transposed = Arrays.copyOf(transposed, capacity);
+                used = Arrays.copyOf(used, capacity);
+                next = Arrays.copyOf(next, capacity);
+                groupStarts = Arrays.copyOf(groupStarts, capacity);
+                pending = Arrays.copyOf(pending, capacity);
+                columns = Arrays.copyOf(columns, capacity * BOARDSIZE);
+                groupColumns = Arrays.copyOf(groupColumns, capacity * BOARDSIZE);
+                rows = Arrays.copyOf(rows, capacity * BOARDSIZE);
+                labels = Arrays.copyOf(labels, capacity * LABELS);
+                runLabels = Arrays.copyOf(runLabels, capacity * BOARDSIZE);
+                runRows = Arrays.copyOf(runRows, capacity * BOARDSIZE);
+            }
+            transposed[size] = t;
+            used[size] = usedRows;
+            next[size] = nextLabel;
+            groupStarts[size] = starts;
+            pending[size] = runs;
+            return size++;
+        }
+
+        /**
+         * Sets the column order of a candidate, its groups already set
+         */
+        void setColumns(int j, int[] columnOrder) {
+            System.arraycopy(columnOrder, 0, columns, j * BOARDSIZE, BOARDSIZE);
+            int start = 0;
+            for (int k = 0; k < BOARDSIZE; k++) {
+                if ((groupStarts[j] & (1 << k)) != 0) {
+                    start = k;
+                    groupColumns[j * BOARDSIZE + k] = 0;
+                }
+                groupColumns[j * BOARDSIZE + start] |= 1 << columnOrder[k];
+            }
+        }
+
+        /**
+         * Adds a candidate made by putting one more row on another
+         */
+        void addRow(Candidates from, int i, int level, int source, int[] columnOrder, int[] rowLabels, int nextLabel,
+                int starts, int runs, int[] firstLabels, int[] sourceRows) {
+            int j = add(from.transposed[i], from.used[i] | (1 << source), nextLabel, starts, runs);
+            setColumns(j, columnOrder);
+            System.arraycopy(from.rows, i * BOARDSIZE, rows, j * BOARDSIZE, level);
+            rows[j * BOARDSIZE + level] = source;
+            System.arraycopy(rowLabels, 0, labels, j * LABELS, LABELS);
+            if (runs != 0) {
+                System.arraycopy(firstLabels, 0, runLabels, j * BOARDSIZE, BOARDSIZE);
+                System.arraycopy(sourceRows, 0, runRows, j * BOARDSIZE, BOARDSIZE);
+            }
+        }
+
+    }
+
+    /**
+     * Canonical form of a puzzle, with the transform that turns the puzzle
+     * into it and the inverse that turns a solution of the canonical form back
+     * into a solution of the puzzle
+     */
+    public static final class Form {
+
+        private final byte[] cells;                                                             //The canonical form, 0 for an empty cell
+        private final int[] sourceCells;                                                        //Cell of the puzzle each canonical cell comes from
+        private final int[] labels;                                                             //Canonical value of each puzzle value
+        private final int[] values;                                                             //Puzzle value of each canonical value
+
+        private Form(Candidates from, int i, int[] grid) {
+            cells = new byte[CELLS];
+            sourceCells = new int[CELLS];
+            labels = Arrays.copyOfRange(from.labels, i * LABELS, (i + 1) * LABELS);
+            values = new int[LABELS];
+
+            int base = i * BOARDSIZE;
+            for (int runs = from.pending[i]; runs != 0; runs &= runs - 1) {                     //Values still waiting take the labels of the positions they ended at
+                int start = Integer.numberOfTrailingZeros(runs);
+                int later = from.groupStarts[i] & -(2 << start);
+                int end = later == 0 ? BOARDSIZE : Integer.numberOfTrailingZeros(later);
+                for (int k = start; k < end; k++) {
+                    labels[grid[from.runRows[base + start] * BOARDSIZE + from.columns[base + k]]]
+                            = from.runLabels[base + start] + k - start;
+                }
+            }
+            int next = from.next[i];
+            for (int value = 1; value <= BOARDSIZE; value++) {                                  //Values missing from the puzzle take the labels left, in order
+                if (labels[value] == 0) {
+                    labels[value] = next++;
+                }
+                values[labels[value]] = value;
+            }
+            boolean transposed = from.transposed[i] == 1;
+            for (int r = 0; r < BOARDSIZE; r++) {
+                int sourceRow = from.rows[i * BOARDSIZE + r];
+                for (int c = 0; c < BOARDSIZE; c++) {
+                    int sourceCol = from.columns[i * BOARDSIZE + c];                            //Columns still grouped are empty in every row, any order reads the same
+                    cells[r * BOARDSIZE + c] = (byte) labels[grid[sourceRow * BOARDSIZE + sourceCol]];
+                    sourceCells[r * BOARDSIZE + c] = transposed
+                            ? sourceCol * BOARDSIZE + sourceRow : sourceRow * BOARDSIZE + sourceCol;
+                }
+            }
+        }
+
+        /**
+         * Gets the canonical form as a string, the same for every transform of
+         * the puzzle
+         *
+         * @return the 81 cells row by row, '0' for an empty cell
+         */
+        public String getKey() {
+            char[] key = new char[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                key[i] = (char) ('0' + cells[i]);
+            }
+            return new String(key);
+        }
+
+        /**
+         * Transforms a board laid out like the puzzle, such as its solution,
+         * the same way as the puzzle
+         *
+         * @param board the board, empty cells are null
+         * @return the transformed cells, 0 for an empty cell
+         */
+        public byte[] toCanonical(Integer[][] board) {
+            byte[] canonical = new byte[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                Integer value = board[sourceCells[i] / BOARDSIZE][sourceCells[i] % BOARDSIZE];
+                canonical[i] = (byte) (value == null ? 0 : labels[value]);
+            }
+            return canonical;
+        }
+
+        /**
+         * Transforms a board laid out like the canonical form back to the
+         * layout of the puzzle
+         *
+         * @param canonical the cells of the board, 0 for an empty cell
+         * @param board filled with the board as it is laid out in the puzzle
+         */
+        public void fromCanonical(byte[] canonical, Integer[][] board) {
+            for (int i = 0; i < CELLS; i++) {
+                board[sourceCells[i] / BOARDSIZE][sourceCells[i] % BOARDSIZE]
+                        = canonical[i] == 0 ? null : values[canonical[i]];
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,341 @@
+package sudokuai;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a file of puzzles without the GUI, for running the algorithms on
+ * machines with no display. SudokuAI.main hands over to this class when it is
+ * given any arguments, and nothing here loads a Swing or AWT class.
+ *
+ * Puzzles are read with SudokuPuzzleReader, one per line, solved on a
+ * Sudoku_AI_Batch and written with SudokuSolutionWriter in the same order, so
+ * line n of the output is the solution to puzzle n of the input, or a line of
+ * zeros if it has none or ran out of time. A summary of the run goes to
+ * standard error once every puzzle is written.
+ *
+ * Exits with 0 once every puzzle has been attempted, 1 if the input can't be
+ * read or holds a line that isn't a puzzle, and 2 if the arguments are wrong.
+ *
+ * With --serve it instead runs a SudokuSolveServer on the given port until
+ * the process is stopped, solving at most --threads requests at once.
+ *
+ * @author Nik Bradley
+ */
+final class SudokuCommandLine {
+
+    //CLASS VARIABLES
+    private static final int DEFAULTBOXSIZE = 3;                                                //Game size standard 3
+    private static final String DEFAULTALGORITHM = "Dancing Links";                             //Fastest algorithm for a batch of standard puzzles
+    private static final int DEFAULTMAXQUEUED = 64;                                             //Requests the server lets wait before shedding more
+    static final int EXIT_OK = 0;                                                               //Every puzzle attempted
+    static final int EXIT_FAILED = 1;                                                           //Input or output failed part way through
+    static final int EXIT_USAGE = 2;                                                            //Arguments could not be understood
+
+    private SudokuCommandLine() {
+    }
+
+    /**
+     * Runs the command line on the process's standard streams
+     *
+     * @param args the command line arguments
+     * @return the exit code
+     */
+    static int run(String[] args) {
+        return run(args, new FileInputStream(FileDescriptor.in).getChannel(),
+                new FileOutputStream(FileDescriptor.out).getChannel(), System.err);
+    }
+
+    /**
+     * Runs the command line
+     *
+     * @param args the command line arguments
+     * @param stdin read when the input is "-"
+     * @param stdout written when the output is "-"
+     * @param err where the summary and any errors are printed
+     * @return the exit code
+     */
+    static int run(String[] args, ReadableByteChannel stdin, WritableByteChannel stdout, PrintStream err) {
+        String input = "-";
+        String output = "-";
+        String algorithm = DEFAULTALGORITHM;
+        int boxSize = DEFAULTBOXSIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeoutMillis = 0;
+        boolean timeoutGiven = false;                                                           //Else the server keeps its own default
+        int servePort = 0;
+        boolean serve = false;
+        int maxQueued = DEFAULTMAXQUEUED;
+        int cacheSize = 0;
+        boolean quiet = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-i":
+                    case "--input":
+                        input = argumentValue(args, ++i);
+                        break;
+                    case "-o":
+                    case "--output":
+                        output = argumentValue(args, ++i);
+                        break;
+                    case "-a":
+                    case "--algorithm":
+                        algorithm = argumentValue(args, ++i);
+                        break;
+                    case "-b":
+                    case "--box-size":
+                        boxSize = Integer.parseInt(argumentValue(args, ++i));
+                        break;
+                    case "-t":
+                    case "--threads":
+                        threads = Integer.parseInt(argumentValue(args, ++i));
+                        break;
+                    case "--timeout":
+                        timeoutMillis = Long.parseLong(argumentValue(args, ++i));
+                        timeoutGiven = true;
+                        break;
+                    case "--serve":
+                        servePort = Integer.parseInt(argumentValue(args, ++i));
+                        serve = true;
+                        break;
+                    case "--max-queued":
+                        maxQueued = Integer.parseInt(argumentValue(args, ++i));
+                        break;
+                    case "--cache":
+                        cacheSize = Integer.parseInt(argumentValue(args, ++i));
+                        break;
+                    case "-q":
+                    case "--quiet":
+                        quiet = true;
+                        break;
+                    case "-h":
+                    case "--help":
+                        printUsage(err);
+                        return EXIT_OK;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (boxSize < 1) {
+                throw new IllegalArgumentException("Box size must be at least 1: " + boxSize);
+            }
+            if (!new Sudoku_AI_Factory().getAlgorithmNames().contains(algorithm)) {
+                throw new IllegalArgumentException("Unknown algorithm \"" + algorithm + "\"");
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+            }
+            if (timeoutMillis < 0) {
+                throw new IllegalArgumentException("Timeout must not be negative: " + timeoutMillis);
+            }
+            if (servePort < 0 || servePort > 65535) {
+                throw new IllegalArgumentException("Port must be from 0 to 65535: " + servePort);
+            }
+            if (maxQueued < 0) {
+                throw new IllegalArgumentException("Queue length must not be negative: " + maxQueued);
+            }
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("Cache size must not be negative: " + cacheSize);
+            }
+        } catch (IllegalArgumentException e) {                                                  //NumberFormatException included
+            err.println("Error: " + e.getMessage());
+            printUsage(err);
+            return EXIT_USAGE;
+        }
+
+        SudokuSolutionCache cache = cacheSize > 0 ? new SudokuSolutionCache(cacheSize) : null;
+        if (serve) {
+            return serve(servePort, algorithm, boxSize, threads, maxQueued, timeoutGiven ? timeoutMillis : -1, cache,
+                    quiet, err);
+        }
+
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        try (SudokuPuzzleReader reader = input.equals("-")
+                ? new SudokuPuzzleReader(stdin, boxSize * boxSize)
+                : new SudokuPuzzleReader(Paths.get(input), boxSize * boxSize);
+                SudokuSolutionWriter writer = output.equals("-")
+                        ? new SudokuSolutionWriter(stdout)
+                        : new SudokuSolutionWriter(Paths.get(output));
+                Sudoku_AI_Batch batch = new Sudoku_AI_Batch(algorithm, boxSize, threads, cache)) {
+            batch.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            batch.solveAll(reader, true, (result, index) -> {
+                try {
+                    writer.write(result.getSolution());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                summary.add(result);
+            });
+        } catch (IOException | UncheckedIOException | IllegalArgumentException | IllegalStateException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+
+        if (!quiet) {
+            summary.print(err, algorithm, threads, System.nanoTime() - start);
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Runs a SudokuSolveServer until the process is stopped
+     *
+     * @param port port to listen on, 0 for any free port
+     * @param algorithm algorithm used when a request doesn't choose one
+     * @param boxSize box size used when a request doesn't choose one
+     * @param maxConcurrent most requests solving at once
+     * @param maxQueued most requests waiting to solve
+     * @param timeoutMillis time allowed for each puzzle, -1 for the server's
+     * default
+     * @param cache solutions shared by every request, or null for none
+     * @param quiet true to not print the address served on
+     * @param err where the address and any errors are printed
+     * @return the exit code, only returned if the server can't start
+     */
+    private static int serve(int port, String algorithm, int boxSize, int maxConcurrent, int maxQueued,
+            long timeoutMillis, SudokuSolutionCache cache, boolean quiet, PrintStream err) {
+        SudokuSolveServer server;
+        SudokuSolveServer.enableNoDelay();
+        try {
+            server = new SudokuSolveServer(port, algorithm, boxSize, maxConcurrent, maxQueued);
+        } catch (IOException e) {
+            err.println("Error: can't listen on port " + port + ": " + e.getMessage());
+            return EXIT_FAILED;
+        }
+        if (timeoutMillis >= 0) {
+            server.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        server.setSolutionCache(cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        if (!quiet) {
+            err.printf("Serving %s on http://localhost:%d%s, %d at a time on %s threads%n", algorithm,
+                    server.getPort(), SudokuSolveServer.PATH, maxConcurrent,
+                    server.isUsingVirtualThreads() ? "virtual" : "platform");
+        }
+
+        try {
+            new CountDownLatch(1).await();                                                      //Serves until the process is stopped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+        return EXIT_OK;
+    }
+
+    /**
+     * Gets the value following an option
+     *
+     * @param args the command line arguments
+     * @param i index of the value
+     * @return the value
+     */
+    private static String argumentValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static void printUsage(PrintStream err) {
+        err.println("Usage: java -jar SudokuAI.jar [options]");
+        err.println("Solves puzzles one per line, a character per cell (1-9 then A-Z) with 0 or . for blanks, and");
+        err.println("writes a solution per line. Boards over 35 wide list their cells as numbers separated by commas.");
+        err.println("Without options the GUI starts instead.");
+        err.println();
+        err.println("  -i, --input FILE       puzzles to solve, - for standard input (default -)");
+        err.println("  -o, --output FILE      where to write solutions, - for standard output (default -)");
+        err.println("  -a, --algorithm NAME   algorithm to use (default \"" + DEFAULTALGORITHM + "\"), one of:");
+        for (String name : new Sudoku_AI_Factory().getAlgorithmNames()) {
+            err.println("                           " + name);
+        }
+        err.println("  -b, --box-size N       box size of the puzzles, 3 for 9x9 and 5 for 25x25 (default " + DEFAULTBOXSIZE + ")");
+        err.println("  -t, --threads N        worker threads (default " + Runtime.getRuntime().availableProcessors() + ")");
+        err.println("      --timeout MS       time allowed for each puzzle, 0 for no limit (default 0)");
+        err.println("      --serve PORT       instead serve HTTP on this port of localhost, POST puzzles one per line");
+        err.println("                           to " + SudokuSolveServer.PATH + ", -t limits the requests solved at once and");
+        err.println("                           --timeout defaults to " + SudokuSolveServer.DEFAULTTIMEOUTMILLIS);
+        err.println("      --max-queued N     requests waiting while serving before more are shed (default "
+                + DEFAULTMAXQUEUED + ")");
+        err.println("      --cache N          remember up to N solutions of 9x9 puzzles and answer the same puzzle,");
+        err.println("                           or a transform of it, without searching again (default 0, off)");
+        err.println("  -q, --quiet            don't print the summary");
+        err.println("  -h, --help             print this message");
+    }
+
+    /**
+     * Totals of a run, added to on the thread results are delivered on. Keeps
+     * one long per puzzle for the time percentiles rather than each
+     * SudokuSolveStats, so a run of millions of puzzles stays small.
+     */
+    private static final class Summary {
+
+        //DATA STRUCTURES
+        private final long[] statusCounts
+                = new long[SudokuSolveResult.Status.values().length];                           //Puzzles ending each way
+        private long[] elapsed = new long[1024];                                                //Time taken by each puzzle in nanoseconds
+        private int count;                                                                      //Puzzles added
+        private long nodes;                                                                     //Search nodes over every puzzle
+
+        void add(SudokuSolveResult result) {
+            statusCounts[result.getStatus().ordinal()]++;
+            if (count == elapsed.length) {
+                elapsed = Arrays.copyOf(elapsed, count * 2);
+            }
+            elapsed[count++] = result.getStats().getElapsedNanos();
+            nodes += result.getStats().getNodes();
+        }
+
+        void print(PrintStream err, String algorithm, int threads, long wallNanos) {
+            double seconds = wallNanos / 1e9;
+            err.printf("Puzzles: %d in %.3f s (%.0f per second) with %s on %d thread%s%n",
+                    count, seconds, count / seconds, algorithm, threads, threads == 1 ? "" : "s");
+            err.printf("Solved: %d, no solution: %d, timed out: %d, cancelled: %d%n",
+                    statusCounts[SudokuSolveResult.Status.SOLVED.ordinal()],
+                    statusCounts[SudokuSolveResult.Status.NO_SOLUTION.ordinal()],
+                    statusCounts[SudokuSolveResult.Status.TIMED_OUT.ordinal()],
+                    statusCounts[SudokuSolveResult.Status.CANCELLED.ordinal()]);
+            if (count == 0) {
+                return;
+            }
+
+            long[] sorted = Arrays.copyOf(elapsed, count);
+            Arrays.sort(sorted);
+            err.printf("Time per puzzle: p50 %s, p90 %s, p99 %s, max %s%n", formatNanos(percentile(sorted, 50)),
+                    formatNanos(percentile(sorted, 90)), formatNanos(percentile(sorted, 99)),
+                    formatNanos(sorted[count - 1]));
+            err.printf("Nodes per puzzle: mean %.1f%n", (double) nodes / count);
+        }
+
+        /**
+         * Gets a percentile of sorted values using the nearest rank, as
+         * SudokuSolveStatsRecorder does
+         */
+        private static long percentile(long[] sorted, double percentile) {
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static String formatNanos(long nanos) {
+            if (nanos < 10_000_000L) {
+                return String.format("%.1f us", nanos / 1e3);
+            }
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+
+    }
+
+}
@@ -0,0 +1,274 @@
+package sudokuai;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a propagated solver state for a puzzle the user is editing one cell
+ * at a time, so each edit only costs the work it causes rather than a solve
+ * of the whole board from scratch.
+ *
+ * Adding a value only ever removes values from the domains, so it is applied
+ * to the state as it stands by removing it from the domains of its peers.
+ * Removing or changing a value can put values back, so the domains are
+ * rebuilt from the values left, which is one pass over the board and no
+ * search.
+ *
+ * The last solution found is kept. While it agrees with every value on the
+ * board it is still a solution, which covers every removal and any addition
+ * the user makes from it, so nothing more is needed. Only when a new value
+ * disagrees with it are the full propagation rules run, from the state left
+ * by the last edit, and then the search on the propagated board with the
+ * cells logic can decide already filled.
+ *
+ * Not thread safe, SudokuSolverModel_AI calls it from one thread.
+ *
+ * @author Nik Bradley
+ */
+final class SudokuLiveSolver {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final long FULLDOMAIN;                                                              //Bitmask with a bit set for every value 1-BOARDSIZE
+    private boolean contradiction;                                                              //True once propagation has shown the values can't be completed
+    private boolean propagated;                                                                 //True if the propagation rules have run since the last edit
+    private boolean unsolvable;                                                                 //True once a search has shown the values can't be completed
+    private int mismatches;                                                                     //Values on the board that disagree with the kept solution
+
+    //DATA STRUCTURES
+    private final Integer[][] givens;                                                           //Values entered by the user
+    private final Integer[][] board;                                                            //The values plus every cell propagation has decided
+    private final long[] domains;                                                               //Values left for each cell, bit 0 = value 1
+    private final int[][] peers;                                                                //Cells sharing a row, column or box with each cell
+    private final Sudoku_AI_Propagator propagator;                                              //Logical rules applied before a search
+    private final Sudoku_AI search;                                                             //Engine used when the kept solution no longer fits
+    private Integer[][] solution;                                                               //Last solution found, null if none
+
+    /**
+     * Constructor for the class, starts with an empty board
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @throws IllegalArgumentException if the board has more than 64 values
+     */
+    SudokuLiveSolver(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        Sudoku_AI_Propagator.checkBoardSize(BOARDSIZE);
+        FULLDOMAIN = Sudoku_AI_Propagator.fullDomain(BOARDSIZE);
+
+        givens = new Integer[BOARDSIZE][BOARDSIZE];
+        board = new Integer[BOARDSIZE][BOARDSIZE];
+        domains = new long[BOARDSIZE * BOARDSIZE];
+        peers = new int[BOARDSIZE * BOARDSIZE][];
+        for (int cell = 0; cell < peers.length; cell++) {
+            peers[cell] = findPeers(cell);
+        }
+        propagator = new Sudoku_AI_Propagator(gameBoxSize);
+        search = new Sudoku_AI_DancingLinks(gameBoxSize);
+        rebuild();
+    }
+
+    /**
+     * Works out the cells in the same row, column or box as a cell
+     *
+     * @param cell index of the cell
+     * @return the peers, each listed once
+     */
+    private int[] findPeers(int cell) {
+        int row = cell / BOARDSIZE;
+        int col = cell % BOARDSIZE;
+        int boxRow = row - (row % BOXSIZE);
+        int boxCol = col - (col % BOXSIZE);
+        int[] found = new int[3 * (BOARDSIZE - 1)];
+        int count = 0;
+
+        for (int other = 0; other < BOARDSIZE * BOARDSIZE; other++) {
+            int otherRow = other / BOARDSIZE;
+            int otherCol = other % BOARDSIZE;
+            boolean inBox = otherRow - (otherRow % BOXSIZE) == boxRow && otherCol - (otherCol % BOXSIZE) == boxCol;
+            if (other != cell && (otherRow == row || otherCol == col || inBox)) {
+                found[count++] = other;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Sets or clears the value of one cell
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param value the new value, or null to empty the cell
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    void setValue(int row, int col, Integer value) {
+        if (value != null && (value < 1 || value > BOARDSIZE)) {
+            throw new IllegalArgumentException("Invalid value " + value + " at row " + row + ", column " + col);
+        }
+        Integer old = givens[row][col];
+        if (value == null ? old == null : value.equals(old)) {
+            return;
+        }
+
+        if (solution != null) {                                                                 //Keep count of the values the kept solution disagrees with
+            if (old != null && !old.equals(solution[row][col])) {
+                mismatches--;
+            }
+            if (value != null && !value.equals(solution[row][col])) {
+                mismatches++;
+            }
+        }
+        givens[row][col] = value;
+
+        if (old != null) {                                                                      //Domains may grow, start again from the values left
+            rebuild();
+        } else if (!contradiction) {                                                            //Domains only shrink, carry on from the current state
+            contradiction = !place(row * BOARDSIZE + col, value);
+            propagated = false;
+        }
+    }
+
+    /**
+     * Replaces every value on the board
+     *
+     * @param puzzle the new values, empty cells are null
+     */
+    void setPuzzle(Integer[][] puzzle) {
+        for (int row = 0; row < BOARDSIZE; row++) {
+            for (int col = 0; col < BOARDSIZE; col++) {
+                Integer value = puzzle[row][col];
+                if (value != null && (value < 1 || value > BOARDSIZE)) {
+                    throw new IllegalArgumentException("Invalid value " + value + " at row " + row + ", column " + col);
+                }
+                givens[row][col] = value;
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Places the values from empty domains, and works out how many of them
+     * disagree with the kept solution
+     */
+    private void rebuild() {
+        contradiction = false;
+        propagated = false;
+        unsolvable = false;
+        mismatches = 0;
+        Arrays.fill(domains, FULLDOMAIN);
+        for (Integer[] row : board) {
+            Arrays.fill(row, null);
+        }
+
+        for (int cell = 0; cell < domains.length; cell++) {
+            Integer value = givens[cell / BOARDSIZE][cell % BOARDSIZE];
+            if (value == null) {
+                continue;
+            }
+            if (solution != null && !value.equals(solution[cell / BOARDSIZE][cell % BOARDSIZE])) {
+                mismatches++;
+            }
+            if (!contradiction && !place(cell, value)) {
+                contradiction = true;
+            }
+        }
+    }
+
+    /**
+     * Runs the propagation rules on the current state if they haven't run
+     * since the last edit
+     */
+    private void propagate() {
+        if (!contradiction && !propagated) {
+            contradiction = propagator.propagate(board, domains) == Sudoku_AI_Propagator.CONTRADICTION;
+            propagated = true;
+        }
+    }
+
+    /**
+     * Puts a value in a cell and removes it from the domains of its peers
+     *
+     * @param cell index of the cell
+     * @param value the value
+     * @return false if the value is not left in the cell's domain or a peer
+     * has no values left
+     */
+    private boolean place(int cell, int value) {
+        long bit = 1L << (value - 1);
+        Integer current = board[cell / BOARDSIZE][cell % BOARDSIZE];
+        if (current != null) {
+            return current == value;                                                            //Already decided by propagation, nothing changes if it agrees
+        }
+        if ((domains[cell] & bit) == 0) {
+            return false;
+        }
+
+        board[cell / BOARDSIZE][cell % BOARDSIZE] = value;
+        domains[cell] = bit;
+        for (int peer : peers[cell]) {
+            if (board[peer / BOARDSIZE][peer % BOARDSIZE] == null) {
+                domains[peer] &= ~bit;
+                if (domains[peer] == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Works out whether the values on the board can still be completed,
+     * searching only if the kept solution no longer fits
+     *
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return SOLVED with a copy of a solution, NO_SOLUTION, or how the search
+     * was stopped
+     */
+    SudokuSolveResult check(SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        if (contradiction || unsolvable) {
+            return new SudokuSolveResult(SudokuSolveResult.Status.NO_SOLUTION, new Integer[BOARDSIZE][BOARDSIZE],
+                    new SudokuSolveStats(0, 0, 0, 0, System.nanoTime() - start, -1));
+        }
+        if (solution != null && mismatches == 0) {                                              //The kept solution still fits, no search needed
+            return new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, copyBoard(solution),
+                    new SudokuSolveStats(0, 0, 0, 0, System.nanoTime() - start, -1));
+        }
+
+        propagate();
+        if (contradiction) {
+            return new SudokuSolveResult(SudokuSolveResult.Status.NO_SOLUTION, new Integer[BOARDSIZE][BOARDSIZE],
+                    new SudokuSolveStats(0, 0, 0, 0, System.nanoTime() - start, -1));
+        }
+
+        SudokuSolveResult result = search.solve(copyBoard(board), cancellation);
+        if (result.isSolved()) {
+            solution = copyBoard(result.getSolution());
+            mismatches = 0;
+        } else if (result.getStatus() == SudokuSolveResult.Status.NO_SOLUTION) {
+            unsolvable = true;                                                                  //Adding values can't change that, only a removal rebuilds
+        }
+        return result;
+    }
+
+    /**
+     * Gets the board with every cell the values decide by logic alone filled
+     * in
+     *
+     * @return a copy of the propagated board
+     */
+    Integer[][] getBoard() {
+        propagate();
+        return copyBoard(board);
+    }
+
+    private Integer[][] copyBoard(Integer[][] from) {
+        Integer[][] copy = new Integer[BOARDSIZE][];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            copy[i] = from[i].clone();
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,255 @@
+package sudokuai;
+
+import java.util.Arrays;
+
+/**
+ * Works out cheap features of a puzzle that hint at which Sudoku_AI algorithm
+ * will solve it fastest, for Sudoku_AI_Auto. Each takes one pass over the
+ * board or a short run of singles, far less than any search.
+ *
+ * The features, each scaled to 0-1 so boards of different sizes compare:
+ *
+ * CLUES, the share of cells given. CANDIDATES, the mean number of values left
+ * in an empty cell once the givens are removed from their peers (the initial
+ * forward check), over the board size. BIVALUE, the share of empty cells left
+ * with two values or fewer by that check. SINGLES, the share of empty cells
+ * filled by naked and hidden singles alone, 1 if they solve the puzzle or
+ * find it can't be solved.
+ *
+ * The features come in stages of rising cost, counting the clues, the
+ * forward check and the singles, and a caller can stop after the last stage
+ * it needs. On a 9x9 board the clues take a fraction of a microsecond and the
+ * full set around a fifth of a typical Dancing Links solve.
+ *
+ * Domains use the same layout as Sudoku_AI_Propagator, so boards of up to
+ * 64 values can be measured. An instance is used by one thread at a time.
+ *
+ * @author Nik Bradley
+ */
+final class SudokuPuzzleFeatures {
+
+    //CLASS VARIABLES
+    static final int BIAS = 0;                                                                  //Always 1, the constant term of a linear model
+    static final int CLUES = 1;                                                                 //Share of cells given
+    static final int CANDIDATES = 2;                                                            //Mean values left per empty cell over the board size
+    static final int BIVALUE = 3;                                                               //Share of empty cells with at most two values left
+    static final int SINGLES = 4;                                                               //Share of empty cells filled by singles alone
+    static final int COUNT = 5;                                                                 //Number of features
+    static final String[] NAMES = {"bias", "clues", "candidates", "bivalue", "singles"};        //Names of the features, in order
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final long FULLDOMAIN;                                                              //Domain holding every value
+
+    //DATA STRUCTURES
+    private final int[][] units;                                                                //Cells of each row, column and box
+    private final int[][] cellUnits;                                                            //The row, column and box unit of each cell
+    private final int[][] peers;                                                                //Cells sharing a unit with each cell
+    private final long[] domains;                                                               //Values left in each empty cell, 0 once filled
+    private final long[] unitPlaced;                                                            //Values already placed in each unit
+    private final int[] nakedSingles;                                                           //Cells left with one value, waiting to be filled
+    private int nakedCount;                                                                     //Number of entries in nakedSingles
+
+    /**
+     * Constructor for the class, builds the unit tables for the box size
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @throws IllegalArgumentException if the board has more than 64 values
+     */
+    SudokuPuzzleFeatures(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        Sudoku_AI_Propagator.checkBoardSize(BOARDSIZE);
+        FULLDOMAIN = Sudoku_AI_Propagator.fullDomain(BOARDSIZE);
+        int cells = BOARDSIZE * BOARDSIZE;
+
+        units = new int[3 * BOARDSIZE][BOARDSIZE];
+        cellUnits = new int[cells][3];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            for (int j = 0; j < BOARDSIZE; j++) {
+                int box = (i / BOXSIZE) * BOXSIZE + (j / BOXSIZE);
+                int cell = (i * BOARDSIZE) + j;
+                units[i][j] = cell;                                                             //Row i
+                units[BOARDSIZE + j][i] = cell;                                                 //Column j
+                units[(2 * BOARDSIZE) + box][(i % BOXSIZE) * BOXSIZE + (j % BOXSIZE)] = cell;   //Box containing the cell
+                cellUnits[cell] = new int[]{i, BOARDSIZE + j, (2 * BOARDSIZE) + box};
+            }
+        }
+
+        peers = new int[cells][];
+        boolean[] isPeer = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int count = 0;
+            for (int unit : cellUnits[cell]) {
+                for (int peer : units[unit]) {
+                    if (peer != cell && !isPeer[peer]) {
+                        isPeer[peer] = true;
+                        count++;
+                    }
+                }
+            }
+            peers[cell] = new int[count];
+            count = 0;
+            for (int peer = 0; peer < cells; peer++) {
+                if (isPeer[peer]) {
+                    peers[cell][count++] = peer;
+                    isPeer[peer] = false;
+                }
+            }
+        }
+
+        domains = new long[cells];
+        unitPlaced = new long[3 * BOARDSIZE];
+        nakedSingles = new int[cells];                                                          //Domains only shrink, so a cell is left with one value once at most
+    }
+
+    /**
+     * Works out every feature of a puzzle
+     *
+     * @param board the puzzle, empty cells are null. It is not changed.
+     * @return the features, indexed by BIAS, CLUES, CANDIDATES, BIVALUE and
+     * SINGLES
+     */
+    double[] compute(Integer[][] board) {
+        return compute(board, SINGLES);
+    }
+
+    /**
+     * Works out the features of a puzzle up to a given one, skipping the
+     * stages only later features need
+     *
+     * @param board the puzzle, empty cells are null. It is not changed.
+     * @param lastFeature index of the last feature needed
+     * @return the features, indexed by BIAS, CLUES, CANDIDATES, BIVALUE and
+     * SINGLES, those after the stage of lastFeature are 0
+     */
+    double[] compute(Integer[][] board, int lastFeature) {
+        int cells = BOARDSIZE * BOARDSIZE;
+        double[] features = new double[COUNT];
+        features[BIAS] = 1;
+        int clues = 0;
+        for (Integer[] row : board) {
+            for (Integer value : row) {
+                clues += value == null ? 0 : 1;
+            }
+        }
+        int empty = cells - clues;
+        features[CLUES] = (double) clues / cells;
+        if (empty == 0) {
+            features[SINGLES] = lastFeature >= SINGLES ? 1 : 0;
+            return features;
+        }
+        if (lastFeature < CANDIDATES) {
+            return features;
+        }
+
+        Arrays.fill(domains, FULLDOMAIN);
+        Arrays.fill(unitPlaced, 0);
+        nakedCount = 0;
+        boolean contradiction = false;
+        for (int row = 0, cell = 0; row < BOARDSIZE; row++) {                                   //The initial forward check
+            for (int col = 0; col < BOARDSIZE; col++, cell++) {
+                Integer value = board[row][col];
+                if (value != null) {
+                    contradiction |= !assign(cell, 1L << (value - 1));
+                }
+            }
+        }
+
+        long candidates = 0;
+        int bivalue = 0;
+        for (int row = 0, cell = 0; row < BOARDSIZE; row++) {
+            for (int col = 0; col < BOARDSIZE; col++, cell++) {
+                if (board[row][col] == null) {
+                    int values = Long.bitCount(domains[cell]);
+                    candidates += values;
+                    bivalue += values <= 2 ? 1 : 0;
+                }
+            }
+        }
+        features[CANDIDATES] = (double) candidates / empty / BOARDSIZE;
+        features[BIVALUE] = (double) bivalue / empty;
+        if (lastFeature < SINGLES) {
+            return features;
+        }
+        int singles = contradiction ? Sudoku_AI_Propagator.CONTRADICTION : fillSingles();
+        features[SINGLES] = singles == Sudoku_AI_Propagator.CONTRADICTION ? 1 : (double) singles / empty;
+        return features;
+    }
+
+    /**
+     * Fills naked and hidden singles until there are none left. Naked singles
+     * are queued as they appear, the units are only scanned for hidden singles
+     * once the queue is empty.
+     *
+     * @return the number of cells filled, or CONTRADICTION if the board turns
+     * out to have no solution
+     */
+    private int fillSingles() {
+        int singles = 0;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            while (nakedCount > 0) {                                                            //Naked singles, one value left in a cell
+                int cell = nakedSingles[--nakedCount];
+                if (domains[cell] != 0) {                                                       //Not filled since it was queued
+                    if (!assign(cell, domains[cell])) {
+                        return Sudoku_AI_Propagator.CONTRADICTION;
+                    }
+                    singles++;
+                }
+            }
+            for (int unit = 0; unit < units.length; unit++) {                                   //Hidden singles, one cell left for a value in a unit
+                long once = 0, twice = 0;
+                for (int cell : units[unit]) {
+                    twice |= once & domains[cell];
+                    once |= domains[cell];
+                }
+                if ((once | unitPlaced[unit]) != FULLDOMAIN) {                                  //A value has nowhere left to go
+                    return Sudoku_AI_Propagator.CONTRADICTION;
+                }
+                long hidden = once & ~twice & ~unitPlaced[unit];
+                for (int cell : units[unit]) {
+                    long bit = domains[cell] & hidden;
+                    if (bit != 0) {
+                        if (Long.bitCount(bit) > 1 || !assign(cell, bit)) {                     //Two values that can only go in the same cell
+                            return Sudoku_AI_Propagator.CONTRADICTION;
+                        }
+                        hidden &= ~bit;
+                        singles++;
+                        progress = true;
+                    }
+                }
+            }
+        }
+        return singles;
+    }
+
+    /**
+     * Places a value in a cell and removes it from the cell's peers
+     *
+     * @return false if the value can't go there or leaves a peer with no
+     * values
+     */
+    private boolean assign(int cell, long bit) {
+        int[] cellUnit = cellUnits[cell];
+        boolean fits = (domains[cell] & bit) != 0;
+        domains[cell] = 0;
+        for (int unit : cellUnit) {
+            fits &= (unitPlaced[unit] & bit) == 0;
+            unitPlaced[unit] |= bit;
+        }
+        for (int peer : peers[cell]) {
+            long domain = domains[peer];
+            if ((domain & bit) != 0) {                                                          //Filled peers have no values left to remove
+                domain &= ~bit;
+                domains[peer] = domain;
+                fits &= domain != 0;
+                if (Long.bitCount(domain) == 1) {
+                    nakedSingles[nakedCount++] = peer;
+                }
+            }
+        }
+        return fits;
+    }
+
+}
@@ -0,0 +1,168 @@
+package sudokuai;
+
+import java.util.regex.Pattern;
+
+/**
+ * Converts puzzles between the string form used for the preset and bundled
+ * puzzles and the Integer[][] boards the Sudoku_AI algorithms work on.
+ *
+ * A puzzle string lists the cells row by row, one character per cell, with
+ * '0' or '.' for an empty cell. Values above 9 are written as letters, A for
+ * 10 up to Z for 35 in either case, so boards up to 25x25 keep one character
+ * per cell. Larger boards list the values as numbers separated by commas or
+ * whitespace, which any board may also be parsed from.
+ *
+ * @author Nik Bradley
+ */
+final class SudokuPuzzleFormat {
+
+    //CLASS VARIABLES
+    static final int MAXDIGITBOARDSIZE = Character.MAX_RADIX - 1;                               //Largest board written with one character per cell
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();  //Character written for each value
+    private static final Pattern SEPARATOR = Pattern.compile("[,\\s]+");                        //Between the numbers of a separated puzzle
+
+    private SudokuPuzzleFormat() {
+    }
+
+    /**
+     * Builds a board from a puzzle string
+     *
+     * @param puzzle the puzzle string, one character per cell or numbers
+     * separated by commas or whitespace
+     * @param boardSize length of the rows & columns of the board
+     * @return the board, empty cells are null
+     * @throws IllegalArgumentException if the string is the wrong length or
+     * holds a value the board can not
+     */
+    static Integer[][] parse(String puzzle, int boardSize) {
+        if (boardSize > MAXDIGITBOARDSIZE || isSeparated(puzzle)) {
+            return parseSeparated(puzzle, boardSize);
+        }
+        if (puzzle.length() != boardSize * boardSize) {
+            throw new IllegalArgumentException("Expected " + (boardSize * boardSize) + " cells but got " + puzzle.length());
+        }
+
+        Integer[][] board = new Integer[boardSize][boardSize];
+        for (int cell = 0; cell < puzzle.length(); cell++) {
+            char c = puzzle.charAt(cell);
+            if (c == '0' || c == '.') {
+                continue;                                                                       //Empty cell, left as null
+            }
+            int value = Character.digit(c, Character.MAX_RADIX);
+            if (value < 1 || value > boardSize) {
+                throw new IllegalArgumentException("Invalid value '" + c + "' at cell " + cell);
+            }
+            board[cell / boardSize][cell % boardSize] = value;
+        }
+        return board;
+    }
+
+    /**
+     * Checks whether a puzzle string lists its values as separated numbers
+     *
+     * @param puzzle the puzzle string
+     * @return true if it holds a comma or whitespace
+     */
+    private static boolean isSeparated(String puzzle) {
+        for (int i = 0; i < puzzle.length(); i++) {
+            char c = puzzle.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds a board from a puzzle string of separated numbers
+     *
+     * @param puzzle the puzzle string, '0' or '.' for an empty cell
+     * @param boardSize length of the rows & columns of the board
+     * @return the board, empty cells are null
+     * @throws IllegalArgumentException if the string has the wrong number of
+     * cells or holds a value the board can not
+     */
+    private static Integer[][] parseSeparated(String puzzle, int boardSize) {
+        String trimmed = puzzle.trim();
+        String[] cells = trimmed.isEmpty() ? new String[0] : SEPARATOR.split(trimmed);
+        if (cells.length != boardSize * boardSize) {
+            throw new IllegalArgumentException("Expected " + (boardSize * boardSize) + " cells but got " + cells.length);
+        }
+
+        Integer[][] board = new Integer[boardSize][boardSize];
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell].equals("0") || cells[cell].equals(".")) {
+                continue;                                                                       //Empty cell, left as null
+            }
+            int value;
+            try {
+                value = Integer.parseInt(cells[cell]);
+            } catch (NumberFormatException e) {
+                value = -1;
+            }
+            if (value < 1 || value > boardSize) {
+                throw new IllegalArgumentException("Invalid value '" + cells[cell] + "' at cell " + cell);
+            }
+            board[cell / boardSize][cell % boardSize] = value;
+        }
+        return board;
+    }
+
+    /**
+     * Builds a puzzle string from a board, the reverse of parse. Boards up to
+     * MAXDIGITBOARDSIZE wide get one character per cell, with capital letters
+     * for the values above 9, larger ones comma separated numbers.
+     *
+     * @param board the board
+     * @return the puzzle string, '0' for an empty cell
+     */
+    static String format(Integer[][] board) {
+        if (board.length > MAXDIGITBOARDSIZE) {
+            StringBuilder sb = new StringBuilder(board.length * board.length * 3);
+            for (Integer[] row : board) {
+                for (Integer value : row) {
+                    if (sb.length() > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(value == null ? 0 : value);
+                }
+            }
+            return sb.toString();
+        }
+
+        char[] puzzle = new char[board.length * board.length];
+        int cell = 0;
+        for (Integer[] row : board) {
+            for (Integer value : row) {
+                puzzle[cell++] = value == null ? '0' : DIGITS[value];
+            }
+        }
+        return new String(puzzle);
+    }
+
+    /**
+     * Formats a board as a grid for output in the console, one row per line,
+     * with every value padded to the width of the largest
+     *
+     * @param board the board
+     * @return the grid, '-' for an empty cell
+     */
+    static String prettyPrint(Integer[][] board) {
+        int width = String.valueOf(board.length).length();
+        StringBuilder sb = new StringBuilder(board.length * ((width + 1) * board.length + 3));
+        for (Integer[] row : board) {
+            sb.append('|');
+            for (Integer value : row) {
+                String text = value != null ? value.toString() : "-";
+                for (int pad = text.length(); pad < width; pad++) {
+                    sb.append(' ');
+                }
+                sb.append(text);
+                sb.append(' ');
+            }
+            sb.append("|\n");
+        }
+        return sb.toString();
+    }
+
+}
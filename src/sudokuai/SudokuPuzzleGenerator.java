@@ -0,0 +1,380 @@
+package sudokuai;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates random puzzles that have exactly one solution. A random full grid
+ * is built first, then clues are removed in a random order, each removal kept
+ * only while Sudoku_AI_DancingLinks still counts a single solution, until the
+ * target number of clues is reached.
+ *
+ * Many puzzles are generated at once by spreading them over a fork/join pool.
+ * Each worker thread keeps its own Dancing Links matrix and propagator, so
+ * nothing is shared between the puzzles being generated.
+ *
+ * @author Nik Bradley
+ */
+public class SudokuPuzzleGenerator {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final long FULLDOMAIN;                                                              //Bitmask with a bit set for every value 1-BOARDSIZE
+    private static final int MAXATTEMPTS = 100;                                                 //Full grids tried for one puzzle before settling for the closest
+
+    //DATA STRUCTURES
+    private final ForkJoinPool pool;                                                            //Pool the puzzles are generated on
+    private final ThreadLocal<Worker> worker;                                                   //Solvers and buffers for each thread, reused between puzzles
+
+    /**
+     * How hard a generated puzzle is. Easy and medium puzzles can be solved by
+     * logic alone, the rules of Sudoku_AI_Propagator, hard puzzles have as few
+     * clues as their grid allows and need guessing.
+     */
+    public enum Difficulty {
+        EASY(36, false),
+        MEDIUM(30, false),
+        HARD(0, true);
+
+        private final int clues;                                                                //Number of clues per 81 cells to stop removing at
+        private final boolean needsSearch;                                                      //True if logic alone must not be able to solve the puzzle
+
+        Difficulty(int clues, boolean needsSearch) {
+            this.clues = clues;
+            this.needsSearch = needsSearch;
+        }
+    }
+
+    /**
+     * Constructor for the class, generates on the common fork/join pool
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public SudokuPuzzleGenerator(int gameBoxSize) {
+        this(gameBoxSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for the class, generates on the supplied pool
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @param pool the pool to generate many puzzles on
+     * @throws IllegalArgumentException if the board has more than 64 values
+     */
+    public SudokuPuzzleGenerator(int gameBoxSize, ForkJoinPool pool) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        Sudoku_AI_Propagator.checkBoardSize(BOARDSIZE);
+        FULLDOMAIN = Sudoku_AI_Propagator.fullDomain(BOARDSIZE);
+        this.pool = pool;
+        worker = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /**
+     * Generates one puzzle with at most the target number of clues. If no
+     * grid tried allows that few clues the puzzle with the fewest is returned.
+     *
+     * @param targetClues the number of clues to stop removing at
+     * @return a puzzle with exactly one solution
+     */
+    public Integer[][] generate(int targetClues) {
+        return worker.get().generate(targetClues, null);
+    }
+
+    /**
+     * Generates one puzzle of a difficulty. If no grid tried gives a puzzle
+     * of that difficulty the last one generated is returned.
+     *
+     * @param difficulty the difficulty of the puzzle
+     * @return a puzzle with exactly one solution
+     */
+    public Integer[][] generate(Difficulty difficulty) {
+        return worker.get().generate(difficulty.clues * BOARDSIZE * BOARDSIZE / 81, difficulty);
+    }
+
+    /**
+     * Generates many puzzles in parallel, see generate(int)
+     *
+     * @param count the number of puzzles
+     * @param targetClues the number of clues to stop removing at
+     * @return the puzzles
+     */
+    public List<Integer[][]> generate(int count, int targetClues) {
+        return pool.submit(() -> IntStream.range(0, count).parallel()
+                .mapToObj((int i) -> generate(targetClues))
+                .collect(Collectors.toList())).join();
+    }
+
+    /**
+     * Generates many puzzles in parallel, see generate(Difficulty)
+     *
+     * @param count the number of puzzles
+     * @param difficulty the difficulty of the puzzles
+     * @return the puzzles
+     */
+    public List<Integer[][]> generate(int count, Difficulty difficulty) {
+        return pool.submit(() -> IntStream.range(0, count).parallel()
+                .mapToObj((int i) -> generate(difficulty))
+                .collect(Collectors.toList())).join();
+    }
+
+    /**
+     * Everything one thread needs to generate puzzles, reused between them
+     */
+    private class Worker {
+
+        private final Sudoku_AI_DancingLinks counter = new Sudoku_AI_DancingLinks(BOXSIZE);     //Checks the puzzle still has one solution after each removal
+        private final Sudoku_AI_Propagator propagator = new Sudoku_AI_Propagator(BOXSIZE);      //Checks whether logic alone solves the puzzle
+        private final int[] grid = new int[BOARDSIZE * BOARDSIZE];                              //Full grid being built, 0 is an empty cell
+        private final long[] rowValues = new long[BOARDSIZE];                                   //Bitmask of the values used in each row of the grid
+        private final long[] colValues = new long[BOARDSIZE];                                   //Bitmask of the values used in each column of the grid
+        private final long[] boxValues = new long[BOARDSIZE];                                   //Bitmask of the values used in each box of the grid
+        private final int[] order = new int[BOARDSIZE * BOARDSIZE];                             //Order the clues are removed in
+
+        /**
+         * Generates puzzles from fresh grids until one meets the target
+         *
+         * @param targetClues the number of clues to stop removing at
+         * @param difficulty the difficulty required, or null for any
+         * @return the puzzle
+         */
+        Integer[][] generate(int targetClues, Difficulty difficulty) {
+            Integer[][] best = null;
+            int bestClues = Integer.MAX_VALUE;
+
+            for (int attempt = 0; attempt < MAXATTEMPTS; attempt++) {
+                fillGrid();
+                Integer[][] puzzle = new Integer[BOARDSIZE][BOARDSIZE];
+                for (int cell = 0; cell < grid.length; cell++) {
+                    puzzle[cell / BOARDSIZE][cell % BOARDSIZE] = grid[cell];
+                }
+                int clues = removeClues(puzzle, targetClues);
+
+                if (difficulty != null) {
+                    if (isSolvedByLogic(puzzle) != difficulty.needsSearch) {
+                        return puzzle;
+                    }
+                    best = puzzle;                                                              //Wrong difficulty, keep it in case no grid gets it right
+                } else {
+                    if (clues <= targetClues) {
+                        return puzzle;
+                    }
+                    if (clues < bestClues) {
+                        best = puzzle;
+                        bestClues = clues;
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Removes clues in a random order, putting back any whose removal
+         * leaves more than one solution
+         *
+         * @param puzzle the full grid, emptied in place
+         * @param targetClues the number of clues to stop at
+         * @return the number of clues left
+         */
+        private int removeClues(Integer[][] puzzle, int targetClues) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < order.length; i++) {                                            //Fisher-Yates shuffle of the cells
+                int j = random.nextInt(i + 1);
+                order[i] = order[j];
+                order[j] = i;
+            }
+
+            int clues = order.length;
+            for (int i = 0; i < order.length && clues > targetClues; i++) {
+                int row = order[i] / BOARDSIZE;
+                int col = order[i] % BOARDSIZE;
+                Integer value = puzzle[row][col];
+                puzzle[row][col] = null;
+                if (isForced(puzzle, row, col) || counter.countSolutions(puzzle, 2) == 1) {
+                    clues--;
+                } else {
+                    puzzle[row][col] = value;                                                   //Needed to keep the solution unique
+                }
+            }
+            return clues;
+        }
+
+        /**
+         * Checks whether the clues left in a cell's row, column and box rule
+         * out every value but one. If so the cell can be emptied without the
+         * solution count changing, and the count doesn't need to be run.
+         *
+         * @param puzzle the puzzle
+         * @param row row of the empty cell
+         * @param col column of the empty cell
+         * @return true if only one value can go in the cell
+         */
+        private boolean isForced(Integer[][] puzzle, int row, int col) {
+            int boxRow = row - (row % BOXSIZE);
+            int boxCol = col - (col % BOXSIZE);
+            long used = 0;
+            for (int i = 0; i < BOARDSIZE; i++) {
+                Integer inRow = puzzle[row][i];
+                Integer inCol = puzzle[i][col];
+                Integer inBox = puzzle[boxRow + (i / BOXSIZE)][boxCol + (i % BOXSIZE)];
+                used |= (inRow == null ? 0 : 1L << (inRow - 1))
+                        | (inCol == null ? 0 : 1L << (inCol - 1))
+                        | (inBox == null ? 0 : 1L << (inBox - 1));
+            }
+            return Long.bitCount(~used & FULLDOMAIN) == 1;
+        }
+
+        /**
+         * Checks whether the logical rules of Sudoku_AI_Propagator fill every
+         * cell of a puzzle without guessing
+         *
+         * @param puzzle the puzzle, left unchanged
+         * @return true if logic alone solves it
+         */
+        private boolean isSolvedByLogic(Integer[][] puzzle) {
+            Integer[][] board = new Integer[BOARDSIZE][];
+            for (int i = 0; i < BOARDSIZE; i++) {
+                board[i] = puzzle[i].clone();
+            }
+            propagator.propagate(board);
+            for (Integer[] row : board) {
+                for (Integer value : row) {
+                    if (value == null) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Builds a random full grid. The boxes on the diagonal share no row or
+         * column, so they are filled with random permutations straight away,
+         * the rest is filled by a search that tries values in a random order
+         * on the cell with the fewest left.
+         *
+         * On a 4x4 board two diagonal boxes such as 12/34 and 13/24 leave a
+         * cell with no value, so below a box size of 3 only the first box is
+         * seeded.
+         */
+        private void fillGrid() {
+            Arrays.fill(grid, 0);
+            Arrays.fill(rowValues, 0);
+            Arrays.fill(colValues, 0);
+            Arrays.fill(boxValues, 0);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            int seededBoxes = BOXSIZE < 3 ? 1 : BOXSIZE;
+            for (int box = 0; box < seededBoxes; box++) {
+                int[] values = new int[BOARDSIZE];
+                for (int i = 0; i < BOARDSIZE; i++) {                                           //Random permutation of 1-BOARDSIZE
+                    int j = random.nextInt(i + 1);
+                    values[i] = values[j];
+                    values[j] = i + 1;
+                }
+                for (int i = 0; i < BOARDSIZE; i++) {
+                    int row = box * BOXSIZE + (i / BOXSIZE);
+                    int col = box * BOXSIZE + (i % BOXSIZE);
+                    setValue(row * BOARDSIZE + col, values[i]);
+                }
+            }
+
+            if (!fillRest(random)) {
+                throw new IllegalStateException("No grid completes the diagonal boxes");        //Can't happen, the seeded boxes can always be completed
+            }
+        }
+
+        /**
+         * Fills the empty cells of the grid, most constrained cell first
+         *
+         * @param random source of the value order
+         * @return true once every cell is filled
+         */
+        private boolean fillRest(ThreadLocalRandom random) {
+            int bestCell = -1;
+            long bestValues = 0;
+            for (int cell = 0; cell < grid.length; cell++) {
+                if (grid[cell] == 0) {
+                    long values = getFreeValues(cell);
+                    if (bestCell == -1 || Long.bitCount(values) < Long.bitCount(bestValues)) {
+                        bestCell = cell;
+                        bestValues = values;
+                        if (values == 0) {
+                            return false;                                                       //Dead end, backtrack
+                        }
+                    }
+                }
+            }
+            if (bestCell == -1) {
+                return true;
+            }
+
+            while (bestValues != 0) {
+                int pick = random.nextInt(Long.bitCount(bestValues));                           //Pick one of the values left at random
+                long bit = bestValues;
+                for (int i = 0; i < pick; i++) {
+                    bit &= bit - 1;
+                }
+                bit &= -bit;
+                bestValues &= ~bit;
+
+                setValue(bestCell, Long.numberOfTrailingZeros(bit) + 1);
+                if (fillRest(random)) {
+                    return true;
+                }
+                clearValue(bestCell);
+            }
+            return false;
+        }
+
+        /**
+         * Works out the values not used in a cell's row, column or box
+         *
+         * @param cell index of the cell
+         * @return bitmask of the values left, bit 0 = value 1
+         */
+        private long getFreeValues(int cell) {
+            int row = cell / BOARDSIZE;
+            int col = cell % BOARDSIZE;
+            int box = (row / BOXSIZE) * BOXSIZE + (col / BOXSIZE);
+            return ~(rowValues[row] | colValues[col] | boxValues[box]) & FULLDOMAIN;
+        }
+
+        /**
+         * Puts a value in a cell of the grid and marks it used
+         *
+         * @param cell index of the cell
+         * @param value the value
+         */
+        private void setValue(int cell, int value) {
+            int row = cell / BOARDSIZE;
+            int col = cell % BOARDSIZE;
+            long bit = 1L << (value - 1);
+            grid[cell] = value;
+            rowValues[row] |= bit;
+            colValues[col] |= bit;
+            boxValues[(row / BOXSIZE) * BOXSIZE + (col / BOXSIZE)] |= bit;
+        }
+
+        /**
+         * Empties a cell of the grid, reversing setValue
+         *
+         * @param cell index of the cell
+         */
+        private void clearValue(int cell) {
+            int row = cell / BOARDSIZE;
+            int col = cell % BOARDSIZE;
+            long bit = ~(1L << (grid[cell] - 1));
+            grid[cell] = 0;
+            rowValues[row] &= bit;
+            colValues[col] &= bit;
+            boxValues[(row / BOXSIZE) * BOXSIZE + (col / BOXSIZE)] &= bit;
+        }
+    }
+
+}
@@ -0,0 +1,358 @@
+package sudokuai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads puzzles from a file or stream in the format SudokuPuzzleFormat
+ * parses, one puzzle per line with '0' or '.' for an empty cell. Blank lines
+ * and lines starting with '#' are skipped, and a '\r' before the line end is
+ * ignored. Boards up to SudokuPuzzleFormat.MAXDIGITBOARDSIZE wide have one
+ * character per cell, larger ones numbers separated by commas, spaces or
+ * tabs.
+ *
+ * A file is memory mapped a window at a time, and a stream is read through
+ * one reused buffer, so reading never creates a String or copies a line. The
+ * bytes of each line go straight into the board, so a file is read as fast
+ * as the disk or page cache can supply it, however large it is.
+ *
+ * Used either as an Iterator, which creates a new board for each puzzle as
+ * Sudoku_AI_Batch needs, or through read, which fills the caller's board.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuPuzzleReader implements Iterator<Integer[][]>, Closeable {
+
+    //CLASS VARIABLES
+    private static final int MAPWINDOW = 1 << 26;                                               //Bytes of a file mapped at once
+    private static final int STREAMBUFFER = 1 << 16;                                            //Bytes read from a stream at once
+    private static final int MAXDIGITBOARDSIZE = SudokuPuzzleFormat.MAXDIGITBOARDSIZE;          //Largest board written with one character per cell
+    private static final Integer[] VALUES = new Integer[MAXDIGITBOARDSIZE + 1];                 //Boxed value of each cell value, so reading never boxes
+    private static final byte[] CELLVALUES = new byte[256];                                     //Value of each character, 0 for an empty cell and -1 if invalid
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final int CELLS;                                                                    //Cells on the board, the length of a puzzle line
+    private final boolean SEPARATED;                                                            //True if the values are separated numbers, not characters
+    private final int WINDOW;                                                                   //Bytes of a file mapped at once, MAPWINDOW except in tests
+    private long windowStart;                                                                   //Position in the file of the current window
+    private long lineNumber;                                                                    //Number of the last line read, from 1
+    private int pending = -1;                                                                   //Position in the buffer of the next puzzle line, -1 if not found yet
+    private int pendingEnd;                                                                     //Position in the buffer of the end of that line
+    private boolean finished;                                                                   //True once the input has run out
+
+    //DATA STRUCTURES
+    private final FileChannel file;                                                             //File being mapped, null when reading a stream
+    private final ReadableByteChannel stream;                                                   //Stream being read, null when mapping a file
+    private ByteBuffer buffer;                                                                  //Current window of the file, or the stream buffer
+
+    static {
+        for (int value = 1; value < VALUES.length; value++) {
+            VALUES[value] = value;
+        }
+        Arrays.fill(CELLVALUES, (byte) -1);
+        for (int value = 0; value < VALUES.length; value++) {
+            char digit = Character.forDigit(value, Character.MAX_RADIX);
+            CELLVALUES[digit] = (byte) value;
+            CELLVALUES[Character.toUpperCase(digit)] = (byte) value;
+        }
+        CELLVALUES['.'] = 0;
+    }
+
+    /**
+     * Constructor for the class, maps a file
+     *
+     * @param path the file to read
+     * @param boardSize length of the rows & columns of the puzzles
+     * @throws IOException if the file can not be opened
+     */
+    public SudokuPuzzleReader(Path path, int boardSize) throws IOException {
+        this(path, boardSize, MAPWINDOW);
+    }
+
+    /**
+     * Constructor for the class, maps a file a given number of bytes at a time
+     *
+     * @param path the file to read
+     * @param boardSize length of the rows & columns of the puzzles
+     * @param window bytes mapped at once, must hold the longest line
+     * @throws IOException if the file can not be opened
+     */
+    SudokuPuzzleReader(Path path, int boardSize, int window) throws IOException {
+        checkBoardSize(boardSize);
+        BOARDSIZE = boardSize;
+        CELLS = boardSize * boardSize;
+        SEPARATED = boardSize > MAXDIGITBOARDSIZE;
+        WINDOW = window;
+        file = FileChannel.open(path, StandardOpenOption.READ);
+        stream = null;
+        buffer = ByteBuffer.allocate(0);
+        windowStart = 0;
+    }
+
+    /**
+     * Constructor for the class, reads a stream such as standard input
+     *
+     * @param channel the stream to read
+     * @param boardSize length of the rows & columns of the puzzles
+     */
+    public SudokuPuzzleReader(ReadableByteChannel channel, int boardSize) {
+        checkBoardSize(boardSize);
+        BOARDSIZE = boardSize;
+        CELLS = boardSize * boardSize;
+        SEPARATED = boardSize > MAXDIGITBOARDSIZE;
+        WINDOW = STREAMBUFFER;
+        file = null;
+        stream = channel;
+        buffer = ByteBuffer.allocateDirect(STREAMBUFFER);
+        buffer.limit(0);
+    }
+
+    private static void checkBoardSize(int boardSize) {
+        if (boardSize < 1) {
+            throw new IllegalArgumentException("Boards must be at least 1 wide, not " + boardSize);
+        }
+    }
+
+    /**
+     * Reads the next puzzle into a board
+     *
+     * @param board the board to fill, empty cells are set to null
+     * @return false if there are no more puzzles, the board is then unchanged
+     * @throws IOException if the input can not be read
+     * @throws IllegalArgumentException if a line is not a valid puzzle
+     */
+    public boolean read(Integer[][] board) throws IOException {
+        if (!findLine()) {
+            return false;
+        }
+        int position = pending;
+        pending = -1;
+        if (SEPARATED) {
+            readSeparated(board, position, pendingEnd);
+            return true;
+        }
+        for (int row = 0; row < BOARDSIZE; row++) {
+            Integer[] cells = board[row];
+            for (int col = 0; col < BOARDSIZE; col++) {
+                int c = buffer.get(position++) & 0xff;
+                int value = CELLVALUES[c];
+                if (value == 0) {
+                    cells[col] = null;
+                } else {
+                    if (value < 1 || value > BOARDSIZE) {
+                        throw new IllegalArgumentException("Invalid value '" + (char) c + "' on line " + lineNumber);
+                    }
+                    cells[col] = VALUES[value];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a line of separated numbers into a board
+     *
+     * @param board the board to fill, empty cells are set to null
+     * @param start position in the buffer of the start of the line
+     * @param end position in the buffer of the end of the line
+     * @throws IllegalArgumentException if the line is not a valid puzzle
+     */
+    private void readSeparated(Integer[][] board, int start, int end) {
+        int cell = 0;
+        int position = start;
+        while (true) {
+            while (position < end && isSeparator(buffer.get(position))) {
+                position++;
+            }
+            if (position == end) {
+                break;
+            }
+
+            int tokenStart = position;
+            int value = 0;
+            if (buffer.get(position) == '.') {
+                position++;
+            } else {
+                while (position < end && buffer.get(position) >= '0' && buffer.get(position) <= '9' && value <= BOARDSIZE) {
+                    value = value * 10 + (buffer.get(position++) - '0');
+                }
+            }
+            if (position == tokenStart || value > BOARDSIZE || (position < end && !isSeparator(buffer.get(position)))) {
+                throw new IllegalArgumentException("Invalid value at cell " + cell + " on line " + lineNumber);
+            }
+            if (cell < CELLS) {
+                board[cell / BOARDSIZE][cell % BOARDSIZE] = value == 0 ? null : Integer.valueOf(value);
+            }
+            cell++;
+        }
+        if (cell != CELLS) {
+            throw new IllegalArgumentException("Expected " + CELLS + " cells but got " + cell + " on line " + lineNumber);
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ' ' || b == '\t';
+    }
+
+    /**
+     * Checks whether there is another puzzle
+     *
+     * @return true if there is
+     * @throws UncheckedIOException if the input can not be read
+     * @throws IllegalArgumentException if a line is not a valid puzzle
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            return findLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next puzzle into a new board
+     *
+     * @return the puzzle
+     * @throws NoSuchElementException if there are no more puzzles
+     * @throws UncheckedIOException if the input can not be read
+     * @throws IllegalArgumentException if a line is not a valid puzzle
+     */
+    @Override
+    public Integer[][] next() {
+        Integer[][] board = new Integer[BOARDSIZE][BOARDSIZE];
+        try {
+            if (!read(board)) {
+                throw new NoSuchElementException();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return board;
+    }
+
+    /**
+     * Gets the number of the line the last puzzle was read from, for error
+     * messages
+     *
+     * @return the line number, from 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Moves on to the next puzzle line, skipping blank and comment lines, and
+     * leaves its position in pending. The line length is checked here so read
+     * can copy the cells without any bounds checks, a line of separated
+     * numbers is checked as it is read.
+     *
+     * @return false if the input has run out
+     * @throws IOException if the input can not be read
+     */
+    private boolean findLine() throws IOException {
+        while (pending < 0) {
+            int start = buffer.position();
+            int end = findLineEnd(start);
+            if (end < 0) {                                                                      //No line end in the buffer, fetch more from the start of the line
+                if (finished) {
+                    if (start == buffer.limit()) {
+                        return false;
+                    }
+                    end = buffer.limit();                                                       //The last line has no line end
+                } else {
+                    if (buffer.limit() - start >= WINDOW) {
+                        throw new IllegalArgumentException("Line " + (lineNumber + 1) + " is longer than " + WINDOW + " bytes");
+                    }
+                    fill(start);
+                    continue;
+                }
+            }
+
+            lineNumber++;
+            buffer.position(end == buffer.limit() ? end : end + 1);
+            int length = end - start;
+            if (length > 0 && buffer.get(start + length - 1) == '\r') {
+                length--;
+            }
+            if (length == 0 || buffer.get(start) == '#') {
+                continue;
+            }
+            if (length != CELLS && !SEPARATED) {
+                throw new IllegalArgumentException("Expected " + CELLS + " cells but got " + length + " on line " + lineNumber);
+            }
+            pending = start;
+            pendingEnd = start + length;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the end of the line starting at a position
+     *
+     * @param start position of the start of the line
+     * @return position of the '\n', or -1 if it is not in the buffer
+     */
+    private int findLineEnd(int start) {
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fetches more input, keeping the unread part of the buffer from a
+     * position. A file is mapped again from that position, a stream has the
+     * unread bytes moved to the front of its buffer and more read after them.
+     *
+     * @param keepFrom position in the buffer of the first byte still needed
+     * @throws IOException if the input can not be read
+     */
+    private void fill(int keepFrom) throws IOException {
+        if (file != null) {
+            windowStart += keepFrom;
+            long size = file.size();
+            int length = (int) Math.min(WINDOW, size - windowStart);
+            MappedByteBuffer window = file.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+            buffer = window;
+            finished = windowStart + length >= size;
+            return;
+        }
+
+        buffer.position(keepFrom);
+        buffer.compact();
+        int read;
+        do {
+            read = stream.read(buffer);
+        } while (read == 0 && buffer.hasRemaining());                                           //Only a non-blocking stream reads nothing, wait for it
+        finished = read < 0;
+        buffer.flip();
+    }
+
+    /**
+     * Closes the file or stream
+     *
+     * @throws IOException if it can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        } else {
+            stream.close();
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package sudokuai;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single slot a Sudoku_AI algorithm publishes snapshots of its partly filled
+ * board into while it searches, so the GUI can show the search as it runs.
+ *
+ * The algorithm only looks at the slot when it checks its cancellation, once
+ * every CHECKINTERVAL search nodes, and only copies its board when the slot
+ * is empty, that is once the last snapshot has been taken. The reader takes
+ * snapshots at its own pace, for the GUI a Swing Timer at a fixed frame rate,
+ * so the algorithm copies its board at most once per frame however fast it
+ * searches and the reader always gets the newest board there is. Neither
+ * side locks or waits for the other, and nothing is queued on the event
+ * dispatch thread by the search.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuSearchProgress {
+
+    //DATA STRUCTURES
+    private final AtomicReference<int[]> slot = new AtomicReference<>();                        //Newest snapshot, null once taken
+
+    /**
+     * Checks whether the reader has taken the last snapshot, called by the
+     * algorithm before it copies its board
+     *
+     * @return true if a new snapshot should be published
+     */
+    boolean isWanted() {
+        return slot.get() == null;
+    }
+
+    /**
+     * Publishes a snapshot, replacing any not yet taken
+     *
+     * @param cells the value of each cell row by row, 0 for an empty cell.
+     * The array is handed over, the algorithm must not change it afterwards.
+     */
+    void publish(int[] cells) {
+        slot.set(cells);
+    }
+
+    /**
+     * Publishes a snapshot of a board, replacing any not yet taken
+     *
+     * @param board the board, empty cells are null. It is copied.
+     */
+    void publish(Integer[][] board) {
+        int boardSize = board.length;
+        int[] cells = new int[boardSize * boardSize];
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                Integer value = board[row][col];
+                cells[row * boardSize + col] = value == null ? 0 : value;
+            }
+        }
+        slot.set(cells);
+    }
+
+    /**
+     * Takes the newest snapshot, leaving the slot empty so the algorithm
+     * publishes another
+     *
+     * @return the value of each cell row by row with 0 for an empty cell, or
+     * null if nothing new was published since the last call
+     */
+    public int[] take() {
+        return slot.getAndSet(null);
+    }
+
+}
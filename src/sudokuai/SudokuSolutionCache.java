@@ -0,0 +1,110 @@
+package sudokuai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of solutions, keyed by the canonical form SudokuCanonicalizer
+ * gives a puzzle and holding the solution in the same canonical layout, so a
+ * puzzle and every transform of it share one entry. Once full, the entry used
+ * least recently is dropped to make room for a new one.
+ *
+ * Safe to share between threads, any number of Sudoku_AI_Cached algorithms
+ * can use one cache.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuSolutionCache {
+
+    //CLASS VARIABLES
+    static final byte[] NOSOLUTION = new byte[0];                                               //Stored for a puzzle shown to have no solution
+    private final int CAPACITY;                                                                 //Most entries kept
+    private long hits;                                                                          //Lookups that found an entry, guarded by this
+    private long misses;                                                                        //Lookups that found nothing, guarded by this
+
+    //DATA STRUCTURES
+    private final Map<String, byte[]> entries;                                                  //Canonical solution of each canonical puzzle, least recently used first, guarded by this
+
+    /**
+     * Constructor for the class
+     *
+     * @param capacity most solutions kept
+     */
+    public SudokuSolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        CAPACITY = capacity;
+        entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {                          //Access order, so the eldest entry is the least recently used
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+    }
+
+    /**
+     * Looks up the solution of a canonical puzzle
+     *
+     * @param key the canonical puzzle
+     * @return its canonical solution, NOSOLUTION if it has none, or null if
+     * it is not cached
+     */
+    synchronized byte[] get(String key) {
+        byte[] solution = entries.get(key);
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return solution;
+    }
+
+    /**
+     * Stores the solution of a canonical puzzle
+     *
+     * @param key the canonical puzzle
+     * @param solution its canonical solution, or NOSOLUTION if it has none
+     */
+    synchronized void put(String key, byte[] solution) {
+        entries.put(key, solution);
+    }
+
+    /**
+     * Gets the number of solutions cached
+     *
+     * @return the count, at most the capacity
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a solution, or found that there is
+     * none
+     *
+     * @return the count
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found nothing cached
+     *
+     * @return the count
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Drops every cached solution and resets the counts
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+}
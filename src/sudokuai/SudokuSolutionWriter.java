@@ -0,0 +1,143 @@
+package sudokuai;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes boards to a file or stream in the format SudokuPuzzleReader reads,
+ * one board per line with '0' for an empty cell, so an unsolved puzzle comes
+ * out as a line of zeros. Values above 9 are written as capital letters, and
+ * boards too wide for one character per cell as comma separated numbers.
+ *
+ * Each board is written straight into one reused direct buffer, which is
+ * handed to the channel whenever it fills, so writing never creates a String
+ * and costs one system call per buffer rather than per board.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuSolutionWriter implements Closeable, Flushable {
+
+    //CLASS VARIABLES
+    private static final int BUFFERSIZE = 1 << 20;                                              //Bytes written to the channel at once
+    private static final byte[] DIGITS
+            = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);       //Character written for each value
+
+    //DATA STRUCTURES
+    private final WritableByteChannel channel;                                                  //Where the boards go
+    private final ByteBuffer buffer;                                                            //Boards waiting to be written
+
+    /**
+     * Constructor for the class, creates or replaces a file
+     *
+     * @param path the file to write
+     * @throws IOException if the file can not be opened
+     */
+    public SudokuSolutionWriter(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Constructor for the class, writes to a stream such as standard output
+     *
+     * @param channel the stream to write
+     */
+    public SudokuSolutionWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BUFFERSIZE);
+    }
+
+    /**
+     * Writes a board as one line
+     *
+     * @param board the board, empty cells are null
+     * @throws IOException if the channel can not be written
+     */
+    public void write(Integer[][] board) throws IOException {
+        if (board.length > SudokuPuzzleFormat.MAXDIGITBOARDSIZE) {
+            writeSeparated(board);
+            return;
+        }
+        if (buffer.remaining() < board.length * board.length + 1) {
+            flushBuffer();
+        }
+        for (Integer[] row : board) {
+            for (Integer value : row) {
+                buffer.put(value == null ? DIGITS[0] : DIGITS[value]);
+            }
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes a board too wide for one character per cell as a line of comma
+     * separated numbers
+     *
+     * @param board the board, empty cells are null
+     * @throws IOException if the channel can not be written
+     */
+    private void writeSeparated(Integer[][] board) throws IOException {
+        int width = String.valueOf(board.length).length() + 1;                                  //Digits of the largest value and its comma
+        if (buffer.remaining() < board.length * board.length * width) {
+            flushBuffer();
+        }
+        boolean first = true;
+        for (Integer[] row : board) {
+            for (Integer value : row) {
+                if (!first) {
+                    buffer.put((byte) ',');
+                }
+                first = false;
+                int number = value == null ? 0 : value;
+                int divisor = 1;
+                while (divisor * 10 <= number) {
+                    divisor *= 10;
+                }
+                for (; divisor > 0; divisor /= 10) {
+                    buffer.put(DIGITS[(number / divisor) % 10]);
+                }
+            }
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Writes every board still in the buffer to the channel
+     *
+     * @throws IOException if the channel can not be written
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes every board still in the buffer and closes the channel
+     *
+     * @throws IOException if the channel can not be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
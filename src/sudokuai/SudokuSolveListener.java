@@ -0,0 +1,22 @@
+package sudokuai;
+
+/**
+ * Interface for anything told about each solve a Sudoku_AI algorithm
+ * finishes, for example to log its statistics or to aggregate them over a
+ * batch with SudokuSolveStatsRecorder.
+ *
+ * @author Nik Bradley
+ */
+public interface SudokuSolveListener {
+
+    /**
+     * Called once a solve has finished, on the thread that ran it. A listener
+     * shared between algorithms running on different threads must be thread
+     * safe.
+     *
+     * @param algorithm the algorithm that ran the solve
+     * @param result the outcome of the solve, with its statistics
+     */
+    public void solveFinished(Sudoku_AI algorithm, SudokuSolveResult result);
+
+}
@@ -0,0 +1,76 @@
+package sudokuai;
+
+/**
+ * Outcome of a solve by a Sudoku_AI algorithm, how the solve ended, the
+ * solved board if there is one and the statistics of the search.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuSolveResult {
+
+    /**
+     * How a solve ended
+     */
+    public enum Status {
+        SOLVED,                                                                                 //A solution was found
+        NO_SOLUTION,                                                                            //The whole search space was searched without finding one
+        TIMED_OUT,                                                                              //The deadline passed before the search finished
+        CANCELLED                                                                               //The solve was cancelled before the search finished
+    }
+
+    //DATA STRUCTURES
+    private final Status status;                                                                //How the solve ended
+    private final Integer[][] solution;                                                         //Solved board, or a blank board if there is none
+    private final SudokuSolveStats stats;                                                       //Statistics of the search
+
+    /**
+     * Constructor for the class
+     *
+     * @param status how the solve ended
+     * @param solution the solved board, or a blank board if not SOLVED
+     * @param stats statistics of the search
+     */
+    SudokuSolveResult(Status status, Integer[][] solution, SudokuSolveStats stats) {
+        this.status = status;
+        this.solution = solution;
+        this.stats = stats;
+    }
+
+    /**
+     * Gets how the solve ended
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks whether a solution was found
+     *
+     * @return true if the status is SOLVED
+     */
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * Gets the solution, as returned by Sudoku_AI.getSolution
+     *
+     * @return the solved board, or a blank board if there is no solution
+     */
+    public Integer[][] getSolution() {
+        return solution;
+    }
+
+    /**
+     * Gets the statistics of the search, the nodes, backtracks and so on it
+     * took to reach this outcome
+     *
+     * @return the statistics
+     */
+    public SudokuSolveStats getStats() {
+        return stats;
+    }
+
+}
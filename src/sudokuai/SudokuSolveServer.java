@@ -0,0 +1,618 @@
+package sudokuai;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the Sudoku_AI algorithms over HTTP on the local host, so other
+ * programs on the same machine can solve puzzles without the GUI. Built on the
+ * JDK's own HttpServer, listening on the loopback address only, from start
+ * until close.
+ *
+ * POST /solve solves a batch, one puzzle per line of the request body in any
+ * form SudokuPuzzleFormat parses, blank lines and lines starting with '#'
+ * skipped. GET /solve?puzzle=... solves a single puzzle. The algorithm and
+ * boxSize query parameters choose the engine, defaulting to the server's. The
+ * reply is a JSON object holding a result per puzzle in input order, each
+ * with its status, its solution or null, and its search statistics.
+ *
+ * Each request runs on a virtual thread of its own when the JVM has them, and
+ * on a thread from a cached pool before Java 21. At most maxConcurrent
+ * requests solve at once, each on an engine from a pool filled by
+ * Sudoku_AI_Factory and reused by later requests, with at most maxQueued more
+ * waiting in turn. Any request beyond that is shed straight away with 503 and
+ * a Retry-After header rather than queued. Every puzzle has a time budget and
+ * a request may hold at most setMaxBatch puzzles, so a flood of hard puzzles
+ * costs its callers retries but can't tie up more than maxConcurrent cores.
+ *
+ * A Portfolio request races several engines at once, so it counts as that
+ * many requests towards maxConcurrent and is refused if it can never fit. A
+ * Parallel Search request spreads over the common ForkJoinPool, so it counts as
+ * that pool's parallelism in the same way.
+ * The pool keeps at most maxConcurrent engines over every algorithm and box
+ * size, counted the same way, dropping the least recently used idle ones to
+ * make room, so requests asking for many different engines can't fill the
+ * heap with large boards' tables either.
+ *
+ * Given a SudokuSolutionCache with setSolutionCache, every pooled engine is
+ * wrapped in a Sudoku_AI_Cached sharing it, so a puzzle many clients ask for,
+ * or transforms of it, is searched for once.
+ *
+ * The JDK's HttpServer writes a reply's headers and body separately, so each
+ * small reply waits about 40ms on the client's delayed ACK unless the JVM is
+ * started with -Dsun.net.httpserver.nodelay=true or enableNoDelay is called
+ * before the first HttpServer is made. SudokuCommandLine does the latter,
+ * taking a single puzzle from about 45ms to well under 2ms.
+ *
+ * @author Nik Bradley
+ */
+public class SudokuSolveServer implements AutoCloseable {
+
+    //CLASS VARIABLES
+    static final String PATH = "/solve";                                                        //Path the puzzles are posted to
+    static final long DEFAULTTIMEOUTMILLIS = 10_000;                                            //Time budget for each puzzle unless set
+    static final int DEFAULTMAXBATCH = 1000;                                                    //Most puzzles in a request unless set
+    static final int MAXBOXSIZE = 9;                                                            //Largest box size a request can ask for, 81x81
+    private static final int RETRYAFTERSECONDS = 1;                                             //Suggested wait before retrying a shed request
+    private static final int MAXCELLCHARS = 4;                                                  //Longest cell in a separated puzzle, "81, "
+    private static final AtomicInteger SERVERCOUNT = new AtomicInteger();                       //Used to give each server's threads distinct names
+    private static final String NODELAYPROPERTY = "sun.net.httpserver.nodelay";                 //Read by the JDK's HttpServer when it is first used
+
+    //DATA STRUCTURES
+    private final HttpServer server;                                                            //Accepts the connections and parses the requests
+    private final ExecutorService requests;                                                     //Runs each request on a thread of its own
+    private final boolean virtualThreads;                                                       //True if requests run on virtual threads
+    private final Semaphore admitted;                                                           //A permit for each request solving or waiting to
+    private final Semaphore solving;                                                            //A permit for each request allowed to solve at once
+    private final SudokuCancellation stopping = new SudokuCancellation();                       //Cancelled by close, stops the solves still running
+    private final Sudoku_AI_Factory factory = new Sudoku_AI_Factory();                          //Creates the engines the pools run short of
+    private final Deque<PooledSolver> idleSolvers = new ArrayDeque<>();                         //Engines not in use, most recently used first, guarded by itself
+    private final int maxEngines;                                                               //Most engines kept, idle or in use, counted by getEngineCount
+    private int pooledEngines;                                                                  //Engines made and not dropped, counted by getEngineCount, guarded by idleSolvers
+    private final String algorithm;                                                             //Algorithm used when a request doesn't choose one
+    private final int boxSize;                                                                  //Box size used when a request doesn't choose one
+    private volatile long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULTTIMEOUTMILLIS);   //Time budget for each puzzle, 0 for none
+    private volatile int maxBatch = DEFAULTMAXBATCH;                                            //Most puzzles in a request
+    private volatile SudokuSolutionCache solutionCache;                                         //Looked up by every engine made, null for none
+
+    /**
+     * Constructor for the class, binds the port but doesn't serve requests
+     * until start is called
+     *
+     * @param port port to listen on, 0 for any free port
+     * @param algorithm name of the algorithm used when a request doesn't
+     * choose one, as given to Sudoku_AI_Factory
+     * @param gameBoxSize box size used when a request doesn't choose one,
+     * standard 3
+     * @param maxConcurrent most requests solving at once
+     * @param maxQueued most requests waiting to solve, beyond that they are
+     * shed
+     * @throws IOException if the port can't be bound
+     */
+    public SudokuSolveServer(int port, String algorithm, int gameBoxSize, int maxConcurrent, int maxQueued) throws IOException {
+        if (gameBoxSize < 1 || !factory.getAlgorithmNames().contains(algorithm)) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm + " for box size " + gameBoxSize);
+        }
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1: " + maxConcurrent);
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Queue length must not be negative: " + maxQueued);
+        }
+        if (getEngineCount(algorithm) > maxConcurrent) {
+            throw new IllegalArgumentException(algorithm + " runs " + getEngineCount(algorithm)
+                    + " engines at once, more than the concurrency of " + maxConcurrent);
+        }
+        maxEngines = maxConcurrent;
+        this.algorithm = algorithm;
+        this.boxSize = gameBoxSize;
+        admitted = new Semaphore(maxConcurrent + maxQueued);
+        solving = new Semaphore(maxConcurrent, true);                                           //Fair, so waiting requests solve in arrival order
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        if (virtualThreads) {
+            requests = virtual;
+        } else {
+            int serverNumber = SERVERCOUNT.incrementAndGet();
+            AtomicInteger threadCount = new AtomicInteger();
+            requests = Executors.newCachedThreadPool((Runnable r) -> {
+                Thread thread = new Thread(r, "sudoku-server-" + serverNumber + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);                                                         //An unclosed server must not keep the application alive
+                return thread;
+            });
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(requests);
+        server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Creates an executor running each task on a new virtual thread. Looked up
+     * by reflection as the application still runs on Java 8.
+     *
+     * @return the executor, or null if the JVM has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {                           //Before Java 21, or disabled
+            return null;
+        }
+    }
+
+    /**
+     * Sets the time budget for each puzzle of later requests, timed from when
+     * the request starts to solve it. A puzzle that runs over it is reported
+     * as TIMED_OUT.
+     *
+     * @param timeout the time allowed for each puzzle, 0 for no limit
+     * @param unit the unit of the timeout
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Sets the most puzzles a later request may hold, larger requests are
+     * refused with 413
+     *
+     * @param maxBatch the most puzzles in a request
+     */
+    public void setMaxBatch(int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + maxBatch);
+        }
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Sets the cache the engines of later requests look every puzzle up in.
+     * Engines pooled with another cache, or none, are no longer reused.
+     *
+     * @param cache solutions shared by every engine, may be shared with
+     * other servers or batches, or null for none
+     */
+    public void setSolutionCache(SudokuSolutionCache cache) {
+        solutionCache = cache;
+    }
+
+    /**
+     * Starts serving requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on, useful when it was created with
+     * port 0
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Checks whether requests run on virtual threads
+     *
+     * @return true on virtual threads, false on a pool of platform threads
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops the server, cancelling any solves still running and shedding
+     * the requests waiting to solve
+     */
+    @Override
+    public void close() {
+        stopping.cancel();
+        server.stop(0);
+        requests.shutdownNow();
+    }
+
+    /**
+     * Answers a request to the solve path, on its own thread
+     *
+     * @param exchange the request and its response
+     */
+    private void handle(HttpExchange exchange) {
+        try {
+            respond(exchange);
+        } catch (IOException e) {                                                               //Caller went away, nothing left to tell it
+        } catch (RuntimeException e) {
+            try {
+                sendError(exchange, 500, "Internal error: " + e);
+            } catch (IOException | RuntimeException ignored) {                                  //Response already started
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Checks a request, solves its puzzles and sends the reply
+     *
+     * @param exchange the request and its response
+     * @throws IOException if the request can't be read or the reply sent
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("POST")) {
+            exchange.getResponseHeaders().set("Allow", "GET, POST");
+            sendError(exchange, 405, "Method not allowed: " + method);
+            return;
+        }
+        if (!admitted.tryAcquire()) {                                                           //Full, shed the request before reading it
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(RETRYAFTERSECONDS));
+            sendError(exchange, 503, "Server busy, try again later");
+            return;
+        }
+
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String requestAlgorithm = query.getOrDefault("algorithm", algorithm);
+            int requestBoxSize;
+            try {
+                requestBoxSize = query.containsKey("boxSize") ? Integer.parseInt(query.get("boxSize")) : boxSize;
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid box size: " + query.get("boxSize"));
+                return;
+            }
+            if (!factory.getAlgorithmNames().contains(requestAlgorithm)) {
+                sendError(exchange, 400, "Unknown algorithm: " + requestAlgorithm);
+                return;
+            }
+            if (requestBoxSize != boxSize && (requestBoxSize < 1 || requestBoxSize > MAXBOXSIZE)) {
+                sendError(exchange, 400, "Box size must be from 1 to " + MAXBOXSIZE + ": " + requestBoxSize);
+                return;
+            }
+            if (getEngineCount(requestAlgorithm) > maxEngines) {
+                sendError(exchange, 400, requestAlgorithm + " runs more engines at once than this server allows");
+                return;
+            }
+
+            int boardSize = requestBoxSize * requestBoxSize;
+            List<String> lines;
+            if (method.equals("GET")) {
+                if (!query.containsKey("puzzle")) {
+                    sendError(exchange, 400, "Missing puzzle parameter");
+                    return;
+                }
+                lines = new ArrayList<>();
+                lines.add(query.get("puzzle"));
+            } else {
+                int batch = maxBatch;
+                long bodyLimit = (long) batch * (boardSize * boardSize * MAXCELLCHARS + 2);
+                lines = readPuzzleLines(exchange.getRequestBody(), bodyLimit, batch);
+                if (lines == null) {
+                    sendError(exchange, 413, "Too many puzzles, at most " + batch + " in a request");
+                    return;
+                }
+            }
+
+            List<Integer[][]> puzzles = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                try {
+                    puzzles.add(SudokuPuzzleFormat.parse(lines.get(i), boardSize));
+                } catch (IllegalArgumentException e) {
+                    sendError(exchange, 400, "Puzzle " + (i + 1) + ": " + e.getMessage());
+                    return;
+                }
+            }
+
+            List<SudokuSolveResult> results = solveAll(puzzles, requestAlgorithm, requestBoxSize);
+            if (results == null) {
+                sendError(exchange, 503, "Server stopping");
+                return;
+            }
+            sendResponse(exchange, 200, toJson(requestAlgorithm, results));
+        } finally {
+            admitted.release();
+        }
+    }
+
+    /**
+     * Solves a request's puzzles once it is its turn to solve
+     *
+     * @param puzzles the puzzles, solved in place
+     * @param requestAlgorithm name of the algorithm to solve with
+     * @param requestBoxSize box size of the puzzles
+     * @return the result of each puzzle, or null if interrupted while waiting
+     * to solve
+     */
+    private List<SudokuSolveResult> solveAll(List<Integer[][]> puzzles, String requestAlgorithm, int requestBoxSize) {
+        int engineCount = getEngineCount(requestAlgorithm);
+        try {
+            solving.acquire(engineCount);                                                       //One permit for each engine the algorithm runs at once
+        } catch (InterruptedException e) {                                                      //Server closed while waiting
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        String key = requestAlgorithm + "/" + requestBoxSize;
+        SudokuSolutionCache cache = solutionCache;
+        Sudoku_AI solver = null;
+        try {
+            solver = takeIdleSolver(key, cache, engineCount);
+            if (solver == null) {
+                solver = factory.getAlgorithm(requestAlgorithm, requestBoxSize);                //Room was made for it by takeIdleSolver
+                if (cache != null) {
+                    solver = new Sudoku_AI_Cached(solver, cache);
+                }
+            }
+            long timeout = timeoutNanos;
+            List<SudokuSolveResult> results = new ArrayList<>(puzzles.size());
+            for (Integer[][] puzzle : puzzles) {
+                SudokuCancellation cancellation = timeout > 0
+                        ? SudokuCancellation.withTimeout(stopping, timeout, TimeUnit.NANOSECONDS)
+                        : new SudokuCancellation(stopping);
+                results.add(solver.solve(puzzle, cancellation));
+            }
+            return results;
+        } finally {
+            returnSolver(key, cache, engineCount, solver);
+            solving.release(engineCount);
+        }
+    }
+
+    /**
+     * Turns on sun.net.httpserver.nodelay for the whole JVM unless it is
+     * already set, so replies aren't held back by the client's delayed ACK.
+     * Only has an effect if called before the first HttpServer is made.
+     */
+    static void enableNoDelay() {
+        if (System.getProperty(NODELAYPROPERTY) == null) {
+            System.setProperty(NODELAYPROPERTY, "true");
+        }
+    }
+
+    /**
+     * Counts the engines an algorithm runs at once
+     *
+     * @param requestAlgorithm name of the algorithm
+     * @return the number of engines, more than 1 for Portfolio and, on a
+     * machine with more than 2 cores, Parallel Search
+     */
+    static int getEngineCount(String requestAlgorithm) {
+        switch (requestAlgorithm) {
+            case "Portfolio":
+                return Sudoku_AI_Portfolio.DEFAULTALGORITHMS.size();
+            case "Parallel Search":
+                return ForkJoinPool.getCommonPoolParallelism();                                 //Its tasks spread over the whole common pool
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Takes an idle engine for an algorithm and box size from the pool. If
+     * there is none, room is made for a new one by dropping the least
+     * recently used idle engines until the pool is within maxEngines.
+     *
+     * @param key the algorithm and box size
+     * @param cache the cache the engine looks puzzles up in, or null for none
+     * @param engineCount the engines the algorithm runs at once
+     * @return the engine, or null if the caller has to make a new one
+     */
+    private Sudoku_AI takeIdleSolver(String key, SudokuSolutionCache cache, int engineCount) {
+        synchronized (idleSolvers) {
+            for (Iterator<PooledSolver> i = idleSolvers.iterator(); i.hasNext();) {
+                PooledSolver pooled = i.next();
+                if (pooled.key.equals(key) && pooled.cache == cache) {
+                    i.remove();
+                    return pooled.solver;
+                }
+            }
+            while (pooledEngines + engineCount > maxEngines && !idleSolvers.isEmpty()) {
+                pooledEngines -= idleSolvers.removeLast().engineCount;                          //Left for the garbage collector
+            }
+            pooledEngines += engineCount;
+            return null;
+        }
+    }
+
+    /**
+     * Puts an engine back in the pool once a request is done with it
+     *
+     * @param key the algorithm and box size
+     * @param cache the cache the engine looks puzzles up in, or null for none
+     * @param engineCount the engines the algorithm runs at once
+     * @param solver the engine, or null if making it failed
+     */
+    private void returnSolver(String key, SudokuSolutionCache cache, int engineCount, Sudoku_AI solver) {
+        synchronized (idleSolvers) {
+            if (solver == null) {
+                pooledEngines -= engineCount;
+            } else {
+                idleSolvers.addFirst(new PooledSolver(key, cache, engineCount, solver));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of engines the pool holds, idle or in use
+     *
+     * @return the engines, counted as by getEngineCount
+     */
+    int getPooledEngineCount() {
+        synchronized (idleSolvers) {
+            return pooledEngines;
+        }
+    }
+
+    /**
+     * Reads the puzzle lines of a request body, skipping blank lines and
+     * lines starting with '#'
+     *
+     * @param body the request body
+     * @param bodyLimit most bytes to read
+     * @param batch most puzzles to accept
+     * @return the puzzle lines, or null if the body holds too many
+     * @throws IOException if the body can't be read
+     */
+    private static List<String> readPuzzleLines(InputStream body, long bodyLimit, int batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            if (bytes.size() + (long) read > bodyLimit) {
+                return null;
+            }
+            bytes.write(buffer, 0, read);
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            if (lines.size() == batch) {
+                return null;
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Splits a query string into its decoded parameters, the first of any
+     * repeated name is kept
+     *
+     * @param rawQuery the query string still encoded, may be null
+     * @return the parameters by name
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = decode(equals < 0 ? parameter : parameter.substring(0, equals));
+            String value = equals < 0 ? "" : decode(parameter.substring(equals + 1));
+            parameters.putIfAbsent(name, value);
+        }
+        return parameters;
+    }
+
+    private static String decode(String encoded) {
+        try {
+            return URLDecoder.decode(encoded, "UTF-8");
+        } catch (UnsupportedEncodingException e) {                                              //Every JVM has UTF-8
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the reply to a solved request
+     *
+     * @param requestAlgorithm name of the algorithm the puzzles were solved
+     * with
+     * @param results the result of each puzzle
+     * @return the reply as JSON
+     */
+    static String toJson(String requestAlgorithm, List<SudokuSolveResult> results) {
+        StringBuilder json = new StringBuilder(results.size() * 256);
+        json.append("{\"algorithm\":").append(quote(requestAlgorithm)).append(",\"results\":[");
+        for (int i = 0; i < results.size(); i++) {
+            SudokuSolveResult result = results.get(i);
+            SudokuSolveStats stats = result.getStats();
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"status\":\"").append(result.getStatus())
+                    .append("\",\"solution\":")
+                    .append(result.isSolved() ? quote(SudokuPuzzleFormat.format(result.getSolution())) : "null")
+                    .append(",\"nodes\":").append(stats.getNodes())
+                    .append(",\"backtracks\":").append(stats.getBacktracks())
+                    .append(",\"propagations\":").append(stats.getPropagations())
+                    .append(",\"maxDepth\":").append(stats.getMaxDepth())
+                    .append(",\"elapsedNanos\":").append(stats.getElapsedNanos())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Quotes a string for JSON
+     *
+     * @param text the string
+     * @return the string in quotes, with quotes, backslashes and control
+     * characters escaped
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        sendResponse(exchange, code, "{\"error\":" + quote(message) + "}");
+    }
+
+    private static void sendResponse(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * An idle engine in the pool
+     */
+    private static final class PooledSolver {
+
+        private final String key;                                                               //Algorithm and box size of the engine
+        private final SudokuSolutionCache cache;                                                //Cache the engine looks puzzles up in, null for none
+        private final int engineCount;                                                          //Engines it runs at once
+        private final Sudoku_AI solver;                                                         //The engine
+
+        PooledSolver(String key, SudokuSolutionCache cache, int engineCount, Sudoku_AI solver) {
+            this.key = key;
+            this.cache = cache;
+            this.engineCount = engineCount;
+            this.solver = solver;
+        }
+    }
+
+}
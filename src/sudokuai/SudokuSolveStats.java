@@ -0,0 +1,173 @@
+package sudokuai;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Statistics of one solve by a Sudoku_AI algorithm, returned with its
+ * SudokuSolveResult. The counters are kept in plain int fields by the engines
+ * while they search and only gathered into this object once the solve is
+ * over, so collecting them costs next to nothing.
+ *
+ * @author Nik Bradley
+ */
+public final class SudokuSolveStats {
+
+    //CLASS VARIABLES
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadBean();            //Measures allocation, null if the JVM can't
+
+    //DATA STRUCTURES
+    private final long nodes;                                                                   //Search nodes visited
+    private final long backtracks;                                                              //Values tried that led to a dead end
+    private final long propagations;                                                            //Domain reductions made by propagation
+    private final long logicalCells;                                                            //Cells filled by propagation before the search
+    private final long searchCells;                                                             //Cells left for the search to fill
+    private final int maxDepth;                                                                 //Deepest level the search reached
+    private final long elapsedNanos;                                                            //Wall clock time of the solve
+    private final long allocatedBytes;                                                          //Bytes allocated during the solve, -1 if unknown
+
+    /**
+     * Constructor for the class, for an algorithm that doesn't fill cells by
+     * propagation before it searches
+     *
+     * @param nodes search nodes visited
+     * @param backtracks values tried that led to a dead end
+     * @param propagations domain reductions made by propagation
+     * @param maxDepth deepest level the search reached
+     * @param elapsedNanos wall clock time of the solve
+     * @param allocatedBytes bytes allocated during the solve, -1 if unknown
+     */
+    SudokuSolveStats(long nodes, long backtracks, long propagations, int maxDepth, long elapsedNanos, long allocatedBytes) {
+        this(nodes, backtracks, propagations, 0, 0, maxDepth, elapsedNanos, allocatedBytes);
+    }
+
+    /**
+     * Constructor for the class
+     *
+     * @param nodes search nodes visited
+     * @param backtracks values tried that led to a dead end
+     * @param propagations domain reductions made by propagation
+     * @param logicalCells cells filled by propagation before the search
+     * @param searchCells cells left for the search to fill
+     * @param maxDepth deepest level the search reached
+     * @param elapsedNanos wall clock time of the solve
+     * @param allocatedBytes bytes allocated during the solve, -1 if unknown
+     */
+    SudokuSolveStats(long nodes, long backtracks, long propagations, long logicalCells, long searchCells, int maxDepth,
+            long elapsedNanos, long allocatedBytes) {
+        this.nodes = nodes;
+        this.backtracks = backtracks;
+        this.propagations = propagations;
+        this.logicalCells = logicalCells;
+        this.searchCells = searchCells;
+        this.maxDepth = maxDepth;
+        this.elapsedNanos = elapsedNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the calling thread, read before and
+     * after a solve to work out its allocated bytes
+     *
+     * @return the bytes allocated, or -1 if the JVM can't measure it
+     */
+    static long threadAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Gets the number of search nodes visited, each one a cell or constraint
+     * the search chose a value for
+     *
+     * @return the nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of values tried that led to a dead end and were undone
+     *
+     * @return the backtracks
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Gets the number of domain reductions made by propagation, 0 for an
+     * algorithm that doesn't propagate
+     *
+     * @return the propagations
+     */
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /**
+     * Gets the number of cells filled by propagation before the search
+     * started, 0 for an algorithm that doesn't propagate first
+     *
+     * @return the cells filled by propagation
+     */
+    public long getLogicalCells() {
+        return logicalCells;
+    }
+
+    /**
+     * Gets the number of cells left empty for the search to fill once
+     * propagation was done, 0 for an algorithm that doesn't propagate first
+     *
+     * @return the cells left for the search
+     */
+    public long getSearchCells() {
+        return searchCells;
+    }
+
+    /**
+     * Gets the deepest level the search reached, the number of values it had
+     * chosen at once
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the wall clock time of the solve
+     *
+     * @return the elapsed nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the bytes allocated during the solve by the threads that searched
+     *
+     * @return the allocated bytes, or -1 if the JVM can't measure it
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Nodes = " + nodes + ", Backtracks = " + backtracks + ", Propagations = " + propagations
+                + ", Cells filled by propagation = " + logicalCells + ", by search = " + searchCells
+                + ", Max depth = " + maxDepth + ", Elapsed = " + (elapsedNanos / 1000) + "us"
+                + ", Allocated = " + (allocatedBytes < 0 ? "n/a" : allocatedBytes + "B");
+    }
+
+}
@@ -0,0 +1,87 @@
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * SudokuSolveListener that keeps the statistics of every solve it is told
+ * about, so a batch run can report percentiles of any of them afterwards.
+ * Safe to share between threads, such as the workers of a Sudoku_AI_Batch.
+ *
+ * @author Nik Bradley
+ */
+public class SudokuSolveStatsRecorder implements SudokuSolveListener {
+
+    //DATA STRUCTURES
+    private final List<SudokuSolveStats> stats = new ArrayList<>();                             //Statistics of every solve recorded, guarded by this
+    private final Map<SudokuSolveResult.Status, Integer> statusCounts
+            = new EnumMap<>(SudokuSolveResult.Status.class);                                    //Number of solves ending each way, guarded by this
+
+    /**
+     * Records the statistics of a finished solve
+     *
+     * @param algorithm the algorithm that ran the solve
+     * @param result the outcome of the solve
+     */
+    @Override
+    public synchronized void solveFinished(Sudoku_AI algorithm, SudokuSolveResult result) {
+        stats.add(result.getStats());
+        statusCounts.merge(result.getStatus(), 1, Integer::sum);
+    }
+
+    /**
+     * Gets the number of solves recorded
+     *
+     * @return the count
+     */
+    public synchronized int getCount() {
+        return stats.size();
+    }
+
+    /**
+     * Gets the number of solves recorded that ended a given way
+     *
+     * @param status how the solves ended
+     * @return the count
+     */
+    public synchronized int getCount(SudokuSolveResult.Status status) {
+        return statusCounts.getOrDefault(status, 0);
+    }
+
+    /**
+     * Works out a percentile of one statistic over every solve recorded, using
+     * the nearest rank
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @param metric the statistic, for example SudokuSolveStats::getElapsedNanos
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public synchronized long getPercentile(double percentile, ToLongFunction<SudokuSolveStats> metric) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (stats.isEmpty()) {
+            return 0;
+        }
+        long[] values = new long[stats.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = metric.applyAsLong(stats.get(i));
+        }
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(percentile / 100 * values.length);
+        return values[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Forgets every solve recorded so far
+     */
+    public synchronized void clear() {
+        stats.clear();
+        statusCounts.clear();
+    }
+
+}
@@ -4,10 +4,12 @@ import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
 import java.beans.PropertyChangeEvent;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFormattedTextField;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JRadioButton;
+import javax.swing.Timer;
 
 /**
  * Controller for the SudokuSolverView handles interactions between the View and
@@ -18,20 +20,45 @@ import javax.swing.JRadioButton;
 public class SudokuSolverController {
 
     //CLASS VARIABLES
-    private static final int BOXSIZE = 3;                                           // Game box size standard is 3
-    private static final int BOARDSIZE = BOXSIZE * BOXSIZE;                           // Game grid size standard is 3*3
+    private static final int DEFAULTBOXSIZE = 3;                                    // Game box size standard is 3
+    private static final int PRESETBOARDSIZE = 9;                                   // Size of the easy, hard and impossible puzzles
+    private static final int SEARCHFRAMEMILLIS = 40;                                // Time between frames of a search shown as it runs, 25 a second
+    private final int BOXSIZE;                                                      // Game box size
+    private final int BOARDSIZE;                                                    // Game grid size, BOXSIZE*BOXSIZE
+    /* Easy Puzzles for humans */
+    //static final String EASY_PUZZLE = "000007000300060050700920010080030001000000506900608000000013600000500120090000703";
+    static final String EASY_PUZZLE = "249180000000460091100000070000500900701892000608000105872941350010700040500008700";
+    /* Difficult for brute force (backtracking) AI to solve as its a set so it backtracks (a lot) */
+    static final String HARD_PUZZLE = "000000000000003085001020000000507000004000100090000000500000073002010000000400009";
+    /* Devised by Arto Inkala, a Finnish mathematician, and is specifically designed to be unsolvable to all but the sharpest minds. */
+    static final String IMPOSSIBLE_PUZZLE = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
     private final JFormattedTextField[][] userInputPuzzle, solvedPuzzle;
     private SudokuSolverModel listener;
     private Thread backGroundThread;
-    private JLabel leftLabel, rightLabel;
-    private JButton goButton, clearButton;
-    private JMenuItem easyMenuOption, hardMenuOption, impossibleMenuOption, quitMenuOption;
-    private JRadioButton back, backFC;
+    private JLabel leftLabel, rightLabel, solvableLabel;
+    private JButton goButton, clearButton, cancelButton;
+    private JMenuItem easyMenuOption, hardMenuOption, impossibleMenuOption, randomMenuOption, quitMenuOption;
+    private JCheckBoxMenuItem liveSolutionMenuOption, searchProgressMenuOption;
+    private volatile boolean showLiveSolution;                                      // Show the solution as the user edits
+    private volatile boolean showSearchProgress;                                    // Show the board of a running solve as it searches
+    private Timer searchProgressTimer;                                              // Samples the running solve's board, used on the EDT only
+    private JRadioButton auto, back, backFC, backFCMRV, backMAC, dancingLinks, parallel, sat, portfolio;
 
     /**
-     * Constructor creates two puzzles in memory
+     * Constructor creates two standard 9x9 puzzles in memory
      */
     public SudokuSolverController() {
+        this(DEFAULTBOXSIZE);
+    }
+
+    /**
+     * Constructor creates two puzzles in memory
+     *
+     * @param gameBoxSize the size of a box on the board, 3 for a 9x9 board
+     */
+    public SudokuSolverController(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
         userInputPuzzle = new JFormattedTextField[BOARDSIZE][BOARDSIZE];
         solvedPuzzle = new JFormattedTextField[BOARDSIZE][BOARDSIZE];
     }
@@ -56,6 +83,16 @@ public class SudokuSolverController {
         rightLabel = label;
     }
 
+    /**
+     * Binds a Label on the view to the controller to add a listener to This
+     * label is for whether the puzzle being edited can still be solved
+     *
+     * @param label label to be bound
+     */
+    public void bindSolvableLabel(JLabel label) {
+        solvableLabel = label;
+    }
+
     /**
      * Binds fields in the view to the created puzzle representation in the
      * controller and adds a listener looking for data being changed on that
@@ -67,24 +104,26 @@ public class SudokuSolverController {
      */
     public void bindUserInputPuzzle(final int row, final int column, JFormattedTextField field) {
         field.addPropertyChangeListener("value", (PropertyChangeEvent evt) -> {
-            if (evt.getNewValue() != null && evt.getNewValue() != "") {
-                String newValue = (String) evt.getNewValue();
-                userEditedValueAt(row, column, Integer.valueOf(newValue));
-            }
+            String newValue = evt.getNewValue() == null ? "" : (String) evt.getNewValue();
+            userEditedValueAt(row, column, getCellValue(newValue));                 // Null when the cell was emptied
         });
         userInputPuzzle[row][column] = field;
     }
 
     /**
      * Displays a message in the console of which field the user has changed and
-     * to what value
+     * to what value, and passes the change to the model so it can check the
+     * puzzle can still be solved
      *
      * @param row row of the current field (cell)
      * @param column column of the current field (cell)
-     * @param value the value being set
+     * @param value the value being set, null if the field was emptied
      */
-    private void userEditedValueAt(int row, int column, int value) {
-        System.out.println("Value changed at row:" + row + ", column:" + column + " to " + value);
+    private void userEditedValueAt(int row, int column, Integer value) {
+        System.out.println("Value changed at row:" + row + ", column:" + column + " to " + (value == null ? "empty" : value));
+        if (listener != null) {
+            listener.userEditedValueAt(row, column, value, this);                   // The model queues the change, no background thread needed
+        }
     }
 
     /**
@@ -156,6 +195,19 @@ public class SudokuSolverController {
         });
     }
 
+    /**
+     * Binds the cancel button to the controller from the view, and adds an
+     * action listener
+     *
+     * @param cancelButton the button from the view
+     */
+    public void bindCancelButton(JButton cancelButton) {
+        this.cancelButton = cancelButton;
+        cancelButton.addActionListener((ActionEvent e) -> {
+            cancelButtonPressed();
+        });
+    }
+
     /**
      * Sets a SudokuSolverModel for the controller to talker to
      *
@@ -203,6 +255,17 @@ public class SudokuSolverController {
         }
     }
 
+    /**
+     * Handles the actions when the cancel button is pressed, passing it
+     * straight to the model as the background thread is the one running the
+     * solve being cancelled
+     */
+    private void cancelButtonPressed() {
+        if (listener != null) {
+            listener.cancelButtonPressed(this);
+        }
+    }
+
     /**
      * Updates the GUI to clear the puzzle data
      */
@@ -227,14 +290,38 @@ public class SudokuSolverController {
         Integer[][] values = new Integer[BOARDSIZE][BOARDSIZE];
         for (int i = 0; i < BOARDSIZE; i++) {
             for (int j = 0; j < BOARDSIZE; j++) {
-                if (!userInputPuzzle[i][j].getText().equals(" ")) {
-                    values[i][j] = Integer.valueOf(userInputPuzzle[i][j].getText());
-                }
+                values[i][j] = getCellValue(userInputPuzzle[i][j].getText());
             }
         }
         return values;
     }
 
+    /**
+     * Reads the value typed in a cell, a digit or on boards over 9x9 a letter
+     * from A for 10, as in SudokuPuzzleFormat
+     *
+     * @param text the text of the cell
+     * @return the value, or null if the cell is empty
+     */
+    private Integer getCellValue(String text) {
+        String value = text.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        int digit = Character.digit(value.charAt(0), Character.MAX_RADIX);
+        return digit < 1 ? null : digit;                                            // 0 is an empty cell too
+    }
+
+    /**
+     * Gets the text shown in a cell for a value
+     *
+     * @param value the value, or null for an empty cell
+     * @return the text
+     */
+    private static String getCellText(Integer value) {
+        return value == null ? "" : String.valueOf(Character.toUpperCase(Character.forDigit(value, Character.MAX_RADIX)));
+    }
+
     /**
      * Updates the GUI to set the solution to a supplied puzzle
      *
@@ -244,7 +331,7 @@ public class SudokuSolverController {
         EventQueue.invokeLater(() -> {
             for (int i = 0; i < BOARDSIZE; i++) {
                 for (int j = 0; j < BOARDSIZE; j++) {
-                    solvedPuzzle[i][j].setValue(String.valueOf(result[i][j]));
+                    solvedPuzzle[i][j].setValue(getCellText(result[i][j]));
                 }
             }
         });        
@@ -275,6 +362,100 @@ public class SudokuSolverController {
         });
     }
 
+    /**
+     * Updates the GUI to show whether the puzzle being edited can still be
+     * solved, and its solution if the user has asked to see it
+     *
+     * @param solvable true if the puzzle can still be solved
+     * @param solution a solution of the puzzle, or an empty board
+     */
+    public void setPuzzleSolvable(final boolean solvable, final Integer[][] solution) {
+        EventQueue.invokeLater(() -> {
+            if (solvableLabel != null) {
+                solvableLabel.setText("<html>Solvable: <b>" + solvable);
+            }
+        });
+        if (showLiveSolution) {
+            setPuzzleResult(solution);
+        }
+    }
+
+    /**
+     * Binds a JCheckBoxMenuItem to the controller from the view, and adds an
+     * action listener
+     *
+     * @param item the JCheckBoxMenuItem from the view for the show live
+     * solution option
+     */
+    public void bindLiveSolutionMenuOption(JCheckBoxMenuItem item) {
+        this.liveSolutionMenuOption = item;
+        liveSolutionMenuOption.addActionListener((ActionEvent e) -> {
+            showLiveSolution = liveSolutionMenuOption.isSelected();
+        });
+    }
+
+    /**
+     * Shows the board of a running solve on the right as it searches, if the
+     * user has asked to see it. A Swing Timer takes the newest snapshot from
+     * the progress slot at a fixed frame rate, so the search never queues
+     * work on the event dispatch thread however fast it runs.
+     *
+     * @param progress the slot the solving algorithm publishes snapshots to
+     */
+    public void showSearchProgress(final SudokuSearchProgress progress) {
+        if (!showSearchProgress) {
+            return;
+        }
+        EventQueue.invokeLater(() -> {
+            if (searchProgressTimer != null) {
+                searchProgressTimer.stop();
+            }
+            searchProgressTimer = new Timer(SEARCHFRAMEMILLIS, (ActionEvent e) -> {
+                int[] cells = progress.take();
+                if (cells == null) {
+                    return;                                                         // No new snapshot since the last frame
+                }
+                for (int i = 0; i < BOARDSIZE; i++) {
+                    for (int j = 0; j < BOARDSIZE; j++) {
+                        String text = getCellText(cells[i * BOARDSIZE + j] == 0 ? null : cells[i * BOARDSIZE + j]);
+                        if (!text.equals(solvedPuzzle[i][j].getText())) {
+                            solvedPuzzle[i][j].setValue(text);
+                        }
+                    }
+                }
+            });
+            searchProgressTimer.start();
+        });
+    }
+
+    /**
+     * Stops showing the board of a solve that has finished, before its
+     * result is shown
+     */
+    public void stopSearchProgress() {
+        EventQueue.invokeLater(() -> {
+            if (searchProgressTimer != null) {
+                searchProgressTimer.stop();                                         // Also drops a frame already queued
+                searchProgressTimer = null;
+            }
+        });
+    }
+
+    /**
+     * Binds a JCheckBoxMenuItem to the controller from the view, and adds an
+     * action listener
+     *
+     * @param item the JCheckBoxMenuItem from the view for the show search
+     * option
+     */
+    public void bindSearchProgressMenuOption(JCheckBoxMenuItem item) {
+        this.searchProgressMenuOption = item;
+        showSearchProgress = searchProgressMenuOption.isSelected();
+        searchProgressMenuOption.addActionListener((ActionEvent e) -> {
+            showSearchProgress = searchProgressMenuOption.isSelected();
+        });
+    }
+
     /**
      * Binds a JMenuItem to the controller from the view, and adds an action
      * listener
@@ -296,11 +477,25 @@ public class SudokuSolverController {
      */
     public void bindEasyPuzzleMenuOption(JMenuItem item) {
         this.easyMenuOption = item;
+        easyMenuOption.setEnabled(BOARDSIZE == PRESETBOARDSIZE);
         easyMenuOption.addActionListener((ActionEvent e) -> {
             easyMenuOptionPressed();
         });
     }
 
+    /**
+     * Binds a JMenuItem to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JMenuItem from the view for the set random puzzle option
+     */
+    public void bindRandomPuzzleMenuOption(JMenuItem item) {
+        this.randomMenuOption = item;
+        randomMenuOption.addActionListener((ActionEvent e) -> {
+            randomMenuOptionPressed();
+        });
+    }
+
     /**
      * Binds a JMenuItem to the controller from the view, and adds an action
      * listener
@@ -309,6 +504,7 @@ public class SudokuSolverController {
      */
     public void bindHardPuzzleMenuOption(JMenuItem item) {
         this.hardMenuOption = item;
+        hardMenuOption.setEnabled(BOARDSIZE == PRESETBOARDSIZE);
         hardMenuOption.addActionListener((ActionEvent e) -> {
             hardMenuOptionPressed();
         });
@@ -323,6 +519,7 @@ public class SudokuSolverController {
      */
     public void bindImpossiblePuzzleMenuOption(JMenuItem item) {
         this.impossibleMenuOption = item;
+        impossibleMenuOption.setEnabled(BOARDSIZE == PRESETBOARDSIZE);
         impossibleMenuOption.addActionListener((ActionEvent e) -> {
             impossibleMenuOptionPressed();
         });
@@ -356,6 +553,104 @@ public class SudokuSolverController {
         });
     }
 
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the backtracking with FC
+     * and MRV algorithm selection
+     */
+    public void bindBacktrackingFCMRVRadio(JRadioButton item) {
+        this.backFCMRV = item;
+        backFCMRV.addActionListener((ActionEvent e) -> {
+            algorithimSelected(backFCMRV.getText());
+        });
+    }
+
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the backtracking with
+     * maintaining arc consistency algorithm selection
+     */
+    public void bindBacktrackingMACRadio(JRadioButton item) {
+        this.backMAC = item;
+        backMAC.addActionListener((ActionEvent e) -> {
+            algorithimSelected(backMAC.getText());
+        });
+    }
+
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the dancing links
+     * algorithm selection
+     */
+    public void bindDancingLinksRadio(JRadioButton item) {
+        this.dancingLinks = item;
+        dancingLinks.addActionListener((ActionEvent e) -> {
+            algorithimSelected(dancingLinks.getText());
+        });
+    }
+
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the parallel search
+     * algorithm selection
+     */
+    public void bindParallelRadio(JRadioButton item) {
+        this.parallel = item;
+        parallel.addActionListener((ActionEvent e) -> {
+            algorithimSelected(parallel.getText());
+        });
+    }
+
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the Auto algorithm
+     * selection, which picks an algorithm for each puzzle
+     */
+    public void bindAutoRadio(JRadioButton item) {
+        this.auto = item;
+        auto.addActionListener((ActionEvent e) -> {
+            algorithimSelected(auto.getText());
+        });
+    }
+
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the CDCL SAT algorithm
+     * selection
+     */
+    public void bindSATRadio(JRadioButton item) {
+        this.sat = item;
+        sat.addActionListener((ActionEvent e) -> {
+            algorithimSelected(sat.getText());
+        });
+    }
+
+    /**
+     * Binds a JRadioButton to the controller from the view, and adds an action
+     * listener
+     *
+     * @param item the JRadioButton from the view for the Portfolio algorithm
+     * selection
+     */
+    public void bindPortfolioRadio(JRadioButton item) {
+        this.portfolio = item;
+        portfolio.addActionListener((ActionEvent e) -> {
+            algorithimSelected(portfolio.getText());
+        });
+    }
+
     /**
      * Handles the setting of the models algorithm, based on the selection by
      * the user from the view
@@ -396,6 +691,25 @@ public class SudokuSolverController {
         }
     }
 
+    /**
+     * Handles the selection of the set random puzzle menu option, based on the
+     * selection by the user from the view
+     */
+    private void randomMenuOptionPressed() {
+        if (listener != null) {
+            if (backGroundThread == null || (backGroundThread != null && !backGroundThread.isAlive())) {
+                backGroundThread = new Thread() {
+
+                    @Override
+                    public void run() {
+                        listener.randomMenuOptionPressed(SudokuSolverController.this);
+                    }
+                };
+                backGroundThread.start();
+            }
+        }
+    }
+
     /**
      * Handles the selection of the set easy puzzle menu option, based on the
      * selection by the user from the view
@@ -465,10 +779,7 @@ public class SudokuSolverController {
      */
     public void setEasyPuzzle() {
         //TODO turn into factory with multiple puzzles
-        /* Easy Puzzles for humans */
-        //String puzzle = "000007000300060050700920010080030001000000506900608000000013600000500120090000703";
-        String puzzle = "249180000000460091100000070000500900701892000608000105872941350010700040500008700";
-        setPuzzle(puzzle);
+        setPuzzle(EASY_PUZZLE);
         System.out.println("Easy Puzzle Generated.");
     }
 
@@ -477,9 +788,7 @@ public class SudokuSolverController {
      */
     public void setHardPuzzle() {
         //TODO turn into factory with multiple puzzles
-        /* Difficult for brute force (backtracking) AI to solve as its a set so it backtracks (a lot) */
-        String puzzle = "000000000000003085001020000000507000004000100090000000500000073002010000000400009";
-        setPuzzle(puzzle);
+        setPuzzle(HARD_PUZZLE);
         System.out.println("Hard Puzzle Generated.");
     }
 
@@ -488,13 +797,21 @@ public class SudokuSolverController {
      */
     public void setImpossiblePuzzle() {
         //TODO turn into factory with multiple puzzles
-        /* Devised by Arto Inkala, a Finnish mathematician, and is specifically designed to be unsolvable to all but the sharpest minds. */
-        String puzzle = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
-        setPuzzle(puzzle);
+        setPuzzle(IMPOSSIBLE_PUZZLE);
         System.out.println("This puzzle was devised by Arto Inkala, a Finnish mathematician, and is specifically designed to be unsolvable to all but the sharpest minds.");
         System.out.println("Impossible Puzzle Generated.");
     }
 
+    /**
+     * Handles when the model tells the controller to set a generated puzzle
+     *
+     * @param puzzle the generated puzzle
+     */
+    public void setRandomPuzzle(Integer[][] puzzle) {
+        setPuzzle(SudokuPuzzleFormat.format(puzzle));
+        System.out.println("Random Puzzle Generated.");
+    }
+
     /**
      * Handles when a puzzle is to be set, updates GUI with values gotten from
      * the parameter puzzle
@@ -502,19 +819,12 @@ public class SudokuSolverController {
      * @param puzzle a string representing the puzzle to be set
      */
     private void setPuzzle(String puzzle) {
+        Integer[][] values = SudokuPuzzleFormat.parse(puzzle, BOARDSIZE);
         EventQueue.invokeLater(() -> {
-            int c = 0;
             for (int i = 0; i < BOARDSIZE; i++) {
                 for (int j = 0; j < BOARDSIZE; j++) {
-                    String num = "" + puzzle.charAt(c);
-
-                    if (num.equals("0")) {
-                        num = "";
-                    }
-
-                    userInputPuzzle[i][j].setValue(num);
+                    userInputPuzzle[i][j].setValue(getCellText(values[i][j]));
                     solvedPuzzle[i][j].setValue("");
-                    c++;
                 }
             }
         });
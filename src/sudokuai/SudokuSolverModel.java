@@ -16,6 +16,26 @@ public interface SudokuSolverModel {
      */
     public void solveButtonPressed(Integer[][] userInputPuzzle, SudokuSolverController controller);
 
+    /**
+     * Stops the solve started by solveButtonPressed, if one is running. Called
+     * while that solve is still running on another thread.
+     *
+     * @param controller The Controller in charge of managing the view and model
+     */
+    public void cancelButtonPressed(SudokuSolverController controller);
+
+    /**
+     * Updates the puzzle being edited with a changed cell, and tells the
+     * controller whether it can still be solved. Called on the event dispatch
+     * thread for every edit, so must return quickly.
+     *
+     * @param row row of the cell
+     * @param column column of the cell
+     * @param value the new value, null if the cell was emptied
+     * @param controller The Controller in charge of managing the view and model
+     */
+    public void userEditedValueAt(int row, int column, Integer value, SudokuSolverController controller);
+
     /**
      * Clears the GUI of input and resulted puzzles
      *
@@ -44,6 +64,13 @@ public interface SudokuSolverModel {
      */
     public void impossibleMenuOptionPressed(SudokuSolverController controller);
 
+    /**
+     * Tells the controller to set up a newly generated puzzle
+     *
+     * @param controller The Controller in charge of managing the view and model
+     */
+    public void randomMenuOptionPressed(SudokuSolverController controller);
+
     /**
      * Tells the controller to Quit the application
      *
@@ -1,5 +1,9 @@
 package sudokuai;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Concrete Model made using SudokuSolverModel. Creates its own algorithm using
  * a Sudoku_AI_Factory
@@ -10,13 +14,25 @@ class SudokuSolverModel_AI implements SudokuSolverModel {
 
     //CLASS VARIABLES
     private Sudoku_AI algorithm;                                                    //Algorithm for the model to use to solve
-    private static int BOXSIZE;                                                     //Game box size standard 3
-    private static int BOARDSIZE;                                                   //Grid size standard 3*3
+    private final int BOXSIZE;                                                      //Game box size standard 3
+    private final int BOARDSIZE;                                                    //Grid size standard 3*3
     private final Sudoku_AI_Factory AI_Factory = new Sudoku_AI_Factory();           //Factory for generating the algorithm
+    private SudokuPuzzleGenerator generator;                                        //Generator for random puzzles, created when first needed
+    private volatile SudokuCancellation currentSolve;                               //Stops the running solve, null when none is running
+    private final SudokuLiveSolver liveSolver;                                      //Propagated state of the puzzle being edited, used on the liveUpdates thread only
+    private final ExecutorService liveUpdates;                                      //Applies the user's edits to liveSolver one at a time, in order
+    private final AtomicLong liveEdits = new AtomicLong();                          //Number of edits made, used to skip checks of boards already edited again
+    private volatile SudokuCancellation liveCheck;                                  //Stops the check of the last edit once another edit is made
 
     public SudokuSolverModel_AI(int gameBoxSize) {
         BOXSIZE = gameBoxSize;
         BOARDSIZE = BOXSIZE*BOXSIZE;
+        liveSolver = new SudokuLiveSolver(gameBoxSize);
+        liveUpdates = Executors.newSingleThreadExecutor((Runnable r) -> {
+            Thread thread = new Thread(r, "sudoku-live");
+            thread.setDaemon(true);                                                 //Must not keep the application alive
+            return thread;
+        });
     }
 
     /**
@@ -29,27 +45,96 @@ class SudokuSolverModel_AI implements SudokuSolverModel {
     @Override
     public void solveButtonPressed(Integer[][] userInputPuzzle, SudokuSolverController controller) {
 
-        //TODO: Revise to update the display of each cell as it gets assigned.
         controller.setPuzzleResult(new Integer[BOARDSIZE][BOARDSIZE]);
         System.out.println("Running computation...");
 
-        if (algorithm == null) {                                                     //If no Algorithm has been selected default to backtracking
-            algorithm = AI_Factory.getAlgorithm("Backtracking",BOXSIZE);
+        if (algorithm == null) {                                                     //If no Algorithm has been selected let Auto pick one for each puzzle
+            algorithm = AI_Factory.getAlgorithm("Auto",BOXSIZE);
         }
 
         long start = System.currentTimeMillis();                                    //Note the start time of the solve
 
-        Integer[][] newSolution = algorithm.getSolution(userInputPuzzle);           //Get the solution from the algorithm
+        SudokuCancellation cancellation = new SudokuCancellation();
+        currentSolve = cancellation;
+        SudokuSearchProgress progress = new SudokuSearchProgress();
+        algorithm.setSearchProgress(progress);                                      //Board shown as each cell gets assigned, sampled by the controller
+        controller.showSearchProgress(progress);
+        SudokuSolveResult result;
+        try {
+            result = algorithm.solve(userInputPuzzle, cancellation);                //Get the solution from the algorithm
+        } finally {
+            currentSolve = null;
+            algorithm.setSearchProgress(null);
+            controller.stopSearchProgress();                                        //Before the result, so no late frame covers it
+        }
 
-        if (newSolution[0][0] != null) {                                            //If the solution is not empty then update the results to show the solution
-            controller.setPuzzleResult(newSolution);
+        if (result.isSolved()) {                                                    //If the puzzle was solved then update the results to show the solution
+            controller.setPuzzleResult(result.getSolution());
             controller.setPuzzleCompleted(true);
         } else {                                                                    //If the puzzle is blank, set the completed label to false
             controller.setPuzzleCompleted(false);
         }
         long elapsedTime = System.currentTimeMillis() - start;                      //Calculate elapsed time
-        controller.setPuzzleTime(String.valueOf(elapsedTime) + "ms");               //Display elapsed time as puzzle time label
-        System.out.println("Done!");
+        System.out.println(result.getStats());                                      //Displays in the console the nodes, backtracks etc. the solve took
+        if (algorithm instanceof Sudoku_AI_Auto) {
+            System.out.println("Auto picked: " + ((Sudoku_AI_Auto) algorithm).getLastChoice());
+        }
+        if (result.getStatus() == SudokuSolveResult.Status.CANCELLED) {
+            controller.setPuzzleTime(String.valueOf(elapsedTime) + "ms (cancelled)");
+            System.out.println("Cancelled!");
+        } else {
+            controller.setPuzzleTime(String.valueOf(elapsedTime) + "ms");           //Display elapsed time as puzzle time label
+            System.out.println("Done!");
+        }
+    }
+
+    /**
+     * Stops the running solve, it ends within a few hundred search nodes and
+     * reports itself as cancelled
+     *
+     * @param controller The Controller in charge of managing the view and model
+     */
+    @Override
+    public void cancelButtonPressed(SudokuSolverController controller) {
+        SudokuCancellation cancellation = currentSolve;
+        if (cancellation != null) {
+            System.out.println("Cancelling the solve...");
+            cancellation.cancel();
+        }
+    }
+
+    /**
+     * Queues a changed cell for the live solver, which applies it to its
+     * propagated state and tells the controller whether the puzzle can still
+     * be solved. When a preset fills the board cell by cell only the last
+     * edit is checked.
+     *
+     * @param row row of the cell
+     * @param column column of the cell
+     * @param value the new value, null if the cell was emptied
+     * @param controller The Controller in charge of managing the view and model
+     */
+    @Override
+    public void userEditedValueAt(int row, int column, Integer value, SudokuSolverController controller) {
+        long edit = liveEdits.incrementAndGet();
+        SudokuCancellation cancellation = new SudokuCancellation();
+        SudokuCancellation previous = liveCheck;
+        liveCheck = cancellation;
+        if (previous != null) {
+            previous.cancel();                                                      //Its board is out of date, stop searching it
+        }
+
+        liveUpdates.execute(() -> {
+            liveSolver.setValue(row, column, value);
+            if (liveEdits.get() != edit) {                                          //Another edit is queued, only its board needs checking
+                return;
+            }
+            SudokuSolveResult result = liveSolver.check(cancellation);
+            if (result.getStatus() == SudokuSolveResult.Status.SOLVED
+                    || result.getStatus() == SudokuSolveResult.Status.NO_SOLUTION) {
+                controller.setPuzzleSolvable(result.isSolved(), result.getSolution());
+            }
+        });
     }
 
     /**
@@ -108,6 +193,24 @@ class SudokuSolverModel_AI implements SudokuSolverModel {
         System.out.println("Done!");
     }
 
+    /**
+     * Tells the controller to set up a newly generated puzzle with one
+     * solution
+     *
+     * @param controller The Controller in charge of managing the view and model
+     */
+    @Override
+    public void randomMenuOptionPressed(SudokuSolverController controller) {
+        System.out.println("Generating Random Puzzle...");
+        if (generator == null) {
+            generator = new SudokuPuzzleGenerator(BOXSIZE);
+        }
+        controller.setPuzzleTime("");                                               //Tell the controller to clear the puzzletime label
+        controller.setPuzzleCompleted(false);                                       //Tell the controller to clear the puzzlecompleted label
+        controller.setRandomPuzzle(generator.generate(SudokuPuzzleGenerator.Difficulty.MEDIUM));
+        System.out.println("Done!");
+    }
+
     /**
      * Tells the controller to Quit the application
      *
@@ -16,7 +16,13 @@ public class SudokuSolverView extends JFrame {
 
     private static final String VERSION = "Sudoku Solver 0.03";
     private static final Insets SIXPANELINSET = new Insets(6, 6, 6, 6);
-    private static final int BOXSIZE = 3;                                           //Default BoxSize = 3 (3x3) 
+    private static final int DEFAULTBOXSIZE = 3;                                    //Default BoxSize = 3 (3x3) 
+    private static final int FONTSIZE = 24;                                         //Cell font on boards up to 9x9
+    private static final int LARGEFONTSIZE = 16;                                    //Cell font on larger boards, so they fit the screen
+    private static final String CELLCHARACTERS = "123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+                                                                                    //Typed for the values 1 to 35, as in SudokuPuzzleFormat
+    private final int BOXSIZE;                                                      //Size of a box
+    private final int BOARDSIZE;                                                    //Board is BOXSIZE*BOXSIZE wide
 
     private final SudokuSolverController controller;
 
@@ -29,12 +35,41 @@ public class SudokuSolverView extends JFrame {
         controller.setListener(listener);
     }
 
+    /**
+     * Sets the look and feel of the platform, keeping the default if it can't
+     * be set
+     */
+    static void tryToSetSystemLookAndFeel() {
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException ex) {
+            System.out.println("Couldn't set LAF");
+        }
+    }
+
     /**
      * Constructor for the View, defaults to Sudoku board with two 3*3 boards
      * and some controls for the user to select algorithm or set puzzles
      */
     public SudokuSolverView() {
-        controller = new SudokuSolverController();
+        this(DEFAULTBOXSIZE);
+    }
+
+    /**
+     * Constructor for the View, with two boards of the given box size and some
+     * controls for the user to select algorithm or set puzzles
+     *
+     * @param gameBoxSize the size of a box on the board, 3 for a 9x9 board
+     * @throws IllegalArgumentException if a cell's value wouldn't fit one
+     * character, boards over 35x35
+     */
+    public SudokuSolverView(int gameBoxSize) {
+        if (gameBoxSize < 1 || gameBoxSize * gameBoxSize > CELLCHARACTERS.length()) {
+            throw new IllegalArgumentException("The board must be 1 to " + CELLCHARACTERS.length() + " wide, not " + gameBoxSize * gameBoxSize);
+        }
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        controller = new SudokuSolverController(BOXSIZE);
         setTitle(VERSION);
         getContentPane().add(createCenterPanel(), BorderLayout.CENTER);
         getContentPane().add(createBottomPanel(), BorderLayout.SOUTH);
@@ -58,6 +93,10 @@ public class SudokuSolverView extends JFrame {
         menu.add(createMenuEasyExample());
         menu.add(createMenuHardExample());
         menu.add(createMenuImpossibleExample());
+        menu.add(createMenuRandomExample());
+        menu.addSeparator();
+        menu.add(createMenuLiveSolutionOption());
+        menu.add(createMenuSearchProgressOption());
         menu.addSeparator();
         menu.add(createMenuExitOption());
         return menu;
@@ -87,6 +126,32 @@ public class SudokuSolverView extends JFrame {
         return item;
     }
 
+    private JMenuItem createMenuRandomExample() {
+        JMenuItem item = new JMenuItem("Random Sudoku Puzzle", KeyEvent.VK_R);
+        item.getAccessibleContext().setAccessibleDescription(
+                "Generates a new Puzzle with one solution on the left");
+        controller.bindRandomPuzzleMenuOption(item);
+        return item;
+    }
+
+    private JCheckBoxMenuItem createMenuLiveSolutionOption() {
+        JCheckBoxMenuItem item = new JCheckBoxMenuItem("Show Live Solution");
+        item.setMnemonic(KeyEvent.VK_L);
+        item.getAccessibleContext().setAccessibleDescription(
+                "Shows a solution on the right as the puzzle on the left is edited");
+        controller.bindLiveSolutionMenuOption(item);
+        return item;
+    }
+
+    private JCheckBoxMenuItem createMenuSearchProgressOption() {
+        JCheckBoxMenuItem item = new JCheckBoxMenuItem("Show Search Progress", true);
+        item.setMnemonic(KeyEvent.VK_S);
+        item.getAccessibleContext().setAccessibleDescription(
+                "Shows the board on the right as the algorithm searches for a solution");
+        controller.bindSearchProgressMenuOption(item);
+        return item;
+    }
+
     private JMenuItem createMenuExitOption() {
         JMenuItem item = new JMenuItem("Exit", KeyEvent.VK_Q);
         item.getAccessibleContext().setAccessibleDescription(
@@ -98,13 +163,17 @@ public class SudokuSolverView extends JFrame {
     private JPanel createBottomPanel() {
         JPanel bottomPanel = new JPanel(new GridBagLayout());
         JLabel leftLabel = createLabel("left");
+        JLabel solvableLabel = createLabel("solvable");
         JLabel rightLabel = createLabel("right");
 
         controller.bindLeftLabel(leftLabel);
+        controller.bindSolvableLabel(solvableLabel);
         controller.bindRightLabel(rightLabel);
 
         bottomPanel.add(leftLabel, getWholeCellConstraints());
         bottomPanel.add(new JSeparator(JSeparator.VERTICAL));
+        bottomPanel.add(solvableLabel, getWholeCellConstraints());
+        bottomPanel.add(new JSeparator(JSeparator.VERTICAL));
         bottomPanel.add(rightLabel, getWholeCellConstraints());
 
         bottomPanel.setBorder(new BevelBorder(BevelBorder.LOWERED));
@@ -144,6 +213,7 @@ public class SudokuSolverView extends JFrame {
         JPanel buttonPanel = createButtonPanel(1);
         buttonPanel.add(createSolveButton(), getPreferredSizeConstraint());
         buttonPanel.add(createClearButton(), getPreferredSizeConstraint());
+        buttonPanel.add(createCancelButton(), getPreferredSizeConstraint());
         return buttonPanel;
     }
 
@@ -159,21 +229,54 @@ public class SudokuSolverView extends JFrame {
         return clearButton;
     }
 
+    private JButton createCancelButton() {
+        JButton cancelButton = new JButton("CANCEL");
+        controller.bindCancelButton(cancelButton);
+        return cancelButton;
+    }
+
     private JPanel createAlgorithmRadioPanel() {
         JPanel buttonPanel = createButtonPanel(1);
+        JRadioButton auto = createAutoRadio();
         JRadioButton backtracking = createBacktrackingRadio();
         JRadioButton backtrackingFC = createBacktrackingForwardCheckingRadio();
+        JRadioButton backtrackingFCMRV = createBacktrackingForwardCheckingMRVRadio();
+        JRadioButton backtrackingMAC = createBacktrackingMACRadio();
+        JRadioButton dancingLinks = createDancingLinksRadio();
+        JRadioButton parallel = createParallelRadio();
+        JRadioButton sat = createSATRadio();
+        JRadioButton portfolio = createPortfolioRadio();
+        buttonPanel.add(auto, getPreferredSizeConstraint());
         buttonPanel.add(backtracking, getPreferredSizeConstraint());
         buttonPanel.add(backtrackingFC, getPreferredSizeConstraint());
+        buttonPanel.add(backtrackingFCMRV, getPreferredSizeConstraint());
+        buttonPanel.add(backtrackingMAC, getPreferredSizeConstraint());
+        buttonPanel.add(dancingLinks, getPreferredSizeConstraint());
+        buttonPanel.add(parallel, getPreferredSizeConstraint());
+        buttonPanel.add(sat, getPreferredSizeConstraint());
+        buttonPanel.add(portfolio, getPreferredSizeConstraint());
         ButtonGroup algorithmGroup = new ButtonGroup();
+        algorithmGroup.add(auto);
         algorithmGroup.add(backtracking);
         algorithmGroup.add(backtrackingFC);
+        algorithmGroup.add(backtrackingFCMRV);
+        algorithmGroup.add(backtrackingMAC);
+        algorithmGroup.add(dancingLinks);
+        algorithmGroup.add(parallel);
+        algorithmGroup.add(sat);
+        algorithmGroup.add(portfolio);
         return buttonPanel;
     }
 
+    private JRadioButton createAutoRadio() {
+        JRadioButton autoRadio = new JRadioButton("Auto");
+        autoRadio.setSelected(true);
+        controller.bindAutoRadio(autoRadio);
+        return autoRadio;
+    }
+
     private JRadioButton createBacktrackingRadio() {
         JRadioButton backtrackingRadio = new JRadioButton("Backtracking");
-        backtrackingRadio.setSelected(true);
         controller.bindBacktrackingRadio(backtrackingRadio);
         return backtrackingRadio;
     }
@@ -184,6 +287,42 @@ public class SudokuSolverView extends JFrame {
         return backtrackingForwardCheckingRadio;
     }
 
+    private JRadioButton createBacktrackingForwardCheckingMRVRadio() {
+        JRadioButton backtrackingForwardCheckingMRVRadio = new JRadioButton("Backtracking - FC - MRV");
+        controller.bindBacktrackingFCMRVRadio(backtrackingForwardCheckingMRVRadio);
+        return backtrackingForwardCheckingMRVRadio;
+    }
+
+    private JRadioButton createBacktrackingMACRadio() {
+        JRadioButton backtrackingMACRadio = new JRadioButton("Backtracking - MAC");
+        controller.bindBacktrackingMACRadio(backtrackingMACRadio);
+        return backtrackingMACRadio;
+    }
+
+    private JRadioButton createDancingLinksRadio() {
+        JRadioButton dancingLinksRadio = new JRadioButton("Dancing Links");
+        controller.bindDancingLinksRadio(dancingLinksRadio);
+        return dancingLinksRadio;
+    }
+
+    private JRadioButton createParallelRadio() {
+        JRadioButton parallelRadio = new JRadioButton("Parallel Search");
+        controller.bindParallelRadio(parallelRadio);
+        return parallelRadio;
+    }
+
+    private JRadioButton createSATRadio() {
+        JRadioButton satRadio = new JRadioButton("CDCL SAT");
+        controller.bindSATRadio(satRadio);
+        return satRadio;
+    }
+
+    private JRadioButton createPortfolioRadio() {
+        JRadioButton portfolioRadio = new JRadioButton("Portfolio");
+        controller.bindPortfolioRadio(portfolioRadio);
+        return portfolioRadio;
+    }
+
     private JPanel createRightPanel() {
         JPanel rightPanel = createBOXSIZEPanel(6);
         for (int i = 0; i < BOXSIZE; i++) {
@@ -263,23 +402,37 @@ public class SudokuSolverView extends JFrame {
         JFormattedTextField field = createEditableField();
         field.setEditable(false);
         field.setBackground(Color.WHITE); // otherwise non-editable gets gray
-        field.setFont(new Font("Serif", Font.PLAIN, 24));
+        field.setFont(new Font("Serif", Font.PLAIN, getFontSize()));
         return field;
     }
 
     private JFormattedTextField createEditableField() {
         JFormattedTextField field = new JFormattedTextField();
-        // accept only one digit and nothing else
+        // accept only one digit on a 9x9 board, on any other one digit or letter of a value it can hold
         try {
-            field.setFormatterFactory(new DefaultFormatterFactory(new MaskFormatter("#")));
+            field.setFormatterFactory(new DefaultFormatterFactory(createCellFormatter()));
         } catch (java.text.ParseException ex) {
         }
-        field.setPreferredSize(new Dimension(16, 30));
+        field.setPreferredSize(BOARDSIZE > 9 ? new Dimension(16, 22) : new Dimension(16, 30));
         field.setHorizontalAlignment(javax.swing.JTextField.CENTER);
         field.setText(" ");
         field.setBorder(null);
-        field.setFont(new Font("Serif", Font.PLAIN, 24));
+        field.setFont(new Font("Serif", Font.PLAIN, getFontSize()));
         return field;
     }
 
+    private MaskFormatter createCellFormatter() throws java.text.ParseException {
+        if (BOARDSIZE == 9) {
+            return new MaskFormatter("#");
+        }
+        MaskFormatter formatter = new MaskFormatter("*");
+        String values = CELLCHARACTERS.substring(0, BOARDSIZE);
+        formatter.setValidCharacters(values + values.toLowerCase() + "0 ");         //Only the values on this board, 0 or a space empties the cell
+        return formatter;
+    }
+
+    private int getFontSize() {
+        return BOARDSIZE > 9 ? LARGEFONTSIZE : FONTSIZE;
+    }
+
 }
@@ -14,6 +14,46 @@ public interface Sudoku_AI {
      */
     public Integer[][] getSolution(Integer[][] userInputPuzzle);
 
+    /**
+     * Solves a puzzle like getSolution, but can be stopped part way through.
+     *
+     * @param userInputPuzzle is the puzzle to be solved.
+     * @param cancellation checked while searching, the solve ends with
+     * CANCELLED or TIMED_OUT once it is stopped. null if it can't be stopped.
+     * @return the outcome of the solve, holding the same board getSolution
+     * would return.
+     */
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation);
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as the limit is
+     * reached. A limit of 2 is enough to tell whether a puzzle is valid, that
+     * is has exactly one solution.
+     *
+     * @param userInputPuzzle is the puzzle to be counted, it is not changed.
+     * @param limit the number of solutions to stop counting at.
+     * @return the number of solutions, at most limit.
+     */
+    public int countSolutions(Integer[][] userInputPuzzle, int limit);
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes, along
+     * with its statistics. Nothing is logged or published without one.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setSolveListener(SudokuSolveListener listener);
+
+    /**
+     * Sets where snapshots of the board are published while later solves
+     * search, for showing the search as it runs. Algorithms with no single
+     * board to show ignore it.
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    public default void setSearchProgress(SudokuSearchProgress progress) {
+    }
+
     /**
      * Returns the String ID of the Algorithm
      *
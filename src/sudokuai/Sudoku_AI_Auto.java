@@ -0,0 +1,204 @@
+package sudokuai;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Concrete Sudoku_AI algorithm that picks another algorithm for each puzzle.
+ * It works out the puzzle's SudokuPuzzleFeatures, a few microseconds of work,
+ * and hands the puzzle to the algorithm its SudokuAutoPolicy predicts will
+ * solve it fastest. The policy is fitted to timings of the algorithms on the
+ * benchmark corpus, see SudokuAutoPolicy for refitting it.
+ *
+ * The policy is fitted to 9x9 puzzles, puzzles of other sizes always go to
+ * OTHERSIZEALGORITHM.
+ *
+ * Each algorithm is created the first time it is picked and reused for every
+ * later puzzle it is picked for. Like the other algorithms an instance is used
+ * by one thread at a time.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_Auto implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private static final String NAME = "Auto";                                                  //Algorithm Name, used by SudokuSolverModel_AI class
+    static final int POLICYBOXSIZE = 3;                                                         //Box size of the puzzles the policy is fitted to
+    static final String OTHERSIZEALGORITHM = "CDCL SAT";                                        //Fastest on sparse large boards
+
+    //DATA STRUCTURES
+    private final SudokuAutoPolicy policy;                                                      //Picks the algorithm for each puzzle
+    private final SudokuPuzzleFeatures features;                                                //Measures each puzzle, null for other sizes
+    private final Sudoku_AI[] engines;                                                          //Each algorithm of the policy, null until first picked
+    private final Sudoku_AI_Factory factory = new Sudoku_AI_Factory();                          //Creates the algorithms as they are picked
+    private Sudoku_AI otherSizeEngine;                                                          //Algorithm for other sizes, null until first needed
+    private String lastChoice;                                                                  //Name of the algorithm picked for the last puzzle
+    private SudokuSearchProgress progress;                                                      //Passed on to the algorithm picked, null for none
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+
+    /**
+     * Constructor for the class, uses the default policy
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_Auto(int gameBoxSize) {
+        this(gameBoxSize, SudokuAutoPolicy.getDefault());
+    }
+
+    /**
+     * Constructor for the class
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @param policy the policy picking the algorithm for each puzzle
+     * @throws IllegalArgumentException if the policy picks from an unknown
+     * algorithm or from Auto itself
+     */
+    Sudoku_AI_Auto(int gameBoxSize, SudokuAutoPolicy policy) {
+        BOXSIZE = gameBoxSize;
+        for (String algorithm : policy.getAlgorithmNames()) {
+            if (NAME.equals(algorithm) || !factory.getAlgorithmNames().contains(algorithm)) {
+                throw new IllegalArgumentException("Policy picks an unknown algorithm: " + algorithm);
+            }
+        }
+        this.policy = policy;
+        features = BOXSIZE == POLICYBOXSIZE ? new SudokuPuzzleFeatures(gameBoxSize) : null;
+        engines = new Sudoku_AI[policy.getAlgorithmNames().size()];
+    }
+
+    /**
+     * Overrode method for getSolution, solves the puzzle in place with the
+     * algorithm picked for it
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, the time taken includes working out the
+     * features
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        Sudoku_AI engine = choose(userInputPuzzle);
+        engine.setSearchProgress(progress);
+        SudokuSolveResult result;
+        try {
+            result = engine.solve(userInputPuzzle, cancellation);
+        } finally {
+            engine.setSearchProgress(null);                                                     //Only shown while this class is solving
+        }
+
+        SudokuSolveStats stats = result.getStats();
+        result = new SudokuSolveResult(result.getStatus(), result.getSolution(), new SudokuSolveStats(stats.getNodes(),
+                stats.getBacktracks(), stats.getPropagations(), stats.getLogicalCells(), stats.getSearchCells(),
+                stats.getMaxDepth(), System.nanoTime() - start, stats.getAllocatedBytes()));
+
+        SudokuSolveListener current = listener;
+        if (current != null) {
+            current.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, counted by the algorithm picked for
+     * the puzzle
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        return choose(userInputPuzzle).countSolutions(userInputPuzzle, limit);
+    }
+
+    /**
+     * Picks the algorithm for a puzzle, creating it if it has not been picked
+     * before
+     *
+     * @param puzzle the puzzle
+     * @return the algorithm
+     */
+    private Sudoku_AI choose(Integer[][] puzzle) {
+        if (features == null) {
+            if (otherSizeEngine == null) {
+                otherSizeEngine = factory.getAlgorithm(OTHERSIZEALGORITHM, BOXSIZE);
+            }
+            lastChoice = OTHERSIZEALGORITHM;
+            return otherSizeEngine;
+        }
+
+        int choice = policy.choose(features.compute(puzzle, policy.getLastFeature()));
+        if (engines[choice] == null) {
+            engines[choice] = factory.getAlgorithm(policy.getAlgorithmNames().get(choice), BOXSIZE);
+        }
+        lastChoice = policy.getAlgorithmNames().get(choice);
+        return engines[choice];
+    }
+
+    /**
+     * Gets the name of the algorithm picked for the last puzzle solved or
+     * counted
+     *
+     * @return the name as given to Sudoku_AI_Factory, or null if there has
+     * been none
+     */
+    public String getLastChoice() {
+        return lastChoice;
+    }
+
+    /**
+     * Gets the names of the algorithms this can pick from
+     *
+     * @return the names as given to Sudoku_AI_Factory
+     */
+    public List<String> getAlgorithmNames() {
+        return features == null ? Collections.singletonList(OTHERSIZEALGORITHM) : policy.getAlgorithmNames();
+    }
+
+    /**
+     * Overrode method for setSolveListener, told about each solve once
+     * whichever algorithm was picked
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Overrode method for setSearchProgress, passed on to the algorithm
+     * picked for each later puzzle
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Overrode method for getName
+     *
+     * @return NAME the name of this algorithm
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+}
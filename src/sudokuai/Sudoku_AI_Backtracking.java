@@ -1,28 +1,67 @@
 package sudokuai;
 
+import java.util.Arrays;
+
 /**
  * Concrete Sudoku_AI algorithm implementation using Backtracking
  *
+ * The values used in each row, column and box are kept as one long bitmask,
+ * so boards of up to 64 values (a box size of 8) can be solved.
+ *
  * @author Nik Bradley
  */
 public class Sudoku_AI_Backtracking implements Sudoku_AI {
 
     //CLASS VARIABLES
-    private static int BOXSIZE;                                                                 //Game size 3*3 standard 
-    private static int steps = 0;   
-    private static int BOARDSIZE;                                                               //length of rows & columns                 
+    private final int BOXSIZE;                                                                  //Game size 3*3 standard 
+    private int steps = 0;                                                                      //Number of values tried while solving the last puzzle
+    private final int BOARDSIZE;                                                                //length of rows & columns                 
+    private int solutionLimit;                                                                  //Number of solutions to stop the search at, 1 when solving
+    private int solutionsFound;                                                                 //Number of solutions found by the current search
+    private boolean counting;                                                                   //True when counting solutions rather than solving the user input
+    private SudokuCancellation cancellation;                                                    //Stops the current search from outside, null if it can't be stopped
+    private int checkCountdown;                                                                 //Calls left before the cancellation is checked again
+    private SudokuSolveResult.Status stopStatus;                                                //Why the current search was stopped, null while it runs
+    private int nodes;                                                                          //Search nodes visited by the current search
+    private int backtracks;                                                                     //Values undone by the current search
+    private int maxDepth;                                                                       //Deepest level reached by the current search
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+    private SudokuSearchProgress progress;                                                      //Given snapshots of the board while searching, null for none
+    private final long FULLDOMAIN;                                                              //Bitmask with a bit set for every value 1-BOARDSIZE
     private static final String NAME = "Backtracking";                                          //Algorithm Name, used by SudokuSolverModel_AI class
     
     //DATA STRUCTURES
     private Integer[][] solution;                                                              //Game board 2d array storing cells
+    private final int[] board;                                                                  //Working copy of the board, 0 is an empty cell
+    private final long[] rowValues;                                                             //Bitmask of the values used in each row
+    private final long[] colValues;                                                             //Bitmask of the values used in each column
+    private final long[] boxValues;                                                             //Bitmask of the values used in each box
+    private final int[] cellRow, cellCol, cellBox;                                              //Row, column and box of each cell
 
     /**
      * Constructor for the backtracking algorithm, takes a box size and generates a matching grid
      * @param gameBoxSize 
+     * @throws IllegalArgumentException if the board has more than 64 values
      */
     public Sudoku_AI_Backtracking(int gameBoxSize) {
         BOXSIZE = gameBoxSize;
         BOARDSIZE = BOXSIZE * BOXSIZE;
+        Sudoku_AI_Propagator.checkBoardSize(BOARDSIZE);
+        FULLDOMAIN = Sudoku_AI_Propagator.fullDomain(BOARDSIZE);
+
+        board = new int[BOARDSIZE * BOARDSIZE];
+        rowValues = new long[BOARDSIZE];
+        colValues = new long[BOARDSIZE];
+        boxValues = new long[BOARDSIZE];
+        cellRow = new int[BOARDSIZE * BOARDSIZE];
+        cellCol = new int[BOARDSIZE * BOARDSIZE];
+        cellBox = new int[BOARDSIZE * BOARDSIZE];
+
+        for (int cell = 0; cell < BOARDSIZE * BOARDSIZE; cell++) {
+            cellRow[cell] = cell / BOARDSIZE;
+            cellCol[cell] = cell % BOARDSIZE;
+            cellBox[cell] = (cellRow[cell] / BOXSIZE) * BOXSIZE + (cellCol[cell] / BOXSIZE);
+        }
     }
 
     /**
@@ -34,13 +73,101 @@ public class Sudoku_AI_Backtracking implements Sudoku_AI {
      */
     @Override
     public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, runs the getSolution search and checks the
+     * cancellation as it goes
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
         this.solution = userInputPuzzle;
+        this.cancellation = cancellation;
+        steps = 0;
+        solutionLimit = 1;
+        solutionsFound = 0;
+        counting = false;
+        checkCountdown = 1;                                                                     //Check on the first node, so an already stopped solve ends at once
+        stopStatus = null;
+        resetStats();
 
-        if (solveSudoku()) {
-            return solution;                                                                    //If a puzzle has been solved return it
+        SudokuSolveResult result;
+        if (loadBoard() && solveSudoku(0, 0)) {
+            result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, solution,
+                    getStats(start, allocatedBefore));                                          //If a puzzle has been solved return it
         } else {
-            return new Integer[BOARDSIZE][BOARDSIZE];                                           //If puzzle couldnt be solved return blank puzzle
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.NO_SOLUTION,
+                    new Integer[BOARDSIZE][BOARDSIZE], getStats(start, allocatedBefore));       //If puzzle couldnt be solved return blank puzzle
+        }
+        if (listener != null) {
+            listener.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, runs the same search as getSolution
+     * but carries on past each solution until the limit is reached. Only the
+     * working board is changed, so the user input is left as it was.
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        this.solution = userInputPuzzle;
+        steps = 0;
+        solutionLimit = limit;
+        solutionsFound = 0;
+        counting = true;
+        cancellation = null;
+        stopStatus = null;
+        resetStats();
+
+        if (loadBoard()) {
+            solveSudoku(0, 0);
+        }
+        return solutionsFound;
+    }
+
+    /**
+     * Copies the user input into the working board and marks every value as
+     * used in its row, column and box
+     *
+     * @return false if a value is repeated in a row, column or box, or is out
+     * of range
+     */
+    private boolean loadBoard() {
+        Arrays.fill(rowValues, 0);
+        Arrays.fill(colValues, 0);
+        Arrays.fill(boxValues, 0);
+
+        for (int cell = 0; cell < BOARDSIZE * BOARDSIZE; cell++) {
+            Integer value = solution[cellRow[cell]][cellCol[cell]];
+            board[cell] = value == null ? 0 : value;
+
+            if (value != null) {
+                if (value < 1 || value > BOARDSIZE) {                                           //Not a value this board can hold
+                    return false;
+                }
+                long bit = 1L << (value - 1);
+                if ((getUsedValues(cell) & bit) != 0) {                                         //The user input breaks a constraint, no solution is possible
+                    return false;
+                }
+                setValue(cell, value, bit);
+            }
         }
+        return true;
     }
 
     /**
@@ -50,129 +177,186 @@ public class Sudoku_AI_Backtracking implements Sudoku_AI {
      * before moving to the next). Domains remain unchanged and are 1-9 for all
      * cells
      *
+     * @param from the cell to start looking for an empty cell from, every cell
+     * before it is already assigned
+     * @param depth number of values assigned by the search so far
      * @return boolean true if all cells have been assigned values it.
      */
-    private boolean solveSudoku() {
-        int[] nextCell = getNextEmptyCell();                                                    //Find the next empty cell to assign
+    private boolean solveSudoku(int from, int depth) {
+        if (isStopped()) {                                                                      //Unwind without a solution
+            return false;
+        }
+        nodes++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+
+        int cell = getNextEmptyCell(from);                                                      //Find the next empty cell to assign
 
-        if (solution[nextCell[0]][nextCell[1]] != null) {                                       //If the cell we have has data in it, then we have a completed solution
-            System.out.println("Steps = " + steps);                                             //Displays in the console the total steps taken to find the solution
+        if (cell == board.length) {                                                             //If there are no empty cells left, then we have a completed solution
+            solutionsFound++;
+            if (solutionsFound < solutionLimit) {                                               //Below the limit, backtrack to look for the next solution
+                return false;
+            }
+            if (!counting) {                                                                    //Only getSolution writes back to the user input
+                writeSolution();
+            }
             return true;
         }
 
-        for (int value = 1; value < BOARDSIZE+1; value++) {                                     //Loop through each value in the domain (domain = 1-9)
-            steps++;                                                                            //This is a step so increment them
-            if (isSafe(value, nextCell, solution)) {                                            //If the value has not been used in the same row, column or box then proceed
+        long freeValues = ~getUsedValues(cell) & FULLDOMAIN;                                    //Values not used in the same row, column or box, unchanged while this cell is being tried
 
-                solution[nextCell[0]][nextCell[1]] = value;                                     //Assign the value to the current cell
+        while (freeValues != 0) {                                                               //Loop through each safe value in the domain, lowest first
+            long bit = freeValues & -freeValues;
+            freeValues &= ~bit;
+            int value = Long.numberOfTrailingZeros(bit) + 1;
 
-                if (solveSudoku()) {                                                            //Try to assign the next cell a value
-                    return true;                                                                //If the puzzle is completed, true will be returned
-                }
+            setValue(cell, value, bit);                                                         //Assign the value to the current cell
 
-                solution[nextCell[0]][nextCell[1]] = null;                                      //Backtracking initiated, remove value from cell
-            }                                                                                   //Try the next value
-        }
+            if (solveSudoku(cell + 1, depth + 1)) {                                                        //Try to assign the next cell a value
+                steps += value;                                                                 //Every value up to this one was tried, safe or not
+                return true;                                                                    //If the puzzle is completed, true will be returned
+            }
+
+            clearValue(cell, bit);                                                              //Backtracking initiated, remove value from cell
+            backtracks++;
+        }                                                                                       //Try the next value
+        steps += BOARDSIZE;                                                                     //Every value in the domain was tried
         return false;                                                                           //triggers backtracking    
     }
 
     /**
-     * Finds the next empty cell and returns it
+     * Checks the cancellation once every CHECKINTERVAL calls, remembering why
+     * the search was stopped, and publishes a snapshot of the board if the last
+     * one has been taken
      *
-     * @return cell is a 1d array of size two, index 0 = row of cell & index 1 =
-     * column of cell
-     */
-    private int[] getNextEmptyCell() {
-        int[] cell = new int[2];
-
-        for (int i = 0; i < BOARDSIZE; i++) {
-            for (int j = 0; j < BOARDSIZE; j++) {
-                if (solution[i][j] == null) {                                                   //If the current cell has no value then return it
-                    cell[0] = i;
-                    cell[1] = j;
-                    return cell;
-                }
+     * @return true once the search has been stopped
+     */
+    private boolean isStopped() {
+        if ((cancellation != null || progress != null) && stopStatus == null && --checkCountdown == 0) {
+            checkCountdown = SudokuCancellation.CHECKINTERVAL;
+            if (cancellation != null) {
+                stopStatus = cancellation.getStopStatus();
+            }
+            if (progress != null && progress.isWanted()) {
+                progress.publish(board.clone());
             }
         }
-        return cell;                                                                            //Return the co-ords of the 1st cell
+        return stopStatus != null;
     }
 
     /**
-     * Check to see if the currently selected value is used in the current row
+     * Finds the next empty cell and returns it
      *
-     * @param value currently selected value
-     * @param row current row
-     * @param board a supplied puzzle
-     * @return false if used already, true if not used yet
-     */
-    private boolean isSafeToUseInRow(int value, int row, Integer[][] board) {
-        for (int i = 0; i < BOARDSIZE; i++) {
-            if (board[row][i] == null) {
-            } //Ensure that the cell has a value
-            else if (board[row][i] == value) {                                                  //If the cell has a value and it matches the currently selected value then return false as its already in use                  
-                return false;
-            }
+     * @param from the cell to start looking from
+     * @return index of the cell (row * BOARDSIZE + column), or the number of
+     * cells if the board is full
+     */
+    private int getNextEmptyCell(int from) {
+        int cell = from;
+        while (cell < board.length && board[cell] != 0) {                                       //Skip cells that already have a value
+            cell++;
         }
-        return true;                                                                            //If the currently selected value has not been used then return true - it can be used safely
+        return cell;
     }
 
     /**
-     * Check to see if the currently selected value is used in the current
-     * column
+     * Assigns a value to a cell and marks it as used in the cell's row, column
+     * and box
      *
-     * @param value currently selected value
-     * @param column current column
-     * @param board a supplied puzzle
-     * @return false if used already, true if not used yet
-     */
-    private boolean isSafeToUseInColumn(int value, int column, Integer[][] board) {
-        for (int i = 0; i < BOARDSIZE; i++) {
-            if (board[i][column] == null) {
-            } //Ensure that the cell has a value
-            else if (board[i][column] == value) {                                               //If the cell has a value and it matches the currently selected value then return false as its already in use                  
-                return false;
-            }
-        }
-        return true;                                                                            //If the currently selected value has not been used then return true - it can be used safely
+     * @param cell index of the cell
+     * @param value the value to assign
+     * @param bit the bit of the value in the bitmasks
+     */
+    private void setValue(int cell, int value, long bit) {
+        board[cell] = value;
+        rowValues[cellRow[cell]] |= bit;
+        colValues[cellCol[cell]] |= bit;
+        boxValues[cellBox[cell]] |= bit;
     }
 
     /**
-     * Check to see if the currently selected value is used in the current box
+     * Removes the value from a cell, reversing setValue
      *
-     * @param value currently selected value
-     * @param cell current cell being assigned
-     * @param board a supplied puzzle
-     * @return false if used already, true if not used yet
+     * @param cell index of the cell
+     * @param bit the bit of the cell's value in the bitmasks
      */
-    private boolean isSafeToUseInBox(int value, int[] cell, Integer[][] board) {
+    private void clearValue(int cell, long bit) {
+        board[cell] = 0;
+        rowValues[cellRow[cell]] &= ~bit;
+        colValues[cellCol[cell]] &= ~bit;
+        boxValues[cellBox[cell]] &= ~bit;
+    }
 
-        int boxRow = cell[0] - (cell[0] % BOXSIZE);                                             //BoxRow is the starting row of the current box, determined by the cells x coord - the mod by BOXSIZE
-        int boxCol = cell[1] - (cell[1] % BOXSIZE);                                             //BoxCol is the starting column of the current box, determined by the cells y coord - the mod by BOXSIZE
+    /**
+     * Gets the values used in the row, column and box of a cell
+     *
+     * @param cell index of the cell
+     * @return bitmask of the used values, bit 0 = value 1
+     */
+    private long getUsedValues(int cell) {
+        return rowValues[cellRow[cell]] | colValues[cellCol[cell]] | boxValues[cellBox[cell]];
+    }
 
-        for (int i = 0; i < BOXSIZE; i++) {                                                     //For each row in the box
-            for (int j = 0; j < BOXSIZE; j++) {                                                 //For each column in the box
-                if (board[i + boxRow][j + boxCol] == null) {
-                } //Ensure that the cell has a value
-                else if (board[i + boxRow][j + boxCol] == value) {                              //If the cell has a value and it matches the currently selected value then return false as its already in use                  
-                    return false;
-                }
-            }
+    /**
+     * Copies the working board back into the solution
+     */
+    private void writeSolution() {
+        for (int cell = 0; cell < board.length; cell++) {
+            solution[cellRow[cell]][cellCol[cell]] = board[cell];
         }
+    }
+
+    /**
+     * Clears the statistics counters for a new search
+     */
+    private void resetStats() {
+        nodes = 0;
+        backtracks = 0;
+        maxDepth = 0;
+    }
+
+    /**
+     * Gathers the statistics of the solve that has just finished
+     *
+     * @param start System.nanoTime() when the solve started
+     * @param allocatedBefore bytes allocated by the thread when the solve
+     * started, -1 if unknown
+     * @return the statistics
+     */
+    private SudokuSolveStats getStats(long start, long allocatedBefore) {
+        long allocated = allocatedBefore < 0 ? -1 : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore;
+        return new SudokuSolveStats(nodes, backtracks, 0, maxDepth, System.nanoTime() - start, allocated);
+    }
 
-        return true;                                                                            //If the currently selected value has not been used then return true - it can be used safely
+    /**
+     * Sets the listener told about every solve this algorithm finishes
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets where snapshots of the board are published while later solves
+     * search
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        this.progress = progress;
     }
 
     /**
-     * Check to see if the currently selected value is used in the current row,
-     * column or box
+     * Gets the number of values tried by the last solve
      *
-     * @param value currently selected value
-     * @param cell current cell being assigned
-     * @param board a supplied puzzle
-     * @return false if used already, true if not used yet
+     * @return steps
      */
-    private boolean isSafe(int value, int[] cell, Integer[][] board) {
-        return isSafeToUseInRow(value, cell[0], board) && isSafeToUseInColumn(value, cell[1], board) && isSafeToUseInBox(value, cell, board);
+    int getSteps() {
+        return steps;
     }
 
     /**
@@ -0,0 +1,267 @@
+package sudokuai;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Solves many puzzles at once on a fixed pool of worker threads. Each worker
+ * gets its own Sudoku_AI from the Sudoku_AI_Factory the first time it runs and
+ * keeps it for every later puzzle, so the engines' internal tables are built
+ * once per worker instead of once per puzzle.
+ *
+ * Puzzles are read from the caller's iterator as workers free up, at most
+ * MAXINFLIGHT of them are waiting for a worker or for delivery at any time, so
+ * a stream of millions of puzzles never sits in memory at once. Results are
+ * handed to the caller's consumer on the calling thread, either in input order
+ * or as soon as each puzzle is done.
+ *
+ * Each puzzle can be given a time budget with setTimeout, a puzzle that runs
+ * over it is stopped by its engine and delivered as TIMED_OUT, so one runaway
+ * search never holds up the rest of the batch or costs a worker thread. A
+ * SudokuSolveListener set with setSolveListener is told about every puzzle,
+ * for example a SudokuSolveStatsRecorder to report latency percentiles.
+ *
+ * Given a SudokuSolutionCache, every worker's engine is wrapped in a
+ * Sudoku_AI_Cached sharing it, so a batch holding the same puzzle many times,
+ * or transforms of it, searches for it once.
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_Batch implements AutoCloseable {
+
+    //CLASS VARIABLES
+    private final int MAXINFLIGHT;                                                              //Most puzzles read but not yet delivered
+    private static final AtomicInteger POOLCOUNT = new AtomicInteger();                         //Used to give each pool's threads distinct names
+
+    //DATA STRUCTURES
+    private final ExecutorService workers;                                                      //Threads the puzzles are solved on
+    private final ThreadLocal<Sudoku_AI> solver;                                                //Engine for each worker thread, reused between puzzles
+    private volatile long timeoutNanos;                                                         //Time budget for each puzzle, 0 for none
+    private volatile SudokuSolveListener listener;                                              //Told about every puzzle solved, null for none
+
+    /**
+     * Constructor for the class, one worker per available core
+     *
+     * @param algorithm name of the algorithm, as given to Sudoku_AI_Factory
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_Batch(String algorithm, int gameBoxSize) {
+        this(algorithm, gameBoxSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for the class
+     *
+     * @param algorithm name of the algorithm, as given to Sudoku_AI_Factory
+     * @param gameBoxSize box size of the game standard 3
+     * @param workerCount number of worker threads
+     */
+    public Sudoku_AI_Batch(String algorithm, int gameBoxSize, int workerCount) {
+        this(algorithm, gameBoxSize, workerCount, null);
+    }
+
+    /**
+     * Constructor for the class, looking every puzzle up in a cache first
+     *
+     * @param algorithm name of the algorithm, as given to Sudoku_AI_Factory
+     * @param gameBoxSize box size of the game standard 3
+     * @param workerCount number of worker threads
+     * @param cache solutions shared by every worker, may be shared with other
+     * batches, or null for none
+     */
+    public Sudoku_AI_Batch(String algorithm, int gameBoxSize, int workerCount, SudokuSolutionCache cache) {
+        Sudoku_AI_Factory factory = new Sudoku_AI_Factory();
+        if (!factory.getAlgorithmNames().contains(algorithm)) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1: " + workerCount);
+        }
+        MAXINFLIGHT = 4 * workerCount;                                                          //Enough queued work that a worker never waits on the reader
+
+        solver = ThreadLocal.withInitial(() -> {
+            Sudoku_AI engine = factory.getAlgorithm(algorithm, gameBoxSize);
+            return cache == null ? engine : new Sudoku_AI_Cached(engine, cache);
+        });
+
+        int pool = POOLCOUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, (Runnable r) -> {
+            Thread thread = new Thread(r, "sudoku-batch-" + pool + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);                                                             //An unclosed batch must not keep the application alive
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the time budget for each puzzle of later calls to solveAll, timed
+     * from when a worker starts on the puzzle
+     *
+     * @param timeout the time allowed for each puzzle, 0 for no limit
+     * @param unit the unit of the timeout
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Sets the listener told about every puzzle of later calls to solveAll.
+     * It is called on the worker threads, so it must be thread safe.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Solves every puzzle from a stream, see solveAll(Iterator, boolean,
+     * ObjLongConsumer)
+     *
+     * @param puzzles the puzzles to solve
+     * @param ordered true to deliver results in input order
+     * @param results receives each result and the index of its puzzle
+     */
+    public void solveAll(Stream<Integer[][]> puzzles, boolean ordered, ObjLongConsumer<SudokuSolveResult> results) {
+        solveAll(puzzles.iterator(), ordered, results);
+    }
+
+    /**
+     * Solves every puzzle from an iterator. Each puzzle is solved in place, as
+     * with Sudoku_AI.solve, and its result holds either the puzzle itself or
+     * an empty board if it has no solution or ran out of time. Returns once
+     * every result has been delivered.
+     *
+     * @param puzzles the puzzles to solve
+     * @param ordered true to deliver results in input order, false to deliver
+     * each as soon as it is solved
+     * @param results receives each result and the index of its puzzle, always
+     * called on the calling thread
+     */
+    public void solveAll(Iterator<Integer[][]> puzzles, boolean ordered, ObjLongConsumer<SudokuSolveResult> results) {
+        BlockingQueue<Completed> completed = new LinkedBlockingQueue<>();                       //Puzzles finished by the workers, waiting to be delivered
+        Map<Long, SudokuSolveResult> reorder = new HashMap<>();                                 //Results that finished ahead of an earlier puzzle
+        long submitted = 0;
+        long delivered = 0;
+
+        while (puzzles.hasNext()) {
+            while (submitted - delivered >= MAXINFLIGHT) {                                      //Full, wait for a result before reading more
+                delivered += deliver(takeCompleted(completed), ordered, delivered, reorder, results);
+            }
+            submit(puzzles.next(), submitted++, completed);
+
+            Completed done;
+            while ((done = completed.poll()) != null) {                                         //Hand over whatever is already finished
+                delivered += deliver(done, ordered, delivered, reorder, results);
+            }
+        }
+        while (delivered < submitted) {
+            delivered += deliver(takeCompleted(completed), ordered, delivered, reorder, results);
+        }
+    }
+
+    /**
+     * Solves one puzzle on a worker thread
+     *
+     * @param puzzle the puzzle
+     * @param index position of the puzzle in the input
+     * @param completed the queue to add the finished puzzle to
+     */
+    private void submit(Integer[][] puzzle, long index, BlockingQueue<Completed> completed) {
+        long timeout = timeoutNanos;
+        SudokuSolveListener solveListener = listener;
+        workers.execute(() -> {
+            try {
+                SudokuCancellation deadline = timeout > 0 ? SudokuCancellation.withTimeout(timeout, TimeUnit.NANOSECONDS) : null;
+                Sudoku_AI engine = solver.get();
+                engine.setSolveListener(solveListener);
+                completed.add(new Completed(index, engine.solve(puzzle, deadline), null));
+            } catch (Throwable e) {                                                             //Errors too, or the caller would wait for this puzzle forever
+                completed.add(new Completed(index, null, e));
+            }
+        });
+    }
+
+    /**
+     * Waits for the next puzzle a worker finishes
+     *
+     * @param completed the queue the workers add finished puzzles to
+     * @return the finished puzzle
+     */
+    private Completed takeCompleted(BlockingQueue<Completed> completed) {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a puzzle", e);
+        }
+    }
+
+    /**
+     * Delivers a finished puzzle, and in ordered mode any buffered puzzles
+     * that follow it
+     *
+     * @param done the finished puzzle
+     * @param ordered true if results are delivered in input order
+     * @param next index of the next puzzle due in ordered mode
+     * @param reorder results that finished ahead of an earlier puzzle
+     * @param results the caller's consumer
+     * @return number of results delivered
+     */
+    private int deliver(Completed done, boolean ordered, long next, Map<Long, SudokuSolveResult> reorder,
+            ObjLongConsumer<SudokuSolveResult> results) {
+        if (done.failure != null) {
+            throw new IllegalStateException("Puzzle " + done.index + " failed", done.failure);
+        }
+        if (!ordered) {
+            results.accept(done.result, done.index);
+            return 1;
+        }
+
+        reorder.put(done.index, done.result);
+        int count = 0;
+        SudokuSolveResult result;
+        while ((result = reorder.remove(next + count)) != null) {
+            results.accept(result, next + count);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Stops the worker threads, the batch can not be used afterwards
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * A puzzle finished by a worker
+     */
+    private static final class Completed {
+
+        private final long index;                                                               //Position of the puzzle in the input
+        private final SudokuSolveResult result;                                                 //Result from the engine
+        private final Throwable failure;                                                        //Set if the engine threw
+
+        Completed(long index, SudokuSolveResult result, Throwable failure) {
+            this.index = index;
+            this.result = result;
+            this.failure = failure;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package sudokuai;
+
+/**
+ * Sudoku_AI algorithm that looks each puzzle up in a SudokuSolutionCache
+ * before handing it to another algorithm. The puzzle is reduced to its
+ * canonical form first, so a puzzle that is a relabelling, reordering or
+ * transpose of one solved before is answered from the cache with no search,
+ * the cached solution mapped back to the puzzle's own layout.
+ *
+ * Puzzles that are not 9x9, or hold a value out of range, go straight to the
+ * other algorithm. So do puzzles with more than 70 clues, which it fills in
+ * faster than their canonical form is found. Counting solutions is never
+ * cached.
+ *
+ * Like the other algorithms an instance is used by one thread at a time, the
+ * cache can be shared between threads.
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_Cached implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private static final int BOARDSIZE = 9;                                                     //Only standard 9x9 puzzles are cached
+    private static final int MAXCACHEDCLUES = 70;                                               //Denser puzzles are solved faster than canonicalized
+    private static final String NAME_SUFFIX = " (cached)";                                      //Added to the name of the algorithm searching on a miss
+
+    //DATA STRUCTURES
+    private final Sudoku_AI solver;                                                             //Algorithm that solves the puzzles not cached
+    private final SudokuSolutionCache cache;                                                    //Solutions already found, possibly shared
+    private final SudokuCanonicalizer canonicalizer = new SudokuCanonicalizer();                //Finds each puzzle's cache key
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+
+    /**
+     * Constructor for the class
+     *
+     * @param solver algorithm used for puzzles not in the cache, it should not
+     * be used by anything else
+     * @param cache the cache, may be shared with other Sudoku_AI_Cached
+     * algorithms
+     */
+    public Sudoku_AI_Cached(Sudoku_AI solver, SudokuSolutionCache cache) {
+        this.solver = solver;
+        this.cache = cache;
+        solver.setSolveListener(null);                                                          //Every solve is published once, by this class
+    }
+
+    /**
+     * Overrode method for getSolution, answers from the cache if it can and
+     * solves with the other algorithm if not
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve. A puzzle found in the cache is filled in
+     * with no search, its statistics show no nodes. Otherwise it is solved by
+     * the other algorithm, and the outcome cached unless the solve was
+     * stopped.
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
+        SudokuCanonicalizer.Form form = canonicalForm(userInputPuzzle);
+        String key = form == null ? null : form.getKey();
+        byte[] cached = key == null ? null : cache.get(key);
+
+        SudokuSolveResult result;
+        if (cached == null) {
+            result = solver.solve(userInputPuzzle, cancellation);
+            if (key != null && result.isSolved()) {
+                cache.put(key, form.toCanonical(result.getSolution()));
+            } else if (key != null && result.getStatus() == SudokuSolveResult.Status.NO_SOLUTION) {
+                cache.put(key, SudokuSolutionCache.NOSOLUTION);
+            }
+        } else {
+            long allocated = allocatedBefore < 0 ? -1 : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore;
+            SudokuSolveStats stats = new SudokuSolveStats(0, 0, 0, 0, System.nanoTime() - start, allocated);
+            if (cached == SudokuSolutionCache.NOSOLUTION) {
+                result = new SudokuSolveResult(SudokuSolveResult.Status.NO_SOLUTION,
+                        new Integer[BOARDSIZE][BOARDSIZE], stats);                              //No solution, then return a blank puzzle
+            } else {
+                form.fromCanonical(cached, userInputPuzzle);                                    //Solved in place, like the other algorithms
+                result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, userInputPuzzle, stats);
+            }
+        }
+
+        if (listener != null) {
+            listener.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the canonical form of a puzzle if it can be cached
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return the canonical form, or null if the puzzle can't be cached or
+     * has too many clues to be worth it
+     */
+    private SudokuCanonicalizer.Form canonicalForm(Integer[][] userInputPuzzle) {
+        if (userInputPuzzle.length != BOARDSIZE) {
+            return null;
+        }
+        int clues = 0;
+        for (Integer[] row : userInputPuzzle) {
+            for (int c = 0; c < row.length; c++) {
+                if (row[c] != null) {
+                    clues++;
+                }
+            }
+        }
+        if (clues > MAXCACHEDCLUES) {
+            return null;
+        }
+        try {
+            return canonicalizer.canonicalize(userInputPuzzle);
+        } catch (IllegalArgumentException e) {                                                  //Values out of range, left for the other algorithm to reject
+            return null;
+        }
+    }
+
+    /**
+     * Overrode method for countSolutions, always counts with the other
+     * algorithm
+     *
+     * @param userInputPuzzle the puzzle to count, it is not changed
+     * @param limit the number of solutions to stop counting at
+     * @return the number of solutions, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        return solver.countSolutions(userInputPuzzle, limit);
+    }
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes,
+     * whether it was answered from the cache or searched
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets where snapshots of the board are published while the other
+     * algorithm searches, nothing is published for a puzzle found in the
+     * cache
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        solver.setSearchProgress(progress);
+    }
+
+    /**
+     * Used to get a string ID of the class
+     *
+     * @return the name of the algorithm searching on a miss, marked as cached
+     */
+    @Override
+    public String getName() {
+        return solver.getName() + NAME_SUFFIX;
+    }
+
+}
@@ -0,0 +1,478 @@
+package sudokuai;
+
+/**
+ * Concrete Sudoku_AI algorithm implementation using Knuth's Algorithm X with
+ * Dancing Links. The puzzle is treated as an exact cover problem, every
+ * candidate (row, column, value) is a row of the cover matrix and every
+ * constraint (cell filled, value in row, value in column, value in box) is a
+ * column of it.
+ *
+ * The cover matrix is built once in the constructor. Covering and uncovering
+ * are exact inverses, so every solve finishes by uncovering what it covered and
+ * leaves the matrix ready for the next puzzle without rebuilding it.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_DancingLinks implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final int CELLS;                                                                    //Number of cells on the board
+    private final int COLUMNS;                                                                  //Number of constraint columns, 4 * CELLS (324 for 9x9)
+    private int steps = 0;                                                                      //Number of rows tried while searching
+    private static final int ROOT = 0;                                                          //Index of the root header node
+    private static final String NAME = "Dancing Links";                                         //Algorithm Name, used by SudokuSolverModel_AI class
+
+    //DATA STRUCTURES
+    private final int[] left, right, up, down;                                                  //Links of every node, headers first then the candidate rows
+    private final int[] column;                                                                 //Column header of each node
+    private final int[] candidate;                                                              //Candidate (cell * BOARDSIZE + value - 1) each node belongs to
+    private final int[] size;                                                                   //Number of nodes currently linked into each column
+    private final int[] rowStart;                                                               //First node of each candidate row
+    private final int[] givenRows;                                                              //Rows selected from the user input, in the order they were selected
+    private final int[] searchRows;                                                             //Rows selected by the search, indexed by depth
+    private int givenCount;                                                                     //Number of rows in givenRows
+    private int solutionLimit;                                                                  //Number of solutions to stop the search at, 1 when solving
+    private int solutionsFound;                                                                 //Number of solutions found by the current search
+    private boolean counting;                                                                   //True when counting solutions rather than solving the user input
+    private SudokuCancellation cancellation;                                                    //Stops the current search from outside, null if it can't be stopped
+    private int checkCountdown;                                                                 //Rows left to try before the cancellation is checked again
+    private SudokuSolveResult.Status stopStatus;                                                //Why the current search was stopped, null while it runs
+    private int nodes;                                                                          //Search nodes visited by the current search
+    private int backtracks;                                                                     //Rows undone by the current search
+    private int propagations;                                                                   //Columns covered by the rows the current search tried
+    private int maxDepth;                                                                       //Deepest level reached by the current search
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+    private SudokuSearchProgress progress;                                                      //Given snapshots of the board while searching, null for none
+    private Integer[][] solution;                                                               //Game board 2d array storing cells
+
+    /**
+     * Constructor for the class, builds the cover matrix for the box size.
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_DancingLinks(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        CELLS = BOARDSIZE * BOARDSIZE;
+        COLUMNS = 4 * CELLS;
+
+        int candidates = CELLS * BOARDSIZE;
+        int nodes = 1 + COLUMNS + (4 * candidates);                                             //Root, one header per column and four nodes per candidate
+
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        candidate = new int[nodes];
+        size = new int[COLUMNS + 1];
+        rowStart = new int[candidates];
+        givenRows = new int[CELLS];
+        searchRows = new int[CELLS];
+
+        buildMatrix();
+    }
+
+    /**
+     * Links the root, the column headers and one row of four nodes for every
+     * candidate into the toroidal doubly linked cover matrix.
+     */
+    private void buildMatrix() {
+        for (int header = ROOT; header <= COLUMNS; header++) {                                  //Headers form a ring through the root, each header starts as an empty column
+            left[header] = header == ROOT ? COLUMNS : header - 1;
+            right[header] = header == COLUMNS ? ROOT : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+        }
+
+        int node = COLUMNS + 1;
+        for (int row = 0; row < BOARDSIZE; row++) {
+            for (int col = 0; col < BOARDSIZE; col++) {
+                int box = (row / BOXSIZE) * BOXSIZE + (col / BOXSIZE);
+                for (int value = 0; value < BOARDSIZE; value++) {
+                    int id = ((row * BOARDSIZE) + col) * BOARDSIZE + value;
+                    rowStart[id] = node;
+
+                    int[] constraints = {
+                        1 + (row * BOARDSIZE) + col,                                            //Cell constraint, the cell holds a value
+                        1 + CELLS + (row * BOARDSIZE) + value,                                  //Row constraint, the value appears in the row
+                        1 + (2 * CELLS) + (col * BOARDSIZE) + value,                            //Column constraint, the value appears in the column
+                        1 + (3 * CELLS) + (box * BOARDSIZE) + value                             //Box constraint, the value appears in the box
+                    };
+
+                    for (int i = 0; i < constraints.length; i++) {
+                        int header = constraints[i];
+                        column[node] = header;
+                        candidate[node] = id;
+
+                        up[node] = up[header];                                                  //Append the node to the bottom of its column
+                        down[node] = header;
+                        down[up[header]] = node;
+                        up[header] = node;
+                        size[header]++;
+
+                        left[node] = i == 0 ? node + 3 : node - 1;                              //Link the four nodes of the row into a ring
+                        right[node] = i == 3 ? node - 3 : node + 1;
+                        node++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Overrode method for getSolution, selects the rows for the user input
+     * values then searches for an exact cover of the remaining columns
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, runs the getSolution search and checks the
+     * cancellation as it goes
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
+        boolean solved = search(userInputPuzzle, 1, false, cancellation) == 1;
+
+        SudokuSolveResult result;
+        if (solved) {
+            result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, solution,
+                    getStats(start, allocatedBefore));                                          //If we get a solved puzzle return it
+        } else {
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.NO_SOLUTION,
+                    new Integer[BOARDSIZE][BOARDSIZE], getStats(start, allocatedBefore));       //No solution, then return a blank puzzle
+        }
+        if (listener != null) {
+            listener.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, runs the same search as getSolution
+     * but carries on past each solution until the limit is reached
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        return search(userInputPuzzle, limit, true, null);
+    }
+
+    /**
+     * Selects the user input rows, searches for exact covers until the limit
+     * is reached, then restores the matrix for the next puzzle
+     *
+     * @param puzzle the user input for the game board
+     * @param limit the number of solutions to stop at
+     * @param counting true to leave the board unchanged, false to write the
+     * last solution found onto it
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the number of solutions found, at most limit
+     */
+    private int search(Integer[][] puzzle, int limit, boolean counting, SudokuCancellation cancellation) {
+        this.solution = puzzle;
+        this.cancellation = cancellation;
+        checkCountdown = 1;                                                                     //Check on the first node, so an already stopped solve ends at once
+        stopStatus = null;
+        steps = 0;
+        nodes = 0;
+        backtracks = 0;
+        propagations = 0;
+        maxDepth = 0;
+        solutionLimit = limit;
+        solutionsFound = 0;
+        this.counting = counting;
+
+        if (selectGivens()) {
+            search(0);
+        }
+
+        for (int i = givenCount - 1; i >= 0; i--) {                                             //Unselect the user input rows in reverse order, restoring the matrix for the next puzzle
+            unselectRow(givenRows[i]);
+        }
+        return solutionsFound;
+    }
+
+    /**
+     * Selects the row of every value supplied by the user, removing the
+     * constraints it satisfies from the matrix.
+     *
+     * @return false if a value clashed with an earlier one or was out of range
+     */
+    private boolean selectGivens() {
+        givenCount = 0;
+
+        for (int row = 0; row < BOARDSIZE; row++) {
+            for (int col = 0; col < BOARDSIZE; col++) {
+                Integer value = solution[row][col];
+                if (value == null) {
+                    continue;
+                }
+                if (value < 1 || value > BOARDSIZE) {                                           //Not a value this board can hold
+                    return false;
+                }
+
+                int node = rowStart[((row * BOARDSIZE) + col) * BOARDSIZE + value - 1];
+                int j = node;
+                do {
+                    if (isCovered(column[j])) {                                                 //A constraint of this row is already satisfied, the input contradicts itself
+                        return false;
+                    }
+                    j = right[j];
+                } while (j != node);
+
+                selectRow(node);
+                givenRows[givenCount++] = node;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Algorithm X, repeatedly picks the column with the fewest rows left and
+     * tries each of those rows in turn. Everything covered on the way down is
+     * uncovered on the way back up, including after a solution is found.
+     *
+     * @param depth number of rows selected by the search so far
+     * @return boolean true once the limit of solutions has been reached
+     */
+    private boolean search(int depth) {
+        nodes++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        if (right[ROOT] == ROOT) {                                                              //No columns left, the selected rows form a solution
+            solutionsFound++;
+            if (!counting) {
+                writeSolution(depth);
+            }
+            return solutionsFound >= solutionLimit;                                             //Below the limit, backtrack to look for the next solution
+        }
+
+        int header = right[ROOT];                                                               //Pick the column with the fewest rows, fail first
+        for (int c = right[header]; c != ROOT; c = right[c]) {
+            if (size[c] < size[header]) {
+                header = c;
+            }
+        }
+        if (size[header] == 0) {                                                                //A constraint can no longer be satisfied, backtrack
+            return false;
+        }
+
+        boolean solved = false;
+        cover(header);
+        for (int node = down[header]; node != header && !solved && !isStopped(depth); node = down[node]) {
+            steps++;                                                                            //Increment steps to track the amount of rows tried
+            searchRows[depth] = node;
+            for (int j = right[node]; j != node; j = right[j]) {
+                cover(column[j]);
+                propagations++;
+            }
+
+            solved = search(depth + 1);
+            if (!solved) {
+                backtracks++;
+            }
+
+            for (int j = left[node]; j != node; j = left[j]) {                                  //Uncover in the reverse order to keep the links consistent
+                uncover(column[j]);
+            }
+        }
+        uncover(header);
+        return solved;
+    }
+
+    /**
+     * Checks the cancellation once every CHECKINTERVAL rows tried, remembering
+     * why the search was stopped, and publishes a snapshot of the board if the
+     * last one has been taken
+     *
+     * @param depth number of rows selected by the search so far
+     * @return true once the search has been stopped
+     */
+    private boolean isStopped(int depth) {
+        if ((cancellation != null || progress != null) && stopStatus == null && --checkCountdown == 0) {
+            checkCountdown = SudokuCancellation.CHECKINTERVAL;
+            if (cancellation != null) {
+                stopStatus = cancellation.getStopStatus();
+            }
+            if (progress != null && progress.isWanted()) {
+                progress.publish(getSnapshot(depth));
+            }
+        }
+        return stopStatus != null;
+    }
+
+    /**
+     * Builds a snapshot of the board from the rows of the user input and the
+     * rows selected by the search
+     *
+     * @param depth number of rows selected by the search
+     * @return the value of each cell row by row, 0 for an empty cell
+     */
+    private int[] getSnapshot(int depth) {
+        int[] cells = new int[CELLS];
+        for (int i = 0; i < givenCount; i++) {
+            int id = candidate[givenRows[i]];
+            cells[id / BOARDSIZE] = (id % BOARDSIZE) + 1;
+        }
+        for (int i = 0; i < depth; i++) {
+            int id = candidate[searchRows[i]];
+            cells[id / BOARDSIZE] = (id % BOARDSIZE) + 1;
+        }
+        return cells;
+    }
+
+    /**
+     * Copies the values of the rows selected by the search onto the board
+     *
+     * @param depth number of rows selected by the search
+     */
+    private void writeSolution(int depth) {
+        for (int i = 0; i < depth; i++) {
+            int id = candidate[searchRows[i]];
+            int cell = id / BOARDSIZE;
+            solution[cell / BOARDSIZE][cell % BOARDSIZE] = (id % BOARDSIZE) + 1;
+        }
+    }
+
+    /**
+     * Checks whether a column has been removed from the header list
+     *
+     * @param header the column header
+     * @return true if the column is covered
+     */
+    private boolean isCovered(int header) {
+        return right[left[header]] != header;
+    }
+
+    /**
+     * Covers every column of a row, which selects it as part of the solution
+     *
+     * @param node any node of the row
+     */
+    private void selectRow(int node) {
+        int j = node;
+        do {
+            cover(column[j]);
+            j = right[j];
+        } while (j != node);
+    }
+
+    /**
+     * Reverses selectRow
+     *
+     * @param node the same node that was passed to selectRow
+     */
+    private void unselectRow(int node) {
+        int j = left[node];
+        while (j != node) {
+            uncover(column[j]);
+            j = left[j];
+        }
+        uncover(column[node]);
+    }
+
+    /**
+     * Removes a column from the header list and every row that uses the
+     * column from the other columns it appears in
+     *
+     * @param header the column header
+     */
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Reverses cover, the links removed nodes still hold are used to put them
+     * back
+     *
+     * @param header the column header
+     */
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    /**
+     * Gathers the statistics of the solve that has just finished
+     *
+     * @param start System.nanoTime() when the solve started
+     * @param allocatedBefore bytes allocated by the thread when the solve
+     * started, -1 if unknown
+     * @return the statistics
+     */
+    private SudokuSolveStats getStats(long start, long allocatedBefore) {
+        long allocated = allocatedBefore < 0 ? -1 : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore;
+        return new SudokuSolveStats(nodes, backtracks, propagations, maxDepth, System.nanoTime() - start, allocated);
+    }
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets where snapshots of the board are published while later solves
+     * search
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Used to get a string ID of the class
+     *
+     * @return NAME static Class Variable. Contains a string ID for the
+     * algorithm class
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+}
@@ -1,6 +1,10 @@
 
 package sudokuai;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Nik Bradley
  * $date $time
@@ -9,19 +13,64 @@ package sudokuai;
 /**
  * Sudoku_AI algorithm factory, takes a string with the name of the algorithm and
  * returns an instantiation of that algorithm.
+ * 
+ * Boards with more than 64 values (a box size of 9 or more) don't fit the
+ * bitmask domains of the backtracking algorithms, so any of those names gets
+ * a Sudoku_AI_WideSearch for them instead. Dancing Links and the CDCL SAT
+ * solver work at any size, as do the Portfolio and Auto, whose engines each
+ * come from this factory.
  */
 public class Sudoku_AI_Factory {
     
+    private static final List<String> ALGORITHMS = Collections.unmodifiableList(Arrays.asList(
+            "Auto",
+            "Backtracking",
+            "Backtracking - FC",
+            "Backtracking - FC - MRV",
+            "Backtracking - MAC",
+            "Parallel Search",
+            "Dancing Links",
+            "CDCL SAT",
+            "Portfolio"));
+    
+    /**
+     * Gets the names of every algorithm getAlgorithm can create
+     *
+     * @return the algorithm names, in the order they are offered in the view
+     */
+    public List<String> getAlgorithmNames(){
+        return ALGORITHMS;
+    }
+    
     public Sudoku_AI getAlgorithm(String algorithm, int gameBoxSize){
         if (algorithm == null){
             return null;
         }
+        if (gameBoxSize * gameBoxSize > Sudoku_AI_Propagator.MAXBOARDSIZE
+                && ALGORITHMS.contains(algorithm) && !algorithm.equals("Dancing Links") && !algorithm.equals("CDCL SAT")
+                && !algorithm.equals("Portfolio") && !algorithm.equals("Auto")){
+            return new Sudoku_AI_WideSearch(gameBoxSize);                                       //Too many values for a bitmask domain
+        }
         
         switch(algorithm){
+            case "Auto":
+                return new Sudoku_AI_Auto(gameBoxSize);
             case "Backtracking":
                 return new Sudoku_AI_Backtracking(gameBoxSize);
             case "Backtracking - FC":
                 return new Sudoku_AI_ForwardChecking(gameBoxSize);
+            case "Backtracking - FC - MRV":
+                return new Sudoku_AI_ForwardChecking(gameBoxSize, true);
+            case "Backtracking - MAC":
+                return new Sudoku_AI_ForwardChecking(gameBoxSize, false, true);
+            case "Parallel Search":
+                return new Sudoku_AI_Parallel(gameBoxSize);
+            case "Dancing Links":
+                return new Sudoku_AI_DancingLinks(gameBoxSize);
+            case "CDCL SAT":
+                return new Sudoku_AI_SAT(gameBoxSize);
+            case "Portfolio":
+                return new Sudoku_AI_Portfolio(gameBoxSize);
             default:
                 return null;
         }
@@ -1,44 +1,166 @@
 package sudokuai;
 
+import java.util.Arrays;
+
 /**
  * Concrete Sudoku_AI algorithm implementation using Backtracking With Forward
  * Checking
+ *
+ * Cells are either assigned in row-major order or, in MRV mode, by picking the
+ * cell with the fewest values left in its domain (ties go to the cell with the
+ * most unassigned cells in its row, column and box). MRV mode keeps unassigned
+ * cells in buckets by domain size, updated as domains change, so the next cell
+ * can be found without rescanning the board.
+ *
+ * Before any branching the board is run through Sudoku_AI_Propagator, so the
+ * search only has to fill the cells that logic alone could not.
+ *
+ * With arc consistency maintained (MAC) every assignment is followed by AC-3
+ * over the not-equal constraints: any cell whose domain shrinks to a single
+ * value is queued, and only the peers of queued cells are revised.
+ *
+ * Domains are one long per cell, so boards of up to 64 values (a box size of
+ * 8) can be solved, Sudoku_AI_WideSearch takes larger ones.
  * @author Nik
  */
 class Sudoku_AI_ForwardChecking implements Sudoku_AI {
 
     //CLASS VARIABLES
-    private static int BOXSIZE;                                                                 //Game size standard 3
-    private static int BOARDSIZE;                                                               //length of rows & columns
-    private static int steps = 0;                                                               //Number of steps used to solve puzzle - debug use only atm
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final long FULLDOMAIN;                                                              //Bitmask with a bit set for every value 1-BOARDSIZE
+    private int steps = 0;                                                                      //Number of steps used to solve puzzle - debug use only atm
     private boolean emptyDomainFlag;                                                            //Flag to trigger back tracking.
     private static final String NAME = "Backtracking with Forward Checking";                    //Algorithm Name, used by SudokuSolverModel_AI class
+    private static final String MRV_NAME = "Backtracking with Forward Checking and MRV";        //Algorithm Name when cells are picked by minimum remaining values
+    private static final String MAC_NAME = "Backtracking with Maintaining Arc Consistency";     //Algorithm Name when arc consistency is maintained after each assignment
+    private static final int NO_CELL = -1;                                                      //Marks an empty bucket or the end of a bucket list
+    private final boolean useMRV;                                                               //Pick the next cell by minimum remaining values instead of row-major order
+    private final boolean useMAC;                                                               //Run AC-3 after each assignment instead of only checking the direct peers
     
     //DATA STRUCTURES
-    private int[] domains;                                                                      //Domains stored in 1d array
+    private long[] domains;                                                                     //Domains stored in 1d array
     private Integer[][] solution;                                                               //Game board 2d array storing cells
+    private final int[] bucketHead;                                                             //First unassigned cell with each domain size, MRV mode only
+    private final int[] bucketNext, bucketPrev;                                                 //Links between the cells of a bucket
+    private final int[] bucketOf;                                                               //Domain size bucket each cell is in, NO_CELL if assigned
+    private final int[] freeInRow, freeInCol, freeInBox;                                        //Number of unassigned cells in each row, column and box
+    private final int[] trailCell;                                                              //Undo stack of the cells whose domain the search changed
+    private final long[] trailDomain;                                                           //Old domain of each cell on the undo stack
+    private int trailSize;                                                                      //Number of entries on the undo stack
+    private final Sudoku_AI_Propagator propagator;                                              //Logical rules applied before the search starts
+    private boolean propagated;                                                                 //True once the propagator has filled cells of the current board
+    private int solutionLimit;                                                                  //Number of solutions to stop the search at, 1 when solving
+    private int solutionsFound;                                                                 //Number of solutions found by the current search
+    private final int[][] peers;                                                                //Cells sharing a row, column or box with each cell, MAC mode only
+    private final int[] arcQueue;                                                               //Unassigned cells whose domain shrank to one value, waiting to be revised against
+    private int arcQueueSize;                                                                   //Number of cells in arcQueue
+    private SudokuCancellation cancellation;                                                    //Stops the current search from outside, null if it can't be stopped
+    private int checkCountdown;                                                                 //Search nodes left before the cancellation is checked again
+    private SudokuSolveResult.Status stopStatus;                                                //Why the current search was stopped, null while it runs
+    private int nodes;                                                                          //Search nodes visited by the current search
+    private int backtracks;                                                                     //Values undone by the current search
+    private int propagations;                                                                   //Domains revised by forward checking in the current search
+    private int logicalCells;                                                                   //Cells filled by the propagator in the current search
+    private int searchCells;                                                                    //Cells left for the search to fill in the current search
+    private int maxDepth;                                                                       //Deepest level reached by the current search
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+    private SudokuSearchProgress progress;                                                      //Given snapshots of the board while searching, null for none
 
     /**
      * Constructor for the class, it takes a game box size and sets up the boards for it.
      * @param gameBoxSize box size of the game standard 3
      */
     public Sudoku_AI_ForwardChecking(int gameBoxSize) {
+        this(gameBoxSize, false);
+    }
+
+    /**
+     * Constructor for the class, it takes a game box size and the variable
+     * ordering and sets up the boards for it.
+     * @param gameBoxSize box size of the game standard 3
+     * @param minimumRemainingValues true to pick the cell with the fewest values
+     * left next, false to fill cells in row-major order
+     */
+    public Sudoku_AI_ForwardChecking(int gameBoxSize, boolean minimumRemainingValues) {
+        this(gameBoxSize, minimumRemainingValues, false);
+    }
+
+    /**
+     * Constructor for the class, it takes a game box size, the variable
+     * ordering and the amount of propagation done after each assignment and
+     * sets up the boards for it.
+     * @param gameBoxSize box size of the game standard 3
+     * @param minimumRemainingValues true to pick the cell with the fewest values
+     * left next, false to fill cells in row-major order
+     * @param arcConsistency true to maintain arc consistency after each
+     * assignment, false to only forward check the assigned cell's peers
+     * @throws IllegalArgumentException if the board has more than 64 values
+     */
+    public Sudoku_AI_ForwardChecking(int gameBoxSize, boolean minimumRemainingValues, boolean arcConsistency) {
         BOXSIZE = gameBoxSize;
         BOARDSIZE = BOXSIZE * BOXSIZE;
-        domains = new int[BOARDSIZE * BOARDSIZE];
+        Sudoku_AI_Propagator.checkBoardSize(BOARDSIZE);
+        FULLDOMAIN = Sudoku_AI_Propagator.fullDomain(BOARDSIZE);
+        useMRV = minimumRemainingValues;
+        useMAC = arcConsistency;
+        domains = new long[BOARDSIZE * BOARDSIZE];
+
+        bucketHead = new int[BOARDSIZE + 1];
+        bucketNext = new int[BOARDSIZE * BOARDSIZE];
+        bucketPrev = new int[BOARDSIZE * BOARDSIZE];
+        bucketOf = new int[BOARDSIZE * BOARDSIZE];
+        freeInRow = new int[BOARDSIZE];
+        freeInCol = new int[BOARDSIZE];
+        freeInBox = new int[BOARDSIZE];
+
+        int maxChanges = BOARDSIZE * BOARDSIZE * 3 * BOARDSIZE;                                 //Each assignment changes at most its row, column and box, for every cell on the board
+        trailCell = new int[maxChanges];
+        trailDomain = new long[maxChanges];
+        propagator = new Sudoku_AI_Propagator(gameBoxSize);
+
+        arcQueue = new int[BOARDSIZE * BOARDSIZE];
+        peers = new int[useMAC ? BOARDSIZE * BOARDSIZE : 0][];
+        for (int cell = 0; cell < peers.length; cell++) {
+            peers[cell] = findPeers(cell);
+        }
     }
 
     /**
-     * Creates BOARDSIZE*BOARDSIZE domains with the value 411 (9 '1' bits in
-     * binary)
+     * Lists the cells that share a row, column or box with a cell, each once
+     *
+     * @param cell index of the cell
+     * @return the peers of the cell
+     */
+    private int[] findPeers(int cell) {
+        int row = cell / BOARDSIZE;
+        int col = cell % BOARDSIZE;
+        int[] found = new int[3 * BOARDSIZE];
+        int count = 0;
+
+        for (int other = 0; other < BOARDSIZE * BOARDSIZE; other++) {
+            int otherRow = other / BOARDSIZE;
+            int otherCol = other % BOARDSIZE;
+            boolean sameBox = (otherRow / BOXSIZE == row / BOXSIZE) && (otherCol / BOXSIZE == col / BOXSIZE);
+            if (other != cell && (otherRow == row || otherCol == col || sameBox)) {
+                found[count++] = other;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Creates BOARDSIZE*BOARDSIZE domains with BOARDSIZE '1' bits in binary
+     * (511 for a 9x9 board)
      */
     private void initDomains() {
         for (int i = 0; i < BOARDSIZE; i++) {
             for (int j = 0; j < BOARDSIZE; j++) {
                 int cell = (i * BOARDSIZE) + j;                                                 // index of domains for cell
-                domains[cell] = 0x1ff;                                                          // bits represent 1 base values eg 987654321
+                domains[cell] = FULLDOMAIN;                                                     // bits represent 1 base values eg 987654321
             }
         }
+        Arrays.fill(bucketOf, NO_CELL);                                                         //No cell is tracked by size until the initial forward check is done
     }
 
     /**
@@ -50,18 +172,142 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      */
     @Override
     public Integer[][] getSolution(Integer[][] userInputPuzzle) {
-        this.solution = userInputPuzzle;
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, runs the getSolution search and checks the
+     * cancellation as it goes
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
+
+        SudokuSolveResult result;
+        if (search(userInputPuzzle, 1, cancellation) == 1) {
+            result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, solution,
+                    getStats(start, allocatedBefore));                                          //If we get a solved puzzle return it
+        } else {
+            if (propagated) {
+                propagator.unpropagate();                                                       //Hand the puzzle back as it was given
+            }
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.NO_SOLUTION,
+                    new Integer[BOARDSIZE][BOARDSIZE], getStats(start, allocatedBefore));       //No solution, then return a blank puzzle
+        }
+        if (listener != null) {
+            listener.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, runs the same search as getSolution
+     * on a copy of the puzzle but carries on past each solution until the
+     * limit is reached
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        return countSolutions(userInputPuzzle, limit, null);
+    }
+
+    /**
+     * Counts solutions like countSolutions(Integer[][], int), stopping early
+     * if the cancellation is stopped
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the number of solutions found before the limit or the stop
+     */
+    int countSolutions(Integer[][] userInputPuzzle, int limit, SudokuCancellation cancellation) {
+        Integer[][] board = new Integer[BOARDSIZE][];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            board[i] = userInputPuzzle[i].clone();
+        }
+        return search(board, limit, cancellation);
+    }
+
+    /**
+     * Sets up the domains for a puzzle, propagates it and searches it until
+     * the limit of solutions is reached, the search space runs out or the
+     * cancellation stops it. The last solution found is left on the board.
+     *
+     * @param puzzle the board to search, filled in place
+     * @param limit the number of solutions to stop at
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the number of solutions found, at most limit
+     */
+    private int search(Integer[][] puzzle, int limit, SudokuCancellation cancellation) {
+        this.solution = puzzle;
+        this.cancellation = cancellation;
+        checkCountdown = 1;                                                                     //Check on the first node, so an already stopped solve ends at once
+        stopStatus = null;
+        propagated = false;
         emptyDomainFlag = false;
+        steps = 0;
+        nodes = 0;
+        backtracks = 0;
+        propagations = 0;
+        logicalCells = 0;
+        searchCells = 0;
+        maxDepth = 0;
         initDomains();
 
         initial_ForwardCheck();                                                                 //Setup domains for the board taking the user input values into account
 
-        if (solveSudoku()) {
-            return solution;                                                                    //If we get a solved puzzle return it
-        } else {
-            return new Integer[BOARDSIZE][BOARDSIZE];                                           //No solution, then return a blank puzzle
+        if (emptyDomainFlag) {                                                                  //A cell has no values left before a single guess, the puzzle can't be solved
+            return 0;
         }
 
+        int filled = propagator.propagate(solution, domains);                                   //Fill every cell that logic alone can decide
+        if (filled == Sudoku_AI_Propagator.CONTRADICTION) {
+            return 0;
+        }
+        propagated = true;
+        logicalCells = filled;
+        searchCells = countEmptyCells();                                                        //Cells left for the search to fill
+
+        if (useMRV) {
+            initBuckets();                                                                      //Sort the unassigned cells by domain size
+        }
+
+        trailSize = 0;                                                                          //Domains revised by the initial forward check are never undone
+        arcQueueSize = 0;                                                                       //The propagator has already dealt with every single value domain
+        solutionLimit = limit;
+        solutionsFound = 0;
+
+        solveSudoku(0);
+        return solutionsFound;
+    }
+
+    /**
+     * Counts the cells that have no value yet
+     *
+     * @return the number of empty cells
+     */
+    private int countEmptyCells() {
+        int empty = 0;
+        for (int i = 0; i < BOARDSIZE; i++) {
+            for (int j = 0; j < BOARDSIZE; j++) {
+                if (solution[i][j] == null) {
+                    empty++;
+                }
+            }
+        }
+        return empty;
     }
 
     /**
@@ -70,21 +316,38 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * left cell and proceeds to the bottom right (completing a row before
      * moving to the next)
      *
+     * Domain changes are recorded on the undo stack and rolled back when a
+     * value fails, so no memory is allocated per search node.
+     *
+     * @param depth number of values assigned by the search so far
      * @return boolean true if a cell was set and no domains were empty after
      * it.
      */
-    private boolean solveSudoku() {
-        int[] nextCell = getNextEmptyCell();                                                    //Find the next empty cell to assign
+    private boolean solveSudoku(int depth) {
+        int cell = useMRV ? getMRVCell() : getNextEmptyCell();                                  //Find the next empty cell to assign, a number between 0-80 representing the cell
 
-        /* checks if the cell is not empty, if so we have finished */
-        if (solution[nextCell[0]][nextCell[1]] != null) {                                       //If the cell we have has data in it, then we have a completed solution
-            System.out.println("Steps = " + steps);                                             //Displays in the console the total steps taken to find the solution
-            return true;
+        if (cell != NO_CELL && isStopped()) {                                                   //The caller no longer needs this search, unwind without a solution, a completed board is still kept
+            return false;
+        }
+        nodes++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+
+        /* checks if there is no empty cell, if so we have finished */
+        if (cell == NO_CELL) {                                                                  //If every cell has data in it, then we have a completed solution
+            solutionsFound++;
+            return solutionsFound >= solutionLimit;                                             //Below the limit, backtrack to look for the next solution
         }
 
-        int cell = (nextCell[0] * BOARDSIZE) + nextCell[1];                                     //Converts the coords of the cell into a number between 0-80 representing the cell                                          
+        int row = cell / BOARDSIZE;                                                             //Converts the cell back into its coords
+        int col = cell % BOARDSIZE;
 
-        int[] domainSave = domains.clone();                                                     //Create a backup copy of the domains for backtracking to restore domains
+        if (useMRV) {
+            removeFromBucket(cell);                                                             //The cell is being assigned, stop tracking its domain size
+        }
+
+        int trailMark = trailSize;                                                              //Position of the undo stack to roll back to for backtracking
 
         /**
          * Loops through all available values in the domain
@@ -97,65 +360,250 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
          *
          * No remaining values = backtrack
          */
-        int domain = domains[cell];                                                             //Copy of the domain to be used to loop through possible values
+        long domain = domains[cell];                                                            //Copy of the domain to be used to loop through possible values
         while (domain != 0) {                                                                   //While there are still possible values in the domain run this loop
             steps++;                                                                            //Increment steps Class Variable to track the amount of steps taken to solve puzzle
-            int lowestBitIndex = Integer.numberOfTrailingZeros(domain);                         //Find the index of the next possible value in the domain
-            domain = domain & ~(1 << lowestBitIndex);                                           //Remove the used value from the copy of the domain
+            int lowestBitIndex = Long.numberOfTrailingZeros(domain);                            //Find the index of the next possible value in the domain
+            domain = domain & ~(1L << lowestBitIndex);                                          //Remove the used value from the copy of the domain
 
-            solution[nextCell[0]][nextCell[1]] = lowestBitIndex + 1;                            //Set the value of the cell to the next possible domain value (starting at 1-9)
+            solution[row][col] = lowestBitIndex + 1;                                            //Set the value of the cell to the next possible domain value (starting at 1-9)
 
-            emptyDomains(nextCell);                                                             //Empty the domains of linked cells
+            emptyDomains(row, col);                                                             //Empty the domains of linked cells
+
+            if (useMAC && !emptyDomainFlag) {
+                maintainArcConsistency();                                                       //Carry the revision on past the direct peers
+            }
 
             if (!emptyDomainFlag) {                                                             //If no domain became empty from assignment then try to assign the next empty cell.
-                if (solveSudoku()) {
+                if (solveSudoku(depth + 1)) {
                     return true;                                                                //If the puzzle is completed, true will be returned
                 }
             }
-            solution[nextCell[0]][nextCell[1]] = null;                                          //Backtracking initiated, remove value from cell
-            domains = domainSave.clone();                                                       //Restore domains to the original value before assignments were made
+            solution[row][col] = null;                                                          //Backtracking initiated, remove value from cell
+            arcQueueSize = 0;                                                                   //Anything still queued belongs to the failed assignment
+            undoDomains(trailMark);                                                             //Restore domains to the original value before assignments were made
             emptyDomainFlag = false;                                                            //Reset backtracking flag to try next possible value
+            backtracks++;
 
         }
-        domains = domainSave;                                                                   //All possible domains result in backtracking, so backtrack 1 step further and restore domains to previous state
+        if (useMRV) {
+            addToBucket(cell);                                                                  //The cell is unassigned again, track it by its restored domain size
+        }
         return false;                                                                           //Triggers backtracking
     }
 
     /**
      * Empties the relevant domains for the cell just updated.
      *
-     * @param cell is a 1d array of size two, index 0 = row of cell & index 1 =
-     * column of cell
+     * @param row row of the cell
+     * @param col column of the cell
      */
-    private void emptyDomains(int[] cell) {
-        fcRow(cell);                                                                            //Revise the domains for the row
+    private void emptyDomains(int row, int col) {
+        fcRow(row, col);                                                                        //Revise the domains for the row
         if (!emptyDomainFlag) {
-            fcCol(cell);                                                                        //If the row domain revision didn't result in an empty domain, revise the column domains
+            fcCol(row, col);                                                                    //If the row domain revision didn't result in an empty domain, revise the column domains
         }
         if (!emptyDomainFlag) {
-            fcBox(cell);                                                                        //If the row domain revision didn't result in an empty domain, revise the column domains
+            fcBox(row, col);                                                                    //If the row domain revision didn't result in an empty domain, revise the column domains
         }
     }
 
     /**
      * Finds the next empty cell and returns it
      *
-     * @return cell is a 1d array of size two, index 0 = row of cell & index 1 =
-     * column of cell
+     * @return index of the cell (row * BOARDSIZE + column), or NO_CELL if
+     * every cell has a value
      */
-    private int[] getNextEmptyCell() {
-        int[] cell = new int[2];
-
+    private int getNextEmptyCell() {
         for (int i = 0; i < BOARDSIZE; i++) {
             for (int j = 0; j < BOARDSIZE; j++) {
                 if (solution[i][j] == null) {                                                   //If the current cell has no value then return it
-                    cell[0] = i;
-                    cell[1] = j;
-                    return cell;
+                    return (i * BOARDSIZE) + j;
+                }
+            }
+        }
+        return NO_CELL;                                                                         //Every cell has a value
+    }
+
+    /**
+     * Finds the unassigned cell with the fewest values left in its domain,
+     * breaking ties by the number of unassigned cells in its row, column and
+     * box
+     *
+     * @return index of the cell (row * BOARDSIZE + column), or NO_CELL if
+     * every cell is assigned
+     */
+    private int getMRVCell() {
+        for (int size = 0; size <= BOARDSIZE; size++) {                                         //Smallest non empty bucket first, an empty domain (size 0) fails straight away
+            int best = NO_CELL;
+            int bestDegree = -1;
+            for (int cell = bucketHead[size]; cell != NO_CELL; cell = bucketNext[cell]) {
+                int degree = getDegree(cell);
+                if (degree > bestDegree) {
+                    best = cell;
+                    bestDegree = degree;
+                }
+            }
+            if (best != NO_CELL) {
+                return best;
+            }
+        }
+        return NO_CELL;                                                                         //Every cell is assigned
+    }
+
+    /**
+     * Counts the unassigned cells sharing a row, column or box with a cell,
+     * cells in both the box and the row or column are counted twice
+     *
+     * @param cell index of the cell
+     * @return the degree of the cell
+     */
+    private int getDegree(int cell) {
+        int row = cell / BOARDSIZE;
+        int col = cell % BOARDSIZE;
+        return freeInRow[row] + freeInCol[col] + freeInBox[(row / BOXSIZE) * BOXSIZE + (col / BOXSIZE)];
+    }
+
+    /**
+     * Puts every unassigned cell into the bucket for its domain size and counts
+     * the unassigned cells in each row, column and box
+     */
+    private void initBuckets() {
+        Arrays.fill(bucketHead, NO_CELL);
+        Arrays.fill(freeInRow, 0);
+        Arrays.fill(freeInCol, 0);
+        Arrays.fill(freeInBox, 0);
+
+        for (int cell = 0; cell < BOARDSIZE * BOARDSIZE; cell++) {
+            if (solution[cell / BOARDSIZE][cell % BOARDSIZE] == null) {
+                addToBucket(cell);
+            }
+        }
+    }
+
+    /**
+     * Starts tracking an unassigned cell in the bucket for its domain size
+     *
+     * @param cell index of the cell
+     */
+    private void addToBucket(int cell) {
+        int size = Long.bitCount(domains[cell]);
+        bucketOf[cell] = size;
+        bucketPrev[cell] = NO_CELL;
+        bucketNext[cell] = bucketHead[size];
+        if (bucketHead[size] != NO_CELL) {
+            bucketPrev[bucketHead[size]] = cell;
+        }
+        bucketHead[size] = cell;
+        updateFreeCounts(cell, 1);
+    }
+
+    /**
+     * Stops tracking a cell, used when it is assigned a value
+     *
+     * @param cell index of the cell
+     */
+    private void removeFromBucket(int cell) {
+        int size = bucketOf[cell];
+        if (bucketPrev[cell] != NO_CELL) {
+            bucketNext[bucketPrev[cell]] = bucketNext[cell];
+        } else {
+            bucketHead[size] = bucketNext[cell];
+        }
+        if (bucketNext[cell] != NO_CELL) {
+            bucketPrev[bucketNext[cell]] = bucketPrev[cell];
+        }
+        bucketOf[cell] = NO_CELL;
+        updateFreeCounts(cell, -1);
+    }
+
+    /**
+     * Adjusts the unassigned cell counts of a cell's row, column and box
+     *
+     * @param cell index of the cell
+     * @param change +1 when the cell becomes unassigned, -1 when it is assigned
+     */
+    private void updateFreeCounts(int cell, int change) {
+        int row = cell / BOARDSIZE;
+        int col = cell % BOARDSIZE;
+        freeInRow[row] += change;
+        freeInCol[col] += change;
+        freeInBox[(row / BOXSIZE) * BOXSIZE + (col / BOXSIZE)] += change;
+    }
+
+    /**
+     * AC-3 for the not-equal constraints between peers. A value can only be
+     * removed from a cell by a peer with that value as its single remaining
+     * value, so only cells whose domain shrank to one value are queued, and
+     * each queued cell revises its peers. Peers that shrink to one value in
+     * turn are queued by setDomain.
+     */
+    private void maintainArcConsistency() {
+        while (arcQueueSize > 0 && !emptyDomainFlag) {
+            int cell = arcQueue[--arcQueueSize];
+            long value = domains[cell];
+
+            for (int peer : peers[cell]) {
+                if ((domains[peer] & value) != 0) {
+                    setDomain(peer, domains[peer] & ~value);
+                    if (domains[peer] == 0) {                                                   //A domain shrank to nothing, turn back now!
+                        emptyDomainFlag = true;
+                        break;
+                    }
                 }
             }
         }
-        return cell;                                                                            //Return the co-ords of the 1st cell
+    }
+
+    /**
+     * Sets the domain of a cell, recording the old domain on the undo stack
+     *
+     * @param cell index of the cell
+     * @param domain the new domain
+     */
+    private void setDomain(int cell, long domain) {
+        if (domains[cell] == domain) {                                                          //Nothing changes, nothing to undo
+            return;
+        }
+        trailCell[trailSize] = cell;
+        trailDomain[trailSize] = domains[cell];
+        trailSize++;
+        propagations++;
+        updateDomain(cell, domain);
+
+        if (useMAC && Long.bitCount(domain) == 1 && solution[cell / BOARDSIZE][cell % BOARDSIZE] == null) {
+            arcQueue[arcQueueSize++] = cell;                                                    //The cell's last value now has to be removed from its peers
+        }
+    }
+
+    /**
+     * Writes the domain of a cell, moving the cell to the bucket for its new
+     * domain size if it is being tracked
+     *
+     * @param cell index of the cell
+     * @param domain the new domain
+     */
+    private void updateDomain(int cell, long domain) {
+        if (useMRV && bucketOf[cell] != NO_CELL && Long.bitCount(domain) != bucketOf[cell]) {
+            removeFromBucket(cell);
+            domains[cell] = domain;
+            addToBucket(cell);
+        } else {
+            domains[cell] = domain;
+        }
+    }
+
+    /**
+     * Rolls the domains back by popping the undo stack down to a mark, newest
+     * change first
+     *
+     * @param trailMark the undo stack size to roll back to
+     */
+    private void undoDomains(int trailMark) {
+        while (trailSize > trailMark) {
+            trailSize--;
+            updateDomain(trailCell[trailSize], trailDomain[trailSize]);
+        }
     }
 
     /**
@@ -174,18 +622,18 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * @param row current row to revise
      * @param initialValues values to be removed from domains
      */
-    private void removeRowDomainValues(int row, int initialValues) {
+    private void removeRowDomainValues(int row, long initialValues) {
         for (int j = 0; j < BOARDSIZE; j++) {
 
             int cell = (row * BOARDSIZE) + j;                                                   //Converts the coords of the current cell into a number between 0-80 representing the cell                                          
-            domains[cell] &= ~initialValues;                                                    //Remove all initialValues values from the domain
+            setDomain(cell, domains[cell] & ~initialValues);                                    //Remove all initialValues values from the domain
 
             if (solution[row][j] != null) {                                                     //If the cell contains a value add that back to the domain
                 int value = solution[row][j];
-                domains[cell] = (1 << value - 1);
+                setDomain(cell, 1L << value - 1);
             }
 
-            if (domains[cell] < 1) {                                                            //If a domain shrinks to nothing we have an invalid solution, turn back now!
+            if (domains[cell] == 0) {                                                           //If a domain shrinks to nothing we have an invalid solution, turn back now!
                 emptyDomainFlag = true;
                 break;
             }
@@ -199,18 +647,18 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * @param col current column to revise
      * @param initialValues values to be removed from domains
      */
-    private void removeColDomainValues(int col, int initialValues) {
+    private void removeColDomainValues(int col, long initialValues) {
         for (int j = 0; j < BOARDSIZE; j++) {
 
             int cell = (j * BOARDSIZE) + col;                                                   //Converts the coords of the current cell into a number between 0-80 representing the cell                                          
-            domains[cell] &= ~initialValues;                                                    //Remove all initialValues values from the domain
+            setDomain(cell, domains[cell] & ~initialValues);                                    //Remove all initialValues values from the domain
 
             if (solution[j][col] != null) {                                                     //If the cell contains a value add that back to the domain
                 int value = solution[j][col];
-                domains[cell] = (1 << value - 1);
+                setDomain(cell, 1L << value - 1);
             }
 
-            if (domains[cell] < 1) {                                                            //If a domain shrinks to nothing we have an invalid solution, turn back now!
+            if (domains[cell] == 0) {                                                           //If a domain shrinks to nothing we have an invalid solution, turn back now!
                 emptyDomainFlag = true;
                 break;
             }
@@ -225,7 +673,7 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * @param boxCol the column of the cell in the upper left of the box
      * @param initialValues values to be removed from domains
      */
-    private void removeBoxDomainValues(int boxRow, int boxCol, int initialValues) {
+    private void removeBoxDomainValues(int boxRow, int boxCol, long initialValues) {
 
         escape:
 
@@ -233,16 +681,16 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
             for (int cellCol = boxCol; cellCol < boxCol + BOXSIZE; cellCol++) {                 //Loop through the box starting on the left most column
 
                 int cell = (cellRow * BOARDSIZE) + cellCol;                                     //Converts the coords of the current cell into a number between 0-80 representing the cell                                          
-                domains[cell] &= ~initialValues;                                                //Remove all initialValues values from the domain
+                setDomain(cell, domains[cell] & ~initialValues);                                //Remove all initialValues values from the domain
 
                 if (solution[cellRow][cellCol] != null) {                                       //If the cell contains a value add that back to the domain
                     int value = solution[cellRow][cellCol];
-                    domains[cell] = (1 << value - 1);
+                    setDomain(cell, 1L << value - 1);
                 }
 
-                if (domains[cell] < 1) {                                                        //If a domain shrinks to nothing we have an invalid solution, turn back now!
+                if (domains[cell] == 0) {                                                       //If a domain shrinks to nothing we have an invalid solution, turn back now!
                     emptyDomainFlag = true;
-                    break escape;       //breaks from all loops
+                    break escape;                                                               //breaks from all loops
                 }
             }
         }
@@ -255,10 +703,10 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
 
         for (int i = 0; i < BOARDSIZE; i++) {                                                   //Starting at the top row loop through every row on the board
 
-            int initialValues = 0;
+            long initialValues = 0;
             for (int j = 0; j < BOARDSIZE; j++) {
                 if (solution[i][j] != null) {                                                   //If the current cell contains an assigned value then add it to the initialValues variable
-                    initialValues |= (1 << (solution[i][j] - 1));
+                    initialValues |= (1L << (solution[i][j] - 1));
                 }
             }
 
@@ -278,11 +726,11 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
 
         for (int i = 0; i < BOARDSIZE; i++) {                                                   //Starting at the left most column loop through every column on the board
 
-            int initialValues = 0;
+            long initialValues = 0;
             /* Get all the values in the column */
             for (int j = 0; j < BOARDSIZE; j++) {
                 if (solution[j][i] != null) {                                                   //If the current cell contains an assigned value then add it to the initialValues variable
-                    initialValues |= (1 << (solution[j][i] - 1));
+                    initialValues |= (1L << (solution[j][i] - 1));
                 }
             }
             /* If there are values that need to be removed from domains remove them */
@@ -310,7 +758,7 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
          */
         for (int i = 0; i < BOXSIZE; i++) {                                                     //Starting at the top most BOXSIZE row loop through every BOXSIZE row
             for (int j = 0; j < BOXSIZE; j++) {                                                 //Starting at the left most BOXSIZE column loop through every BOXSIZE column
-                int initialValues = 0;
+                long initialValues = 0;
 
                 for (int x = 0; x < BOXSIZE; x++) {                                             //Loops through each cell in a BOXSIZExBOXSIZE box
                     for (int y = 0; y < BOXSIZE; y++) {
@@ -318,7 +766,7 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
                         cellCol = (BOXSIZE * j) + y;                                            //(BOXSIZE * j) = current boxes upper left most cell's column | y = current cells column in box
 
                         if (solution[cellRow][cellCol] != null) {                               //If the current cell contains an assigned value then add it to the initialValues variable
-                            initialValues |= (1 << (solution[cellRow][cellCol] - 1));
+                            initialValues |= (1L << (solution[cellRow][cellCol] - 1));
                         }
                     }
                 }
@@ -338,17 +786,18 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * Forward check all cells in the same row as current cell, removing the
      * value assigned to the current cell from each domain
      *
-     * @param currentCell the cell thats just been assigned a value
+     * @param row row of the cell thats just been assigned a value
+     * @param col column of the cell thats just been assigned a value
      */
-    private void fcRow(int[] currentCell) {
-        int initialValues = 0;
-        int currentValue = solution[currentCell[0]][currentCell[1]];
-        if (solution[currentCell[0]][currentCell[1]] != null) {                                 //If the current cell contains an assigned value then add it to the initialValues variable
-            initialValues = (1 << (currentValue - 1));
+    private void fcRow(int row, int col) {
+        long initialValues = 0;
+        int currentValue = solution[row][col];
+        if (solution[row][col] != null) {                                                       //If the current cell contains an assigned value then add it to the initialValues variable
+            initialValues = (1L << (currentValue - 1));
         }
 
         if (initialValues != 0) {                                                               //If there are values that need to be removed from domains remove them
-            removeRowDomainValues(currentCell[0], initialValues);
+            removeRowDomainValues(row, initialValues);
         }
     }
 
@@ -356,17 +805,18 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * Forward check all cells in the same column as current cell, removing the
      * value assigned to the current cell from each domain
      *
-     * @param currentCell the cell thats just been assigned a value
+     * @param row row of the cell thats just been assigned a value
+     * @param col column of the cell thats just been assigned a value
      */
-    private void fcCol(int[] currentCell) {
-        int initialValues = 0;
-        int currentValue = solution[currentCell[0]][currentCell[1]];
-        if (solution[currentCell[0]][currentCell[1]] != null) {                                 //If the current cell contains an assigned value then add it to the initialValues variable
-            initialValues = (1 << (currentValue - 1));
+    private void fcCol(int row, int col) {
+        long initialValues = 0;
+        int currentValue = solution[row][col];
+        if (solution[row][col] != null) {                                                       //If the current cell contains an assigned value then add it to the initialValues variable
+            initialValues = (1L << (currentValue - 1));
         }
 
         if (initialValues != 0) {                                                               //If there are values that need to be removed from domains remove them
-            removeColDomainValues(currentCell[1], initialValues);
+            removeColDomainValues(col, initialValues);
         }
     }
 
@@ -374,17 +824,18 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
      * Forward check all cells in the same box as current cell, removing the
      * value assigned to the current cell from each domain
      *
-     * @param currentCell the cell thats just been assigned a value
+     * @param row row of the cell thats just been assigned a value
+     * @param col column of the cell thats just been assigned a value
      */
-    private void fcBox(int[] currentCell) {
-        int initialValues = 0;
-        int currentValue = solution[currentCell[0]][currentCell[1]];
+    private void fcBox(int row, int col) {
+        long initialValues = 0;
+        int currentValue = solution[row][col];
 
-        int boxRow = currentCell[0] - (currentCell[0] % BOXSIZE);                               //Find the row of the top left square of the current BOXSIZExBOXSIZE box
-        int boxCol = currentCell[1] - (currentCell[1] % BOXSIZE);                               //Find the column of the top left square of the current BOXSIZExBOXSIZE box
+        int boxRow = row - (row % BOXSIZE);                                                     //Find the row of the top left square of the current BOXSIZExBOXSIZE box
+        int boxCol = col - (col % BOXSIZE);                                                     //Find the column of the top left square of the current BOXSIZExBOXSIZE box
 
-        if (solution[currentCell[0]][currentCell[1]] != null) {                                 //If the current cell contains an assigned value then add it to the initialValues variable
-            initialValues = (1 << (currentValue - 1));
+        if (solution[row][col] != null) {                                                       //If the current cell contains an assigned value then add it to the initialValues variable
+            initialValues = (1L << (currentValue - 1));
         }
 
         if (initialValues != 0) {                                                               //If there are values that need to be removed from domains remove them
@@ -393,15 +844,82 @@ class Sudoku_AI_ForwardChecking implements Sudoku_AI {
 
     }
 
+    /**
+     * Checks the cancellation once every CHECKINTERVAL search nodes,
+     * remembering why the search was stopped, and publishes a snapshot of the
+     * board if the last one has been taken
+     *
+     * @return true once the search has been stopped
+     */
+    private boolean isStopped() {
+        if ((cancellation != null || progress != null) && stopStatus == null && --checkCountdown == 0) {
+            checkCountdown = SudokuCancellation.CHECKINTERVAL;
+            if (cancellation != null) {
+                stopStatus = cancellation.getStopStatus();
+            }
+            if (progress != null && progress.isWanted()) {
+                progress.publish(solution);
+            }
+        }
+        return stopStatus != null;
+    }
+
+    /**
+     * Gathers the statistics of the solve that has just finished
+     *
+     * @param start System.nanoTime() when the solve started
+     * @param allocatedBefore bytes allocated by the thread when the solve
+     * started, -1 if unknown
+     * @return the statistics
+     */
+    private SudokuSolveStats getStats(long start, long allocatedBefore) {
+        long allocated = allocatedBefore < 0 ? -1 : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore;
+        return new SudokuSolveStats(nodes, backtracks, propagations, logicalCells, searchCells, maxDepth,
+                System.nanoTime() - start, allocated);
+    }
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets where snapshots of the board are published while later solves
+     * search
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Gets the number of values tried by the last solve
+     *
+     * @return steps
+     */
+    int getSteps() {
+        return steps;
+    }
+
     /**
      * Used to get a string ID of the class
      *
-     * @return NAME static Class Variable. Contains a string ID for the
-     * algorithm class
+     * @return NAME, MRV_NAME or MAC_NAME static Class Variable. Contains a
+     * string ID for the algorithm class
      */
     @Override
     public String getName() {
-        return NAME;
+        if (useMAC) {
+            return MAC_NAME;
+        }
+        return useMRV ? MRV_NAME : NAME;
     }
 
 }
@@ -0,0 +1,358 @@
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concrete Sudoku_AI algorithm implementation that spreads the search over
+ * every core. The first few levels of the search tree are split into fork/join
+ * tasks, one per value of the cell with the fewest values left, and each task
+ * below the split levels is searched by a Sudoku_AI_ForwardChecking engine
+ * maintaining arc consistency with MRV ordering. The first task to find a
+ * solution cancels the search's SudokuCancellation. A task that has not
+ * started yet sees that before it searches, and the leaf engines check it
+ * every SudokuCancellation.CHECKINTERVAL nodes rather than at every node, so
+ * the other tasks stop within a few hundred nodes.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_Parallel implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final int SPLITLEVELS;                                                              //Number of search levels split into separate tasks
+    private static final String NAME = "Parallel Search";                                       //Algorithm Name, used by SudokuSolverModel_AI class
+
+    //DATA STRUCTURES
+    private final ForkJoinPool pool;                                                            //Pool the tasks run on
+    private final ThreadLocal<Sudoku_AI_ForwardChecking> leafSolver;                            //Sequential engine for each worker thread, reused between tasks
+    private final ThreadLocal<Sudoku_AI_Propagator> propagator;                                 //Propagator for each worker thread, reused between tasks
+    private volatile SudokuSolveListener listener;                                              //Told about every finished solve, null for none
+
+    /**
+     * Constructor for the class, runs on the common fork/join pool
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_Parallel(int gameBoxSize) {
+        this(gameBoxSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for the class, runs on the supplied pool
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @param pool the pool to run the search tasks on
+     * @throws IllegalArgumentException if the board has more than 64 values
+     */
+    public Sudoku_AI_Parallel(int gameBoxSize, ForkJoinPool pool) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        Sudoku_AI_Propagator.checkBoardSize(BOARDSIZE);                                         //Checked here rather than when a worker first builds its engines
+        this.pool = pool;
+
+        int tasks = 4 * pool.getParallelism();                                                  //Aim for a few tasks per core so a short branch doesn't leave a core idle
+        SPLITLEVELS = 32 - Integer.numberOfLeadingZeros(tasks - 1);                             //Each level at least doubles the number of tasks
+
+        leafSolver = ThreadLocal.withInitial(() -> new Sudoku_AI_ForwardChecking(gameBoxSize, true, true));
+        propagator = ThreadLocal.withInitial(() -> new Sudoku_AI_Propagator(gameBoxSize));
+    }
+
+    /**
+     * Overrode method for getSolution, searches the puzzle in parallel and
+     * copies the first solution found back into the user input
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, every task of the search stops once the
+     * cancellation is cancelled or times out
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
+        Search search = new Search(1, false, cancellation);
+        pool.invoke(new SearchTask(copyBoard(userInputPuzzle), 0, search));
+
+        SudokuSolveResult result;
+        Integer[][] found = search.found.get();
+        if (found == null) {
+            SudokuSolveResult.Status stopStatus = cancellation == null ? null : cancellation.getStopStatus();
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.NO_SOLUTION,
+                    new Integer[BOARDSIZE][BOARDSIZE], search.getStats(start, allocatedBefore));  //No solution, then return a blank puzzle
+        } else {
+            for (int i = 0; i < BOARDSIZE; i++) {
+                System.arraycopy(found[i], 0, userInputPuzzle[i], 0, BOARDSIZE);               //Solve the user input in place, like the sequential engines
+            }
+            result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, userInputPuzzle,
+                    search.getStats(start, allocatedBefore));
+        }
+
+        SudokuSolveListener current = listener;
+        if (current != null) {
+            current.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, each task counts the solutions in
+     * its branch and every task stops once the total reaches the limit
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        Search search = new Search(limit, true, null);
+        pool.invoke(new SearchTask(copyBoard(userInputPuzzle), 0, search));
+        return Math.min(search.count.get(), limit);
+    }
+
+    /**
+     * Copies a board so tasks can work on it independently
+     *
+     * @param board the board to copy
+     * @return the copy
+     */
+    private Integer[][] copyBoard(Integer[][] board) {
+        Integer[][] copy = new Integer[BOARDSIZE][];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * One branch of the search. Above SPLITLEVELS it propagates its board and
+     * forks a task for each value of the cell with the fewest values left,
+     * below it hands the board to the worker's sequential engine.
+     */
+    private class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;                                        //Tasks are never serialized, set to keep -Xlint quiet
+        private final Integer[][] board;                                                        //Board of this branch, owned by the task
+        private final int level;                                                                //Number of values fixed by splitting so far
+        private final Search search;                                                            //State shared by every task of the search
+
+        SearchTask(Integer[][] board, int level, Search search) {
+            this.board = board;
+            this.level = level;
+            this.search = search;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.cancellation.getStopStatus() != null) {                                  //Another branch already has the answer, or the caller gave up
+                return;
+            }
+
+            if (level >= SPLITLEVELS) {
+                Sudoku_AI_ForwardChecking solver = leafSolver.get();
+                if (search.counting) {
+                    int remaining = search.limit - search.count.get();
+                    if (remaining > 0) {
+                        addSolutions(solver.countSolutions(board, remaining, search.cancellation));
+                    }
+                } else {
+                    SudokuSolveResult result = solver.solve(board, search.cancellation);
+                    search.addStats(result.getStats(), level);
+                    if (result.isSolved()) {
+                        publish(result.getSolution());
+                    }
+                }
+                return;
+            }
+
+            search.nodes.increment();
+            search.maxDepth.accumulateAndGet(level, Math::max);
+            int logicalCells = propagator.get().propagate(board);
+            if (logicalCells == Sudoku_AI_Propagator.CONTRADICTION) {                           //This branch can't be completed
+                search.backtracks.increment();
+                return;
+            }
+            search.logicalCells.add(logicalCells);
+
+            int bestCell = -1;
+            long bestValues = 0;
+            for (int cell = 0; cell < BOARDSIZE * BOARDSIZE; cell++) {                          //Pick the empty cell with the fewest values left to split on
+                if (board[cell / BOARDSIZE][cell % BOARDSIZE] == null) {
+                    long values = getFreeValues(cell);
+                    if (bestCell == -1 || Long.bitCount(values) < Long.bitCount(bestValues)) {
+                        bestCell = cell;
+                        bestValues = values;
+                    }
+                }
+            }
+
+            if (bestCell == -1) {                                                               //Propagation filled every cell
+                if (search.counting) {
+                    addSolutions(1);
+                } else {
+                    publish(board);
+                }
+                return;
+            }
+
+            List<SearchTask> branches = new ArrayList<>();
+            for (long values = bestValues; values != 0; values &= values - 1) {
+                Integer[][] branch = copyBoard(board);
+                branch[bestCell / BOARDSIZE][bestCell % BOARDSIZE] = Long.numberOfTrailingZeros(values) + 1;
+                branches.add(new SearchTask(branch, level + 1, search));
+            }
+            invokeAll(branches);
+        }
+
+        /**
+         * Works out the values not used in a cell's row, column or box
+         *
+         * @param cell index of the cell
+         * @return bitmask of the values left, bit 0 = value 1
+         */
+        private long getFreeValues(int cell) {
+            int row = cell / BOARDSIZE;
+            int col = cell % BOARDSIZE;
+            int boxRow = row - (row % BOXSIZE);
+            int boxCol = col - (col % BOXSIZE);
+            long used = 0;
+
+            for (int i = 0; i < BOARDSIZE; i++) {
+                Integer inRow = board[row][i];
+                Integer inCol = board[i][col];
+                Integer inBox = board[boxRow + (i / BOXSIZE)][boxCol + (i % BOXSIZE)];
+                used |= (inRow == null ? 0 : 1L << (inRow - 1))
+                        | (inCol == null ? 0 : 1L << (inCol - 1))
+                        | (inBox == null ? 0 : 1L << (inBox - 1));
+            }
+            return Sudoku_AI_Propagator.fullDomain(BOARDSIZE) & ~used;
+        }
+
+        /**
+         * Records a solution if it is the first one and cancels every other
+         * task
+         *
+         * @param solution the solved board
+         */
+        private void publish(Integer[][] solution) {
+            if (search.found.compareAndSet(null, copyBoard(solution))) {
+                search.cancellation.cancel();
+            }
+        }
+
+        /**
+         * Adds the solutions counted in a branch to the total and cancels
+         * every other task once the limit is reached
+         *
+         * @param solutions the number of solutions counted
+         */
+        private void addSolutions(int solutions) {
+            if (search.count.addAndGet(solutions) >= search.limit) {
+                search.cancellation.cancel();
+            }
+        }
+    }
+
+    /**
+     * State shared by every task of one search
+     */
+    private static final class Search {
+
+        private final int limit;                                                                //Number of solutions to stop at
+        private final boolean counting;                                                         //True to count solutions instead of returning the first
+        private final AtomicReference<Integer[][]> found = new AtomicReference<>();             //First solution found by any task
+        private final AtomicInteger count = new AtomicInteger();                                //Solutions counted by every task so far
+        private final SudokuCancellation cancellation;                                          //Cancelled once the search has its answer, also stopped by the caller's
+        private final LongAdder nodes = new LongAdder();                                        //Nodes visited by every task, split levels and leaves
+        private final LongAdder backtracks = new LongAdder();                                   //Dead ends found by every task
+        private final LongAdder propagations = new LongAdder();                                 //Domain reductions made by the leaf searches
+        private final LongAdder logicalCells = new LongAdder();                                 //Cells filled by propagation in every task
+        private final LongAdder searchCells = new LongAdder();                                  //Cells the leaf searches were left to fill
+        private final AtomicInteger maxDepth = new AtomicInteger();                             //Deepest level reached by any task
+        private final LongAdder allocatedBytes = new LongAdder();                               //Bytes allocated by leaf searches on pool threads
+        private final Thread caller = Thread.currentThread();                                   //Thread that started the search, its allocation is measured separately
+
+        Search(int limit, boolean counting, SudokuCancellation callerCancellation) {
+            this.limit = limit;
+            this.counting = counting;
+            this.cancellation = new SudokuCancellation(callerCancellation);
+        }
+
+        /**
+         * Adds the statistics of a leaf search to the totals
+         *
+         * @param leaf statistics of the leaf search
+         * @param level number of values fixed by splitting above the leaf
+         */
+        void addStats(SudokuSolveStats leaf, int level) {
+            nodes.add(leaf.getNodes());
+            backtracks.add(leaf.getBacktracks());
+            propagations.add(leaf.getPropagations());
+            logicalCells.add(leaf.getLogicalCells());
+            searchCells.add(leaf.getSearchCells());
+            maxDepth.accumulateAndGet(level + leaf.getMaxDepth(), Math::max);
+            if (Thread.currentThread() != caller) {                                             //The caller can run leaves while it waits, already counted
+                allocatedBytes.add(Math.max(0, leaf.getAllocatedBytes()));
+            }
+        }
+
+        /**
+         * Gathers the statistics of the search that has just finished, the
+         * allocated bytes are those of the calling thread and the leaf
+         * searches
+         *
+         * @param start System.nanoTime() when the solve started
+         * @param allocatedBefore bytes allocated by the calling thread when
+         * the solve started, -1 if unknown
+         * @return the statistics
+         */
+        SudokuSolveStats getStats(long start, long allocatedBefore) {
+            long allocated = allocatedBefore < 0 ? -1
+                    : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore + allocatedBytes.sum();
+            return new SudokuSolveStats(nodes.sum(), backtracks.sum(), propagations.sum(), logicalCells.sum(),
+                    searchCells.sum(), maxDepth.get(), System.nanoTime() - start, allocated);
+        }
+    }
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes, the
+     * leaf searches are not reported separately
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Used to get a string ID of the class
+     *
+     * @return NAME static Class Variable. Contains a string ID for the
+     * algorithm class
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+}
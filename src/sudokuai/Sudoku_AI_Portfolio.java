@@ -0,0 +1,332 @@
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concrete Sudoku_AI algorithm that races several other algorithms on the
+ * same puzzle. Each engine solves its own copy of the board on its own
+ * thread, the first to finish with an answer, a solution or a proof there is
+ * none, wins and cancels the rest. No engine is fastest on every puzzle, so
+ * racing them makes the time for any one puzzle close to the fastest
+ * engine's rather than that of whichever engine was picked.
+ *
+ * The first engine runs on the calling thread and the others on a shared pool
+ * of daemon threads, so the race only pays off with a spare core for each
+ * engine. On fewer cores the engines share them and every solve costs the
+ * work of all of them up to the winner's answer.
+ *
+ * Like the other algorithms an instance is used by one thread at a time.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_Portfolio implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private static final String NAME = "Portfolio";                                             //Algorithm Name, used by SudokuSolverModel_AI class
+    static final List<String> DEFAULTALGORITHMS = Collections.unmodifiableList(Arrays.asList(
+            "Dancing Links",
+            "CDCL SAT",
+            "Backtracking - MAC"));                                                             //Fastest on the bundled, hard and sparse puzzles in turn
+    private static final AtomicInteger THREADCOUNT = new AtomicInteger();                       //Used to give the pool's threads distinct names
+    private static final ExecutorService RACERS = Executors.newCachedThreadPool((Runnable r) -> {
+        Thread thread = new Thread(r, "sudoku-portfolio-" + THREADCOUNT.incrementAndGet());
+        thread.setDaemon(true);                                                                 //A race never keeps the application alive
+        return thread;
+    });                                                                                         //Shared by every instance, idle threads end after a minute
+
+    //DATA STRUCTURES
+    private final List<String> algorithms;                                                      //Factory name of each engine raced
+    private final List<Sudoku_AI> engines;                                                      //Engines raced, the first runs on the calling thread
+    private String lastWinner;                                                                  //Name of the engine that answered the last solve
+    private volatile SudokuSolveListener listener;                                              //Told about every finished solve, null for none
+
+    /**
+     * Constructor for the class, races DEFAULTALGORITHMS
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_Portfolio(int gameBoxSize) {
+        this(gameBoxSize, DEFAULTALGORITHMS);
+    }
+
+    /**
+     * Constructor for the class
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @param algorithms names of the algorithms to race, as given to
+     * Sudoku_AI_Factory
+     * @throws IllegalArgumentException if there are no algorithms, or one is
+     * unknown or is itself a Portfolio
+     */
+    public Sudoku_AI_Portfolio(int gameBoxSize, List<String> algorithms) {
+        this(gameBoxSize, algorithms, makeEngines(gameBoxSize, algorithms));
+    }
+
+    /**
+     * Constructor for the class, races engines already made
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @param algorithms name of each engine, reported by getLastWinner
+     * @param engines the engines to race, one for each name
+     */
+    Sudoku_AI_Portfolio(int gameBoxSize, List<String> algorithms, List<Sudoku_AI> engines) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        this.algorithms = Collections.unmodifiableList(new ArrayList<>(algorithms));
+        this.engines = new ArrayList<>(engines);                                                //Engines publish no solves, this class publishes the race
+    }
+
+    /**
+     * Makes an engine for each algorithm from Sudoku_AI_Factory
+     *
+     * @throws IllegalArgumentException if there are no algorithms, or one is
+     * unknown or is itself a Portfolio
+     */
+    private static List<Sudoku_AI> makeEngines(int gameBoxSize, List<String> algorithms) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("No algorithms to race");
+        }
+        Sudoku_AI_Factory factory = new Sudoku_AI_Factory();
+        List<Sudoku_AI> engines = new ArrayList<>(algorithms.size());
+        for (String algorithm : algorithms) {
+            Sudoku_AI engine = NAME.equals(algorithm) ? null : factory.getAlgorithm(algorithm, gameBoxSize);
+            if (engine == null) {
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+            }
+            engines.add(engine);
+        }
+        return engines;
+    }
+
+    /**
+     * Overrode method for getSolution, races the engines and copies the first
+     * solution found back into the user input
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve. Every engine stops once one of them answers
+     * or the cancellation is cancelled or times out, and the solve returns
+     * once they all have, so the engines are idle for the next solve. The
+     * statistics are the winner's, timed over the whole race.
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     * @throws IllegalStateException if an engine failed and none answered
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        SudokuCancellation race = new SudokuCancellation(cancellation);                         //Cancelled by the winner, or with the caller's
+        AtomicReference<SudokuSolveResult> answer = new AtomicReference<>();
+        AtomicReference<String> winner = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(engines.size() - 1);
+
+        for (int i = 1; i < engines.size(); i++) {
+            Sudoku_AI engine = engines.get(i);
+            String algorithm = algorithms.get(i);
+            Integer[][] board = copyBoard(userInputPuzzle);                                     //Copied before the caller's board is solved in place
+            RACERS.execute(() -> {
+                try {
+                    race(engine, algorithm, board, race, answer, winner, failure);
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        boolean raced = false;
+        try {
+            race(engines.get(0), algorithms.get(0), copyBoard(userInputPuzzle), race, answer, winner, failure);
+            raced = true;
+        } finally {
+            if (!raced) {
+                race.cancel();                                                                  //Failed outside the engine, don't leave the others running
+            }
+            awaitEngines(finished, race);
+        }
+
+        SudokuSolveResult won = answer.get();
+        SudokuSolveResult result;
+        if (won == null) {
+            SudokuSolveResult.Status stopStatus = cancellation == null ? null : cancellation.getStopStatus();
+            if (stopStatus == null && failure.get() != null) {
+                throw new IllegalStateException("No algorithm answered", failure.get());
+            }
+            lastWinner = null;
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.CANCELLED,
+                    new Integer[BOARDSIZE][BOARDSIZE], raceStats(null, start));                 //No answer, then return a blank puzzle
+        } else {
+            lastWinner = winner.get();
+            if (won.isSolved()) {
+                for (int i = 0; i < BOARDSIZE; i++) {
+                    System.arraycopy(won.getSolution()[i], 0, userInputPuzzle[i], 0, BOARDSIZE);  //Solve the user input in place, like the other engines
+                }
+                result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, userInputPuzzle, raceStats(won, start));
+            } else {
+                result = new SudokuSolveResult(won.getStatus(), new Integer[BOARDSIZE][BOARDSIZE], raceStats(won, start));
+            }
+        }
+
+        SudokuSolveListener current = listener;
+        if (current != null) {
+            current.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Runs one engine of a race, and ends the race if it answers first. Any
+     * failure, an Error included, is kept for solve to throw if no engine
+     * answers rather than ending the pool's thread or the caller's solve.
+     */
+    private static void race(Sudoku_AI engine, String algorithm, Integer[][] board, SudokuCancellation race,
+            AtomicReference<SudokuSolveResult> answer, AtomicReference<String> winner,
+            AtomicReference<Throwable> failure) {
+        try {
+            SudokuSolveResult result = engine.solve(board, race);
+            SudokuSolveResult.Status status = result.getStatus();
+            if ((status == SudokuSolveResult.Status.SOLVED || status == SudokuSolveResult.Status.NO_SOLUTION)
+                    && answer.compareAndSet(null, result)) {
+                winner.set(algorithm);
+                race.cancel();                                                                  //The losers stop at their next check
+            }
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);                                                     //Another engine may still answer
+        }
+    }
+
+    /**
+     * Waits for the engines on the pool to stop. An interrupt cancels the race
+     * rather than leaving engines running, and is passed on once they stop.
+     */
+    private static void awaitEngines(CountDownLatch finished, SudokuCancellation race) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                race.cancel();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builds the statistics of a race from the winner's, timed from the start
+     * of the race
+     */
+    private static SudokuSolveStats raceStats(SudokuSolveResult won, long start) {
+        long elapsed = System.nanoTime() - start;
+        if (won == null) {
+            return new SudokuSolveStats(0, 0, 0, 0, elapsed, 0);
+        }
+        SudokuSolveStats stats = won.getStats();
+        return new SudokuSolveStats(stats.getNodes(), stats.getBacktracks(), stats.getPropagations(),
+                stats.getLogicalCells(), stats.getSearchCells(), stats.getMaxDepth(), elapsed, stats.getAllocatedBytes());
+    }
+
+    /**
+     * Overrode method for countSolutions, counted by the first engine alone
+     * since every engine would give the same count
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        return engines.get(0).countSolutions(userInputPuzzle, limit);
+    }
+
+    /**
+     * Copies a board so each engine can solve it independently
+     *
+     * @param board the board to copy
+     * @return the copy
+     */
+    private Integer[][] copyBoard(Integer[][] board) {
+        Integer[][] copy = new Integer[BOARDSIZE][];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the name of the engine that answered the last solve, for seeing
+     * which engines earn their place in the race
+     *
+     * @return the engine's algorithm name as given to Sudoku_AI_Factory, or
+     * null if the last solve was stopped before any answered or there has
+     * been none
+     */
+    public String getLastWinner() {
+        return lastWinner;
+    }
+
+    /**
+     * Gets the names of the algorithms raced
+     *
+     * @return the names as given to Sudoku_AI_Factory, first engine first
+     */
+    public List<String> getAlgorithmNames() {
+        return algorithms;
+    }
+
+    /**
+     * Overrode method for setSolveListener, told about each race once with
+     * the winner's statistics
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Overrode method for setSearchProgress, shows the first engine's search,
+     * the one on the calling thread
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        engines.get(0).setSearchProgress(progress);
+    }
+
+    /**
+     * Overrode method for getName
+     *
+     * @return NAME the name of this algorithm
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+}
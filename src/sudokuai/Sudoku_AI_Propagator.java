@@ -0,0 +1,408 @@
+package sudokuai;
+
+/**
+ * Constraint propagation shared by the Sudoku_AI algorithms. Applies the
+ * logical rules a person would use to a board and its domains until none of
+ * them makes any more progress:
+ *
+ * naked singles (a cell with one value left), hidden singles (a value with one
+ * cell left in a row, column or box), pointing and claiming (a value confined
+ * to the overlap of a box and a row or column is removed from the rest of the
+ * other unit), naked pairs and hidden pairs.
+ *
+ * Domains use the same layout as Sudoku_AI_ForwardChecking, one long per cell
+ * with bit 0 standing for the value 1, so boards of up to MAXBOARDSIZE values
+ * (a box size of 8) can be propagated.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_Propagator {
+
+    //CLASS VARIABLES
+    public static final int CONTRADICTION = -1;                                                 //Returned when the board can not be completed
+    static final int MAXBOARDSIZE = Long.SIZE;                                                  //Most values a domain bitmask can hold
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final long FULLDOMAIN;                                                              //Bitmask with a bit set for every value 1-BOARDSIZE
+
+    //DATA STRUCTURES
+    private final int[][] units;                                                                //Cells of every row, then every column, then every box
+    private final int[][] cellUnits;                                                            //The row, column and box unit of each cell
+    private final int[] placed;                                                                 //Cells filled by the current call, in order
+    private final long[] ownDomains;                                                            //Domains used when the caller has none
+    private final long[] places;                                                                //Positions in a unit where each value can go, used by hiddenPairs
+    private Integer[][] board;                                                                  //Board being propagated
+    private long[] domains;                                                                     //Domains being propagated
+    private int placedCount;                                                                    //Number of entries in placed
+
+    /**
+     * Constructor for the class, builds the unit tables for the box size
+     *
+     * @param gameBoxSize box size of the game standard 3
+     * @throws IllegalArgumentException if the board has more values than a
+     * domain can hold
+     */
+    public Sudoku_AI_Propagator(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        checkBoardSize(BOARDSIZE);
+        FULLDOMAIN = fullDomain(BOARDSIZE);
+
+        units = new int[3 * BOARDSIZE][BOARDSIZE];
+        cellUnits = new int[BOARDSIZE * BOARDSIZE][3];
+        placed = new int[BOARDSIZE * BOARDSIZE];
+        ownDomains = new long[BOARDSIZE * BOARDSIZE];
+        places = new long[BOARDSIZE];
+
+        for (int i = 0; i < BOARDSIZE; i++) {
+            for (int j = 0; j < BOARDSIZE; j++) {
+                int box = (i / BOXSIZE) * BOXSIZE + (j / BOXSIZE);
+                int cell = (i * BOARDSIZE) + j;
+                units[i][j] = cell;                                                             //Row i
+                units[BOARDSIZE + j][i] = cell;                                                 //Column j
+                units[(2 * BOARDSIZE) + box][(i % BOXSIZE) * BOXSIZE + (j % BOXSIZE)] = cell;   //Box containing the cell
+                cellUnits[cell][0] = i;
+                cellUnits[cell][1] = BOARDSIZE + j;
+                cellUnits[cell][2] = (2 * BOARDSIZE) + box;
+            }
+        }
+    }
+
+    /**
+     * Checks that a board's values fit in a domain bitmask, the algorithms
+     * using bitmask domains call this from their constructors
+     *
+     * @param boardSize length of the rows & columns of the board
+     * @throws IllegalArgumentException if the board has more values than a
+     * domain can hold
+     */
+    static void checkBoardSize(int boardSize) {
+        if (boardSize < 1 || boardSize > MAXBOARDSIZE) {
+            throw new IllegalArgumentException("Boards up to " + MAXBOARDSIZE + " wide fit in a domain bitmask, not " + boardSize);
+        }
+    }
+
+    /**
+     * Builds the domain holding every value of a board
+     *
+     * @param boardSize length of the rows & columns of the board, at most
+     * MAXBOARDSIZE
+     * @return a bitmask with a bit set for every value 1-boardSize
+     */
+    static long fullDomain(int boardSize) {
+        return -1L >>> (Long.SIZE - boardSize);                                                 //Not (1L << boardSize) - 1, which is 0 for 64 values
+    }
+
+    /**
+     * Propagates a board on its own, the domains are worked out from the
+     * values already on the board
+     *
+     * @param board the board, filled cells are updated in place
+     * @return the number of cells filled, or CONTRADICTION
+     */
+    public int propagate(Integer[][] board) {
+        for (int cell = 0; cell < ownDomains.length; cell++) {
+            ownDomains[cell] = FULLDOMAIN;
+        }
+        for (int cell = 0; cell < ownDomains.length; cell++) {
+            Integer value = board[cell / BOARDSIZE][cell % BOARDSIZE];
+            if (value != null) {
+                long bit = 1L << (value - 1);
+                if ((ownDomains[cell] & bit) == 0) {                                            //The value was already removed by a peer holding it
+                    return CONTRADICTION;
+                }
+                ownDomains[cell] = bit;
+                for (int unit : cellUnits[cell]) {
+                    for (int peer : units[unit]) {
+                        if (peer != cell) {
+                            ownDomains[peer] &= ~bit;
+                        }
+                    }
+                }
+            }
+        }
+        return propagate(board, ownDomains);
+    }
+
+    /**
+     * Propagates a board and its domains to a fixpoint. Filled cells must have
+     * their value as their only domain bit and empty cells must not contain
+     * the values of filled peers, as after a forward check.
+     *
+     * If a contradiction is found the cells filled by this call are emptied
+     * again, the domains are left as they were when it was found.
+     *
+     * @param board the board, filled cells are updated in place
+     * @param domains the domains, updated in place
+     * @return the number of cells filled, or CONTRADICTION
+     */
+    public int propagate(Integer[][] board, long[] domains) {
+        this.board = board;
+        this.domains = domains;
+        placedCount = 0;
+
+        boolean changed = true;
+        boolean consistent = true;
+        while (changed && consistent) {
+            int before = placedCount;
+            consistent = nakedSingles() && hiddenSingles();
+            if (!consistent || placedCount != before) {                                         //Singles are cheap, repeat them before trying the other rules
+                continue;
+            }
+            changed = lockedCandidates() | nakedPairs() | hiddenPairs();
+        }
+
+        if (!consistent) {
+            unpropagate();                                                                      //Leave the board as the caller gave it
+            return CONTRADICTION;
+        }
+        return placedCount;
+    }
+
+    /**
+     * Empties the cells filled by the last call to propagate, for a caller
+     * that has to hand its board back unchanged when the search after the
+     * propagation fails. The domains are not restored.
+     */
+    public void unpropagate() {
+        for (int i = 0; i < placedCount; i++) {
+            board[placed[i] / BOARDSIZE][placed[i] % BOARDSIZE] = null;
+        }
+        placedCount = 0;
+    }
+
+    /**
+     * Fills every empty cell that has one value left in its domain
+     *
+     * @return false if a domain is empty
+     */
+    private boolean nakedSingles() {
+        for (int cell = 0; cell < domains.length; cell++) {
+            if (isEmpty(cell)) {
+                long domain = domains[cell];
+                if (domain == 0) {
+                    return false;
+                }
+                if ((domain & (domain - 1)) == 0 && !place(cell, domain)) {                     //Exactly one bit set
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills every cell that is the only place left for a value in one of its
+     * units
+     *
+     * @return false if a unit has a value repeated or a value with no place
+     */
+    private boolean hiddenSingles() {
+        for (int[] unit : units) {
+            long used = 0, once = 0, twice = 0;
+            for (int cell : unit) {
+                long domain = domains[cell];
+                if (!isEmpty(cell)) {
+                    if ((used & domain) != 0) {                                                 //The same value twice in a unit
+                        return false;
+                    }
+                    used |= domain;
+                } else {
+                    twice |= once & domain;
+                    once |= domain;
+                }
+            }
+            if ((used | once) != FULLDOMAIN) {                                                  //A value has nowhere to go
+                return false;
+            }
+
+            long hidden = once & ~twice & ~used;
+            while (hidden != 0) {
+                long bit = hidden & -hidden;
+                hidden &= ~bit;
+                for (int cell : unit) {
+                    if (isEmpty(cell) && (domains[cell] & bit) != 0) {
+                        if (!place(cell, bit)) {
+                            return false;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pointing and claiming. If the places left for a value in a box all lie
+     * in one row or column the value is removed from the rest of that row or
+     * column, and if the places left in a row or column all lie in one box the
+     * value is removed from the rest of that box.
+     *
+     * @return true if a domain changed
+     */
+    private boolean lockedCandidates() {
+        boolean changed = false;
+        for (int u = 0; u < units.length; u++) {
+            for (int v = 0; v < BOARDSIZE; v++) {
+                long bit = 1L << v;
+                int rowOf = -1, colOf = -1, boxOf = -1;
+                boolean sameRow = true, sameCol = true, sameBox = true, found = false;
+
+                for (int cell : units[u]) {
+                    if (isEmpty(cell) && (domains[cell] & bit) != 0) {
+                        int[] cu = cellUnits[cell];
+                        sameRow &= !found || rowOf == cu[0];
+                        sameCol &= !found || colOf == cu[1];
+                        sameBox &= !found || boxOf == cu[2];
+                        rowOf = cu[0];
+                        colOf = cu[1];
+                        boxOf = cu[2];
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    continue;
+                }
+
+                if (u >= 2 * BOARDSIZE) {                                                       //Pointing, from a box into a row or column
+                    if (sameRow) {
+                        changed |= removeOutside(rowOf, u, bit);
+                    }
+                    if (sameCol) {
+                        changed |= removeOutside(colOf, u, bit);
+                    }
+                } else if (sameBox) {                                                           //Claiming, from a row or column into a box
+                    changed |= removeOutside(boxOf, u, bit);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes values from the empty cells of a unit that are not in another
+     * unit
+     *
+     * @param unit the unit to remove the values from
+     * @param keep the unit whose cells are left alone
+     * @param bits the values to remove
+     * @return true if a domain changed
+     */
+    private boolean removeOutside(int unit, int keep, long bits) {
+        boolean changed = false;
+        for (int cell : units[unit]) {
+            int[] cu = cellUnits[cell];
+            if (cu[0] != keep && cu[1] != keep && cu[2] != keep && isEmpty(cell) && (domains[cell] & bits) != 0) {
+                domains[cell] &= ~bits;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Two empty cells of a unit with the same two values left take both of
+     * those values, so they are removed from the other cells of the unit
+     *
+     * @return true if a domain changed
+     */
+    private boolean nakedPairs() {
+        boolean changed = false;
+        for (int[] unit : units) {
+            for (int i = 0; i < BOARDSIZE; i++) {
+                long pair = domains[unit[i]];
+                if (!isEmpty(unit[i]) || Long.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < BOARDSIZE; j++) {
+                    if (isEmpty(unit[j]) && domains[unit[j]] == pair) {
+                        for (int k = 0; k < BOARDSIZE; k++) {
+                            int cell = unit[k];
+                            if (k != i && k != j && isEmpty(cell) && (domains[cell] & pair) != 0) {
+                                domains[cell] &= ~pair;
+                                changed = true;
+                            }
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Two values that can only go in the same two empty cells of a unit must
+     * take those cells, so every other value is removed from them
+     *
+     * @return true if a domain changed
+     */
+    private boolean hiddenPairs() {
+        boolean changed = false;
+        for (int[] unit : units) {
+            for (int v = 0; v < BOARDSIZE; v++) {                                               //Bitmask of the positions in the unit each value can go
+                places[v] = 0;
+                for (int i = 0; i < BOARDSIZE; i++) {
+                    if (isEmpty(unit[i]) && (domains[unit[i]] & (1L << v)) != 0) {
+                        places[v] |= 1L << i;
+                    }
+                }
+            }
+            for (int a = 0; a < BOARDSIZE; a++) {
+                if (Long.bitCount(places[a]) != 2) {
+                    continue;
+                }
+                for (int b = a + 1; b < BOARDSIZE; b++) {
+                    if (places[b] == places[a]) {
+                        long pair = (1L << a) | (1L << b);
+                        for (long positions = places[a]; positions != 0; positions &= positions - 1) {
+                            int cell = unit[Long.numberOfTrailingZeros(positions)];
+                            if ((domains[cell] & ~pair) != 0) {
+                                domains[cell] &= pair;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Fills a cell with a value and removes the value from its peers
+     *
+     * @param cell index of the cell
+     * @param bit the bit of the value
+     * @return false if a peer was left with an empty domain
+     */
+    private boolean place(int cell, long bit) {
+        board[cell / BOARDSIZE][cell % BOARDSIZE] = Long.numberOfTrailingZeros(bit) + 1;
+        domains[cell] = bit;
+        placed[placedCount++] = cell;
+
+        for (int unit : cellUnits[cell]) {
+            for (int peer : units[unit]) {
+                if (peer != cell && isEmpty(peer) && (domains[peer] & bit) != 0) {
+                    domains[peer] &= ~bit;
+                    if (domains[peer] == 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a cell has a value on the board
+     *
+     * @param cell index of the cell
+     * @return true if the cell is empty
+     */
+    private boolean isEmpty(int cell) {
+        return board[cell / BOARDSIZE][cell % BOARDSIZE] == null;
+    }
+
+}
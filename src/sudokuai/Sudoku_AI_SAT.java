@@ -0,0 +1,1140 @@
+package sudokuai;
+
+import java.util.Arrays;
+
+/**
+ * Concrete Sudoku_AI algorithm implementation using a conflict driven clause
+ * learning (CDCL) SAT solver. Every candidate (cell, value) is a boolean
+ * variable and the puzzle a formula in conjunctive normal form: a clause for
+ * every cell saying it holds a value and for every row, column and box saying
+ * each value appears in it, a binary clause for every two candidates that
+ * share a cell, row, column or box saying they aren't both true, and a unit
+ * clause for every value given by the user.
+ *
+ * The binary clauses are never stored, on large boards there are far too
+ * many. When a candidate becomes true its peers are set false directly with
+ * the candidate as their reason, which is what watching those clauses would
+ * do. Each candidate is in exactly one cell, row, column and box clause, so
+ * those keep a count of their literals not yet false instead of being
+ * watched, and a clause is only searched once the count drops to one. The
+ * learnt clauses are watched on two literals each.
+ *
+ * Each conflict is analysed back to its first unique implication point, and
+ * the clause learnt from it is added to the formula so the same mistake is
+ * never repeated further down the search, which then jumps straight back to
+ * the level where the learnt clause forces a value. Variables are picked by
+ * activity (VSIDS) and given the value they last had, the search restarts on
+ * the Luby sequence and the least useful half of the learnt clauses is
+ * dropped when there are too many.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_SAT implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final int CELLS;                                                                    //Number of cells on the board
+    private final int VARIABLES;                                                                //One per candidate, (cell * BOARDSIZE) + value - 1
+    private final int BASECLAUSES;                                                              //Cell, row, column and box clauses, the learnt clauses follow them
+    private static final String NAME = "CDCL SAT";                                              //Algorithm Name, used by SudokuSolverModel_AI class
+    private static final byte UNASSIGNED = 0, TRUE = 1, FALSE = -1;                             //Values of a variable
+    private static final int NO_REASON = -1;                                                    //Reason of a decision or a unit clause
+    private static final int NO_CONFLICT = -1;                                                  //Returned by propagate when every clause still holds
+    private static final int BINARY_CONFLICT = -2;                                              //Returned by propagate when two peers are both true
+    private static final int NO_VARIABLE = -1;                                                  //Returned when every variable is assigned
+    private static final int RESTARTBASE = 100;                                                 //Conflicts between restarts, times the Luby sequence
+    private static final int MINLEARNT = 2000;                                                  //Learnt clauses kept before the first reduction
+    private static final int KEPTLBD = 2;                                                       //Learnt clauses spanning this few levels are never dropped
+    private static final double ACTIVITYDECAY = 0.95;                                           //Older conflicts count for less in the activity
+    private static final double RESCALELIMIT = 1e100;                                           //Activities are scaled down before they reach this
+    private int level;                                                                          //Current decision level, 0 before the first decision
+    private int trailSize;                                                                      //Literals on the trail
+    private int propagated;                                                                     //Literals on the trail whose consequences have been propagated
+    private int clauseCount;                                                                    //Clauses stored, base and learnt
+    private int literalCount;                                                                   //Literals used in the clause store
+    private int learntSize;                                                                     //Literals of the clause being learnt
+    private int maxLearnt;                                                                      //Learnt clauses allowed before the next reduction
+    private int restarts;                                                                       //Restarts so far, the position in the Luby sequence
+    private int restartConflicts;                                                               //Conflicts left before the next restart
+    private int conflictA, conflictB;                                                           //Two true peers, after a BINARY_CONFLICT
+    private int levelStamp;                                                                     //Marks the levels counted for the last learnt clause
+    private double activityIncrement;                                                           //Added to the activity of a variable in a conflict
+    private int solutionsFound;                                                                 //Number of solutions found by the current search
+    private SudokuCancellation cancellation;                                                    //Stops the current search from outside, null if it can't be stopped
+    private int checkCountdown;                                                                 //Decisions left before the cancellation is checked again
+    private SudokuSolveResult.Status stopStatus;                                                //Why the current search was stopped, null while it runs
+    private long decisions;                                                                     //Decisions made by the current search
+    private long conflicts;                                                                     //Conflicts met by the current search
+    private long propagations;                                                                  //Literals implied by the current search
+    private int maxLevel;                                                                       //Deepest decision level reached by the current search
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+    private SudokuSearchProgress progress;                                                      //Given snapshots of the board while searching, null for none
+
+    //DATA STRUCTURES
+    private final int[][] peers;                                                                //Cells sharing a row, column or box with each cell
+    private final byte[] values;                                                                //Value of each variable
+    private final int[] levels;                                                                 //Decision level each variable was assigned at
+    private final int[] reasons;                                                                //Clause that implied each variable, -2 - v for the binary clause with true variable v
+    private final boolean[] phases;                                                             //Value each variable last had, tried first when it is decided
+    private final boolean[] seen;                                                               //Variables marked while analysing a conflict
+    private final int[] trail;                                                                  //Literals in the order they were assigned, literal = variable * 2 + 1 if negated
+    private final int[] openCounts;                                                             //Literals of each base clause not false, counting only propagated literals
+    private final int[] trailLimits;                                                            //Trail size when each decision level was started
+    private final int[][] watches;                                                              //Clauses watching each literal
+    private final int[] watchCounts;                                                            //Clauses in each watch list
+    private int[] literals;                                                                     //Literals of every clause, one clause after another
+    private int[] clauseStarts;                                                                 //First literal of each clause
+    private int[] clauseLengths;                                                                //Number of literals in each clause
+    private int[] clauseLbds;                                                                   //Decision levels each learnt clause spanned when learnt, lower is better
+    private final int[] learnt;                                                                 //Clause being learnt, the asserting literal first
+    private final int[] analysed;                                                               //Literals marked while learning, to clear afterwards
+    private final int[] levelStamps;                                                            //Stamp of each decision level, to count the levels of a clause
+    private final double[] activity;                                                            //How often each variable took part in recent conflicts
+    private final int[] heap;                                                                   //Unassigned variables, most active first
+    private final int[] heapIndex;                                                              //Position of each variable in the heap, -1 if not in it
+    private int heapSize;                                                                       //Variables in the heap
+
+    /**
+     * Constructor for the class, builds the cell, row, column and box clauses
+     * for the box size
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_SAT(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        CELLS = BOARDSIZE * BOARDSIZE;
+        VARIABLES = CELLS * BOARDSIZE;
+        BASECLAUSES = 4 * CELLS;
+
+        peers = new int[CELLS][];
+        values = new byte[VARIABLES];
+        levels = new int[VARIABLES];
+        reasons = new int[VARIABLES];
+        phases = new boolean[VARIABLES];
+        seen = new boolean[VARIABLES];
+        trail = new int[VARIABLES];
+        trailLimits = new int[VARIABLES + 1];
+        openCounts = new int[BASECLAUSES];
+        watches = new int[2 * VARIABLES][];
+        watchCounts = new int[2 * VARIABLES];
+        literals = new int[2 * BASECLAUSES * BOARDSIZE];
+        clauseStarts = new int[2 * BASECLAUSES];
+        clauseLengths = new int[2 * BASECLAUSES];
+        clauseLbds = new int[2 * BASECLAUSES];
+        learnt = new int[VARIABLES];
+        analysed = new int[VARIABLES];
+        levelStamps = new int[VARIABLES + 1];
+        activity = new double[VARIABLES];
+        heap = new int[VARIABLES];
+        heapIndex = new int[VARIABLES];
+
+        buildPeers();
+        buildClauses();
+    }
+
+    /**
+     * Lists the cells sharing a row, column or box with each cell, each of
+     * them once
+     */
+    private void buildPeers() {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / BOARDSIZE;
+            int col = cell % BOARDSIZE;
+            int boxRow = row - row % BOXSIZE;
+            int boxCol = col - col % BOXSIZE;
+            int[] cellPeers = new int[3 * BOARDSIZE - 2 * BOXSIZE - 1];
+            int count = 0;
+            for (int i = 0; i < BOARDSIZE; i++) {
+                if (i != col) {
+                    cellPeers[count++] = row * BOARDSIZE + i;
+                }
+                if (i != row) {
+                    cellPeers[count++] = i * BOARDSIZE + col;
+                }
+                int r = boxRow + i / BOXSIZE;
+                int c = boxCol + i % BOXSIZE;
+                if (r != row && c != col) {                                                     //Cells in the same row or column are listed already
+                    cellPeers[count++] = r * BOARDSIZE + c;
+                }
+            }
+            peers[cell] = cellPeers;
+        }
+    }
+
+    /**
+     * Adds a clause of BOARDSIZE positive literals for every cell, and for
+     * every value in every row, column and box. Clause 4 * cell is the one
+     * for the cell, 4 * (row * BOARDSIZE + value - 1) + 1 for the value in the
+     * row, and + 2 and + 3 in the same way for the column and box.
+     */
+    private void buildClauses() {
+        for (int unit = 0; unit < BOARDSIZE; unit++) {
+            int boxRow = (unit / BOXSIZE) * BOXSIZE;
+            int boxCol = (unit % BOXSIZE) * BOXSIZE;
+            for (int i = 0; i < BOARDSIZE; i++) {
+                int cellClause = startClause();                                                 //Cell (unit, i) holds a value
+                int rowClause = startClause();                                                  //Value i appears in row unit
+                int colClause = startClause();                                                  //Value i appears in column unit
+                int boxClause = startClause();                                                  //Value i appears in box unit
+                for (int j = 0; j < BOARDSIZE; j++) {
+                    int boxCell = (boxRow + j / BOXSIZE) * BOARDSIZE + boxCol + j % BOXSIZE;
+                    literals[clauseStarts[cellClause] + j] = ((unit * BOARDSIZE + i) * BOARDSIZE + j) << 1;
+                    literals[clauseStarts[rowClause] + j] = ((unit * BOARDSIZE + j) * BOARDSIZE + i) << 1;
+                    literals[clauseStarts[colClause] + j] = ((j * BOARDSIZE + unit) * BOARDSIZE + i) << 1;
+                    literals[clauseStarts[boxClause] + j] = (boxCell * BOARDSIZE + i) << 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves room for a base clause of BOARDSIZE literals
+     *
+     * @return the clause
+     */
+    private int startClause() {
+        int clause = clauseCount++;
+        clauseStarts[clause] = literalCount;
+        clauseLengths[clause] = BOARDSIZE;
+        literalCount += BOARDSIZE;
+        return clause;
+    }
+
+    /**
+     * Overrode method for getSolution, runs the SAT solver on the user input
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, runs the getSolution search and checks the
+     * cancellation as it goes
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
+        boolean solved = search(userInputPuzzle, 1, false, cancellation) == 1;
+
+        SudokuSolveResult result;
+        if (solved) {
+            result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, userInputPuzzle,
+                    getStats(start, allocatedBefore));                                          //If we get a solved puzzle return it
+        } else {
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.NO_SOLUTION,
+                    new Integer[BOARDSIZE][BOARDSIZE], getStats(start, allocatedBefore));       //No solution, then return a blank puzzle
+        }
+        if (listener != null) {
+            listener.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, after each solution a clause ruling
+     * it out is added and the search carries on until the limit is reached
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        return search(userInputPuzzle, limit, true, null);
+    }
+
+    /**
+     * Clears what the last search learnt, asserts the user input and
+     * searches until the limit of solutions is reached or none are left
+     *
+     * @param puzzle the user input for the game board
+     * @param limit the number of solutions to stop at
+     * @param counting true to leave the board unchanged, false to write the
+     * solution found onto it
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the number of solutions found, at most limit
+     */
+    private int search(Integer[][] puzzle, int limit, boolean counting, SudokuCancellation cancellation) {
+        this.cancellation = cancellation;
+        checkCountdown = 1;                                                                     //Check on the first decision, so an already stopped solve ends at once
+        stopStatus = null;
+        decisions = 0;
+        conflicts = 0;
+        propagations = 0;
+        maxLevel = 0;
+        solutionsFound = 0;
+
+        reset();
+        if (!assertGivens(puzzle)) {
+            return 0;
+        }
+        while (solutionsFound < limit && runSearch()) {
+            solutionsFound++;
+            if (!counting) {
+                writeSolution(puzzle);
+            } else if (solutionsFound < limit && !blockSolution(puzzle)) {
+                break;                                                                          //The solution was forced without a decision, there is no other
+            }
+        }
+        return solutionsFound;
+    }
+
+    /**
+     * Drops the learnt clauses and every assignment
+     */
+    private void reset() {
+        Arrays.fill(values, UNASSIGNED);
+        Arrays.fill(phases, true);                                                              //Deciding a candidate true fills a cell, which propagates far more than ruling one out
+        Arrays.fill(activity, 0);
+        Arrays.fill(watchCounts, 0);
+        Arrays.fill(openCounts, BOARDSIZE);
+        activityIncrement = 1;
+        level = 0;
+        trailSize = 0;
+        propagated = 0;
+        clauseCount = BASECLAUSES;
+        literalCount = BASECLAUSES * BOARDSIZE;
+        maxLearnt = Math.max(MINLEARNT, BASECLAUSES / 2);
+        restarts = 0;
+        restartConflicts = RESTARTBASE;
+
+        if (BOARDSIZE == 1) {
+            assign(0, NO_REASON);                                                               //A 1x1 board only has unit clauses, its one candidate is true
+        }
+        for (int var = 0; var < VARIABLES; var++) {                                             //Equal activity, any order is a heap
+            heap[var] = var;
+            heapIndex[var] = var;
+        }
+        heapSize = VARIABLES;
+    }
+
+    /**
+     * Assigns the unit clause of every value supplied by the user
+     *
+     * @param puzzle the user input for the game board
+     * @return false if a value was out of range
+     */
+    private boolean assertGivens(Integer[][] puzzle) {
+        for (int row = 0; row < BOARDSIZE; row++) {
+            for (int col = 0; col < BOARDSIZE; col++) {
+                Integer value = puzzle[row][col];
+                if (value == null) {
+                    continue;
+                }
+                if (value < 1 || value > BOARDSIZE) {                                           //Not a value this board can hold
+                    return false;
+                }
+                int var = (row * BOARDSIZE + col) * BOARDSIZE + value - 1;
+                if (values[var] == UNASSIGNED) {
+                    assign(var << 1, NO_REASON);                                                //Clashes with other givens are found by the first propagation
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The CDCL loop, propagates, learns from each conflict and backjumps, and
+     * otherwise decides the most active variable, until every variable is
+     * assigned or the formula is shown to have no solution
+     *
+     * @return true with every variable assigned and no clause broken, false
+     * if there is no solution or the search was stopped
+     */
+    private boolean runSearch() {
+        while (true) {
+            int conflict = propagate();
+            if (conflict != NO_CONFLICT) {
+                conflicts++;
+                if (level == 0) {                                                               //Broken without any decision, no solution
+                    return false;
+                }
+                int backLevel = analyse(conflict);
+                cancelUntil(backLevel);
+                learn();
+                activityIncrement /= ACTIVITYDECAY;
+                restartConflicts--;
+            } else if (isStopped()) {
+                return false;
+            } else if (restartConflicts <= 0) {
+                cancelUntil(0);
+                restartConflicts = RESTARTBASE * luby(++restarts);
+                if (clauseCount - BASECLAUSES >= maxLearnt) {
+                    reduceLearnt();
+                }
+            } else {
+                int var = pickBranchVariable();
+                if (var == NO_VARIABLE) {
+                    return true;
+                }
+                decisions++;
+                trailLimits[level++] = trailSize;
+                if (level > maxLevel) {
+                    maxLevel = level;
+                }
+                assign(phases[var] ? var << 1 : (var << 1) | 1, NO_REASON);
+            }
+        }
+    }
+
+    /**
+     * Sets a literal true
+     *
+     * @param lit the literal
+     * @param reason the clause that implied it, NO_REASON for a decision or
+     * unit clause, or -2 - v for the binary clause with true variable v
+     */
+    private void assign(int lit, int reason) {
+        int var = lit >> 1;
+        values[var] = (lit & 1) == 0 ? TRUE : FALSE;
+        levels[var] = level;
+        reasons[var] = reason;
+        trail[trailSize++] = lit;
+    }
+
+    /**
+     * Gets the value of a literal
+     *
+     * @param lit the literal
+     * @return TRUE, FALSE or UNASSIGNED
+     */
+    private int valueOf(int lit) {
+        byte value = values[lit >> 1];
+        return (lit & 1) == 0 ? value : -value;
+    }
+
+    /**
+     * Propagates every literal on the trail not yet propagated, until nothing
+     * more is implied or a clause is broken
+     *
+     * @return the broken clause, BINARY_CONFLICT if two peers are both true, or
+     * NO_CONFLICT
+     */
+    private int propagate() {
+        while (propagated < trailSize) {
+            int lit = trail[propagated++];
+            int conflict = (lit & 1) == 0 ? propagatePeers(lit >> 1) : propagateCounts(lit >> 1);
+            if (conflict == NO_CONFLICT) {
+                conflict = propagateWatches(lit ^ 1);
+            }
+            if (conflict != NO_CONFLICT) {
+                return conflict;
+            }
+        }
+        return NO_CONFLICT;
+    }
+
+    /**
+     * Sets false every candidate sharing a cell, or the value and a row,
+     * column or box, with a candidate that has become true
+     *
+     * @param var the true variable
+     * @return BINARY_CONFLICT if one of them was true already, otherwise
+     * NO_CONFLICT
+     */
+    private int propagatePeers(int var) {
+        int cell = var / BOARDSIZE;
+        int value = var - cell * BOARDSIZE;
+        int first = cell * BOARDSIZE;
+        for (int other = first; other < first + BOARDSIZE; other++) {
+            if (other != var && !setFalse(other, var)) {
+                return BINARY_CONFLICT;
+            }
+        }
+        for (int peer : peers[cell]) {
+            if (!setFalse(peer * BOARDSIZE + value, var)) {
+                return BINARY_CONFLICT;
+            }
+        }
+        return NO_CONFLICT;
+    }
+
+    /**
+     * Sets a variable false because a peer is true
+     *
+     * @param var the variable
+     * @param cause the true peer
+     * @return false if the variable was true already
+     */
+    private boolean setFalse(int var, int cause) {
+        byte value = values[var];
+        if (value == UNASSIGNED) {
+            propagations++;
+            assign((var << 1) | 1, -2 - cause);
+        } else if (value == TRUE) {
+            conflictA = cause;
+            conflictB = var;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts a variable that has become false out of its cell, row, column and
+     * box clauses, and checks each clause left with one literal not false
+     *
+     * @param var the false variable
+     * @return a clause with every literal false, or NO_CONFLICT
+     */
+    private int propagateCounts(int var) {
+        int cell = var / BOARDSIZE;
+        int value = var - cell * BOARDSIZE;
+        int row = cell / BOARDSIZE;
+        int col = cell - row * BOARDSIZE;
+        int box = (row / BOXSIZE) * BOXSIZE + col / BOXSIZE;
+        int cellClause = cell << 2;
+        int rowClause = ((row * BOARDSIZE + value) << 2) + 1;
+        int colClause = ((col * BOARDSIZE + value) << 2) + 2;
+        int boxClause = ((box * BOARDSIZE + value) << 2) + 3;
+        int cellOpen = --openCounts[cellClause];                                                //All four before any check, uncount undoes all four
+        int rowOpen = --openCounts[rowClause];
+        int colOpen = --openCounts[colClause];
+        int boxOpen = --openCounts[boxClause];
+        if (cellOpen <= 1 && !propagateUnit(cellClause)) {
+            return cellClause;
+        }
+        if (rowOpen <= 1 && !propagateUnit(rowClause)) {
+            return rowClause;
+        }
+        if (colOpen <= 1 && !propagateUnit(colClause)) {
+            return colClause;
+        }
+        if (boxOpen <= 1 && !propagateUnit(boxClause)) {
+            return boxClause;
+        }
+        return NO_CONFLICT;
+    }
+
+    /**
+     * Finds the one literal of a base clause that isn't false. If it is
+     * unassigned it is implied, and moved first in the clause as analyse
+     * expects of a reason.
+     *
+     * @param clause the clause
+     * @return false if every literal is false, including ones assigned but not
+     * propagated yet
+     */
+    private boolean propagateUnit(int clause) {
+        int start = clauseStarts[clause];
+        int end = start + BOARDSIZE;
+        for (int k = start; k < end; k++) {
+            int lit = literals[k];
+            int value = valueOf(lit);
+            if (value == TRUE) {
+                return true;
+            }
+            if (value == UNASSIGNED) {
+                literals[k] = literals[start];
+                literals[start] = lit;
+                propagations++;
+                assign(lit, clause);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visits the clauses watching a literal that has become false. Each one
+     * watches another literal that isn't false if it can, otherwise its other
+     * watched literal is implied, or the clause is broken if that is false
+     * too. The watched literals are kept first in each clause, and an implied
+     * literal first of all.
+     *
+     * @param falseLit the literal that has become false
+     * @return the broken clause, or NO_CONFLICT
+     */
+    private int propagateWatches(int falseLit) {
+        int[] list = watches[falseLit];
+        int count = watchCounts[falseLit];
+        int kept = 0;
+        int conflict = NO_CONFLICT;
+        int i = 0;
+        while (i < count) {
+            int clause = list[i++];
+            int start = clauseStarts[clause];
+            if (literals[start] == falseLit) {
+                literals[start] = literals[start + 1];
+                literals[start + 1] = falseLit;
+            }
+            int other = literals[start];
+            if (valueOf(other) == TRUE) {                                                       //Satisfied, keep the watch
+                list[kept++] = clause;
+                continue;
+            }
+
+            int end = start + clauseLengths[clause];
+            boolean moved = false;
+            for (int k = start + 2; k < end; k++) {
+                if (valueOf(literals[k]) != FALSE) {
+                    literals[start + 1] = literals[k];
+                    literals[k] = falseLit;
+                    watch(literals[start + 1], clause);
+                    moved = true;
+                    break;
+                }
+            }
+            if (moved) {
+                continue;
+            }
+
+            list[kept++] = clause;
+            if (valueOf(other) == FALSE) {
+                conflict = clause;
+                while (i < count) {                                                             //Keep the watches not yet visited
+                    list[kept++] = list[i++];
+                }
+            } else {
+                propagations++;
+                assign(other, clause);
+            }
+        }
+        watchCounts[falseLit] = kept;
+        return conflict;
+    }
+
+    /**
+     * Adds a clause to the watch list of a literal
+     *
+     * @param lit the literal
+     * @param clause the clause
+     */
+    private void watch(int lit, int clause) {
+        int[] list = watches[lit];
+        int count = watchCounts[lit];
+        if (list == null) {
+            list = watches[lit] = new int[4];
+        } else if (count == list.length) {
+            list = watches[lit] = Arrays.copyOf(list, count * 2);
+        }
+        list[count] = clause;
+        watchCounts[lit] = count + 1;
+    }
+
+    /**
+     * Analyses a conflict back to the first unique implication point, the
+     * only literal of the current level left in the clause built by resolving
+     * the broken clause with the reasons of its literals. That literal,
+     * negated, goes first in the learnt clause, followed by the literals of
+     * earlier levels that aren't implied by the others.
+     *
+     * @param conflict the broken clause, or BINARY_CONFLICT
+     * @return the level to jump back to, the highest of the other literals
+     */
+    private int analyse(int conflict) {
+        learntSize = 1;
+        int pathCount = 0;
+        if (conflict == BINARY_CONFLICT) {
+            pathCount += mark((conflictA << 1) | 1) + mark((conflictB << 1) | 1);
+        } else {
+            pathCount += markClause(conflict, 0);
+        }
+
+        int index = trailSize - 1;
+        int lit;
+        while (true) {
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            lit = trail[index--];
+            seen[lit >> 1] = false;
+            if (--pathCount == 0) {
+                break;
+            }
+            int reason = reasons[lit >> 1];
+            if (reason >= 0) {
+                pathCount += markClause(reason, 1);                                             //Skip the literal the clause implied
+            } else {
+                pathCount += mark(((-2 - reason) << 1) | 1);
+            }
+        }
+        learnt[0] = lit ^ 1;
+
+        int size = learntSize;
+        System.arraycopy(learnt, 0, analysed, 0, size);
+        learntSize = 1;
+        for (int i = 1; i < size; i++) {
+            if (!isRedundant(analysed[i])) {
+                learnt[learntSize++] = analysed[i];
+            }
+        }
+        for (int i = 1; i < size; i++) {
+            seen[analysed[i] >> 1] = false;
+        }
+
+        int backLevel = 0;
+        for (int i = 1; i < learntSize; i++) {                                                  //Watch a literal of the level jumped back to second
+            int litLevel = levels[learnt[i] >> 1];
+            if (litLevel > backLevel) {
+                backLevel = litLevel;
+                int swap = learnt[1];
+                learnt[1] = learnt[i];
+                learnt[i] = swap;
+            }
+        }
+        return backLevel;
+    }
+
+    /**
+     * Marks the literals of a clause for analyse
+     *
+     * @param clause the clause
+     * @param from the first literal to mark
+     * @return the number of literals newly marked at the current level
+     */
+    private int markClause(int clause, int from) {
+        int count = 0;
+        int end = clauseStarts[clause] + clauseLengths[clause];
+        for (int k = clauseStarts[clause] + from; k < end; k++) {
+            count += mark(literals[k]);
+        }
+        return count;
+    }
+
+    /**
+     * Marks a false literal for analyse and bumps its variable's activity.
+     * Literals of earlier levels go straight into the learnt clause, those
+     * of level 0 are left out as they always hold.
+     *
+     * @param lit the literal
+     * @return 1 if it was newly marked at the current level, otherwise 0
+     */
+    private int mark(int lit) {
+        int var = lit >> 1;
+        if (seen[var] || levels[var] == 0) {
+            return 0;
+        }
+        seen[var] = true;
+        bumpActivity(var);
+        if (levels[var] == level) {
+            return 1;
+        }
+        learnt[learntSize++] = lit;
+        return 0;
+    }
+
+    /**
+     * Checks whether a literal of the learnt clause is implied by the others,
+     * every other literal of its reason being in the clause or at level 0
+     *
+     * @param lit the literal
+     * @return true if it can be left out
+     */
+    private boolean isRedundant(int lit) {
+        int reason = reasons[lit >> 1];
+        if (reason == NO_REASON) {
+            return false;
+        }
+        if (reason < 0) {
+            int cause = -2 - reason;
+            return seen[cause] || levels[cause] == 0;
+        }
+        int end = clauseStarts[reason] + clauseLengths[reason];
+        for (int k = clauseStarts[reason] + 1; k < end; k++) {
+            int var = literals[k] >> 1;
+            if (!seen[var] && levels[var] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the clause analyse built and assigns its first literal, which is
+     * the only one not false after the backjump
+     */
+    private void learn() {
+        if (learntSize == 1) {
+            assign(learnt[0], NO_REASON);                                                       //Holds at level 0 from now on
+            return;
+        }
+        levelStamp++;
+        int lbd = 0;
+        for (int i = 0; i < learntSize; i++) {
+            int litLevel = levels[learnt[i] >> 1];
+            if (levelStamps[litLevel] != levelStamp) {
+                levelStamps[litLevel] = levelStamp;
+                lbd++;
+            }
+        }
+        int clause = addClause(learnt, learntSize, lbd);
+        propagations++;
+        assign(learnt[0], clause);
+    }
+
+    /**
+     * Stores a clause of at least two literals and watches its first two
+     *
+     * @param clauseLiterals the literals
+     * @param length the number of literals
+     * @param lbd the number of decision levels spanned, 0 to keep the clause
+     * for the whole search
+     * @return the clause
+     */
+    private int addClause(int[] clauseLiterals, int length, int lbd) {
+        if (clauseCount == clauseStarts.length) {
+            clauseStarts = Arrays.copyOf(clauseStarts, clauseCount * 2);
+            clauseLengths = Arrays.copyOf(clauseLengths, clauseCount * 2);
+            clauseLbds = Arrays.copyOf(clauseLbds, clauseCount * 2);
+        }
+        if (literalCount + length > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(literals.length * 2, literalCount + length));
+        }
+        int clause = clauseCount++;
+        clauseStarts[clause] = literalCount;
+        clauseLengths[clause] = length;
+        clauseLbds[clause] = lbd;
+        System.arraycopy(clauseLiterals, 0, literals, literalCount, length);
+        literalCount += length;
+        watch(clauseLiterals[0], clause);
+        watch(clauseLiterals[1], clause);
+        return clause;
+    }
+
+    /**
+     * Unassigns every literal above a decision level, remembering the value
+     * each variable had and putting it back in the heap. False variables
+     * already propagated are counted back into their base clauses.
+     *
+     * @param target the level to go back to
+     */
+    private void cancelUntil(int target) {
+        if (level <= target) {
+            return;
+        }
+        int limit = trailLimits[target];
+        for (int i = trailSize - 1; i >= limit; i--) {
+            int var = trail[i] >> 1;
+            if (values[var] == FALSE && i < propagated) {
+                uncount(var);
+            }
+            phases[var] = values[var] == TRUE;
+            values[var] = UNASSIGNED;
+            if (heapIndex[var] < 0) {
+                heapInsert(var);
+            }
+        }
+        trailSize = limit;
+        propagated = limit;
+        level = target;
+    }
+
+    /**
+     * Reverses the counting propagateCounts did for a variable
+     *
+     * @param var the variable, no longer false
+     */
+    private void uncount(int var) {
+        int cell = var / BOARDSIZE;
+        int value = var - cell * BOARDSIZE;
+        int row = cell / BOARDSIZE;
+        int col = cell - row * BOARDSIZE;
+        int box = (row / BOXSIZE) * BOXSIZE + col / BOXSIZE;
+        openCounts[cell << 2]++;
+        openCounts[((row * BOARDSIZE + value) << 2) + 1]++;
+        openCounts[((col * BOARDSIZE + value) << 2) + 2]++;
+        openCounts[((box * BOARDSIZE + value) << 2) + 3]++;
+    }
+
+    /**
+     * Drops the learnt clauses that spanned the most decision levels, keeping
+     * half of them and every clause that spanned KEPTLBD levels or fewer. Only
+     * run at level 0, where no reason is needed, so the clauses left can be
+     * packed together and watched again.
+     */
+    private void reduceLearnt() {
+        int learntCount = clauseCount - BASECLAUSES;
+        long[] ranks = new long[learntCount];
+        for (int i = 0; i < learntCount; i++) {
+            ranks[i] = ((long) clauseLbds[BASECLAUSES + i] << 32) | i;
+        }
+        Arrays.sort(ranks);
+        boolean[] keep = new boolean[learntCount];
+        for (int i = 0; i < learntCount; i++) {
+            int clause = (int) ranks[i];
+            keep[clause] = i < learntCount / 2 || clauseLbds[BASECLAUSES + clause] <= KEPTLBD;
+        }
+
+        int kept = BASECLAUSES;
+        int write = BASECLAUSES * BOARDSIZE;
+        for (int i = 0; i < learntCount; i++) {
+            int clause = BASECLAUSES + i;
+            if (keep[i]) {
+                int length = clauseLengths[clause];
+                System.arraycopy(literals, clauseStarts[clause], literals, write, length);
+                clauseStarts[kept] = write;
+                clauseLengths[kept] = length;
+                clauseLbds[kept] = clauseLbds[clause];
+                write += length;
+                kept++;
+            }
+        }
+        clauseCount = kept;
+        literalCount = write;
+        maxLearnt += maxLearnt / 10;
+
+        for (int i = 0; i < trailSize; i++) {                                                   //Clause numbers have changed, and level 0 needs no reasons
+            reasons[trail[i] >> 1] = NO_REASON;
+        }
+        Arrays.fill(watchCounts, 0);
+        for (int clause = BASECLAUSES; clause < clauseCount; clause++) {
+            watch(literals[clauseStarts[clause]], clause);
+            watch(literals[clauseStarts[clause] + 1], clause);
+        }
+    }
+
+    /**
+     * Adds a clause ruling out the solution just found, so the next search
+     * finds a different one. It only needs the cells the user left empty
+     * that weren't forced at level 0.
+     *
+     * @param puzzle the user input for the game board
+     * @return false if every empty cell was forced, so there is no other
+     * solution
+     */
+    private boolean blockSolution(Integer[][] puzzle) {
+        int size = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (puzzle[cell / BOARDSIZE][cell % BOARDSIZE] != null) {
+                continue;
+            }
+            for (int var = cell * BOARDSIZE; var < (cell + 1) * BOARDSIZE; var++) {
+                if (values[var] == TRUE && levels[var] > 0) {
+                    learnt[size++] = (var << 1) | 1;
+                }
+            }
+        }
+        cancelUntil(0);
+        if (size == 0) {
+            return false;
+        }
+        if (size == 1) {
+            assign(learnt[0], NO_REASON);
+        } else {
+            addClause(learnt, size, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Pops the most active variable that is still unassigned off the heap
+     *
+     * @return the variable, or NO_VARIABLE if every variable is assigned
+     */
+    private int pickBranchVariable() {
+        while (heapSize > 0) {
+            int var = heapRemoveMax();
+            if (values[var] == UNASSIGNED) {
+                return var;
+            }
+        }
+        return NO_VARIABLE;
+    }
+
+    /**
+     * Adds to the activity of a variable that took part in a conflict, scaling
+     * every activity down before they grow too large
+     *
+     * @param var the variable
+     */
+    private void bumpActivity(int var) {
+        activity[var] += activityIncrement;
+        if (activity[var] > RESCALELIMIT) {
+            for (int i = 0; i < VARIABLES; i++) {
+                activity[i] /= RESCALELIMIT;
+            }
+            activityIncrement /= RESCALELIMIT;
+        }
+        if (heapIndex[var] >= 0) {
+            siftUp(heapIndex[var]);
+        }
+    }
+
+    private void heapInsert(int var) {
+        heap[heapSize] = var;
+        heapIndex[var] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int heapRemoveMax() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapIndex[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int position) {
+        int var = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (activity[heap[parent]] >= activity[var]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapIndex[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = var;
+        heapIndex[var] = position;
+    }
+
+    private void siftDown(int position) {
+        int var = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                child++;
+            }
+            if (activity[heap[child]] <= activity[var]) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapIndex[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = var;
+        heapIndex[var] = position;
+    }
+
+    /**
+     * Gets an element of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+     *
+     * @param index the position in the sequence, from 0
+     * @return the element
+     */
+    static int luby(int index) {
+        int size = 1;
+        int sequence = 0;
+        while (size < index + 1) {                                                              //Find the finite subsequence holding the index
+            sequence++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != index) {
+            size = (size - 1) >> 1;
+            sequence--;
+            index = index % size;
+        }
+        return 1 << sequence;
+    }
+
+    /**
+     * Checks the cancellation once every CHECKINTERVAL decisions, remembering
+     * why the search was stopped, and publishes a snapshot of the board if the
+     * last one has been taken
+     *
+     * @return true once the search has been stopped
+     */
+    private boolean isStopped() {
+        if ((cancellation != null || progress != null) && stopStatus == null && --checkCountdown == 0) {
+            checkCountdown = SudokuCancellation.CHECKINTERVAL;
+            if (cancellation != null) {
+                stopStatus = cancellation.getStopStatus();
+            }
+            if (progress != null && progress.isWanted()) {
+                progress.publish(getSnapshot());
+            }
+        }
+        return stopStatus != null;
+    }
+
+    /**
+     * Copies the value of every cell onto the board
+     *
+     * @param puzzle the game board
+     */
+    private void writeSolution(Integer[][] puzzle) {
+        for (int var = 0; var < VARIABLES; var++) {
+            if (values[var] == TRUE) {
+                int cell = var / BOARDSIZE;
+                puzzle[cell / BOARDSIZE][cell % BOARDSIZE] = var % BOARDSIZE + 1;
+            }
+        }
+    }
+
+    /**
+     * Builds a snapshot of the board from the variables on the trail that
+     * are true
+     *
+     * @return the value of each cell row by row, 0 for an empty cell
+     */
+    private int[] getSnapshot() {
+        int[] cells = new int[CELLS];
+        for (int i = 0; i < trailSize; i++) {
+            int lit = trail[i];
+            if ((lit & 1) == 0) {
+                int var = lit >> 1;
+                cells[var / BOARDSIZE] = var % BOARDSIZE + 1;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Gathers the statistics of the solve that has just finished, a node is
+     * a decision and a backtrack a conflict
+     *
+     * @param start System.nanoTime() when the solve started
+     * @param allocatedBefore bytes allocated by the thread when the solve
+     * started, -1 if unknown
+     * @return the statistics
+     */
+    private SudokuSolveStats getStats(long start, long allocatedBefore) {
+        long allocated = allocatedBefore < 0 ? -1 : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore;
+        return new SudokuSolveStats(decisions, conflicts, propagations, maxLevel, System.nanoTime() - start, allocated);
+    }
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets where snapshots of the board are published while later solves
+     * search
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Used to get a string ID of the class
+     *
+     * @return NAME static Class Variable. Contains a string ID for the
+     * algorithm class
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,596 @@
+package sudokuai;
+
+import java.util.Arrays;
+
+/**
+ * Concrete Sudoku_AI algorithm implementation for boards with more values than
+ * fit in the long bitmask domains of the other algorithms, 81x81 and up.
+ * Backtracking with forward checking and MRV ordering, the domain of each cell
+ * is held in WORDS longs. Before the search naked and hidden singles are
+ * filled until there are none left, as Sudoku_AI_Propagator does for the
+ * smaller boards.
+ *
+ * Unassigned cells are kept in a list that the search shrinks and restores,
+ * so picking the next cell only scans the cells still empty. The search runs
+ * on its own stack rather than recursing, since a board this size can be more
+ * levels deep than the thread stack allows.
+ *
+ * @author Nik Bradley
+ */
+class Sudoku_AI_WideSearch implements Sudoku_AI {
+
+    //CLASS VARIABLES
+    private final int BOXSIZE;                                                                  //Game size standard 3
+    private final int BOARDSIZE;                                                                //length of rows & columns
+    private final int CELLS;                                                                    //Number of cells on the board
+    private final int WORDS;                                                                    //Longs in the domain of each cell
+    private static final int NO_CELL = -1;                                                      //Returned when every cell is assigned
+    private static final String NAME = "Wide Backtracking with Forward Checking and MRV";       //Algorithm Name, used by SudokuSolverModel_AI class
+    private int solutionLimit;                                                                  //Number of solutions to stop the search at, 1 when solving
+    private int solutionsFound;                                                                 //Number of solutions found by the current search
+    private SudokuCancellation cancellation;                                                    //Stops the current search from outside, null if it can't be stopped
+    private int checkCountdown;                                                                 //Search nodes left before the cancellation is checked again
+    private SudokuSolveResult.Status stopStatus;                                                //Why the current search was stopped, null while it runs
+    private int nodes;                                                                          //Search nodes visited by the current search
+    private int backtracks;                                                                     //Values undone by the current search
+    private int propagations;                                                                   //Values removed from domains by the current search
+    private int maxDepth;                                                                       //Deepest level reached by the current search
+    private SudokuSolveListener listener;                                                       //Told about every finished solve, null for none
+    private SudokuSearchProgress progress;                                                      //Given snapshots of the board while searching, null for none
+
+    //DATA STRUCTURES
+    private Integer[][] solution;                                                               //Game board 2d array storing cells
+    private final long[] domains;                                                               //WORDS longs per cell, bit 0 of the first = value 1
+    private final int[] sizes;                                                                  //Number of values left in each cell's domain
+    private final int[] placed;                                                                 //Cells filled by the singles rules, in order
+    private int placedCount;                                                                    //Number of entries in placed
+    private final long[] once, twice, used;                                                     //Values seen in a unit once, more than once and already placed, one word each
+    private final int[] free;                                                                   //Unassigned cells, the first freeCount of them
+    private int freeCount;                                                                      //Number of unassigned cells
+    private final int[] stackCell, stackValue, stackMark;                                       //Cell, value index and undo stack size at each search level
+    private int depth;                                                                          //Number of levels on the search stack
+    private int[] trailWord;                                                                    //Undo stack of the domain words changed by the search
+    private long[] trailOld;                                                                    //Old contents of each word on the undo stack
+    private int trailSize;                                                                      //Number of entries on the undo stack
+
+    /**
+     * Constructor for the class, it takes a game box size and sets up the
+     * boards for it
+     *
+     * @param gameBoxSize box size of the game standard 3
+     */
+    public Sudoku_AI_WideSearch(int gameBoxSize) {
+        BOXSIZE = gameBoxSize;
+        BOARDSIZE = BOXSIZE * BOXSIZE;
+        CELLS = BOARDSIZE * BOARDSIZE;
+        WORDS = (BOARDSIZE + Long.SIZE - 1) / Long.SIZE;
+
+        domains = new long[CELLS * WORDS];
+        sizes = new int[CELLS];
+        placed = new int[CELLS];
+        once = new long[WORDS];
+        twice = new long[WORDS];
+        used = new long[WORDS];
+        free = new int[CELLS];
+        stackCell = new int[CELLS];
+        stackValue = new int[CELLS];
+        stackMark = new int[CELLS];
+        trailWord = new int[CELLS];                                                             //Grown as needed, the worst case is 3 * BOARDSIZE per level
+        trailOld = new long[CELLS];
+    }
+
+    /**
+     * Overrode method for getSolution
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @return solution to puzzle or empty game board
+     */
+    @Override
+    public Integer[][] getSolution(Integer[][] userInputPuzzle) {
+        return solve(userInputPuzzle, null).getSolution();
+    }
+
+    /**
+     * Overrode method for solve, searches the puzzle and checks the
+     * cancellation as it goes
+     *
+     * @param userInputPuzzle the user input for the game board
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the outcome, with the solution to the puzzle or an empty game
+     * board
+     */
+    @Override
+    public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+        long start = System.nanoTime();
+        long allocatedBefore = SudokuSolveStats.threadAllocatedBytes();
+
+        SudokuSolveResult result;
+        if (search(userInputPuzzle, 1, cancellation) == 1) {
+            result = new SudokuSolveResult(SudokuSolveResult.Status.SOLVED, solution,
+                    getStats(start, allocatedBefore));                                          //If we get a solved puzzle return it
+        } else {
+            for (int level = 0; level < depth; level++) {                                       //A stopped search leaves its levels filled, empty them
+                solution[stackCell[level] / BOARDSIZE][stackCell[level] % BOARDSIZE] = null;
+            }
+            for (int i = 0; i < placedCount; i++) {                                             //Along with the cells filled by the singles rules
+                solution[placed[i] / BOARDSIZE][placed[i] % BOARDSIZE] = null;
+            }
+            result = new SudokuSolveResult(stopStatus != null ? stopStatus : SudokuSolveResult.Status.NO_SOLUTION,
+                    new Integer[BOARDSIZE][BOARDSIZE], getStats(start, allocatedBefore));       //No solution, then return a blank puzzle
+        }
+        if (listener != null) {
+            listener.solveFinished(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Overrode method for countSolutions, runs the same search as getSolution
+     * on a copy of the puzzle but carries on past each solution until the
+     * limit is reached
+     *
+     * @param userInputPuzzle the user input for the game board, left unchanged
+     * @param limit the number of solutions to stop at
+     * @return the number of solutions found, at most limit
+     */
+    @Override
+    public int countSolutions(Integer[][] userInputPuzzle, int limit) {
+        Integer[][] board = new Integer[BOARDSIZE][];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            board[i] = userInputPuzzle[i].clone();
+        }
+        return search(board, limit, null);
+    }
+
+    /**
+     * Sets up the domains for a puzzle and searches it until the limit of
+     * solutions is reached, the search space runs out or the cancellation
+     * stops it. The last solution found is left on the board.
+     *
+     * @param puzzle the board to search, filled in place
+     * @param limit the number of solutions to stop at
+     * @param cancellation stops the search when cancelled or timed out, may
+     * be null
+     * @return the number of solutions found, at most limit
+     */
+    private int search(Integer[][] puzzle, int limit, SudokuCancellation cancellation) {
+        this.solution = puzzle;
+        this.cancellation = cancellation;
+        checkCountdown = 1;                                                                     //Check on the first node, so an already stopped solve ends at once
+        stopStatus = null;
+        nodes = 0;
+        backtracks = 0;
+        propagations = 0;
+        maxDepth = 0;
+        solutionLimit = limit;
+        solutionsFound = 0;
+        freeCount = 0;
+        placedCount = 0;
+        depth = 0;
+
+        if (initDomains()) {
+            trailSize = 0;                                                                      //Values removed by the user input are never undone
+            runSearch();
+        }
+        return solutionsFound;
+    }
+
+    /**
+     * Fills every domain, then removes the value of each filled cell from its
+     * peers, fills the singles and lists the cells still empty
+     *
+     * @return false if a value is out of range, repeated in a row, column or
+     * box, or leaves an empty cell with no values
+     */
+    private boolean initDomains() {
+        long lastWord = -1L >>> (WORDS * Long.SIZE - BOARDSIZE);                                //Only the values 1-BOARDSIZE in the last word
+        for (int cell = 0; cell < CELLS; cell++) {
+            Arrays.fill(domains, cell * WORDS, (cell + 1) * WORDS - 1, -1L);
+            domains[(cell + 1) * WORDS - 1] = lastWord;
+        }
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            Integer value = solution[cell / BOARDSIZE][cell % BOARDSIZE];
+            if (value == null) {
+                continue;
+            }
+            if (value < 1 || value > BOARDSIZE || !hasValue(cell, value - 1)) {                 //Out of range, or already removed by a peer holding it
+                return false;
+            }
+            setValue(cell, value - 1);
+        }
+        if (!fillSingles()) {
+            return false;
+        }
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (solution[cell / BOARDSIZE][cell % BOARDSIZE] != null) {
+                continue;
+            }
+            int size = 0;
+            for (int w = cell * WORDS; w < (cell + 1) * WORDS; w++) {
+                size += Long.bitCount(domains[w]);
+            }
+            if (size == 0) {                                                                    //A cell has no values left before a single guess
+                return false;
+            }
+            sizes[cell] = size;
+            free[freeCount++] = cell;
+        }
+        return true;
+    }
+
+    /**
+     * Puts a value in a cell while setting up, and removes it from the
+     * domains of the cell's peers
+     *
+     * @param cell index of the cell
+     * @param value index of the value, 0 for the value 1
+     */
+    private void setValue(int cell, int value) {
+        solution[cell / BOARDSIZE][cell % BOARDSIZE] = value + 1;
+        Arrays.fill(domains, cell * WORDS, (cell + 1) * WORDS, 0L);
+        domains[cell * WORDS + (value >>> 6)] = 1L << value;
+        removeFromPeers(cell, value, false);
+    }
+
+    /**
+     * Fills every empty cell with one value left and every cell that is the
+     * only place left for a value in its row, column or box, until neither
+     * rule fills any more
+     *
+     * @return false if a cell has no values left or a value has no place
+     * left in a unit
+     */
+    private boolean fillSingles() {
+        boolean filled = true;
+        while (filled) {
+            filled = false;
+            for (int cell = 0; cell < CELLS; cell++) {                                          //Naked singles
+                if (solution[cell / BOARDSIZE][cell % BOARDSIZE] != null) {
+                    continue;
+                }
+                int size = 0;
+                for (int w = cell * WORDS; w < (cell + 1) * WORDS; w++) {
+                    size += Long.bitCount(domains[w]);
+                }
+                if (size == 0) {
+                    return false;
+                }
+                if (size == 1) {
+                    setValue(cell, nextValue(cell, 0));
+                    placed[placedCount++] = cell;
+                    filled = true;
+                }
+            }
+
+            for (int unit = 0; unit < 3 * BOARDSIZE; unit++) {                                  //Hidden singles, rows then columns then boxes
+                Arrays.fill(once, 0L);
+                Arrays.fill(twice, 0L);
+                Arrays.fill(used, 0L);
+                for (int i = 0; i < BOARDSIZE; i++) {
+                    int cell = getUnitCell(unit, i);
+                    boolean empty = solution[cell / BOARDSIZE][cell % BOARDSIZE] == null;
+                    for (int w = 0; w < WORDS; w++) {
+                        long domain = domains[cell * WORDS + w];
+                        if (empty) {
+                            twice[w] |= once[w] & domain;
+                            once[w] |= domain;
+                        } else {
+                            used[w] |= domain;
+                        }
+                    }
+                }
+                for (int w = 0; w < WORDS; w++) {
+                    long values = (w == WORDS - 1) ? -1L >>> (WORDS * Long.SIZE - BOARDSIZE) : -1L;
+                    if ((used[w] | once[w]) != values) {                                        //A value has nowhere to go
+                        return false;
+                    }
+                    for (long hidden = once[w] & ~twice[w] & ~used[w]; hidden != 0; hidden &= hidden - 1) {
+                        int value = w * Long.SIZE + Long.numberOfTrailingZeros(hidden);
+                        int cell = findPlace(unit, value);
+                        if (cell == NO_CELL) {                                                  //Its one place was just taken by another value
+                            return false;
+                        }
+                        setValue(cell, value);
+                        placed[placedCount++] = cell;
+                        filled = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the empty cell of a unit that still has a value in its domain
+     *
+     * @param unit index of the unit, rows then columns then boxes
+     * @param value index of the value, 0 for the value 1
+     * @return index of the cell, or NO_CELL if there is none
+     */
+    private int findPlace(int unit, int value) {
+        for (int i = 0; i < BOARDSIZE; i++) {
+            int cell = getUnitCell(unit, i);
+            if (solution[cell / BOARDSIZE][cell % BOARDSIZE] == null && hasValue(cell, value)) {
+                return cell;
+            }
+        }
+        return NO_CELL;
+    }
+
+    /**
+     * Gets a cell of a row, column or box
+     *
+     * @param unit index of the unit, rows then columns then boxes
+     * @param i position of the cell in the unit
+     * @return index of the cell
+     */
+    private int getUnitCell(int unit, int i) {
+        if (unit < BOARDSIZE) {
+            return unit * BOARDSIZE + i;
+        }
+        if (unit < 2 * BOARDSIZE) {
+            return i * BOARDSIZE + (unit - BOARDSIZE);
+        }
+        int box = unit - 2 * BOARDSIZE;
+        return ((box / BOXSIZE) * BOXSIZE + (i / BOXSIZE)) * BOARDSIZE + (box % BOXSIZE) * BOXSIZE + (i % BOXSIZE);
+    }
+
+    /**
+     * Depth first search on an explicit stack. Each level assigns the values
+     * of its cell in turn, rolling the domains back to the level's mark of
+     * the undo stack before trying the next one.
+     */
+    private void runSearch() {
+        boolean descend = true;
+        while (true) {
+            if (descend) {
+                if (isStopped()) {                                                              //The caller no longer needs this search, give up without a solution
+                    return;
+                }
+                nodes++;
+                if (depth > maxDepth) {
+                    maxDepth = depth;
+                }
+                int index = getMRVIndex();
+                if (index == NO_CELL) {                                                         //Every cell is assigned, a solution
+                    solutionsFound++;
+                    if (solutionsFound >= solutionLimit) {
+                        return;
+                    }
+                } else {
+                    int cell = free[index];
+                    free[index] = free[--freeCount];                                            //Swap the cell to the end of the list, levels are undone in reverse
+                    free[freeCount] = cell;                                                     //order so lengthening the list again restores it
+                    stackCell[depth] = cell;
+                    stackValue[depth] = -1;
+                    stackMark[depth] = trailSize;
+                    depth++;
+                }
+            }
+
+            if (depth == 0) {                                                                   //Every value of the first cell has been tried
+                return;
+            }
+            int level = depth - 1;
+            int cell = stackCell[level];
+            if (stackValue[level] >= 0) {                                                       //Undo the value tried last at this level
+                undoDomains(stackMark[level]);
+                backtracks++;
+            }
+            int value = nextValue(cell, stackValue[level] + 1);
+            if (value < 0) {                                                                    //No values left, backtrack to the level above
+                solution[cell / BOARDSIZE][cell % BOARDSIZE] = null;
+                freeCount++;                                                                    //The cell is still just past the end of the list
+                depth--;
+                descend = false;
+                continue;
+            }
+            stackValue[level] = value;
+            solution[cell / BOARDSIZE][cell % BOARDSIZE] = value + 1;
+            descend = removeFromPeers(cell, value, true);
+        }
+    }
+
+    /**
+     * Finds the unassigned cell with the fewest values left in its domain
+     *
+     * @return position of the cell in the unassigned list, or NO_CELL if
+     * every cell is assigned
+     */
+    private int getMRVIndex() {
+        int best = NO_CELL;
+        int bestSize = Integer.MAX_VALUE;
+        for (int i = 0; i < freeCount; i++) {
+            int size = sizes[free[i]];
+            if (size < bestSize) {
+                best = i;
+                bestSize = size;
+                if (size <= 1) {                                                                //Nothing can beat a forced cell
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the next value left in a cell's domain
+     *
+     * @param cell index of the cell
+     * @param from index of the first value to look at, 0 for the value 1
+     * @return index of the value, or -1 if there are no more
+     */
+    private int nextValue(int cell, int from) {
+        int word = from >>> 6;
+        if (word >= WORDS) {
+            return -1;
+        }
+        long bits = domains[cell * WORDS + word] & (-1L << from);                               //Shifts are taken mod 64, so this drops the values before from
+        while (bits == 0) {
+            if (++word == WORDS) {
+                return -1;
+            }
+            bits = domains[cell * WORDS + word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Checks whether a value is left in a cell's domain
+     *
+     * @param cell index of the cell
+     * @param value index of the value, 0 for the value 1
+     * @return true if it is
+     */
+    private boolean hasValue(int cell, int value) {
+        return (domains[cell * WORDS + (value >>> 6)] & (1L << value)) != 0;
+    }
+
+    /**
+     * Removes a value from the domains of the cells sharing a row, column or
+     * box with a cell
+     *
+     * @param cell index of the cell
+     * @param value index of the value, 0 for the value 1
+     * @param search true to only revise unassigned cells and record each
+     * change on the undo stack, false when setting up the user input
+     * @return false if an unassigned cell was left with no values
+     */
+    private boolean removeFromPeers(int cell, int value, boolean search) {
+        int row = cell / BOARDSIZE;
+        int col = cell % BOARDSIZE;
+        int boxRow = row - (row % BOXSIZE);
+        int boxCol = col - (col % BOXSIZE);
+        for (int i = 0; i < BOARDSIZE; i++) {
+            if (i != col && !removeValue(row * BOARDSIZE + i, value, search)) {
+                return false;
+            }
+            if (i != row && !removeValue(i * BOARDSIZE + col, value, search)) {
+                return false;
+            }
+            int peerRow = boxRow + (i / BOXSIZE);
+            int peerCol = boxCol + (i % BOXSIZE);
+            if (peerRow != row && peerCol != col && !removeValue(peerRow * BOARDSIZE + peerCol, value, search)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes a value from one cell's domain
+     *
+     * @param cell index of the cell
+     * @param value index of the value, 0 for the value 1
+     * @param search true to only revise an unassigned cell and record the
+     * change on the undo stack
+     * @return false if an unassigned cell was left with no values
+     */
+    private boolean removeValue(int cell, int value, boolean search) {
+        int word = cell * WORDS + (value >>> 6);
+        long bit = 1L << value;
+        if ((domains[word] & bit) == 0) {
+            return true;
+        }
+        if (!search) {
+            domains[word] &= ~bit;
+            return true;
+        }
+        if (solution[cell / BOARDSIZE][cell % BOARDSIZE] != null) {
+            return true;
+        }
+        if (trailSize == trailWord.length) {
+            trailWord = Arrays.copyOf(trailWord, trailSize * 2);
+            trailOld = Arrays.copyOf(trailOld, trailSize * 2);
+        }
+        trailWord[trailSize] = word;
+        trailOld[trailSize] = domains[word];
+        trailSize++;
+        propagations++;
+        domains[word] &= ~bit;
+        return --sizes[cell] != 0;                                                              //An empty domain, turn back now!
+    }
+
+    /**
+     * Rolls the domains back by popping the undo stack down to a mark. Every
+     * entry removed one value, so each cell's size goes back up by one.
+     *
+     * @param trailMark the undo stack size to roll back to
+     */
+    private void undoDomains(int trailMark) {
+        while (trailSize > trailMark) {
+            trailSize--;
+            domains[trailWord[trailSize]] = trailOld[trailSize];
+            sizes[trailWord[trailSize] / WORDS]++;
+        }
+    }
+
+    /**
+     * Checks the cancellation once every CHECKINTERVAL search nodes,
+     * remembering why the search was stopped, and publishes a snapshot of the
+     * board if the last one has been taken
+     *
+     * @return true once the search has been stopped
+     */
+    private boolean isStopped() {
+        if ((cancellation != null || progress != null) && stopStatus == null && --checkCountdown == 0) {
+            checkCountdown = SudokuCancellation.CHECKINTERVAL;
+            if (cancellation != null) {
+                stopStatus = cancellation.getStopStatus();
+            }
+            if (progress != null && progress.isWanted()) {
+                progress.publish(solution);
+            }
+        }
+        return stopStatus != null;
+    }
+
+    /**
+     * Gathers the statistics of the solve that has just finished
+     *
+     * @param start System.nanoTime() when the solve started
+     * @param allocatedBefore bytes allocated by the thread when the solve
+     * started, -1 if unknown
+     * @return the statistics
+     */
+    private SudokuSolveStats getStats(long start, long allocatedBefore) {
+        long allocated = allocatedBefore < 0 ? -1 : SudokuSolveStats.threadAllocatedBytes() - allocatedBefore;
+        return new SudokuSolveStats(nodes, backtracks, propagations, maxDepth, System.nanoTime() - start, allocated);
+    }
+
+    /**
+     * Sets the listener told about every solve this algorithm finishes
+     *
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setSolveListener(SudokuSolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets where snapshots of the board are published while later solves
+     * search
+     *
+     * @param progress the snapshot slot, or null for none
+     */
+    @Override
+    public void setSearchProgress(SudokuSearchProgress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Used to get a string ID of the class
+     *
+     * @return NAME static Class Variable. Contains a string ID for the
+     * algorithm class
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refits the SudokuAutoPolicy used by Sudoku_AI_Auto. Every algorithm the
+ * policy picks from is timed on a corpus of 9x9 puzzles, the easy, hard and
+ * impossible presets from SudokuSolverController, the puzzles bundled in
+ * benchmark-puzzles.txt and freshly generated puzzles with from 17 to 40
+ * clues, and a linear model of each algorithm's log time is fitted to the
+ * puzzles' SudokuPuzzleFeatures.
+ *
+ * The features are worked out in stages of rising cost, see
+ * SudokuPuzzleFeatures. A policy is fitted to half the corpus for each stage
+ * and scored on the other half, charged the time its features take, and
+ * compared with each algorithm on its own and with always picking the
+ * fastest. The policy written out is fitted to the whole corpus using the
+ * stage that scored best.
+ *
+ * Not a unit test, run it after building the tests with
+ *
+ * java -cp build/classes:build/test/classes sudokuai.SudokuAutoPolicyFit [options]
+ *
+ * where -o sets the file to write the policy to (default standard output,
+ * normally src/sudokuai/auto-policy.txt), -g the number of puzzles to generate
+ * (default 300), -r the number of timed runs of each puzzle, the fastest of
+ * which is kept (default 3), and -t the milliseconds an algorithm is given on
+ * a puzzle before it is stopped and charged that time (default 20).
+ *
+ * @author Nik Bradley
+ */
+public class SudokuAutoPolicyFit {
+
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE * BOXSIZE;
+    private static final String CORPUS = "benchmark-puzzles.txt";
+    private static final int[] STAGES = {SudokuPuzzleFeatures.CLUES, SudokuPuzzleFeatures.BIVALUE,
+        SudokuPuzzleFeatures.SINGLES};                                                          //Last feature of each stage
+    private static final List<String> ALGORITHMS = Arrays.asList(
+            "Backtracking",
+            "Backtracking - FC",
+            "Backtracking - FC - MRV",
+            "Backtracking - MAC",
+            "Dancing Links",
+            "CDCL SAT");                                                                        //Sequential algorithms, the others' speed depends on the cores free
+
+    public static void main(String[] args) throws IOException {
+        String output = null;
+        int generated = 300, runs = 3;
+        long timeoutMillis = 20;
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "-o":
+                    output = args[++a];
+                    break;
+                case "-g":
+                    generated = Integer.parseInt(args[++a]);
+                    break;
+                case "-r":
+                    runs = Integer.parseInt(args[++a]);
+                    break;
+                case "-t":
+                    timeoutMillis = Long.parseLong(args[++a]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[a]);
+            }
+        }
+        PrintStream report = System.err;
+
+        List<Integer[][]> puzzles = readCorpus();
+        SudokuPuzzleGenerator generator = new SudokuPuzzleGenerator(BOXSIZE);
+        for (int i = 0; i < generated; i++) {
+            puzzles.add(generator.generate(17 + i % 24));                                       //Spread over every clue count a generator reaches
+        }
+        report.println("Timing " + ALGORITHMS.size() + " algorithms on " + puzzles.size() + " puzzles...");
+
+        Sudoku_AI_Factory factory = new Sudoku_AI_Factory();
+        SudokuPuzzleFeatures measure = new SudokuPuzzleFeatures(BOXSIZE);
+        List<double[]> features = new ArrayList<>();
+        List<long[]> nanos = new ArrayList<>();
+        for (Integer[][] puzzle : puzzles) {
+            features.add(measure.compute(puzzle));
+            nanos.add(new long[ALGORITHMS.size()]);
+        }
+        for (int a = 0; a < ALGORITHMS.size(); a++) {
+            Sudoku_AI algorithm = factory.getAlgorithm(ALGORITHMS.get(a), BOXSIZE);
+            for (Integer[][] puzzle : puzzles) {                                                //Warm up
+                algorithm.solve(copyBoard(puzzle), SudokuCancellation.withTimeout(timeoutMillis, TimeUnit.MILLISECONDS));
+            }
+            for (int p = 0; p < puzzles.size(); p++) {
+                nanos.get(p)[a] = time(algorithm, puzzles.get(p), runs, timeoutMillis);
+            }
+        }
+
+        List<double[]> trainFeatures = new ArrayList<>(), testFeatures = new ArrayList<>();
+        List<long[]> trainNanos = new ArrayList<>(), testNanos = new ArrayList<>();
+        for (int p = 0; p < puzzles.size(); p++) {
+            (p % 2 == 0 ? trainFeatures : testFeatures).add(features.get(p));
+            (p % 2 == 0 ? trainNanos : testNanos).add(nanos.get(p));
+        }
+        report.println("Fitted to " + trainNanos.size() + " puzzles, scored on the other " + testNanos.size() + ":");
+        report.printf("%-34s %12s %12s %12s%n", "Strategy", "total ms", "mean us", "worst us");
+        for (int a = 0; a < ALGORITHMS.size(); a++) {
+            int algorithm = a;
+            score(report, ALGORITHMS.get(a), testNanos, 0, (int p) -> algorithm);
+        }
+        int bestStage = STAGES[0];
+        long bestTotal = Long.MAX_VALUE;
+        for (int stage : STAGES) {
+            long stageNanos = timeFeatures(measure, puzzles, stage);
+            SudokuAutoPolicy trained = SudokuAutoPolicy.fit(ALGORITHMS, trainFeatures, trainNanos, stage);
+            long total = score(report, "Auto up to " + SudokuPuzzleFeatures.NAMES[stage] + " (" + stageNanos + " ns)",
+                    testNanos, stageNanos, (int p) -> trained.choose(testFeatures.get(p)));
+            if (total < bestTotal) {
+                bestStage = stage;
+                bestTotal = total;
+            }
+        }
+        score(report, "Fastest (oracle)", testNanos, 0, (int p) -> fastest(testNanos.get(p)));
+
+        SudokuAutoPolicy policy = SudokuAutoPolicy.fit(ALGORITHMS, features, nanos, bestStage);
+        report.println("Whole corpus, features up to " + SudokuPuzzleFeatures.NAMES[bestStage]);
+        int[] picked = new int[ALGORITHMS.size()];
+        for (double[] x : features) {
+            picked[policy.choose(x)]++;
+        }
+        report.println("Whole corpus, picks of each algorithm: " + Arrays.toString(picked));
+
+        Writer out = output == null ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+        policy.write(out);
+        if (output != null) {
+            out.close();
+            report.println("Policy written to " + output);
+        }
+    }
+
+    /**
+     * Picks an algorithm for the puzzle at an index
+     */
+    interface Strategy {
+
+        int pick(int puzzle);
+    }
+
+    /**
+     * Times working out the features of every puzzle up to a given one
+     *
+     * @return the mean nanoseconds a puzzle
+     */
+    private static long timeFeatures(SudokuPuzzleFeatures measure, List<Integer[][]> puzzles, int lastFeature) {
+        long sum = 0;
+        for (int i = 0; i < 20; i++) {                                                          //Warm up
+            for (Integer[][] puzzle : puzzles) {
+                sum += (long) measure.compute(puzzle, lastFeature)[lastFeature];
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            for (Integer[][] puzzle : puzzles) {
+                sum += (long) measure.compute(puzzle, lastFeature)[lastFeature];
+            }
+        }
+        return (System.nanoTime() - start) / (100L * puzzles.size()) + (sum < 0 ? 1 : 0);       //The sum keeps the JIT from skipping the work
+    }
+
+    /**
+     * Prints the time a strategy would have taken over a set of puzzles,
+     * including the time it takes to pick the algorithm for each
+     *
+     * @return the total nanoseconds
+     */
+    private static long score(PrintStream report, String name, List<long[]> nanos, long pickNanos, Strategy strategy) {
+        long total = 0, worst = 0;
+        for (int p = 0; p < nanos.size(); p++) {
+            long time = pickNanos + nanos.get(p)[strategy.pick(p)];
+            total += time;
+            worst = Math.max(worst, time);
+        }
+        report.printf("%-34s %,12.1f %,12.1f %,12.1f%n", name, total / 1e6, total / 1e3 / nanos.size(), worst / 1e3);
+        return total;
+    }
+
+    /**
+     * Finds the fastest algorithm on a puzzle
+     */
+    private static int fastest(long[] nanos) {
+        int best = 0;
+        for (int a = 1; a < nanos.length; a++) {
+            if (nanos[a] < nanos[best]) {
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Times an algorithm on a puzzle, a solve stopped by the timeout is
+     * charged the whole timeout
+     *
+     * @return the fastest of the runs in nanoseconds
+     */
+    private static long time(Sudoku_AI algorithm, Integer[][] puzzle, int runs, long timeoutMillis) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            Integer[][] board = copyBoard(puzzle);
+            long start = System.nanoTime();
+            SudokuSolveResult result = algorithm.solve(board, SudokuCancellation.withTimeout(timeoutMillis, TimeUnit.MILLISECONDS));
+            long elapsed = System.nanoTime() - start;
+            if (result.getStatus() == SudokuSolveResult.Status.TIMED_OUT) {
+                return TimeUnit.MILLISECONDS.toNanos(timeoutMillis);                            //Runs again would time out again
+            }
+            best = Math.min(best, elapsed);
+        }
+        return best;
+    }
+
+    private static Integer[][] copyBoard(Integer[][] board) {
+        Integer[][] copy = new Integer[BOARDSIZE][];
+        for (int i = 0; i < BOARDSIZE; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Reads the presets and the bundled corpus
+     *
+     * @return the puzzles
+     * @throws IOException if the bundled corpus can not be read
+     */
+    private static List<Integer[][]> readCorpus() throws IOException {
+        List<Integer[][]> puzzles = new ArrayList<>();
+        for (String preset : new String[]{SudokuSolverController.EASY_PUZZLE, SudokuSolverController.HARD_PUZZLE,
+            SudokuSolverController.IMPOSSIBLE_PUZZLE}) {
+            puzzles.add(SudokuPuzzleFormat.parse(preset, BOARDSIZE));
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SudokuAutoPolicyFit.class.getResourceAsStream(CORPUS), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    puzzles.add(SudokuPuzzleFormat.parse(line, BOARDSIZE));
+                }
+            }
+        }
+        return puzzles;
+    }
+
+}
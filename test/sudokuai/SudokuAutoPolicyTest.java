@@ -0,0 +1,132 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuAutoPolicyTest {
+
+    private static final List<String> ALGORITHMS = Arrays.asList("Backtracking", "Dancing Links");
+
+    public SudokuAutoPolicyTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Builds features with the given share of clues and singles
+     */
+    private static double[] features(double clues, double singles) {
+        double[] features = new double[SudokuPuzzleFeatures.COUNT];
+        features[SudokuPuzzleFeatures.BIAS] = 1;
+        features[SudokuPuzzleFeatures.CLUES] = clues;
+        features[SudokuPuzzleFeatures.SINGLES] = singles;
+        return features;
+    }
+
+    /**
+     * Test of fit method, of class SudokuAutoPolicy.
+     * Backtracking is fast with many clues and slow with few, Dancing Links
+     * takes the same time on every puzzle.
+     */
+    @Test
+    public void testFit() {
+        System.out.println("fit");
+        List<double[]> features = new ArrayList<>();
+        List<long[]> nanos = new ArrayList<>();
+        for (int clues = 17; clues <= 45; clues++) {
+            double share = clues / 81.0;
+            features.add(features(share, clues % 2));
+            nanos.add(new long[]{(long) Math.exp(20 - 25 * share), 50_000});
+        }
+
+        SudokuAutoPolicy policy = SudokuAutoPolicy.fit(ALGORITHMS, features, nanos, SudokuPuzzleFeatures.SINGLES);
+        assertEquals(ALGORITHMS, policy.getAlgorithmNames());
+        assertEquals(20 - 25 * 0.3, policy.predictLogNanos(features(0.3, 0), 0), 0.25);    //The ridge penalty shrinks the slope a little
+        assertEquals(Math.log(50_000), policy.predictLogNanos(features(0.3, 1), 1), 0.05);
+        assertEquals(1, policy.choose(features(20 / 81.0, 0)));
+        assertEquals(0, policy.choose(features(40 / 81.0, 0)));
+
+        System.out.println("Check features after the last one used are left out");
+        policy = SudokuAutoPolicy.fit(ALGORITHMS, features, nanos, SudokuPuzzleFeatures.CLUES);
+        assertEquals(SudokuPuzzleFeatures.CLUES, policy.getLastFeature());
+        assertEquals(policy.predictLogNanos(features(0.3, 0), 0), policy.predictLogNanos(features(0.3, 1), 0), 0);
+        assertEquals(0, policy.choose(features(40 / 81.0, 0)));
+    }
+
+    /**
+     * Test of write and read methods, of class SudokuAutoPolicy.
+     */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        System.out.println("write and read");
+        SudokuAutoPolicy policy = new SudokuAutoPolicy(ALGORITHMS, new double[][]{
+            {20, -25, 0, 0, 0}, {10.8, -0.5, 0.25, 0, 0}});
+        assertEquals(SudokuPuzzleFeatures.CANDIDATES, policy.getLastFeature());
+        StringWriter out = new StringWriter();
+        policy.write(out);
+        assertTrue(out.toString(), out.toString().startsWith("#"));
+
+        SudokuAutoPolicy read = SudokuAutoPolicy.read(new StringReader(out.toString()));
+        assertEquals(ALGORITHMS, read.getAlgorithmNames());
+        assertEquals(SudokuPuzzleFeatures.CANDIDATES, read.getLastFeature());
+        double[] features = features(0.4, 0.5);
+        features[SudokuPuzzleFeatures.CANDIDATES] = 0.3;
+        for (int a = 0; a < ALGORITHMS.size(); a++) {
+            assertEquals(policy.predictLogNanos(features, a), read.predictLogNanos(features, a), 0);
+        }
+
+        for (String bad : new String[]{"Backtracking\t1\t2\n", "Backtracking\t1\t2\tthree\t4\t5\n", "# none\n"}) {
+            try {
+                SudokuAutoPolicy.read(new StringReader(bad));
+                fail("Expected IllegalArgumentException for " + bad);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    /**
+     * Test of getDefault method, of class SudokuAutoPolicy.
+     */
+    @Test
+    public void testGetDefault() {
+        System.out.println("getDefault");
+        SudokuAutoPolicy policy = SudokuAutoPolicy.getDefault();
+        assertFalse(policy.getAlgorithmNames().isEmpty());
+        assertTrue(new Sudoku_AI_Factory().getAlgorithmNames().containsAll(policy.getAlgorithmNames()));
+        assertFalse(policy.getAlgorithmNames().contains("Auto"));
+    }
+
+}
@@ -0,0 +1,331 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks every algorithm Sudoku_AI_Factory knows about on a fixed corpus,
+ * the easy, hard and impossible presets from SudokuSolverController and the
+ * puzzles bundled in benchmark-puzzles.txt, both solving and checking for a
+ * unique solution, along with the parsing, formatting and canonicalizing of
+ * boards.
+ *
+ * Each benchmark is warmed up, then run for a number of timed iterations, and
+ * reports its throughput (with the standard deviation between iterations),
+ * its average time per operation and the bytes allocated per operation by all
+ * threads. A solve operation includes copying the puzzle into a reused board,
+ * since every algorithm solves its input in place.
+ *
+ * Not a unit test, run it after building the tests with
+ *
+ * java -cp build/classes:build/test/classes sudokuai.SudokuBenchmark [options] [filter]
+ *
+ * where filter is a regular expression matched against the benchmark names,
+ * -w sets the warm up seconds (default 2), -i the number of measured
+ * iterations (default 5) and -t the seconds per iteration (default 1).
+ *
+ * @author Nik Bradley
+ */
+public class SudokuBenchmark {
+
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE * BOXSIZE;
+    private static final String CORPUS = "benchmark-puzzles.txt";
+
+    private static long sink;                                                                   //Results are folded into this so the JIT can't skip the work
+
+    /**
+     * One operation of a benchmark
+     */
+    interface Operation {
+
+        /**
+         * Runs the operation once
+         *
+         * @param i number of times the operation has run, used to pick the
+         * input
+         * @return a value depending on the result
+         */
+        long run(long i);
+    }
+
+    public static void main(String[] args) throws IOException {
+        double warmupSeconds = 2, iterationSeconds = 1;
+        int iterations = 5;
+        Pattern filter = Pattern.compile("");
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "-w":
+                    warmupSeconds = Double.parseDouble(args[++a]);
+                    break;
+                case "-i":
+                    iterations = Integer.parseInt(args[++a]);
+                    break;
+                case "-t":
+                    iterationSeconds = Double.parseDouble(args[++a]);
+                    break;
+                default:
+                    filter = Pattern.compile(args[a]);
+            }
+        }
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {                                      //The algorithms print to the console, which would swamp the timings
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            Map<String, Operation> benchmarks = getBenchmarks();
+            console.printf("%-50s %14s %12s %14s %12s%n", "Benchmark", "ops/s", "error", "us/op", "B/op");
+            for (Map.Entry<String, Operation> benchmark : benchmarks.entrySet()) {
+                if (filter.matcher(benchmark.getKey()).find()) {
+                    Result result = measure(benchmark.getValue(), warmupSeconds, iterations, iterationSeconds);
+                    console.printf("%-50s %,14.1f %,12.1f %,14.2f %12s%n", benchmark.getKey(), result.opsPerSecond,
+                            result.error, result.microsPerOp, result.bytesPerOp < 0 ? "n/a" : String.format("%,d", result.bytesPerOp));
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        console.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Builds every benchmark, keyed by name
+     *
+     * @return the benchmarks in the order they run
+     * @throws IOException if the bundled corpus can not be read
+     */
+    private static Map<String, Operation> getBenchmarks() throws IOException {
+        Map<String, List<String>> corpus = new LinkedHashMap<>();
+        corpus.put("easy", singleton(SudokuSolverController.EASY_PUZZLE));
+        corpus.put("hard", singleton(SudokuSolverController.HARD_PUZZLE));
+        corpus.put("impossible", singleton(SudokuSolverController.IMPOSSIBLE_PUZZLE));
+        corpus.put("bundled", readCorpus());
+
+        Map<String, Operation> benchmarks = new LinkedHashMap<>();
+        Sudoku_AI_Factory factory = new Sudoku_AI_Factory();
+        for (String algorithm : factory.getAlgorithmNames()) {
+            for (Map.Entry<String, List<String>> puzzles : corpus.entrySet()) {
+                benchmarks.put("solve:" + algorithm + ":" + puzzles.getKey(),
+                        solveOperation(factory.getAlgorithm(algorithm, BOXSIZE), puzzles.getValue()));
+            }
+        }
+        for (String algorithm : factory.getAlgorithmNames()) {
+            for (Map.Entry<String, List<String>> puzzles : corpus.entrySet()) {
+                benchmarks.put("unique:" + algorithm + ":" + puzzles.getKey(),
+                        uniqueOperation(factory.getAlgorithm(algorithm, BOXSIZE), puzzles.getValue()));
+            }
+        }
+
+        List<String> bundled = corpus.get("bundled");
+        List<Integer[][]> solved = new ArrayList<>();
+        Sudoku_AI solver = factory.getAlgorithm("Dancing Links", BOXSIZE);
+        for (String puzzle : bundled) {
+            solved.add(solver.getSolution(SudokuPuzzleFormat.parse(puzzle, BOARDSIZE)));
+        }
+        benchmarks.put("parse:bundled", (long i) -> {
+            Integer[][] board = SudokuPuzzleFormat.parse(bundled.get((int) (i % bundled.size())), BOARDSIZE);
+            return board[0][0] == null ? 0 : board[0][0];
+        });
+        benchmarks.put("format:bundled", (long i) -> SudokuPuzzleFormat.format(solved.get((int) (i % solved.size()))).hashCode());
+        benchmarks.put("prettyPrint:bundled", (long i) -> SudokuPuzzleFormat.prettyPrint(solved.get((int) (i % solved.size()))).length());
+        for (Map.Entry<String, List<String>> puzzles : corpus.entrySet()) {
+            benchmarks.put("canonicalize:" + puzzles.getKey(), canonicalizeOperation(puzzles.getValue()));
+        }
+        List<String> grids = new ArrayList<>();
+        List<String> dense = new ArrayList<>();
+        for (Integer[][] solution : solved) {
+            String grid = SudokuPuzzleFormat.format(solution);
+            grids.add(grid);
+            dense.add("000" + grid.substring(3));                                               //78 clues, past where Sudoku_AI_Cached canonicalizes
+        }
+        benchmarks.put("canonicalize:dense", canonicalizeOperation(dense));
+        benchmarks.put("canonicalize:solved", canonicalizeOperation(grids));
+        return benchmarks;
+    }
+
+    /**
+     * Builds an operation that finds the canonical form of each puzzle of a
+     * corpus in turn, from the puzzle string
+     *
+     * @param puzzles the corpus
+     * @return the operation
+     */
+    private static Operation canonicalizeOperation(List<String> puzzles) {
+        SudokuCanonicalizer canonicalizer = new SudokuCanonicalizer();
+        return (long i) -> canonicalizer.canonicalize(puzzles.get((int) (i % puzzles.size()))).getKey().hashCode();
+    }
+
+    /**
+     * Builds an operation that solves each puzzle of a corpus in turn
+     *
+     * @param algorithm the algorithm to solve with
+     * @param puzzles the corpus
+     * @return the operation
+     */
+    private static Operation solveOperation(Sudoku_AI algorithm, List<String> puzzles) {
+        Integer[][][] templates = new Integer[puzzles.size()][][];
+        for (int p = 0; p < templates.length; p++) {
+            templates[p] = SudokuPuzzleFormat.parse(puzzles.get(p), BOARDSIZE);
+        }
+        Integer[][] board = new Integer[BOARDSIZE][BOARDSIZE];
+
+        return (long i) -> {
+            Integer[][] template = templates[(int) (i % templates.length)];
+            for (int r = 0; r < BOARDSIZE; r++) {
+                System.arraycopy(template[r], 0, board[r], 0, BOARDSIZE);
+            }
+            Integer[][] result = algorithm.getSolution(board);
+            return result[BOARDSIZE - 1][BOARDSIZE - 1] == null ? -1 : result[BOARDSIZE - 1][BOARDSIZE - 1];
+        };
+    }
+
+    /**
+     * Builds an operation that checks each puzzle of a corpus has exactly one
+     * solution
+     *
+     * @param algorithm the algorithm to count with
+     * @param puzzles the corpus
+     * @return the operation
+     */
+    private static Operation uniqueOperation(Sudoku_AI algorithm, List<String> puzzles) {
+        Integer[][][] templates = new Integer[puzzles.size()][][];
+        for (int p = 0; p < templates.length; p++) {
+            templates[p] = SudokuPuzzleFormat.parse(puzzles.get(p), BOARDSIZE);
+        }
+
+        return (long i) -> algorithm.countSolutions(templates[(int) (i % templates.length)], 2);
+    }
+
+    /**
+     * Warms an operation up then times it
+     *
+     * @param operation the operation
+     * @param warmupSeconds seconds to run before measuring
+     * @param iterations number of measured iterations
+     * @param iterationSeconds seconds per iteration, every iteration runs the
+     * operation at least once
+     * @return the measurements
+     */
+    private static Result measure(Operation operation, double warmupSeconds, int iterations, double iterationSeconds) {
+        long i = 0;
+        long warmupEnd = System.nanoTime() + (long) (warmupSeconds * 1e9);
+        do {
+            sink += operation.run(i++);
+        } while (System.nanoTime() < warmupEnd);
+
+        double[] rates = new double[iterations];
+        long totalOps = 0, totalNanos = 0, totalBytes = 0;
+        for (int it = 0; it < iterations; it++) {
+            long ops = 0;
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long end = start + (long) (iterationSeconds * 1e9);
+            long now;
+            do {
+                sink += operation.run(i++);
+                ops++;
+            } while ((now = System.nanoTime()) < end);
+            long bytes = allocatedBytes() - bytesBefore;
+
+            rates[it] = ops * 1e9 / (now - start);
+            totalOps += ops;
+            totalNanos += now - start;
+            totalBytes = totalBytes < 0 || bytes < 0 ? -1 : totalBytes + bytes;
+        }
+
+        double mean = 0;
+        for (double rate : rates) {
+            mean += rate / iterations;
+        }
+        double variance = 0;
+        for (double rate : rates) {
+            variance += (rate - mean) * (rate - mean) / Math.max(1, iterations - 1);
+        }
+        return new Result(mean, Math.sqrt(variance), totalNanos / 1e3 / totalOps, totalBytes < 0 ? -1 : totalBytes / totalOps);
+    }
+
+    /**
+     * Gets the bytes allocated so far by every live thread, the parallel
+     * algorithms allocate on pool threads as well as the calling one
+     *
+     * @return the bytes allocated, or -1 if the JVM can't measure it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes < 0) {
+                return -1;
+            }
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Reads the bundled corpus, skipping blank lines and # comments
+     *
+     * @return the puzzles
+     * @throws IOException if the corpus can not be read
+     */
+    private static List<String> readCorpus() throws IOException {
+        List<String> puzzles = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SudokuBenchmark.class.getResourceAsStream(CORPUS), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    puzzles.add(line);
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    private static List<String> singleton(String puzzle) {
+        List<String> puzzles = new ArrayList<>();
+        puzzles.add(puzzle);
+        return puzzles;
+    }
+
+    /**
+     * Measurements of one benchmark
+     */
+    private static final class Result {
+
+        final double opsPerSecond;
+        final double error;
+        final double microsPerOp;
+        final long bytesPerOp;
+
+        Result(double opsPerSecond, double error, double microsPerOp, long bytesPerOp) {
+            this.opsPerSecond = opsPerSecond;
+            this.error = error;
+            this.microsPerOp = microsPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+}
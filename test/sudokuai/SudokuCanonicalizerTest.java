@@ -0,0 +1,220 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.Random;
+import static org.hamcrest.CoreMatchers.not;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuCanonicalizerTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    private static final String IMPOSSIBLE_SOLUTION
+            = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    
+    public SudokuCanonicalizerTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Builds a random order of rows or columns that keeps bands or stacks
+     * together
+     */
+    private static int[] randomLineOrder(Random random) {
+        int[] order = new int[BOARDSIZE];
+        int[] bands = randomPermutation(random);
+        for (int band = 0; band < BOXSIZE; band++) {
+            int[] within = randomPermutation(random);
+            for (int i = 0; i < BOXSIZE; i++) {
+                order[band * BOXSIZE + i] = bands[band] * BOXSIZE + within[i];
+            }
+        }
+        return order;
+    }
+    
+    private static int[] randomPermutation(Random random) {
+        int[] permutation = {0, 1, 2};
+        for (int i = permutation.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+    
+    /**
+     * Applies a random relabelling, row and column order and transpose to a
+     * board
+     */
+    static Integer[][] randomTransform(Integer[][] board, Random random) {
+        int[] digits = new int[BOARDSIZE + 1];
+        for (int i = 1; i <= BOARDSIZE; i++) {
+            digits[i] = i;
+        }
+        for (int i = BOARDSIZE; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            int swap = digits[i];
+            digits[i] = digits[j];
+            digits[j] = swap;
+        }
+        int[] rows = randomLineOrder(random);
+        int[] cols = randomLineOrder(random);
+        boolean transpose = random.nextBoolean();
+        
+        Integer[][] transformed = new Integer[BOARDSIZE][BOARDSIZE];
+        for (int r = 0; r < BOARDSIZE; r++) {
+            for (int c = 0; c < BOARDSIZE; c++) {
+                Integer value = transpose ? board[cols[c]][rows[r]] : board[rows[r]][cols[c]];
+                transformed[r][c] = value == null ? null : digits[value];
+            }
+        }
+        return transformed;
+    }
+
+    /**
+     * Test of canonicalize method on transforms of the same puzzle, of class SudokuCanonicalizer.
+     */
+    @Test
+    public void testCanonicalizeTransforms() {
+        System.out.println("canonicalize - transforms");
+        Random random = new Random(42);
+        SudokuCanonicalizer instance = new SudokuCanonicalizer();
+        for (String puzzle : new String[]{SudokuSolverController.EASY_PUZZLE, SudokuSolverController.HARD_PUZZLE,
+            SudokuSolverController.IMPOSSIBLE_PUZZLE}) {
+            Integer[][] board = SudokuPuzzleFormat.parse(puzzle, BOARDSIZE);
+            String key = instance.canonicalize(board).getKey();
+            for (int i = 0; i < 50; i++) {
+                assertEquals(key, instance.canonicalize(randomTransform(board, random)).getKey());
+            }
+        }
+    }
+    
+    /**
+     * Test of canonicalize method on puzzles that are not transforms of each other, of class SudokuCanonicalizer.
+     */
+    @Test
+    public void testCanonicalizeDifferentPuzzles() {
+        System.out.println("canonicalize - different puzzles");
+        SudokuCanonicalizer instance = new SudokuCanonicalizer();
+        String easy = instance.canonicalize(SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE)).getKey();
+        String impossible = instance.canonicalize(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE)).getKey();
+        
+        assertThat(easy, not(impossible));
+        assertTrue(impossible.compareTo(SudokuSolverController.IMPOSSIBLE_PUZZLE) <= 0);
+    }
+    
+    /**
+     * Test of toCanonical and fromCanonical methods, of class SudokuCanonicalizer.Form.
+     */
+    @Test
+    public void testFormRoundTrip() {
+        System.out.println("Form - round trip");
+        Integer[][] puzzle = randomTransform(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE), new Random(7));
+        Integer[][] solution = randomTransform(SudokuPuzzleFormat.parse(IMPOSSIBLE_SOLUTION, BOARDSIZE), new Random(7));
+        SudokuCanonicalizer.Form form = new SudokuCanonicalizer().canonicalize(puzzle);
+        
+        byte[] canonical = form.toCanonical(solution);
+        for (int i = 0; i < canonical.length; i++) {
+            char given = form.getKey().charAt(i);
+            assertTrue(given == '0' || given == '0' + canonical[i]);
+        }
+        Integer[][] back = new Integer[BOARDSIZE][BOARDSIZE];
+        form.fromCanonical(canonical, back);
+        assertEquals(SudokuPuzzleFormat.format(solution), SudokuPuzzleFormat.format(back));
+    }
+    
+    /**
+     * Test of canonicalize method on nearly empty and full boards, which have
+     * many transforms that read the same, of class SudokuCanonicalizer.
+     */
+    @Test
+    public void testCanonicalizeSymmetric() {
+        System.out.println("canonicalize - symmetric");
+        Random random = new Random(3);
+        SudokuCanonicalizer instance = new SudokuCanonicalizer();
+        Integer[][] sparse = new Integer[BOARDSIZE][BOARDSIZE];
+        sparse[0][0] = 5;
+        sparse[4][4] = 5;
+        sparse[8][2] = 7;
+        for (Integer[][] board : new Integer[][][]{sparse, SudokuPuzzleFormat.parse(IMPOSSIBLE_SOLUTION, BOARDSIZE)}) {
+            String key = instance.canonicalize(board).getKey();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(key, instance.canonicalize(randomTransform(board, random)).getKey());
+            }
+        }
+    }
+    
+    /**
+     * Test of canonicalize method on a board with no values, of class SudokuCanonicalizer.
+     */
+    @Test
+    public void testCanonicalizeEmpty() {
+        System.out.println("canonicalize - empty");
+        String empty = SudokuPuzzleFormat.format(new Integer[BOARDSIZE][BOARDSIZE]);
+        assertEquals(empty, new SudokuCanonicalizer().canonicalize(new Integer[BOARDSIZE][BOARDSIZE]).getKey());
+    }
+    
+    /**
+     * Test of canonicalize method on a puzzle written as a string, of class SudokuCanonicalizer.
+     */
+    @Test
+    public void testCanonicalizeString() {
+        System.out.println("canonicalize - string");
+        SudokuCanonicalizer instance = new SudokuCanonicalizer();
+        String puzzle = SudokuSolverController.HARD_PUZZLE;
+        String expResult = instance.canonicalize(SudokuPuzzleFormat.parse(puzzle, BOARDSIZE)).getKey();
+        
+        assertEquals(expResult, instance.canonicalize(puzzle).getKey());
+        assertEquals(expResult, instance.canonicalize(puzzle.replace('0', '.')).getKey());
+    }
+    
+    /**
+     * Test of canonicalize method with a string that is not a whole board, of class SudokuCanonicalizer.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCanonicalizeShortString() {
+        System.out.println("canonicalize - short string");
+        new SudokuCanonicalizer().canonicalize(SudokuSolverController.HARD_PUZZLE.substring(1));
+    }
+    
+    /**
+     * Test of canonicalize method with a value too large for the board, of class SudokuCanonicalizer.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCanonicalizeInvalidValue() {
+        System.out.println("canonicalize - invalid value");
+        Integer[][] board = new Integer[BOARDSIZE][BOARDSIZE];
+        board[0][0] = 10;
+        new SudokuCanonicalizer().canonicalize(board);
+    }
+    
+}
@@ -0,0 +1,184 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuCommandLineTest {
+    
+    private static final String IMPOSSIBLE_SOLUTION
+            = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    private static final String NO_SOLUTION
+            = "11" + SudokuSolverController.IMPOSSIBLE_PUZZLE.substring(2);
+    private static final String EMPTY_LINE = new String(new char[81]).replace('\0', '0');
+    
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+    
+    public SudokuCommandLineTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    private int run(String input, String... args) {
+        ByteArrayInputStream in = new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII));
+        return SudokuCommandLine.run(args, Channels.newChannel(in), Channels.newChannel(out),
+                new PrintStream(err, true));
+    }
+
+    /**
+     * Test of run method reading standard input, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunStandardStreams() {
+        System.out.println("run - standard streams");
+        String input = SudokuSolverController.IMPOSSIBLE_PUZZLE + "\n" + NO_SOLUTION + "\n"
+                + SudokuSolverController.IMPOSSIBLE_PUZZLE.replace('0', '.') + "\n";
+        
+        assertEquals(SudokuCommandLine.EXIT_OK, run(input, "--threads", "2", "-a", "Backtracking - FC - MRV"));
+        assertEquals(IMPOSSIBLE_SOLUTION + "\n" + EMPTY_LINE + "\n" + IMPOSSIBLE_SOLUTION + "\n",
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        String summary = new String(err.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(summary, summary.contains("Puzzles: 3 "));
+        assertTrue(summary, summary.contains("Solved: 2, no solution: 1, timed out: 0, cancelled: 0"));
+    }
+    
+    /**
+     * Test of run method with a solution cache, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunCache() {
+        System.out.println("run - cache");
+        String input = SudokuSolverController.IMPOSSIBLE_PUZZLE + "\n" + NO_SOLUTION + "\n"
+                + SudokuSolverController.IMPOSSIBLE_PUZZLE + "\n" + NO_SOLUTION + "\n";
+        
+        assertEquals(SudokuCommandLine.EXIT_OK, run(input, "--threads", "1", "--cache", "10", "-q"));
+        assertEquals(IMPOSSIBLE_SOLUTION + "\n" + EMPTY_LINE + "\n" + IMPOSSIBLE_SOLUTION + "\n" + EMPTY_LINE + "\n",
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Test of run method reading and writing files, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunFiles() throws IOException {
+        System.out.println("run - files");
+        Path input = Files.createTempFile("puzzles", ".txt");
+        Path output = Files.createTempFile("solutions", ".txt");
+        try {
+            Files.write(input, (SudokuSolverController.IMPOSSIBLE_PUZZLE + "\n").getBytes(StandardCharsets.US_ASCII));
+            
+            assertEquals(SudokuCommandLine.EXIT_OK, run("", "-i", input.toString(), "-o", output.toString(), "-q"));
+            List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+            assertEquals(1, lines.size());
+            assertEquals(IMPOSSIBLE_SOLUTION, lines.get(0));
+            assertEquals(0, err.size());
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+    
+    /**
+     * Test of run method on a 16x16 board, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunBoxSize() {
+        System.out.println("run - box size");
+        Integer[][] solution = new Integer[16][16];
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                solution[i][j] = (i * 4 + i / 4 + j) % 16 + 1;
+            }
+        }
+        String expected = SudokuPuzzleFormat.format(solution);
+        String input = new String(new char[16]).replace('\0', '.') + expected.substring(16) + "\n";
+        
+        assertEquals(SudokuCommandLine.EXIT_OK, run(input, "--box-size", "4", "-q"));
+        assertEquals(expected + "\n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Test of run method with arguments it doesn't understand, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunUsageErrors() {
+        System.out.println("run - usage errors");
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--algorithm", "Guessing"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--threads", "none"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--threads", "0"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--timeout"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--colour"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--box-size", "0"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--serve", "70000"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--serve", "8080", "--max-queued", "-1"));
+        assertEquals(SudokuCommandLine.EXIT_USAGE, run("", "--cache", "-1"));
+        assertEquals(0, out.size());
+    }
+    
+    /**
+     * Test of run method serving on a port already in use, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunServePortInUse() throws IOException {
+        System.out.println("run - serve port in use");
+        try (ServerSocket taken = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            assertEquals(SudokuCommandLine.EXIT_FAILED, run("", "--serve", Integer.toString(taken.getLocalPort())));
+        }
+        String message = new String(err.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(message, message.contains("can't listen"));
+    }
+    
+    /**
+     * Test of run method with a line that isn't a puzzle, of class SudokuCommandLine.
+     */
+    @Test
+    public void testRunInvalidInput() {
+        System.out.println("run - invalid input");
+        String input = SudokuSolverController.IMPOSSIBLE_PUZZLE + "\n123\n";
+        
+        assertEquals(SudokuCommandLine.EXIT_FAILED, run(input, "-t", "1"));
+        String message = new String(err.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(message, message.contains("line 2"));
+    }
+    
+}
@@ -0,0 +1,155 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuLiveSolverTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    private static final String IMPOSSIBLE_SOLVED = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    
+    public SudokuLiveSolverTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of setValue and check methods entering a puzzle cell by cell, of class SudokuLiveSolver.
+     */
+    @Test
+    public void testEnterPuzzle() {
+        System.out.println("setValue & check - enter a puzzle");
+        SudokuLiveSolver instance = new SudokuLiveSolver(BOXSIZE);
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        
+        SudokuSolveResult result = instance.check(null);
+        for (int cell=0;cell<BOARDSIZE*BOARDSIZE;cell++){
+            Integer value = puzzle[cell/BOARDSIZE][cell%BOARDSIZE];
+            if (value != null){
+                instance.setValue(cell/BOARDSIZE, cell%BOARDSIZE, value);
+                result = instance.check(null);
+                assertTrue(result.isSolved());
+                assertEquals(value, result.getSolution()[cell/BOARDSIZE][cell%BOARDSIZE]);
+            }
+        }
+        assertEquals(IMPOSSIBLE_SOLVED, SudokuPuzzleFormat.format(result.getSolution()));
+        
+        System.out.println("Check a value agreeing with the last solution needs no search");
+        instance.setValue(0, 1, 1);
+        result = instance.check(null);
+        assertTrue(result.isSolved());
+        assertEquals(0, result.getStats().getNodes());
+        
+        System.out.println("Check a removal needs no search");
+        instance.setValue(0, 0, null);
+        result = instance.check(null);
+        assertTrue(result.isSolved());
+        assertEquals(0, result.getStats().getNodes());
+    }
+    
+    /**
+     * Test of setValue and check methods with clashing values, of class SudokuLiveSolver.
+     */
+    @Test
+    public void testClash() {
+        System.out.println("setValue & check - clash");
+        SudokuLiveSolver instance = new SudokuLiveSolver(BOXSIZE);
+        instance.setValue(0, 0, 5);
+        instance.setValue(4, 0, 5);
+        assertEquals(SudokuSolveResult.Status.NO_SOLUTION, instance.check(null).getStatus());
+        
+        System.out.println("Check more values keep it unsolvable");
+        instance.setValue(8, 8, 1);
+        assertEquals(SudokuSolveResult.Status.NO_SOLUTION, instance.check(null).getStatus());
+        
+        System.out.println("Check removing the clash makes it solvable again");
+        instance.setValue(4, 0, null);
+        SudokuSolveResult result = instance.check(null);
+        assertTrue(result.isSolved());
+        assertEquals(5, (int) result.getSolution()[0][0]);
+        assertEquals(1, (int) result.getSolution()[8][8]);
+        
+        System.out.println("Check changing a value in place");
+        instance.setValue(0, 0, 7);
+        result = instance.check(null);
+        assertTrue(result.isSolved());
+        assertEquals(7, (int) result.getSolution()[0][0]);
+    }
+    
+    /**
+     * Test of check method on values that only a search can rule out, of class SudokuLiveSolver.
+     */
+    @Test
+    public void testUnsolvableBySearch() {
+        System.out.println("check - unsolvable by search");
+        SudokuLiveSolver instance = new SudokuLiveSolver(BOXSIZE);
+        instance.setPuzzle(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        assertTrue(instance.check(null).isSolved());
+        
+        instance.setValue(0, 1, 2);                                     //Allowed by its row, column and box, but not part of the only solution
+        assertEquals(SudokuSolveResult.Status.NO_SOLUTION, instance.check(null).getStatus());
+        instance.setValue(0, 1, null);
+        assertTrue(instance.check(null).isSolved());
+    }
+    
+    /**
+     * Test of getBoard method, of class SudokuLiveSolver.
+     */
+    @Test
+    public void testGetBoard() {
+        System.out.println("getBoard");
+        SudokuLiveSolver instance = new SudokuLiveSolver(BOXSIZE);
+        instance.setPuzzle(SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE));
+        
+        System.out.println("Check an easy puzzle is filled by propagation alone");
+        assertFalse(SudokuPuzzleFormat.format(instance.getBoard()).contains("0"));
+        SudokuSolveResult result = instance.check(null);
+        assertTrue(result.isSolved());
+        assertEquals(SudokuPuzzleFormat.format(instance.getBoard()), SudokuPuzzleFormat.format(result.getSolution()));
+    }
+    
+    /**
+     * Test of check method with a cancelled search, of class SudokuLiveSolver.
+     */
+    @Test
+    public void testCheckCancelled() {
+        System.out.println("check - cancelled");
+        SudokuLiveSolver instance = new SudokuLiveSolver(BOXSIZE);
+        instance.setPuzzle(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        assertEquals(SudokuSolveResult.Status.CANCELLED, instance.check(cancellation).getStatus());
+        
+        System.out.println("Check the next check searches again");
+        assertTrue(instance.check(null).isSolved());
+    }
+    
+}
@@ -0,0 +1,104 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuPuzzleFeaturesTest {
+
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    private static final double DELTA = 1e-9;
+
+    public SudokuPuzzleFeaturesTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of compute method, of class SudokuPuzzleFeatures.
+     */
+    @Test
+    public void testCompute() {
+        System.out.println("compute");
+        SudokuPuzzleFeatures instance = new SudokuPuzzleFeatures(BOXSIZE);
+
+        System.out.println("Check an empty board has every value everywhere");
+        double[] features = instance.compute(new Integer[BOARDSIZE][BOARDSIZE]);
+        assertEquals(1, features[SudokuPuzzleFeatures.BIAS], DELTA);
+        assertEquals(0, features[SudokuPuzzleFeatures.CLUES], DELTA);
+        assertEquals(1, features[SudokuPuzzleFeatures.CANDIDATES], DELTA);
+        assertEquals(0, features[SudokuPuzzleFeatures.BIVALUE], DELTA);
+        assertEquals(0, features[SudokuPuzzleFeatures.SINGLES], DELTA);
+
+        System.out.println("Check the easy puzzle is solved by singles alone");
+        Integer[][] easy = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        features = instance.compute(easy);
+        assertEquals(SudokuPuzzleFormat.format(easy).replace("0", "").length() / 81.0, features[SudokuPuzzleFeatures.CLUES], DELTA);
+        assertTrue(features[SudokuPuzzleFeatures.CANDIDATES] > 0 && features[SudokuPuzzleFeatures.CANDIDATES] < 1);
+        assertTrue(features[SudokuPuzzleFeatures.BIVALUE] > 0);
+        assertEquals(1, features[SudokuPuzzleFeatures.SINGLES], DELTA);
+        assertEquals(SudokuSolverController.EASY_PUZZLE, SudokuPuzzleFormat.format(easy));
+
+        System.out.println("Check the impossible puzzle needs a search");
+        features = instance.compute(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        assertTrue(features[SudokuPuzzleFeatures.SINGLES] < 0.5);
+
+        System.out.println("Check a contradiction counts as finished by singles");
+        Integer[][] clash = new Integer[BOARDSIZE][BOARDSIZE];
+        clash[0][0] = 5;
+        clash[0][8] = 5;
+        assertEquals(1, instance.compute(clash)[SudokuPuzzleFeatures.SINGLES], DELTA);
+    }
+
+    /**
+     * Test of compute method stopping after a feature, of class
+     * SudokuPuzzleFeatures.
+     */
+    @Test
+    public void testComputeUpTo() {
+        System.out.println("compute - up to a feature");
+        SudokuPuzzleFeatures instance = new SudokuPuzzleFeatures(BOXSIZE);
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        double[] all = instance.compute(puzzle);
+
+        double[] clues = instance.compute(puzzle, SudokuPuzzleFeatures.CLUES);
+        assertEquals(all[SudokuPuzzleFeatures.CLUES], clues[SudokuPuzzleFeatures.CLUES], DELTA);
+        assertEquals(0, clues[SudokuPuzzleFeatures.CANDIDATES], DELTA);
+        assertEquals(0, clues[SudokuPuzzleFeatures.SINGLES], DELTA);
+
+        double[] forwardCheck = instance.compute(puzzle, SudokuPuzzleFeatures.BIVALUE);
+        assertEquals(all[SudokuPuzzleFeatures.CANDIDATES], forwardCheck[SudokuPuzzleFeatures.CANDIDATES], DELTA);
+        assertEquals(all[SudokuPuzzleFeatures.BIVALUE], forwardCheck[SudokuPuzzleFeatures.BIVALUE], DELTA);
+        assertEquals(0, forwardCheck[SudokuPuzzleFeatures.SINGLES], DELTA);
+
+        assertArrayEquals(all, instance.compute(puzzle), DELTA);    //Nothing is left over from the last call
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuPuzzleFormatTest {
+    
+    private static final int BOARDSIZE = 9;
+    
+    public SudokuPuzzleFormatTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of parse and format methods, of class SudokuPuzzleFormat.
+     */
+    @Test
+    public void testParseAndFormat() {
+        System.out.println("parse & format");
+        String puzzle = SudokuSolverController.IMPOSSIBLE_PUZZLE;
+        Integer[][] board = SudokuPuzzleFormat.parse(puzzle, BOARDSIZE);
+        
+        assertEquals(8, (int) board[0][0]);
+        assertNull(board[0][1]);
+        assertEquals(4, (int) board[8][6]);
+        assertEquals(puzzle, SudokuPuzzleFormat.format(board));
+    }
+    
+    /**
+     * Test of parse method with dots for empty cells, of class SudokuPuzzleFormat.
+     */
+    @Test
+    public void testParseDots() {
+        System.out.println("parse - dots");
+        String puzzle = SudokuSolverController.HARD_PUZZLE;
+        Integer[][] board = SudokuPuzzleFormat.parse(puzzle.replace('0', '.'), BOARDSIZE);
+        assertEquals(puzzle, SudokuPuzzleFormat.format(board));
+    }
+    
+    /**
+     * Test of parse method with the wrong number of cells, of class SudokuPuzzleFormat.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWrongLength() {
+        System.out.println("parse - wrong length");
+        SudokuPuzzleFormat.parse("123", BOARDSIZE);
+    }
+    
+    /**
+     * Test of parse method with a value too large for the board, of class SudokuPuzzleFormat.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseValueTooLarge() {
+        System.out.println("parse - value too large");
+        SudokuPuzzleFormat.parse("1005", 2);
+    }
+
+    /**
+     * Test of parse and format methods with letters for values above 9, of class SudokuPuzzleFormat.
+     */
+    @Test
+    public void testParseAndFormatLetters() {
+        System.out.println("parse & format - letters");
+        String puzzle = "1A0G" + new String(new char[252]).replace('\0', '0');
+        Integer[][] board = SudokuPuzzleFormat.parse(puzzle.toLowerCase(), 16);
+        
+        assertEquals(10, (int) board[0][1]);
+        assertEquals(16, (int) board[0][3]);
+        assertEquals(puzzle, SudokuPuzzleFormat.format(board));
+    }
+    
+    /**
+     * Test of parse and format methods with separated numbers, of class SudokuPuzzleFormat.
+     */
+    @Test
+    public void testParseAndFormatSeparated() {
+        System.out.println("parse & format - separated numbers");
+        assertArrayEquals(SudokuPuzzleFormat.parse("1200340000000001", 4),
+                SudokuPuzzleFormat.parse("1 2 0 .\n3,4,0,0 0 0 0 0, 0 0 0 1", 4));
+        
+        Integer[][] board = new Integer[36][36];
+        board[0][0] = 36;
+        board[35][35] = 7;
+        String puzzle = SudokuPuzzleFormat.format(board);
+        assertTrue(puzzle, puzzle.startsWith("36,0,"));
+        assertTrue(puzzle, puzzle.endsWith(",0,7"));
+        assertArrayEquals(board, SudokuPuzzleFormat.parse(puzzle, 36));
+    }
+    
+    /**
+     * Test of parse method with a separated value too large for the board, of class SudokuPuzzleFormat.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseSeparatedValueTooLarge() {
+        System.out.println("parse - separated value too large");
+        SudokuPuzzleFormat.parse("1,0,0,17" + new String(new char[252]).replace("\0", ",0"), 16);
+    }
+
+    /**
+     * Test of prettyPrint method, of class SudokuPuzzleFormat.
+     */
+    @Test
+    public void testPrettyPrint() {
+        System.out.println("prettyPrint");
+        Integer[][] board = SudokuPuzzleFormat.parse("1200340000000001", 4);
+        String expResult = "|1 2 - - |\n|3 4 - - |\n|- - - - |\n|- - - 1 |\n";
+        assertEquals(expResult, SudokuPuzzleFormat.prettyPrint(board));
+    }
+    
+    /**
+     * Test of prettyPrint method padding two digit values, of class SudokuPuzzleFormat.
+     */
+    @Test
+    public void testPrettyPrintWide() {
+        System.out.println("prettyPrint - two digit values");
+        Integer[][] board = new Integer[16][16];
+        board[0][0] = 16;
+        board[0][1] = 2;
+        assertTrue(SudokuPuzzleFormat.prettyPrint(board).startsWith("|16  2  -  - "));
+    }
+    
+}
@@ -0,0 +1,133 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuPuzzleGeneratorTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    private static ForkJoinPool pool;
+    
+    public SudokuPuzzleGeneratorTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(4);
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Counts the filled cells of a puzzle
+     */
+    private static int countClues(Integer[][] puzzle) {
+        int clues = 0;
+        for (Integer[] row : puzzle){
+            for (Integer value : row){
+                if (value != null){
+                    clues++;
+                }
+            }
+        }
+        return clues;
+    }
+
+    /**
+     * Test of generate method with a target clue count, of class SudokuPuzzleGenerator.
+     */
+    @Test
+    public void testGenerateTargetClues() {
+        System.out.println("generate - target clues");
+        SudokuPuzzleGenerator instance = new SudokuPuzzleGenerator(BOXSIZE, pool);
+        Sudoku_AI_DancingLinks counter = new Sudoku_AI_DancingLinks(BOXSIZE);
+        
+        List<Integer[][]> puzzles = instance.generate(40, 28);
+        
+        assertEquals(40, puzzles.size());
+        for (Integer[][] puzzle : puzzles){
+            assertEquals(28, countClues(puzzle));
+            assertEquals(1, counter.countSolutions(puzzle, 2));
+        }
+    }
+    
+    /**
+     * Test of generate method with a difficulty, of class SudokuPuzzleGenerator.
+     */
+    @Test
+    public void testGenerateDifficulty() {
+        System.out.println("generate - difficulty");
+        SudokuPuzzleGenerator instance = new SudokuPuzzleGenerator(BOXSIZE, pool);
+        Sudoku_AI_DancingLinks counter = new Sudoku_AI_DancingLinks(BOXSIZE);
+        Sudoku_AI_Propagator propagator = new Sudoku_AI_Propagator(BOXSIZE);
+        
+        for (SudokuPuzzleGenerator.Difficulty difficulty : SudokuPuzzleGenerator.Difficulty.values()){
+            for (Integer[][] puzzle : instance.generate(5, difficulty)){
+                assertEquals(1, counter.countSolutions(puzzle, 2));
+                
+                int clues = countClues(puzzle);
+                int filled = propagator.propagate(puzzle);
+                boolean solvedByLogic = clues + filled == BOARDSIZE * BOARDSIZE;
+                assertEquals(difficulty.toString(), difficulty != SudokuPuzzleGenerator.Difficulty.HARD, solvedByLogic);
+            }
+        }
+    }
+    
+    /**
+     * Test of generate method on a 4x4 board, where not every pair of
+     * diagonal boxes can be completed, of class SudokuPuzzleGenerator.
+     */
+    @Test
+    public void testGenerateSmallBoard() {
+        System.out.println("generate - 4x4");
+        SudokuPuzzleGenerator instance = new SudokuPuzzleGenerator(2, pool);
+        Sudoku_AI_DancingLinks counter = new Sudoku_AI_DancingLinks(2);
+        
+        for (int i = 0; i < 200; i++){
+            Integer[][] puzzle = instance.generate(6);
+            assertEquals(1, counter.countSolutions(puzzle, 2));
+        }
+    }
+    
+    /**
+     * Test of generate method on a 16x16 board, of class SudokuPuzzleGenerator.
+     */
+    @Test
+    public void testGenerateLargeBoard() {
+        System.out.println("generate - 16x16");
+        SudokuPuzzleGenerator instance = new SudokuPuzzleGenerator(4, pool);
+        
+        Integer[][] puzzle = instance.generate(160);
+        
+        assertEquals(160, countClues(puzzle));
+        assertEquals(1, new Sudoku_AI_DancingLinks(4).countSolutions(puzzle, 2));
+    }
+    
+}
@@ -0,0 +1,224 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuPuzzleReaderTest {
+    
+    private static final int BOARDSIZE = 9;
+    private static final String[] PUZZLES = {
+        SudokuSolverController.EASY_PUZZLE,
+        SudokuSolverController.HARD_PUZZLE,
+        SudokuSolverController.IMPOSSIBLE_PUZZLE
+    };
+    
+    private Path file;
+    
+    public SudokuPuzzleReaderTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("puzzles", ".txt");
+    }
+    
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    private List<String> readAll(SudokuPuzzleReader reader) {
+        List<String> puzzles = new ArrayList<>();
+        while (reader.hasNext()) {
+            puzzles.add(SudokuPuzzleFormat.format(reader.next()));
+        }
+        return puzzles;
+    }
+
+    /**
+     * Test of hasNext and next methods reading a file, of class SudokuPuzzleReader.
+     */
+    @Test
+    public void testReadFile() throws IOException {
+        System.out.println("read - file");
+        Files.write(file, ("# comment\n" + PUZZLES[0] + "\r\n\n" + PUZZLES[1].replace('0', '.') + "\n"
+                + PUZZLES[2]).getBytes(StandardCharsets.US_ASCII));
+        
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, BOARDSIZE)) {
+            assertArrayEquals(PUZZLES, readAll(reader).toArray());
+            assertEquals(5, reader.getLineNumber());
+        }
+    }
+    
+    /**
+     * Test of read method with lines crossing the mapped windows, of class SudokuPuzzleReader.
+     */
+    @Test
+    public void testReadFileSmallWindow() throws IOException {
+        System.out.println("read - small window");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(PUZZLES[i % PUZZLES.length]).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+        
+        Integer[][] board = new Integer[BOARDSIZE][BOARDSIZE];
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, BOARDSIZE, 100)) {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(reader.read(board));
+                assertEquals(PUZZLES[i % PUZZLES.length], SudokuPuzzleFormat.format(board));
+            }
+            assertFalse(reader.read(board));
+        }
+    }
+    
+    /**
+     * Test of read method on an empty file, of class SudokuPuzzleReader.
+     */
+    @Test
+    public void testReadEmptyFile() throws IOException {
+        System.out.println("read - empty file");
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, BOARDSIZE)) {
+            assertFalse(reader.hasNext());
+        }
+    }
+    
+    /**
+     * Test of hasNext and next methods reading a stream, of class SudokuPuzzleReader.
+     */
+    @Test
+    public void testReadStream() throws IOException {
+        System.out.println("read - stream");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(PUZZLES[i % PUZZLES.length]).append('\n');
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.US_ASCII));
+        
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(Channels.newChannel(in), BOARDSIZE)) {
+            List<String> puzzles = readAll(reader);
+            assertEquals(2000, puzzles.size());
+            for (int i = 0; i < puzzles.size(); i++) {
+                assertEquals(PUZZLES[i % PUZZLES.length], puzzles.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Test of read method with a line of the wrong length, of class SudokuPuzzleReader.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadWrongLength() throws IOException {
+        System.out.println("read - wrong length");
+        Files.write(file, (PUZZLES[0] + "\n123\n").getBytes(StandardCharsets.US_ASCII));
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, BOARDSIZE)) {
+            readAll(reader);
+        }
+    }
+    
+    /**
+     * Test of read method with a value too large for the board, of class SudokuPuzzleReader.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadInvalidValue() throws IOException {
+        System.out.println("read - invalid value");
+        Files.write(file, PUZZLES[0].replaceFirst("0", "x").getBytes(StandardCharsets.US_ASCII));
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, BOARDSIZE)) {
+            readAll(reader);
+        }
+    }
+    
+    /**
+     * Test of write method, read back with SudokuPuzzleReader, of class SudokuSolutionWriter.
+     */
+    @Test
+    public void testWriteRoundTrip() throws IOException {
+        System.out.println("write - round trip");
+        try (SudokuSolutionWriter writer = new SudokuSolutionWriter(file)) {
+            for (String puzzle : PUZZLES) {
+                writer.write(SudokuPuzzleFormat.parse(puzzle, BOARDSIZE));
+            }
+        }
+        
+        try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, BOARDSIZE)) {
+            assertArrayEquals(PUZZLES, readAll(reader).toArray());
+        }
+    }
+    
+    /**
+     * Test of write method on boards written with letters and with separated
+     * numbers, read back with SudokuPuzzleReader, of class SudokuSolutionWriter.
+     */
+    @Test
+    public void testWriteRoundTripLargeBoards() throws IOException {
+        System.out.println("write - round trip large boards");
+        for (int boardSize : new int[]{16, 25, 36, 81}) {
+            Integer[][] board = new Integer[boardSize][boardSize];
+            for (int i = 0; i < boardSize; i++) {
+                board[i][(i * 7) % boardSize] = i + 1;
+            }
+            try (SudokuSolutionWriter writer = new SudokuSolutionWriter(file)) {
+                writer.write(board);
+                writer.write(board);
+            }
+            
+            try (SudokuPuzzleReader reader = new SudokuPuzzleReader(file, boardSize)) {
+                List<String> puzzles = readAll(reader);
+                assertEquals(2, puzzles.size());
+                assertEquals(SudokuPuzzleFormat.format(board), puzzles.get(0));
+                assertEquals(SudokuPuzzleFormat.format(board), puzzles.get(1));
+            }
+        }
+    }
+    
+    /**
+     * Test of write method on a stream larger than its buffer, of class SudokuSolutionWriter.
+     */
+    @Test
+    public void testWriteStream() throws IOException {
+        System.out.println("write - stream");
+        Integer[][] board = SudokuPuzzleFormat.parse(PUZZLES[2], BOARDSIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SudokuSolutionWriter writer = new SudokuSolutionWriter(Channels.newChannel(out))) {
+            for (int i = 0; i < 20000; i++) {
+                writer.write(board);
+            }
+        }
+        
+        String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+        assertEquals(20000, lines.length);
+        assertEquals(PUZZLES[2], lines[0]);
+        assertEquals(PUZZLES[2], lines[19999]);
+    }
+    
+}
@@ -0,0 +1,164 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuSearchProgressTest {
+
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+
+    public SudokuSearchProgressTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of publish and take, of class SudokuSearchProgress.
+     */
+    @Test
+    public void testPublishAndTake() {
+        System.out.println("publishAndTake");
+        SudokuSearchProgress instance = new SudokuSearchProgress();
+        assertTrue(instance.isWanted());
+        assertNull(instance.take());
+
+        int[] first = new int[BOARDSIZE*BOARDSIZE];
+        int[] second = new int[BOARDSIZE*BOARDSIZE];
+        instance.publish(first);
+        assertFalse(instance.isWanted());
+        instance.publish(second);                                       //Replaces the snapshot not yet taken
+        assertSame(second, instance.take());
+        assertTrue(instance.isWanted());
+        assertNull(instance.take());
+
+        Integer[][] board = new Integer[BOARDSIZE][BOARDSIZE];
+        board[0][0] = 5;
+        board[8][7] = 9;
+        instance.publish(board);
+        int[] cells = instance.take();
+        assertEquals(5, cells[0]);
+        assertEquals(9, cells[8*BOARDSIZE+7]);
+        assertEquals(0, cells[1]);
+    }
+
+    /**
+     * Test of the snapshots each algorithm publishes while solving, of class
+     * SudokuSearchProgress.
+     */
+    @Test
+    public void testAlgorithmsPublish() throws InterruptedException {
+        System.out.println("algorithmsPublish");
+        Sudoku_AI_Factory factory = new Sudoku_AI_Factory();
+        for (String name : factory.getAlgorithmNames()) {
+            Sudoku_AI algorithm = factory.getAlgorithm(name, BOXSIZE);
+            SudokuSearchProgress progress = new SudokuSearchProgress();
+            algorithm.setSearchProgress(progress);
+            Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+
+            List<int[]> snapshots = new ArrayList<>();
+            Thread solve = new Thread(() -> algorithm.solve(puzzle, null));
+            solve.start();
+            while (solve.isAlive()) {
+                int[] cells = progress.take();
+                if (cells != null) {
+                    snapshots.add(cells);
+                }
+                Thread.sleep(1);
+            }
+            int[] last = progress.take();
+            if (last != null) {
+                snapshots.add(last);
+            }
+
+            if (name.equals("Parallel Search")) {                       //No single board to show
+                assertTrue(snapshots.isEmpty());
+                continue;
+            }
+            assertFalse(name, snapshots.isEmpty());
+            for (int[] cells : snapshots) {
+                assertPartOfSearch(name, cells);
+            }
+        }
+    }
+
+    /**
+     * Checks a snapshot keeps the puzzle's values and repeats no value in a
+     * row, column or box
+     */
+    private static void assertPartOfSearch(String name, int[] cells) {
+        String puzzle = SudokuSolverController.IMPOSSIBLE_PUZZLE;
+        assertEquals(name, BOARDSIZE*BOARDSIZE, cells.length);
+        for (int cell = 0; cell < cells.length; cell++) {
+            int given = puzzle.charAt(cell) - '0';
+            if (given != 0) {
+                assertEquals(name + " cell " + cell, given, cells[cell]);
+            }
+            assertTrue(name, cells[cell] >= 0 && cells[cell] <= BOARDSIZE);
+        }
+        for (int unit = 0; unit < BOARDSIZE; unit++) {
+            int rowSeen = 0, colSeen = 0, boxSeen = 0;
+            for (int i = 0; i < BOARDSIZE; i++) {
+                int box = ((unit/BOXSIZE)*BOXSIZE + i/BOXSIZE)*BOARDSIZE + (unit%BOXSIZE)*BOXSIZE + i%BOXSIZE;
+                rowSeen = addValue(name, rowSeen, cells[unit*BOARDSIZE + i]);
+                colSeen = addValue(name, colSeen, cells[i*BOARDSIZE + unit]);
+                boxSeen = addValue(name, boxSeen, cells[box]);
+            }
+        }
+    }
+
+    private static int addValue(String name, int seen, int value) {
+        if (value == 0) {
+            return seen;
+        }
+        assertEquals(name + " repeats " + value, 0, seen & (1 << value));
+        return seen | (1 << value);
+    }
+
+    /**
+     * Test of setSearchProgress passing through a cache, of class
+     * SudokuSearchProgress.
+     */
+    @Test
+    public void testCachedPublishes() {
+        System.out.println("cachedPublishes");
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_Backtracking(BOXSIZE), new SudokuSolutionCache(16));
+        SudokuSearchProgress progress = new SudokuSearchProgress();
+        instance.setSearchProgress(progress);
+        instance.solve(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE), null);
+        assertNotNull(progress.take());
+
+        instance.solve(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE), null);
+        assertNull(progress.take());                                    //Answered from the cache, no search to show
+    }
+
+}
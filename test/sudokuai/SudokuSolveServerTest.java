@@ -0,0 +1,305 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuSolveServerTest {
+
+    private static final String PUZZLE = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    private static final String SECONDPUZZLE = "249180000000460091100000070000500900701892000608000105872941350010700040500008700";
+    private static final String SECONDSOLUTION = "249187563387465291165239478423516987751892634698374125872941356916753842534628719";
+    private static final String UNSOLVABLE = "110000000000000000000000000000000000000000000000000000000000000000000000000000000";
+
+    private SudokuSolveServer server;
+
+    public SudokuSolveServerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new SudokuSolveServer(0, "Dancing Links", 3, 2, 4);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Status code & body of a reply
+     */
+    private static final class Reply {
+        final int code;
+        final String body;
+        final String retryAfter;
+
+        Reply(int code, String body, String retryAfter) {
+            this.code = code;
+            this.body = body;
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * Sends a request to the server's solve path
+     */
+    private Reply request(String method, String query, String body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + SudokuSolveServer.PATH + (query == null ? "" : "?" + query));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int code = connection.getResponseCode();
+        InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        in.close();
+        return new Reply(code, new String(bytes.toByteArray(), StandardCharsets.UTF_8), connection.getHeaderField("Retry-After"));
+    }
+
+    /**
+     * Test of GET with a single puzzle, of class SudokuSolveServer.
+     */
+    @Test
+    public void testSolveSingle() throws IOException {
+        System.out.println("solveSingle");
+        Reply reply = request("GET", "puzzle=" + PUZZLE, null);
+        assertEquals(200, reply.code);
+        assertTrue(reply.body, reply.body.startsWith("{\"algorithm\":\"Dancing Links\",\"results\":[{\"status\":\"SOLVED\",\"solution\":\"" + SOLUTION + "\""));
+        assertTrue(reply.body, reply.body.contains("\"nodes\":"));
+        assertTrue(reply.body, reply.body.contains("\"elapsedNanos\":"));
+        assertTrue(reply.body, reply.body.endsWith("}]}"));
+    }
+
+    /**
+     * Test of POST with a batch of puzzles, of class SudokuSolveServer.
+     */
+    @Test
+    public void testSolveBatch() throws IOException {
+        System.out.println("solveBatch");
+        Reply reply = request("POST", null, "# three puzzles\n" + PUZZLE + "\r\n\n" + UNSOLVABLE + "\n" + SECONDPUZZLE);
+        assertEquals(200, reply.code);
+        int first = reply.body.indexOf("\"solution\":\"" + SOLUTION + "\"");
+        int second = reply.body.indexOf("\"status\":\"NO_SOLUTION\",\"solution\":null");
+        int third = reply.body.indexOf("\"solution\":\"" + SECONDSOLUTION + "\"");
+        assertTrue(reply.body, first > 0 && second > first && third > second);
+        assertEquals(reply.body, 3, reply.body.split("\"status\"").length - 1);
+    }
+
+    /**
+     * Test of choosing the algorithm and box size, of class SudokuSolveServer.
+     */
+    @Test
+    public void testSolveAlgorithmAndBoxSize() throws IOException {
+        System.out.println("solveAlgorithmAndBoxSize");
+        Reply reply = request("POST", "algorithm=" + URLEncoder.encode("CDCL SAT", "UTF-8"), PUZZLE);
+        assertEquals(200, reply.code);
+        assertTrue(reply.body, reply.body.startsWith("{\"algorithm\":\"CDCL SAT\""));
+        assertTrue(reply.body, reply.body.contains(SOLUTION));
+
+        reply = request("GET", "boxSize=2&puzzle=1000000000000000", null);
+        assertEquals(200, reply.code);
+        assertTrue(reply.body, reply.body.contains("\"status\":\"SOLVED\""));
+    }
+
+    /**
+     * Test of requests that are refused, of class SudokuSolveServer.
+     */
+    @Test
+    public void testBadRequests() throws IOException {
+        System.out.println("badRequests");
+        assertEquals(400, request("GET", "algorithm=Guessing&puzzle=" + PUZZLE, null).code);
+        assertEquals(400, request("GET", "boxSize=ten&puzzle=" + PUZZLE, null).code);
+        assertEquals(400, request("GET", "boxSize=12&puzzle=" + PUZZLE, null).code);
+        assertEquals(400, request("GET", null, null).code);
+        Reply reply = request("POST", null, PUZZLE + "\n" + PUZZLE.substring(1));
+        assertEquals(400, reply.code);
+        assertTrue(reply.body, reply.body.startsWith("{\"error\":\"Puzzle 2: "));
+        assertEquals(405, request("PUT", null, PUZZLE).code);
+
+        server.setMaxBatch(2);
+        assertEquals(200, request("POST", null, PUZZLE + "\n" + PUZZLE).code);
+        assertEquals(413, request("POST", null, PUZZLE + "\n" + PUZZLE + "\n" + PUZZLE).code);
+    }
+
+    /**
+     * Test of the time budget for each puzzle, of class SudokuSolveServer.
+     */
+    @Test
+    public void testTimeout() throws IOException {
+        System.out.println("timeout");
+        server.setTimeout(1, TimeUnit.NANOSECONDS);
+        Reply reply = request("GET", "algorithm=Backtracking&puzzle=" + PUZZLE, null);
+        assertEquals(200, reply.code);
+        assertTrue(reply.body, reply.body.contains("\"status\":\"TIMED_OUT\",\"solution\":null"));
+    }
+
+    /**
+     * Test of setSolutionCache method, of class SudokuSolveServer.
+     */
+    @Test
+    public void testSetSolutionCache() throws IOException {
+        System.out.println("setSolutionCache");
+        assertEquals(200, request("GET", "puzzle=" + PUZZLE, null).code);
+        SudokuSolutionCache cache = new SudokuSolutionCache(10);
+        server.setSolutionCache(cache);
+        Reply first = request("GET", "puzzle=" + PUZZLE, null);
+        Reply second = request("GET", "puzzle=" + PUZZLE, null);
+
+        System.out.println("Check the second request is answered from the cache");
+        assertEquals(200, second.code);
+        String solved = first.body.substring(0, first.body.indexOf(",\"nodes\""));
+        assertTrue(second.body, second.body.startsWith(solved + ",\"nodes\":0,"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, server.getPooledEngineCount());                 //The engine made before the cache isn't reused
+    }
+
+    /**
+     * Test that the engine pool stays within the concurrency over every
+     * algorithm and box size, counting Portfolio's engines, of class
+     * SudokuSolveServer.
+     */
+    @Test
+    public void testEnginePool() throws IOException {
+        System.out.println("enginePool");
+        for (String algorithm : new String[]{"Backtracking", "Dancing Links", "CDCL SAT", "Backtracking - MAC"}) {
+            Reply reply = request("GET", "algorithm=" + URLEncoder.encode(algorithm, "UTF-8") + "&puzzle=" + PUZZLE, null);
+            assertEquals(200, reply.code);
+            assertTrue(server.getPooledEngineCount() <= 2);                 //Least recently used engines are dropped
+        }
+        assertEquals(200, request("GET", "boxSize=2&puzzle=1000000000000000", null).code);
+        assertTrue(server.getPooledEngineCount() <= 2);
+
+        System.out.println("Check Portfolio is refused when its engines can't all run");
+        assertEquals(400, request("GET", "algorithm=Portfolio&puzzle=" + PUZZLE, null).code);
+        try {
+            new SudokuSolveServer(0, "Portfolio", 3, 2, 0).close();
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+
+        System.out.println("Check Portfolio counts each of its engines");
+        server.close();
+        server = new SudokuSolveServer(0, "Dancing Links", 3, 3, 0);
+        server.start();
+        assertEquals(200, request("GET", "algorithm=Portfolio&puzzle=" + PUZZLE, null).code);
+        assertEquals(3, server.getPooledEngineCount());
+        assertEquals(200, request("GET", "puzzle=" + PUZZLE, null).code);
+        assertEquals(1, server.getPooledEngineCount());                 //Portfolio dropped to make room
+
+        System.out.println("Check Parallel Search counts the common pool's threads");
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        assertEquals(parallelism, SudokuSolveServer.getEngineCount("Parallel Search"));
+        server.close();
+        server = new SudokuSolveServer(0, "Dancing Links", 3, parallelism, 0);
+        server.start();
+        String query = "algorithm=" + URLEncoder.encode("Parallel Search", "UTF-8") + "&puzzle=" + PUZZLE;
+        assertEquals(200, request("GET", query, null).code);
+        assertEquals(parallelism, server.getPooledEngineCount());
+        if (parallelism > 1) {
+            try {
+                new SudokuSolveServer(0, "Parallel Search", 3, parallelism - 1, 0).close();
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    /**
+     * Test of shedding requests once the server is full, of class
+     * SudokuSolveServer.
+     */
+    @Test
+    public void testLoadShedding() throws IOException, InterruptedException {
+        System.out.println("loadShedding");
+        server.close();
+        server = new SudokuSolveServer(0, "Dancing Links", 3, 1, 0);
+        server.start();
+
+        boolean shed = false;
+        for (int attempt = 0; attempt < 5 && !shed; attempt++) {        //Retried if a probe took the permit before the held request
+            try (Socket held = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                OutputStream out = held.getOutputStream();
+                out.write(("POST " + SudokuSolveServer.PATH + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: "
+                        + PUZZLE.length() + "\r\n\r\n" + PUZZLE.substring(0, 40)).getBytes(StandardCharsets.US_ASCII));
+                out.flush();                                            //Admitted, then waits for the rest of the body
+                Thread.sleep(50);
+
+                Reply reply = request("GET", "puzzle=" + PUZZLE, null);
+                for (int i = 0; i < 20 && reply.code != 503; i++) {
+                    Thread.sleep(10);
+                    reply = request("GET", "puzzle=" + PUZZLE, null);
+                }
+                shed = reply.code == 503;
+                if (shed) {
+                    assertEquals("1", reply.retryAfter);
+                }
+
+                out.write(PUZZLE.substring(40).getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                byte[] status = new byte[12];
+                int length = 0;
+                InputStream in = held.getInputStream();
+                while (length < status.length) {
+                    int read = in.read(status, length, status.length - length);
+                    assertTrue(read > 0);
+                    length += read;
+                }
+                assertEquals(shed ? "HTTP/1.1 200" : "HTTP/1.1 503", new String(status, StandardCharsets.US_ASCII));
+            }
+        }
+        assertTrue(shed);
+
+        Reply reply = request("GET", "puzzle=" + PUZZLE, null);
+        for (int i = 0; i < 200 && reply.code != 200; i++) {
+            Thread.sleep(10);                                           //Permit given back once the reply is sent
+            reply = request("GET", "puzzle=" + PUZZLE, null);
+        }
+        assertEquals(200, reply.code);                                  //Not asked again, that may race the permit of this reply
+    }
+
+}
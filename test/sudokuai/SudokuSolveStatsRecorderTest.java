@@ -0,0 +1,101 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class SudokuSolveStatsRecorderTest {
+    
+    private static final int BOARDSIZE = 9;
+    
+    public SudokuSolveStatsRecorderTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Builds a result whose only interesting statistic is its elapsed time
+     */
+    private static SudokuSolveResult getResult(SudokuSolveResult.Status status, long elapsedNanos) {
+        return new SudokuSolveResult(status, new Integer[BOARDSIZE][BOARDSIZE],
+                new SudokuSolveStats(1, 0, 0, 1, elapsedNanos, -1));
+    }
+
+    /**
+     * Test of getPercentile method, of class SudokuSolveStatsRecorder.
+     */
+    @Test
+    public void testGetPercentile() {
+        System.out.println("getPercentile");
+        SudokuSolveStatsRecorder instance = new SudokuSolveStatsRecorder();
+        assertEquals(0, instance.getPercentile(50, SudokuSolveStats::getElapsedNanos));
+        
+        for (int i=100;i>=1;i--){
+            instance.solveFinished(null, getResult(SudokuSolveResult.Status.SOLVED, i));
+        }
+        
+        System.out.println("Check the nearest rank is used");
+        assertEquals(1, instance.getPercentile(0, SudokuSolveStats::getElapsedNanos));
+        assertEquals(50, instance.getPercentile(50, SudokuSolveStats::getElapsedNanos));
+        assertEquals(99, instance.getPercentile(99, SudokuSolveStats::getElapsedNanos));
+        assertEquals(100, instance.getPercentile(99.5, SudokuSolveStats::getElapsedNanos));
+        assertEquals(100, instance.getPercentile(100, SudokuSolveStats::getElapsedNanos));
+    }
+    
+    /**
+     * Test of getCount methods, of class SudokuSolveStatsRecorder.
+     */
+    @Test
+    public void testGetCount() {
+        System.out.println("getCount");
+        SudokuSolveStatsRecorder instance = new SudokuSolveStatsRecorder();
+        instance.solveFinished(null, getResult(SudokuSolveResult.Status.SOLVED, 10));
+        instance.solveFinished(null, getResult(SudokuSolveResult.Status.TIMED_OUT, 20));
+        instance.solveFinished(null, getResult(SudokuSolveResult.Status.SOLVED, 30));
+        
+        assertEquals(3, instance.getCount());
+        assertEquals(2, instance.getCount(SudokuSolveResult.Status.SOLVED));
+        assertEquals(1, instance.getCount(SudokuSolveResult.Status.TIMED_OUT));
+        assertEquals(0, instance.getCount(SudokuSolveResult.Status.CANCELLED));
+        
+        instance.clear();
+        assertEquals(0, instance.getCount());
+        assertEquals(0, instance.getCount(SudokuSolveResult.Status.SOLVED));
+    }
+    
+    /**
+     * Test of getPercentile method with an out of range percentile, of class SudokuSolveStatsRecorder.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPercentileOutOfRange() {
+        System.out.println("getPercentile - out of range");
+        new SudokuSolveStatsRecorder().getPercentile(101, SudokuSolveStats::getNodes);
+    }
+    
+}
@@ -58,5 +58,31 @@ public class SudokuSolverModel_AITest {
         
         //if the first cell is not empty then we have a solution!
         assertTrue(userInputPuzzle[0][0] != null);
-    }    
+    }
+    
+    /**
+     * Test of cancelButtonPressed method, of class SudokuSolverModel_AI.
+     */
+    @Test
+    public void testCancelButtonPressed() throws InterruptedException {
+        System.out.println("cancelButtonPressed");
+        SudokuSolverController controller = new SudokuSolverController();
+        SudokuSolverModel_AI instance = new SudokuSolverModel_AI(BOXSIZE);
+        
+        System.out.println("Check cancelling with no solve running does nothing");
+        instance.cancelButtonPressed(controller);
+        
+        System.out.println("Check a cancelled solve stops without solving the puzzle");
+        instance.algorithimSelected(controller, "Backtracking");
+        Integer[][] userInputPuzzle = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        Thread solve = new Thread(() -> instance.solveButtonPressed(userInputPuzzle, controller));
+        solve.start();
+        long giveUp = System.currentTimeMillis() + 10000;
+        while (solve.isAlive() && System.currentTimeMillis() < giveUp){
+            instance.cancelButtonPressed(controller);                   //Repeated as the solve may not have started yet
+            Thread.sleep(5);
+        }
+        solve.join();
+        assertNull(userInputPuzzle[0][0]);
+    }
 }
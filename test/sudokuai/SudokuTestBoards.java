@@ -0,0 +1,55 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+/**
+ * Board checks shared by the algorithm tests
+ *
+ * @author Nik Bradley
+ */
+final class SudokuTestBoards {
+
+    private SudokuTestBoards() {
+    }
+
+    /**
+     * Copies a board so it can be solved without changing the original
+     */
+    static Integer[][] copy(Integer[][] board) {
+        Integer[][] copy = new Integer[board.length][];
+        for (int i = 0; i < board.length; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Checks that a board of any box size is completely filled, keeps the
+     * given values and has no value twice in a row, column or box
+     */
+    static boolean isValidSolution(Integer[][] puzzle, Integer[][] board) {
+        int boardSize = board.length;
+        int boxSize = (int) Math.round(Math.sqrt(boardSize));
+        for (int i=0;i<boardSize;i++){
+            boolean[][] seen = new boolean[3][boardSize+1];
+            for (int j=0;j<boardSize;j++){
+                Integer inRow = board[i][j];
+                Integer inCol = board[j][i];
+                Integer inBox = board[(i/boxSize)*boxSize + j/boxSize][(i%boxSize)*boxSize + j%boxSize];
+                if (inRow == null || inCol == null || inBox == null
+                        || seen[0][inRow] || seen[1][inCol] || seen[2][inBox]){
+                    return false;
+                }
+                if (puzzle[i][j] != null && !puzzle[i][j].equals(inRow)){
+                    return false;
+                }
+                seen[0][inRow] = seen[1][inCol] = seen[2][inBox] = true;
+            }
+        }
+        return true;
+    }
+
+}
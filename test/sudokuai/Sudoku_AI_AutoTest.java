@@ -0,0 +1,225 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_AutoTest {
+
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+
+    public Sudoku_AI_AutoTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Builds a policy picking Backtracking for puzzles with more than 30
+     * clues and Dancing Links for the rest
+     */
+    private static SudokuAutoPolicy cluesPolicy() {
+        return new SudokuAutoPolicy(Arrays.asList("Backtracking", "Dancing Links"), new double[][]{
+            {20, -25, 0, 0, 0}, {20 - 25 * 30.5 / 81, 0, 0, 0, 0}});
+    }
+
+    /**
+     * Test of getSolution method, of class Sudoku_AI_Auto.
+     */
+    @Test
+    public void testGetSolution() {
+        System.out.println("getSolution");
+        String puzzleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE);
+        assertNull(instance.getLastChoice());
+        Integer[][] result = instance.getSolution(puzzle);
+
+        System.out.println("Check puzzle is solved in place as expected");
+        assertSame(puzzle, result);
+        assertEquals(puzzleSolved, SudokuPuzzleFormat.format(result));
+        assertTrue(instance.getAlgorithmNames().contains(instance.getLastChoice()));
+    }
+
+    /**
+     * Test of getSolution method on the bundled benchmark puzzles, reusing one
+     * instance, of class Sudoku_AI_Auto.
+     */
+    @Test
+    public void testGetSolutionBenchmarkPuzzles() throws IOException {
+        System.out.println("getSolution - benchmark puzzles");
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Sudoku_AI_AutoTest.class.getResourceAsStream("benchmark-puzzles.txt"), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Integer[][] result = instance.getSolution(SudokuPuzzleFormat.parse(line, BOARDSIZE));
+                assertTrue(line, SudokuTestBoards.isValidSolution(SudokuPuzzleFormat.parse(line, BOARDSIZE), result));
+            }
+        }
+    }
+
+    /**
+     * Test that the policy picks the algorithm, of class Sudoku_AI_Auto.
+     */
+    @Test
+    public void testSolvePicksByPolicy() {
+        System.out.println("solve - picks by policy");
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE, cluesPolicy());
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+
+        System.out.println("Check the sparse puzzle goes to Dancing Links");
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        assertTrue(result.isSolved());
+        assertEquals("Dancing Links", instance.getLastChoice());
+
+        System.out.println("Check the full puzzle goes to Backtracking");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, null);
+        assertTrue(result.isSolved());
+        assertEquals("Backtracking", instance.getLastChoice());
+
+        System.out.println("Check each solve is published once, as Auto");
+        assertEquals(2, published.size());
+        assertSame(result, published.get(1));
+        assertTrue(result.getStats().getElapsedNanos() > 0);
+    }
+
+    /**
+     * Test of solve method with a puzzle that has no solution, of class
+     * Sudoku_AI_Auto.
+     */
+    @Test
+    public void testSolveNoSolution() {
+        System.out.println("solve - no solution");
+        Integer[][] puzzle = new Integer[BOARDSIZE][BOARDSIZE];
+        puzzle[0][0] = 1;
+        puzzle[1][1] = 1;
+
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+
+        assertEquals(SudokuSolveResult.Status.NO_SOLUTION, result.getStatus());
+        assertNull(result.getSolution()[0][0]);
+    }
+
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_Auto.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE);
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_Auto.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE);
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        assertEquals(2, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 2));
+    }
+
+    /**
+     * Test of solve method on a board of another size, of class
+     * Sudoku_AI_Auto.
+     */
+    @Test
+    public void testSolveOtherSize() {
+        System.out.println("solve - other size");
+        int boxSize = 4;
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(boxSize);
+        assertEquals(Arrays.asList(Sudoku_AI_Auto.OTHERSIZEALGORITHM), instance.getAlgorithmNames());
+        Integer[][] puzzle = new Integer[boxSize*boxSize][boxSize*boxSize];
+        puzzle[0][0] = 16;
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        assertTrue(result.isSolved());
+        assertEquals(Integer.valueOf(16), puzzle[0][0]);
+        assertEquals(Sudoku_AI_Auto.OTHERSIZEALGORITHM, instance.getLastChoice());
+    }
+
+    /**
+     * Test that a policy picking from unknown algorithms is refused, of class
+     * Sudoku_AI_Auto.
+     */
+    @Test
+    public void testConstructorUnknownAlgorithm() {
+        System.out.println("constructor - unknown algorithm");
+        for (String bad : new String[]{"Auto", "Simulated Annealing"}) {
+            SudokuAutoPolicy policy = new SudokuAutoPolicy(Arrays.asList("Dancing Links", bad),
+                    new double[2][SudokuPuzzleFeatures.COUNT]);
+            try {
+                new Sudoku_AI_Auto(BOXSIZE, policy);
+                fail("Expected IllegalArgumentException for " + bad);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    /**
+     * Test of getName method, of class Sudoku_AI_Auto.
+     */
+    @Test
+    public void testGetName() {
+        System.out.println("getName");
+        Sudoku_AI_Auto instance = new Sudoku_AI_Auto(BOXSIZE);
+        assertEquals("Auto", instance.getName());
+    }
+
+}
@@ -5,8 +5,11 @@
  */
 package sudokuai;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 import org.junit.After;
@@ -113,6 +116,27 @@ public class Sudoku_AI_BacktrackingTest {
         assertTrue(!match);
     }
 
+    /**
+     * Test of solve method with a given value the board can't hold, of class
+     * Sudoku_AI_Backtracking.
+     */
+    @Test
+    public void testSolveValueOutOfRange() {
+        System.out.println("solve - value out of range");
+        Sudoku_AI_Backtracking instance = new Sudoku_AI_Backtracking(2);
+        for (int value : new int[]{0, 5, 7}) {
+            Integer[][] puzzle = new Integer[4][4];
+            puzzle[0][0] = value;
+            SudokuSolveResult result = instance.solve(puzzle, null);
+            assertEquals("Given " + value, SudokuSolveResult.Status.NO_SOLUTION, result.getStatus());
+        }
+        
+        System.out.println("Check the same board solves with a value it can hold");
+        Integer[][] puzzle = new Integer[4][4];
+        puzzle[0][0] = 4;
+        assertEquals(SudokuSolveResult.Status.SOLVED, instance.solve(puzzle, null).getStatus());
+    }
+
     /**
      * Test of getName method, of class Sudoku_AI_Backtracking.
      */
@@ -124,5 +148,104 @@ public class Sudoku_AI_BacktrackingTest {
         String result = instance.getName();
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_Backtracking.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_Backtracking instance = new Sudoku_AI_Backtracking(BOXSIZE);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[0][8] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+    
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_Backtracking.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_Backtracking instance = new Sudoku_AI_Backtracking(BOXSIZE);
+        
+        System.out.println("Check a cancelled solve stops with an empty board");
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertFalse(result.isSolved());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+        
+        System.out.println("Check the next solve is not affected");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, new SudokuCancellation());
+        assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+        assertSame(puzzle, result.getSolution());
+        assertFalse(SudokuPuzzleFormat.format(puzzle).contains("0"));
+    }
+    
+    /**
+     * Test of solve method with a deadline, of class Sudoku_AI_Backtracking.
+     */
+    @Test
+    public void testSolveTimedOut() {
+        System.out.println("solve - timed out");
+        Sudoku_AI_Backtracking instance = new Sudoku_AI_Backtracking(BOXSIZE);
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, SudokuCancellation.withTimeout(0, TimeUnit.MILLISECONDS));
+        assertEquals(SudokuSolveResult.Status.TIMED_OUT, result.getStatus());
+        assertFalse(result.isSolved());
+    }
+    
+    /**
+     * Test of the statistics returned by solve, of class Sudoku_AI_Backtracking.
+     */
+    @Test
+    public void testSolveStats() {
+        System.out.println("solve - stats");
+        Sudoku_AI_Backtracking instance = new Sudoku_AI_Backtracking(BOXSIZE);
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+        
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        SudokuSolveStats stats = result.getStats();
+        
+        System.out.println("Check the search was counted");
+        assertTrue(result.isSolved());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getBacktracks() > 0);
+        assertTrue(stats.getElapsedNanos() > 0);
+        assertEquals(0, stats.getPropagations());
+        assertEquals(60, stats.getMaxDepth());                          //One level for every empty cell
+        
+        System.out.println("Check the result was published to the listener");
+        assertEquals(1, published.size());
+        assertSame(result, published.get(0));
+        
+        System.out.println("Check the counters start again for the next solve");
+        instance.setSolveListener(null);
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        assertTrue(instance.solve(puzzle, null).getStats().getNodes() < stats.getNodes());
+        assertEquals(1, published.size());
+    }
     
 }
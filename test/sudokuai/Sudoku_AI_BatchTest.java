@@ -0,0 +1,234 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_BatchTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    private static final String[] PUZZLES = {
+        "800000000003600000070090200050007000000045700000100030001000068008500010090000400",
+        "249180000000460091100000070000500900701892000608000105872941350010700040500008700",
+        "110000000000000000000000000000000000000000000000000000000000000000000000000000000"
+    };
+    private static final String[] SOLUTIONS = {
+        "812753649943682175675491283154237896369845721287169534521974368438526917796318452",
+        "249187563387465291165239478423516987751892634698374125872941356916753842534628719",
+        null
+    };
+    
+    public Sudoku_AI_BatchTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Builds the list of puzzles to solve, each preset repeated a number of times
+     */
+    private static List<Integer[][]> getPuzzles(int repeats) {
+        List<Integer[][]> puzzles = new ArrayList<>();
+        for (int i=0;i<repeats;i++){
+            for (String puzzle : PUZZLES){
+                puzzles.add(SudokuPuzzleFormat.parse(puzzle, BOARDSIZE));
+            }
+        }
+        return puzzles;
+    }
+    
+    /**
+     * Checks a result against the expected solution for its index
+     */
+    private static void checkResult(SudokuSolveResult result, long index) {
+        String expected = SOLUTIONS[(int) (index % PUZZLES.length)];
+        if (expected == null){
+            assertEquals(SudokuSolveResult.Status.NO_SOLUTION, result.getStatus());
+            for (Integer[] row : result.getSolution()){
+                assertArrayEquals(new Integer[BOARDSIZE], row);
+            }
+        } else {
+            assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+            Integer[][] solution = SudokuPuzzleFormat.parse(expected, BOARDSIZE);
+            for (int i=0;i<BOARDSIZE;i++){
+                assertArrayEquals(solution[i], result.getSolution()[i]);
+            }
+        }
+    }
+
+    /**
+     * Test of solveAll method in input order, of class Sudoku_AI_Batch.
+     */
+    @Test
+    public void testSolveAllOrdered() {
+        System.out.println("solveAll - ordered");
+        List<Long> indexes = new ArrayList<>();
+        
+        try (Sudoku_AI_Batch instance = new Sudoku_AI_Batch("Dancing Links", BOXSIZE, 4)) {
+            instance.solveAll(getPuzzles(20).iterator(), true, (SudokuSolveResult result, long index) -> {
+                checkResult(result, index);
+                indexes.add(index);
+            });
+        }
+        
+        assertEquals(60, indexes.size());
+        for (int i=0;i<indexes.size();i++){
+            assertEquals(i, (long) indexes.get(i));
+        }
+    }
+    
+    /**
+     * Test of solveAll method as each puzzle finishes, of class Sudoku_AI_Batch.
+     */
+    @Test
+    public void testSolveAllUnordered() {
+        System.out.println("solveAll - unordered");
+        boolean[] seen = new boolean[60];
+        
+        try (Sudoku_AI_Batch instance = new Sudoku_AI_Batch("Backtracking - FC - MRV", BOXSIZE, 3)) {
+            instance.solveAll(getPuzzles(20).stream(), false, (SudokuSolveResult result, long index) -> {
+                checkResult(result, index);
+                assertFalse(seen[(int) index]);
+                seen[(int) index] = true;
+            });
+        }
+        
+        boolean[] expected = new boolean[60];
+        Arrays.fill(expected, true);
+        assertArrayEquals(expected, seen);
+    }
+    
+    /**
+     * Test of solveAll method with a time budget for each puzzle, of class Sudoku_AI_Batch.
+     */
+    @Test
+    public void testSolveAllTimeout() {
+        System.out.println("solveAll - timeout");
+        List<SudokuSolveResult.Status> statuses = new ArrayList<>();
+        List<Integer[][]> puzzles = new ArrayList<>();
+        for (int i=0;i<10;i++){
+            puzzles.add(SudokuPuzzleFormat.parse(PUZZLES[0], BOARDSIZE));
+        }
+        
+        try (Sudoku_AI_Batch instance = new Sudoku_AI_Batch("Backtracking", BOXSIZE, 2)) {
+            instance.setTimeout(1, TimeUnit.NANOSECONDS);
+            instance.solveAll(puzzles.iterator(), true, (SudokuSolveResult result, long index) -> {
+                statuses.add(result.getStatus());
+            });
+            
+            instance.setTimeout(0, TimeUnit.SECONDS);
+            instance.solveAll(getPuzzles(1).iterator(), true, (SudokuSolveResult result, long index) -> {
+                checkResult(result, index);
+            });
+        }
+        
+        assertEquals(10, statuses.size());
+        for (SudokuSolveResult.Status status : statuses){
+            assertEquals(SudokuSolveResult.Status.TIMED_OUT, status);
+        }
+    }
+    
+    /**
+     * Test of setSolveListener method, of class Sudoku_AI_Batch.
+     */
+    @Test
+    public void testSetSolveListener() {
+        System.out.println("setSolveListener");
+        SudokuSolveStatsRecorder recorder = new SudokuSolveStatsRecorder();
+        
+        try (Sudoku_AI_Batch instance = new Sudoku_AI_Batch("Dancing Links", BOXSIZE, 3)) {
+            instance.setSolveListener(recorder);
+            instance.solveAll(getPuzzles(10).iterator(), false, (SudokuSolveResult result, long index) -> {
+                checkResult(result, index);
+            });
+        }
+        
+        assertEquals(30, recorder.getCount());
+        assertEquals(20, recorder.getCount(SudokuSolveResult.Status.SOLVED));
+        assertEquals(10, recorder.getCount(SudokuSolveResult.Status.NO_SOLUTION));
+        assertTrue(recorder.getPercentile(50, SudokuSolveStats::getElapsedNanos)
+                <= recorder.getPercentile(99, SudokuSolveStats::getElapsedNanos));
+    }
+    
+    /**
+     * Test of solveAll method with a solution cache, of class Sudoku_AI_Batch.
+     */
+    @Test
+    public void testSolveAllCached() {
+        System.out.println("solveAll - cached");
+        SudokuSolutionCache cache = new SudokuSolutionCache(10);
+        
+        try (Sudoku_AI_Batch instance = new Sudoku_AI_Batch("Dancing Links", BOXSIZE, 3, cache)) {
+            instance.solveAll(getPuzzles(20).iterator(), true, (SudokuSolveResult result, long index) -> {
+                checkResult(result, index);
+            });
+        }
+        
+        System.out.println("Check each preset is searched for at most once per worker");
+        assertEquals(PUZZLES.length, cache.size());
+        assertEquals(60, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getMissCount() <= 3 * PUZZLES.length);
+    }
+    
+    /**
+     * Test that an Error thrown on a worker reaches the caller instead of
+     * leaving it waiting, of class Sudoku_AI_Batch.
+     */
+    @Test(timeout = 10000)
+    public void testSolveAllWorkerError() {
+        System.out.println("solveAll - worker error");
+        try (Sudoku_AI_Batch instance = new Sudoku_AI_Batch("Dancing Links", BOXSIZE, 2)) {
+            instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+                throw new AssertionError("Thrown by the listener");
+            });
+            try {
+                instance.solveAll(getPuzzles(3).iterator(), true, (SudokuSolveResult result, long index) -> {
+                    fail("No puzzle should be delivered");
+                });
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getCause() instanceof AssertionError);
+            }
+        }
+    }
+    
+    /**
+     * Test of the constructor with an unknown algorithm, of class Sudoku_AI_Batch.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAlgorithm() {
+        System.out.println("Sudoku_AI_Batch - unknown algorithm");
+        new Sudoku_AI_Batch("Guessing", BOXSIZE, 1).close();
+    }
+    
+}
@@ -0,0 +1,168 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_CachedTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    
+    public Sudoku_AI_CachedTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Test of solve method on transforms of a cached puzzle, of class Sudoku_AI_Cached.
+     */
+    @Test
+    public void testSolveTransformsHit() {
+        System.out.println("solve - transforms hit the cache");
+        SudokuSolutionCache cache = new SudokuSolutionCache(10);
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_DancingLinks(BOXSIZE), cache);
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        
+        SudokuSolveResult first = instance.solve(SudokuTestBoards.copy(puzzle), null);
+        assertTrue(first.isSolved());
+        assertTrue(first.getStats().getNodes() > 0);
+        
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            Integer[][] transformed = SudokuCanonicalizerTest.randomTransform(puzzle, random);
+            Integer[][] board = SudokuTestBoards.copy(transformed);
+            SudokuSolveResult result = instance.solve(board, null);
+            assertTrue(result.isSolved());
+            assertSame(board, result.getSolution());
+            assertEquals(0, result.getStats().getNodes());
+            assertTrue(SudokuTestBoards.isValidSolution(transformed, board));
+        }
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+    
+    /**
+     * Test of solve method on a puzzle with no solution, of class Sudoku_AI_Cached.
+     */
+    @Test
+    public void testSolveNoSolutionCached() {
+        System.out.println("solve - no solution cached");
+        SudokuSolutionCache cache = new SudokuSolutionCache(10);
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_DancingLinks(BOXSIZE), cache);
+        String unsolvable = "11" + SudokuSolverController.IMPOSSIBLE_PUZZLE.substring(2);
+        
+        for (int i = 0; i < 2; i++) {
+            SudokuSolveResult result = instance.solve(SudokuPuzzleFormat.parse(unsolvable, BOARDSIZE), null);
+            assertEquals(SudokuSolveResult.Status.NO_SOLUTION, result.getStatus());
+            assertNull(result.getSolution()[0][0]);
+        }
+        assertEquals(1, cache.getHitCount());
+    }
+    
+    /**
+     * Test of solve method once the cache is full, of class Sudoku_AI_Cached.
+     */
+    @Test
+    public void testSolveEvictsLeastRecentlyUsed() {
+        System.out.println("solve - evicts least recently used");
+        SudokuSolutionCache cache = new SudokuSolutionCache(1);
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_DancingLinks(BOXSIZE), cache);
+        
+        instance.getSolution(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        instance.getSolution(SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE));
+        instance.getSolution(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+    
+    /**
+     * Test of solve method with a stopped search, of class Sudoku_AI_Cached.
+     */
+    @Test
+    public void testSolveCancelledNotCached() {
+        System.out.println("solve - cancelled not cached");
+        SudokuSolutionCache cache = new SudokuSolutionCache(10);
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_DancingLinks(BOXSIZE), cache);
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        
+        SudokuSolveResult result = instance.solve(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE), cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertEquals(0, cache.size());
+    }
+    
+    /**
+     * Test of solve method on a puzzle with too many clues to cache, of class
+     * Sudoku_AI_Cached.
+     */
+    @Test
+    public void testSolveDenseNotCached() {
+        System.out.println("solve - dense not cached");
+        SudokuSolutionCache cache = new SudokuSolutionCache(10);
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_DancingLinks(BOXSIZE), cache);
+        Integer[][] solution = new Sudoku_AI_DancingLinks(BOXSIZE).getSolution(SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE));
+        
+        Integer[][] puzzle = SudokuTestBoards.copy(solution);
+        for (int i = 0; i < 11; i++) {
+            puzzle[i / BOXSIZE][i % BOXSIZE * BOXSIZE] = null;
+        }
+        Integer[][] dense = SudokuTestBoards.copy(puzzle);
+        dense[0][0] = solution[0][0];
+        SudokuSolveResult result = instance.solve(SudokuTestBoards.copy(dense), null);
+        assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+        assertTrue(SudokuTestBoards.isValidSolution(dense, result.getSolution()));
+        assertEquals(0, cache.size());
+        
+        System.out.println("Check 70 clues are still cached");
+        assertTrue(instance.solve(SudokuTestBoards.copy(puzzle), null).isSolved());
+        assertEquals(1, cache.size());
+    }
+    
+    /**
+     * Test of setSolveListener method, of class Sudoku_AI_Cached.
+     */
+    @Test
+    public void testSetSolveListener() {
+        System.out.println("setSolveListener");
+        SudokuSolveStatsRecorder recorder = new SudokuSolveStatsRecorder();
+        Sudoku_AI_Cached instance = new Sudoku_AI_Cached(new Sudoku_AI_DancingLinks(BOXSIZE), new SudokuSolutionCache(10));
+        instance.setSolveListener(recorder);
+        
+        instance.getSolution(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        instance.getSolution(SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE));
+        assertEquals(2, recorder.getCount(SudokuSolveResult.Status.SOLVED));
+        assertEquals("Dancing Links (cached)", instance.getName());
+    }
+    
+}
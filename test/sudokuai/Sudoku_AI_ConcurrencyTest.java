@@ -0,0 +1,159 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Runs engines of different box sizes on many threads at once and checks
+ * every solution and step count matches a solve done on its own.
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_ConcurrencyTest {
+    
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 25;
+    private static final String INKALA = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String EASY = "249180000000460091100000070000500900701892000608000105872941350010700040500008700";
+    private static final String SMALL = "1000000200000040";
+    
+    public Sudoku_AI_ConcurrencyTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Builds a puzzle from a string, 0 is an empty cell
+     */
+    private static Integer[][] toPuzzle(String puzzleString) {
+        int boardSize = (int) Math.sqrt(puzzleString.length());
+        Integer[][] puzzle = new Integer[boardSize][boardSize];
+        for (int i=0;i<puzzleString.length();i++){
+            int value = puzzleString.charAt(i) - '0';
+            if (value != 0){
+                puzzle[i/boardSize][i%boardSize] = value;
+            }
+        }
+        return puzzle;
+    }
+    
+    /**
+     * One engine configuration and the puzzle it solves
+     */
+    private static class Job {
+        final IntFunction<Sudoku_AI> engine;
+        final ToIntFunction<Sudoku_AI> steps;
+        final int boxSize;
+        final String puzzle;
+        Integer[][] expectedSolution;
+        int expectedSteps;
+        
+        Job(IntFunction<Sudoku_AI> engine, ToIntFunction<Sudoku_AI> steps, int boxSize, String puzzle) {
+            this.engine = engine;
+            this.steps = steps;
+            this.boxSize = boxSize;
+            this.puzzle = puzzle;
+        }
+    }
+    
+    private static List<Job> getJobs() {
+        ToIntFunction<Sudoku_AI> backSteps = (Sudoku_AI ai) -> ((Sudoku_AI_Backtracking) ai).getSteps();
+        ToIntFunction<Sudoku_AI> fcSteps = (Sudoku_AI ai) -> ((Sudoku_AI_ForwardChecking) ai).getSteps();
+        List<Job> jobs = new ArrayList<>();
+        jobs.add(new Job(Sudoku_AI_Backtracking::new, backSteps, 3, EASY));
+        jobs.add(new Job(Sudoku_AI_Backtracking::new, backSteps, 2, SMALL));
+        jobs.add(new Job(Sudoku_AI_ForwardChecking::new, fcSteps, 3, INKALA));
+        jobs.add(new Job(Sudoku_AI_ForwardChecking::new, fcSteps, 2, SMALL));
+        jobs.add(new Job((int box) -> new Sudoku_AI_ForwardChecking(box, true), fcSteps, 3, INKALA));
+        jobs.add(new Job((int box) -> new Sudoku_AI_ForwardChecking(box, true), fcSteps, 2, SMALL));
+        jobs.add(new Job((int box) -> new Sudoku_AI_ForwardChecking(box, false, true), fcSteps, 3, INKALA));
+        jobs.add(new Job((int box) -> new Sudoku_AI_ForwardChecking(box, true, true), fcSteps, 2, SMALL));
+        return jobs;
+    }
+
+    /**
+     * Test of solving concurrently with engines of different box sizes.
+     * Each thread builds its own engines, all the threads start together and
+     * every result is compared with a solve run on its own first.
+     */
+    @Test
+    public void testConcurrentSolves() throws Exception {
+        System.out.println("concurrent solves");
+        List<Job> jobs = getJobs();
+        for (Job job : jobs) {
+            Sudoku_AI engine = job.engine.apply(job.boxSize);
+            job.expectedSolution = engine.getSolution(toPuzzle(job.puzzle));
+            job.expectedSteps = job.steps.applyAsInt(engine);
+            assertNotNull(job.expectedSolution[0][0]);
+        }
+        
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t=0;t<THREADS;t++){
+            final int offset = t;
+            Callable<Integer> worker = () -> {
+                List<Sudoku_AI> engines = new ArrayList<>();
+                for (int j=0;j<jobs.size();j++){
+                    Job job = jobs.get((j + offset) % jobs.size());
+                    engines.add(job.engine.apply(job.boxSize));                      //Constructing engines of other sizes must not disturb running ones
+                }
+                start.await();
+                int solved = 0;
+                for (int round=0;round<ROUNDS;round++){
+                    for (int j=0;j<jobs.size();j++){
+                        Job job = jobs.get((j + offset) % jobs.size());
+                        Sudoku_AI engine = engines.get(j);
+                        Integer[][] result = engine.getSolution(toPuzzle(job.puzzle));
+                        assertTrue(engine.getName() + " " + job.puzzle, Arrays.deepEquals(job.expectedSolution, result));
+                        assertEquals(engine.getName() + " " + job.puzzle, job.expectedSteps, job.steps.applyAsInt(engine));
+                        solved++;
+                    }
+                }
+                return solved;
+            };
+            results.add(threads.submit(worker));
+        }
+        
+        int total = 0;
+        for (Future<Integer> result : results){
+            total += result.get();                                                   //Rethrows any assertion failure from the worker
+        }
+        threads.shutdown();
+        assertEquals(THREADS * ROUNDS * jobs.size(), total);
+    }
+    
+}
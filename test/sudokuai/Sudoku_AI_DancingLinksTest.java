@@ -0,0 +1,202 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_DancingLinksTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    
+    public Sudoku_AI_DancingLinksTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Test of getSolution method, of class Sudoku_AI_DancingLinks.
+     * The hard puzzle has more than one solution so any valid one is accepted.
+     */
+    @Test
+    public void testGetSolution() {
+        System.out.println("getSolution");
+        String puzzleString = "000000000000003085001020000000507000004000100090000000500000073002010000000400009";
+        
+        Sudoku_AI_DancingLinks instance = new Sudoku_AI_DancingLinks(BOXSIZE);
+        Integer[][] result = instance.getSolution(SudokuPuzzleFormat.parse(puzzleString, BOARDSIZE));
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(puzzleString, BOARDSIZE);
+        
+        /**
+         * Check that the puzzle was set correctly and returns a solved board, not a copy of the original
+         */
+        for (int i=0;i<BOARDSIZE;i++){
+            System.out.println("Check puzzle is changed");
+            assertThat(puzzle[i], not(equalTo(result[i])));
+            System.out.println(Arrays.toString(puzzle[i]) +"!="+ Arrays.toString(result[i]));
+        }
+        System.out.println("Check puzzle is solved");
+        assertTrue(SudokuTestBoards.isValidSolution(puzzle, result));
+    }
+    
+    /**
+     * Test that the cover matrix is restored between puzzles, so one instance
+     * can solve several puzzles in a row including after a failed one.
+     */
+    @Test
+    public void testGetSolutionReusesMatrix() {
+        System.out.println("getSolution - reuse");
+        String impossible = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+        String impossibleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        
+        Sudoku_AI_DancingLinks instance = new Sudoku_AI_DancingLinks(BOXSIZE);
+        
+        Integer[][] clash = new Integer[BOARDSIZE][BOARDSIZE];
+        clash[0][0] = 5;
+        clash[0][8] = 5;
+        Integer[][] result = instance.getSolution(clash);
+        System.out.println("Check a contradicting puzzle returns a blank board");
+        assertNull(result[0][0]);
+        
+        for (int run=0;run<2;run++){
+            result = instance.getSolution(SudokuPuzzleFormat.parse(impossible, BOARDSIZE));
+            Integer[][] expected = SudokuPuzzleFormat.parse(impossibleSolved, BOARDSIZE);
+            for (int i=0;i<BOARDSIZE;i++){
+                assertArrayEquals(expected[i], result[i]);
+            }
+        }
+    }
+
+    /**
+     * Test of getName method, of class Sudoku_AI_DancingLinks.
+     */
+    @Test
+    public void testGetName() {
+        System.out.println("getName");
+        Sudoku_AI_DancingLinks instance = new Sudoku_AI_DancingLinks(BOXSIZE);
+        String expResult = "Dancing Links";
+        String result = instance.getName();
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_DancingLinks.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_DancingLinks instance = new Sudoku_AI_DancingLinks(BOXSIZE);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        Integer[][] hard = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertEquals(2, instance.countSolutions(hard, 2));
+        assertEquals(SudokuSolverController.HARD_PUZZLE, SudokuPuzzleFormat.format(hard));
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[0][8] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+    
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_DancingLinks.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_DancingLinks instance = new Sudoku_AI_DancingLinks(BOXSIZE);
+        
+        System.out.println("Check a cancelled solve stops with an empty board");
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertFalse(result.isSolved());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+        
+        System.out.println("Check the next solve is not affected");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, new SudokuCancellation());
+        assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+        assertSame(puzzle, result.getSolution());
+        assertFalse(SudokuPuzzleFormat.format(puzzle).contains("0"));
+    }
+    
+    /**
+     * Test of the statistics returned by solve, of class Sudoku_AI_DancingLinks.
+     */
+    @Test
+    public void testSolveStats() {
+        System.out.println("solve - stats");
+        Sudoku_AI_DancingLinks instance = new Sudoku_AI_DancingLinks(BOXSIZE);
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+        
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        SudokuSolveStats stats = result.getStats();
+        
+        System.out.println("Check the search was counted");
+        assertTrue(result.isSolved());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getBacktracks() > 0);
+        assertTrue(stats.getElapsedNanos() > 0);
+        assertTrue(stats.getPropagations() > 0);
+        assertEquals(60, stats.getMaxDepth());                          //One row for every empty cell
+        
+        System.out.println("Check the result was published to the listener");
+        assertEquals(1, published.size());
+        assertSame(result, published.get(0));
+        
+        System.out.println("Check the counters start again for the next solve");
+        instance.setSolveListener(null);
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        assertTrue(instance.solve(puzzle, null).getStats().getNodes() < stats.getNodes());
+        assertEquals(1, published.size());
+    }
+    
+}
@@ -5,6 +5,7 @@
  */
 package sudokuai;
 
+import java.util.Random;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -38,7 +39,25 @@ public class Sudoku_AI_FactoryTest {
     @After
     public void tearDown() {
     }
-
+    
+    /**
+     * Makes a puzzle from a patterned solution of any box size, keeping each
+     * value with the given chance
+     */
+    private static Integer[][] patternPuzzle(int boxSize, double keep, long seed) {
+        int boardSize = boxSize * boxSize;
+        Random random = new Random(seed);
+        Integer[][] puzzle = new Integer[boardSize][boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            for (int j = 0; j < boardSize; j++) {
+                if (random.nextDouble() < keep) {
+                    puzzle[i][j] = (i * boxSize + i / boxSize + j) % boardSize + 1;
+                }
+            }
+        }
+        return puzzle;
+    }
+    
     /**
      * Test of getAlgorithm method, of class Sudoku_AI_Factory.
      * using Backtracking call
@@ -67,4 +86,117 @@ public class Sudoku_AI_FactoryTest {
         assertEquals(expResult.getName(), result.getName());
     }
     
+    /**
+     * Test of getAlgorithm method, of class Sudoku_AI_Factory.
+     * using Dancing Links call
+     */
+    @Test
+    public void testGetDancingLinksAlgorithm() {
+        System.out.println("getAlgorithm - Dancing Links");
+        String algorithm = "Dancing Links";
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        Sudoku_AI expResult = new Sudoku_AI_DancingLinks(BOXSIZE);
+        Sudoku_AI result = instance.getAlgorithm(algorithm,BOXSIZE);
+        assertEquals(expResult.getName(), result.getName());
+    }
+    
+    /**
+     * Test of getAlgorithm method, of class Sudoku_AI_Factory.
+     * using Backtracking with Forward Checking and MRV call
+     */
+    @Test
+    public void testGetBacktrackingFCMRVAlgorithm() {
+        System.out.println("getAlgorithm - Backtracking with Forward Checking and MRV");
+        String algorithm = "Backtracking - FC - MRV";
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        Sudoku_AI expResult = new Sudoku_AI_ForwardChecking(BOXSIZE, true);
+        Sudoku_AI result = instance.getAlgorithm(algorithm,BOXSIZE);
+        assertEquals(expResult.getName(), result.getName());
+    }
+    
+    /**
+     * Test of getAlgorithm method, of class Sudoku_AI_Factory.
+     * using Backtracking with Maintaining Arc Consistency call
+     */
+    @Test
+    public void testGetBacktrackingMACAlgorithm() {
+        System.out.println("getAlgorithm - Backtracking with Maintaining Arc Consistency");
+        String algorithm = "Backtracking - MAC";
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        Sudoku_AI expResult = new Sudoku_AI_ForwardChecking(BOXSIZE, false, true);
+        Sudoku_AI result = instance.getAlgorithm(algorithm,BOXSIZE);
+        assertEquals(expResult.getName(), result.getName());
+    }
+    
+    /**
+     * Test of getAlgorithm method, of class Sudoku_AI_Factory.
+     * using Parallel Search call
+     */
+    @Test
+    public void testGetParallelAlgorithm() {
+        System.out.println("getAlgorithm - Parallel Search");
+        String algorithm = "Parallel Search";
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        Sudoku_AI expResult = new Sudoku_AI_Parallel(BOXSIZE);
+        Sudoku_AI result = instance.getAlgorithm(algorithm,BOXSIZE);
+        assertEquals(expResult.getName(), result.getName());
+    }
+    
+    /**
+     * Test of getAlgorithmNames method, of class Sudoku_AI_Factory.
+     */
+    @Test
+    public void testGetAlgorithmNames() {
+        System.out.println("getAlgorithmNames");
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        assertEquals(9, instance.getAlgorithmNames().size());
+        for (String algorithm : instance.getAlgorithmNames()) {
+            assertNotNull(algorithm, instance.getAlgorithm(algorithm,BOXSIZE));
+        }
+    }
+    
+    /**
+     * Test of getAlgorithm method, of class Sudoku_AI_Factory.
+     * solving 16x16 and 25x25 puzzles with every algorithm
+     */
+    @Test
+    public void testGetAlgorithmLargeBoards() {
+        System.out.println("getAlgorithm - 16x16 and 25x25 boards");
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        for (int boxSize = 4; boxSize <= 5; boxSize++) {
+            Integer[][] puzzle = patternPuzzle(boxSize, 0.65, boxSize);
+            for (String algorithm : instance.getAlgorithmNames()) {
+                Sudoku_AI ai = instance.getAlgorithm(algorithm, boxSize);
+                Integer[][] board = SudokuTestBoards.copy(puzzle);
+                SudokuSolveResult result = ai.solve(board, null);
+                assertTrue(algorithm + " " + boxSize, result.isSolved());
+                assertTrue(algorithm + " " + boxSize, SudokuTestBoards.isValidSolution(puzzle, result.getSolution()));
+            }
+        }
+    }
+    
+    /**
+     * Test of getAlgorithm method, of class Sudoku_AI_Factory.
+     * boards too wide for a long bitmask use the wide search, except Dancing Links
+     */
+    @Test
+    public void testGetAlgorithmWideBoard() {
+        System.out.println("getAlgorithm - 81x81 board");
+        int boxSize = 9;
+        Sudoku_AI_Factory instance = new Sudoku_AI_Factory();
+        assertEquals(new Sudoku_AI_WideSearch(boxSize).getName(), instance.getAlgorithm("Backtracking - MAC", boxSize).getName());
+        assertEquals(new Sudoku_AI_DancingLinks(boxSize).getName(), instance.getAlgorithm("Dancing Links", boxSize).getName());
+        
+        Integer[][] puzzle = patternPuzzle(boxSize, 0.8, boxSize);
+        Integer[][] board = SudokuTestBoards.copy(puzzle);
+        SudokuSolveResult result = instance.getAlgorithm("Backtracking - FC - MRV", boxSize).solve(board, null);
+        assertTrue(result.isSolved());
+        assertTrue(SudokuTestBoards.isValidSolution(puzzle, board));
+        
+        puzzle[0][0] = puzzle[0][1] = 5;
+        result = instance.getAlgorithm("Backtracking", boxSize).solve(SudokuTestBoards.copy(puzzle), null);
+        assertEquals(SudokuSolveResult.Status.NO_SOLUTION, result.getStatus());
+        assertNull(result.getSolution()[0][0]);
+    }
+    
 }
@@ -5,8 +5,11 @@
  */
 package sudokuai;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 import org.junit.After;
@@ -126,4 +129,283 @@ public class Sudoku_AI_ForwardCheckingTest {
         assertEquals(expResult, result);
     }
     
+    /**
+     * Test of getSolution method using MRV ordering, of class Sudoku_AI_ForwardChecking.
+     * Solves the impossible puzzle twice with the same instance, it has a single solution.
+     */
+    @Test
+    public void testGetSolutionMRV() {
+        System.out.println("getSolution - MRV");
+        String puzzleString = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+        String puzzleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, true);
+        
+        for (int run=0;run<2;run++){
+            Integer[][] puzzle = new Integer[BOARDSIZE][BOARDSIZE];
+            for (int i=0;i<BOARDSIZE;i++){
+                for (int j=0;j<BOARDSIZE;j++){
+                    int value = puzzleString.charAt(i*BOARDSIZE+j) - '0';
+                    if (value != 0){
+                        puzzle[i][j] = value;
+                    }
+                }
+            }
+            
+            Integer[][] result = instance.getSolution(puzzle);
+            
+            for (int i=0;i<BOARDSIZE;i++){
+                for (int j=0;j<BOARDSIZE;j++){
+                    assertEquals(Integer.valueOf(puzzleSolved.charAt(i*BOARDSIZE+j) - '0'), result[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of getName method using MRV ordering, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testGetNameMRV() {
+        System.out.println("getName - MRV");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, true);
+        String expResult = "Backtracking with Forward Checking and MRV";
+        String result = instance.getName();
+        assertEquals(expResult, result);
+    }
+    
+    /**
+     * Test of getSolution method maintaining arc consistency, of class Sudoku_AI_ForwardChecking.
+     * Checks the impossible puzzle is solved and MAC tries fewer values than plain forward checking.
+     */
+    @Test
+    public void testGetSolutionMAC() {
+        System.out.println("getSolution - MAC");
+        String puzzleString = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+        String puzzleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        
+        Sudoku_AI_ForwardChecking plain = new Sudoku_AI_ForwardChecking(BOXSIZE);
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, false, true);
+        Integer[][] puzzle = new Integer[BOARDSIZE][BOARDSIZE];
+        Integer[][] plainPuzzle = new Integer[BOARDSIZE][BOARDSIZE];
+        for (int i=0;i<BOARDSIZE;i++){
+            for (int j=0;j<BOARDSIZE;j++){
+                int value = puzzleString.charAt(i*BOARDSIZE+j) - '0';
+                if (value != 0){
+                    puzzle[i][j] = value;
+                    plainPuzzle[i][j] = value;
+                }
+            }
+        }
+        
+        plain.getSolution(plainPuzzle);
+        int plainSteps = plain.getSteps();
+        Integer[][] result = instance.getSolution(puzzle);
+        
+        for (int i=0;i<BOARDSIZE;i++){
+            for (int j=0;j<BOARDSIZE;j++){
+                assertEquals(Integer.valueOf(puzzleSolved.charAt(i*BOARDSIZE+j) - '0'), result[i][j]);
+            }
+        }
+        System.out.println("FC steps = " + plainSteps + ", MAC steps = " + instance.getSteps());
+        assertTrue(instance.getSteps() < plainSteps);
+    }
+
+    /**
+     * Test of getName method maintaining arc consistency, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testGetNameMAC() {
+        System.out.println("getName - MAC");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, false, true);
+        String expResult = "Backtracking with Maintaining Arc Consistency";
+        String result = instance.getName();
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        Integer[][] hard = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertEquals(2, instance.countSolutions(hard, 2));
+        assertEquals(SudokuSolverController.HARD_PUZZLE, SudokuPuzzleFormat.format(hard));
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[0][8] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testCountSolutionsMRV() {
+        System.out.println("countSolutions - MRV");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, true);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        Integer[][] hard = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertEquals(2, instance.countSolutions(hard, 2));
+        assertEquals(SudokuSolverController.HARD_PUZZLE, SudokuPuzzleFormat.format(hard));
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[0][8] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testCountSolutionsMAC() {
+        System.out.println("countSolutions - MAC");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, false, true);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        Integer[][] hard = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertEquals(2, instance.countSolutions(hard, 2));
+        assertEquals(SudokuSolverController.HARD_PUZZLE, SudokuPuzzleFormat.format(hard));
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[0][8] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+    
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, true, true);
+        
+        System.out.println("Check a cancelled solve stops with an empty board");
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertFalse(result.isSolved());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+        
+        System.out.println("Check the next solve is not affected");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, new SudokuCancellation());
+        assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+        assertSame(puzzle, result.getSolution());
+        assertFalse(SudokuPuzzleFormat.format(puzzle).contains("0"));
+    }
+    
+    /**
+     * Test that solve leaves the input as it was given unless it solves it,
+     * including the cells filled by propagation, in every mode of class
+     * Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testSolveLeavesInputOnFailure() {
+        System.out.println("solve - input left on failure");
+        String noSolution = "860000000003600000070090200050007000000045700000100030001000068008500010090000400";
+        for (boolean[] mode : new boolean[][]{{false, false}, {true, false}, {true, true}}) {
+            Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, mode[0], mode[1]);
+
+            System.out.println("Check " + instance.getName() + " after no solution");
+            Integer[][] puzzle = SudokuPuzzleFormat.parse(noSolution, BOARDSIZE);
+            assertEquals(SudokuSolveResult.Status.NO_SOLUTION, instance.solve(puzzle, null).getStatus());
+            assertEquals(noSolution, SudokuPuzzleFormat.format(puzzle));    //Propagation fills a cell before the search fails
+
+            System.out.println("Check " + instance.getName() + " after a cancellation");
+            SudokuCancellation cancellation = new SudokuCancellation();
+            cancellation.cancel();
+            puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+            assertEquals(SudokuSolveResult.Status.CANCELLED, instance.solve(puzzle, cancellation).getStatus());
+            assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(puzzle));
+
+            System.out.println("Check " + instance.getName() + " after a timeout");
+            puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+            SudokuSolveResult result = instance.solve(puzzle, SudokuCancellation.withTimeout(0, TimeUnit.MILLISECONDS));
+            assertEquals(SudokuSolveResult.Status.TIMED_OUT, result.getStatus());
+            assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(puzzle));
+
+            System.out.println("Check " + instance.getName() + " keeps a board propagation completes");
+            puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+            assertEquals(SudokuSolveResult.Status.SOLVED, instance.solve(puzzle, cancellation).getStatus());
+            assertFalse(SudokuPuzzleFormat.format(puzzle).contains("0"));
+        }
+    }
+
+    /**
+     * Test of the statistics returned by solve, of class Sudoku_AI_ForwardChecking.
+     */
+    @Test
+    public void testSolveStats() {
+        System.out.println("solve - stats");
+        Sudoku_AI_ForwardChecking instance = new Sudoku_AI_ForwardChecking(BOXSIZE, true, true);
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+        
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        SudokuSolveStats stats = result.getStats();
+        
+        System.out.println("Check the search was counted");
+        assertTrue(result.isSolved());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getBacktracks() > 0);
+        assertTrue(stats.getElapsedNanos() > 0);
+        assertTrue(stats.getPropagations() > 0);
+        assertTrue(stats.getMaxDepth() > 0 && stats.getMaxDepth() <= 60);
+        
+        System.out.println("Check the empty cells are split between propagation and search");
+        int empty = SudokuSolverController.IMPOSSIBLE_PUZZLE.replaceAll("[1-9]", "").length();
+        assertTrue(stats.getSearchCells() > 0);
+        assertEquals(empty, stats.getLogicalCells() + stats.getSearchCells());
+        assertTrue(stats.toString().contains("Cells filled by propagation = " + stats.getLogicalCells()
+                + ", by search = " + stats.getSearchCells()));
+        
+        System.out.println("Check the result was published to the listener");
+        assertEquals(1, published.size());
+        assertSame(result, published.get(0));
+        
+        System.out.println("Check the counters start again for the next solve");
+        instance.setSolveListener(null);
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        assertTrue(instance.solve(puzzle, null).getStats().getNodes() < stats.getNodes());
+        assertEquals(1, published.size());
+    }
+    
 }
@@ -0,0 +1,226 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_ParallelTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    private static ForkJoinPool pool;
+    
+    public Sudoku_AI_ParallelTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(4);
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Builds a puzzle from a string, 0 is an empty cell
+     */
+    private static Integer[][] toPuzzle(String puzzleString, int boardSize) {
+        Integer[][] puzzle = new Integer[boardSize][boardSize];
+        for (int i=0;i<puzzleString.length();i++){
+            int value = puzzleString.charAt(i) - '0';
+            if (value != 0){
+                puzzle[i/boardSize][i%boardSize] = value;
+            }
+        }
+        return puzzle;
+    }
+
+    /**
+     * Test of getSolution method, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testGetSolution() {
+        System.out.println("getSolution");
+        String puzzleString = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+        String puzzleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        Integer[][] puzzle = toPuzzle(puzzleString, BOARDSIZE);
+        Integer[][] expected = toPuzzle(puzzleSolved, BOARDSIZE);
+        
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(BOXSIZE, pool);
+        Integer[][] result = instance.getSolution(puzzle);
+        
+        System.out.println("Check puzzle is solved in place as expected");
+        assertSame(puzzle, result);
+        for (int i=0;i<BOARDSIZE;i++){
+            assertArrayEquals(expected[i], result[i]);
+        }
+    }
+    
+    /**
+     * Test of getSolution method on a 16x16 board, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testGetSolutionLargeBoard() {
+        System.out.println("getSolution - 16x16");
+        int boxSize = 4;
+        int boardSize = boxSize*boxSize;
+        
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(boxSize, pool);
+        Integer[][] result = instance.getSolution(new Integer[boardSize][boardSize]);
+        
+        for (int i=0;i<boardSize;i++){
+            int rowValues = 0, colValues = 0, boxValues = 0;
+            for (int j=0;j<boardSize;j++){
+                rowValues |= 1 << result[i][j];
+                colValues |= 1 << result[j][i];
+                boxValues |= 1 << result[(i/boxSize)*boxSize + j/boxSize][(i%boxSize)*boxSize + j%boxSize];
+            }
+            assertEquals(boardSize, Integer.bitCount(rowValues));
+            assertEquals(boardSize, Integer.bitCount(colValues));
+            assertEquals(boardSize, Integer.bitCount(boxValues));
+        }
+    }
+    
+    /**
+     * Test of getSolution method with a puzzle that has no solution, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testGetSolutionUnsolvable() {
+        System.out.println("getSolution - unsolvable");
+        Integer[][] puzzle = new Integer[BOARDSIZE][BOARDSIZE];
+        puzzle[0][0] = 1;
+        puzzle[1][1] = 1;
+        
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(BOXSIZE, pool);
+        Integer[][] result = instance.getSolution(puzzle);
+        
+        assertNull(result[0][0]);
+    }
+
+    /**
+     * Test of getName method, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testGetName() {
+        System.out.println("getName");
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(BOXSIZE, pool);
+        String expResult = "Parallel Search";
+        String result = instance.getName();
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(BOXSIZE, pool);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        Integer[][] hard = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertEquals(2, instance.countSolutions(hard, 2));
+        assertEquals(SudokuSolverController.HARD_PUZZLE, SudokuPuzzleFormat.format(hard));
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[0][8] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+    
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(BOXSIZE, pool);
+        
+        System.out.println("Check a cancelled solve stops with an empty board");
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertFalse(result.isSolved());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+        
+        System.out.println("Check the next solve is not affected");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, new SudokuCancellation());
+        assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+        assertSame(puzzle, result.getSolution());
+        assertFalse(SudokuPuzzleFormat.format(puzzle).contains("0"));
+    }
+    
+    /**
+     * Test of the statistics returned by solve, of class Sudoku_AI_Parallel.
+     */
+    @Test
+    public void testSolveStats() {
+        System.out.println("solve - stats");
+        Sudoku_AI_Parallel instance = new Sudoku_AI_Parallel(BOXSIZE, pool);
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+        
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        SudokuSolveStats stats = result.getStats();
+        
+        System.out.println("Check the search was counted");
+        assertTrue(result.isSolved());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getBacktracks() > 0);
+        assertTrue(stats.getElapsedNanos() > 0);
+        assertTrue(stats.getPropagations() > 0);
+        assertTrue(stats.getMaxDepth() > 0 && stats.getMaxDepth() <= 60);
+        
+        System.out.println("Check the result was published to the listener");
+        assertEquals(1, published.size());
+        assertSame(result, published.get(0));
+        
+        System.out.println("Check the counters start again for the next solve");
+        instance.setSolveListener(null);
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        assertTrue(instance.solve(puzzle, null).getStats().getNodes() < stats.getNodes());
+        assertEquals(1, published.size());
+    }
+    
+}
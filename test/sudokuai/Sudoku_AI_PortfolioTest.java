@@ -0,0 +1,244 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_PortfolioTest {
+
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+
+    public Sudoku_AI_PortfolioTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of getSolution method, of class Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testGetSolution() {
+        System.out.println("getSolution");
+        String puzzleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE);
+        Integer[][] result = instance.getSolution(puzzle);
+
+        System.out.println("Check puzzle is solved in place as expected");
+        assertSame(puzzle, result);
+        assertEquals(puzzleSolved, SudokuPuzzleFormat.format(result));
+        assertTrue(Sudoku_AI_Portfolio.DEFAULTALGORITHMS.contains(instance.getLastWinner()));
+    }
+
+    /**
+     * Test of getSolution method on the bundled benchmark puzzles, reusing one
+     * instance, of class Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testGetSolutionBenchmarkPuzzles() throws IOException {
+        System.out.println("getSolution - benchmark puzzles");
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Sudoku_AI_PortfolioTest.class.getResourceAsStream("benchmark-puzzles.txt"), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Integer[][] result = instance.getSolution(SudokuPuzzleFormat.parse(line, BOARDSIZE));
+                assertTrue(line, SudokuTestBoards.isValidSolution(SudokuPuzzleFormat.parse(line, BOARDSIZE), result));
+            }
+        }
+    }
+
+    /**
+     * Test that the fastest engine wins and the slower one is cancelled, of
+     * class Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testSolveFastestWins() {
+        System.out.println("solve - fastest wins");
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE, Arrays.asList("Backtracking", "Dancing Links"));
+        assertEquals(Arrays.asList("Backtracking", "Dancing Links"), instance.getAlgorithmNames());
+
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+
+        System.out.println("Check Dancing Links answers long before plain backtracking");
+        assertTrue(result.isSolved());
+        assertTrue(SudokuTestBoards.isValidSolution(SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE), puzzle));
+        assertEquals("Dancing Links", instance.getLastWinner());
+
+        System.out.println("Check the cancelled engine solves the next puzzle");
+        instance = new Sudoku_AI_Portfolio(BOXSIZE, Collections.singletonList("Backtracking"));
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        assertTrue(instance.solve(puzzle, null).isSolved());
+        assertEquals("Backtracking", instance.getLastWinner());
+    }
+
+    /**
+     * Test of solve method with a puzzle that has no solution, of class
+     * Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testSolveNoSolution() {
+        System.out.println("solve - no solution");
+        Integer[][] puzzle = new Integer[BOARDSIZE][BOARDSIZE];
+        puzzle[0][0] = 1;
+        puzzle[1][1] = 1;
+
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+
+        assertEquals(SudokuSolveResult.Status.NO_SOLUTION, result.getStatus());
+        assertNull(result.getSolution()[0][0]);
+        assertEquals(Integer.valueOf(1), puzzle[0][0]);                 //The input is left as it was
+        assertNotNull(instance.getLastWinner());
+    }
+
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE);
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+
+        System.out.println("Check a cancelled solve stops every engine with an empty board");
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertNull(instance.getLastWinner());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+
+        System.out.println("Check the next race is not affected and each race is published once");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, new SudokuCancellation());
+        assertTrue(result.isSolved());
+        assertTrue(result.getStats().getNodes() > 0);
+        assertEquals(2, published.size());
+        assertSame(result, published.get(1));
+    }
+
+    /**
+     * Test of solve method with engines that throw an Error, of class
+     * Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testSolveEngineError() {
+        System.out.println("solve - engine error");
+        Sudoku_AI failing = new Sudoku_AI_DancingLinks(BOXSIZE) {
+            @Override
+            public SudokuSolveResult solve(Integer[][] userInputPuzzle, SudokuCancellation cancellation) {
+                throw new AssertionError("failing engine");
+            }
+        };
+        Sudoku_AI dancingLinks = new Sudoku_AI_DancingLinks(BOXSIZE);
+
+        System.out.println("Check an engine on the pool answers when the caller's engine throws");
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE, Arrays.asList("Failing", "Dancing Links"),
+                Arrays.asList(failing, dancingLinks));
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertTrue(instance.solve(puzzle, null).isSolved());
+        assertEquals("Dancing Links", instance.getLastWinner());
+
+        System.out.println("Check the error is thrown when no engine answers");
+        for (List<Sudoku_AI> engines : Arrays.<List<Sudoku_AI>>asList(Arrays.asList(failing, failing),
+                Collections.singletonList(failing))) {
+            instance = new Sudoku_AI_Portfolio(BOXSIZE, Collections.nCopies(engines.size(), "Failing"), engines);
+            try {
+                instance.solve(SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE), null);
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getCause() instanceof AssertionError);
+            }
+        }
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE);
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        assertEquals(2, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 2));
+    }
+
+    /**
+     * Test of the constructor with algorithms that can't be raced, of class
+     * Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testConstructorRefusesAlgorithms() {
+        System.out.println("constructor - refused algorithms");
+        for (List<String> algorithms : Arrays.<List<String>>asList(Collections.<String>emptyList(),
+                Collections.singletonList("Guessing"), Collections.singletonList("Portfolio"))) {
+            try {
+                new Sudoku_AI_Portfolio(BOXSIZE, algorithms);
+                fail("Expected IllegalArgumentException for " + algorithms);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    /**
+     * Test of getName method, of class Sudoku_AI_Portfolio.
+     */
+    @Test
+    public void testGetName() {
+        System.out.println("getName");
+        Sudoku_AI_Portfolio instance = new Sudoku_AI_Portfolio(BOXSIZE);
+        assertEquals("Portfolio", instance.getName());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_PropagatorTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    
+    public Sudoku_AI_PropagatorTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Test of propagate method, of class Sudoku_AI_Propagator.
+     * The easy puzzle needs no guesses so logic alone fills every cell.
+     */
+    @Test
+    public void testPropagateSolvesEasyPuzzle() {
+        System.out.println("propagate - easy");
+        String puzzleString = "249180000000460091100000070000500900701892000608000105872941350010700040500008700";
+        String puzzleSolved = "249187563387465291165239478423516987751892634698374125872941356916753842534628719";
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(puzzleString, BOARDSIZE);
+        
+        Sudoku_AI_Propagator instance = new Sudoku_AI_Propagator(BOXSIZE);
+        int result = instance.propagate(puzzle);
+        
+        assertEquals(45, result);
+        Integer[][] expected = SudokuPuzzleFormat.parse(puzzleSolved, BOARDSIZE);
+        for (int i=0;i<BOARDSIZE;i++){
+            assertArrayEquals(expected[i], puzzle[i]);
+        }
+    }
+    
+    /**
+     * Test of propagate method, of class Sudoku_AI_Propagator.
+     * The hard puzzle is only partly decided by logic, the rest is left empty.
+     */
+    @Test
+    public void testPropagatePartlySolvesHardPuzzle() {
+        System.out.println("propagate - hard");
+        String puzzleString = "000000000000003085001020000000507000004000100090000000500000073002010000000400009";
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(puzzleString, BOARDSIZE);
+        
+        Sudoku_AI_Propagator instance = new Sudoku_AI_Propagator(BOXSIZE);
+        int result = instance.propagate(puzzle);
+        
+        int filled = 0;
+        for (int i=0;i<BOARDSIZE;i++){
+            for (int j=0;j<BOARDSIZE;j++){
+                if (puzzle[i][j] != null){
+                    filled++;
+                }
+            }
+        }
+        assertTrue(result > 0);
+        assertEquals(17 + result, filled);
+        assertTrue(filled < BOARDSIZE*BOARDSIZE);
+    }
+    
+    /**
+     * Test of propagate method, of class Sudoku_AI_Propagator.
+     * A board with a value repeated in a row is reported and left unchanged.
+     */
+    @Test
+    public void testPropagateContradiction() {
+        System.out.println("propagate - contradiction");
+        Integer[][] puzzle = SudokuPuzzleFormat.parse("249180000000460091100000070000500900701892000608000105872941350010700040500008700", BOARDSIZE);
+        puzzle[0][8] = 9;
+        
+        Sudoku_AI_Propagator instance = new Sudoku_AI_Propagator(BOXSIZE);
+        int result = instance.propagate(puzzle);
+        
+        assertEquals(Sudoku_AI_Propagator.CONTRADICTION, result);
+        assertNull(puzzle[0][5]);
+    }
+    
+    /**
+     * Test of fullDomain method, of class Sudoku_AI_Propagator.
+     * Every value of a 64x64 board fits in the domain bitmask.
+     */
+    @Test
+    public void testFullDomain() {
+        System.out.println("fullDomain");
+        assertEquals(0x1FFL, Sudoku_AI_Propagator.fullDomain(9));
+        assertEquals(-1L, Sudoku_AI_Propagator.fullDomain(Sudoku_AI_Propagator.MAXBOARDSIZE));
+        assertEquals(64, Long.bitCount(Sudoku_AI_Propagator.fullDomain(64)));
+    }
+    
+    /**
+     * Test of the constructor, of class Sudoku_AI_Propagator.
+     * Boards wider than the domain bitmask are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooWideBoard() {
+        System.out.println("constructor - board too wide");
+        new Sudoku_AI_Propagator(9);
+    }
+    
+}
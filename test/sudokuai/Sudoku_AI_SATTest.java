@@ -0,0 +1,230 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package sudokuai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Nik Bradley
+ */
+public class Sudoku_AI_SATTest {
+    
+    private static final int BOXSIZE = 3;
+    private static final int BOARDSIZE = BOXSIZE*BOXSIZE;
+    
+    public Sudoku_AI_SATTest() {
+    }
+    
+    @BeforeClass
+    public static void setUpClass() {
+    }
+    
+    @AfterClass
+    public static void tearDownClass() {
+    }
+    
+    @Before
+    public void setUp() {
+    }
+    
+    @After
+    public void tearDown() {
+    }
+    
+    /**
+     * Test of getSolution method, of class Sudoku_AI_SAT.
+     * The hard puzzle has more than one solution so any valid one is accepted.
+     */
+    @Test
+    public void testGetSolution() {
+        System.out.println("getSolution");
+        String puzzleString = "000000000000003085001020000000507000004000100090000000500000073002010000000400009";
+        
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        Integer[][] board = SudokuPuzzleFormat.parse(puzzleString, BOARDSIZE);
+        Integer[][] result = instance.getSolution(board);
+        
+        System.out.println("Check puzzle is solved in place");
+        assertSame(board, result);
+        assertTrue(SudokuTestBoards.isValidSolution(SudokuPuzzleFormat.parse(puzzleString, BOARDSIZE), result));
+    }
+    
+    /**
+     * Test that nothing learnt from one puzzle is kept for the next, so one
+     * instance can solve several puzzles in a row including after a failed one.
+     */
+    @Test
+    public void testGetSolutionReusesSolver() {
+        System.out.println("getSolution - reuse");
+        String impossibleSolved = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+        
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        
+        Integer[][] clash = new Integer[BOARDSIZE][BOARDSIZE];
+        clash[0][0] = 5;
+        clash[8][0] = 5;
+        Integer[][] result = instance.getSolution(clash);
+        System.out.println("Check a contradicting puzzle returns a blank board");
+        assertNull(result[0][0]);
+        
+        for (String puzzle : new String[]{SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuSolverController.HARD_PUZZLE,
+            SudokuSolverController.IMPOSSIBLE_PUZZLE}) {
+            result = instance.getSolution(SudokuPuzzleFormat.parse(puzzle, BOARDSIZE));
+            assertTrue(SudokuTestBoards.isValidSolution(SudokuPuzzleFormat.parse(puzzle, BOARDSIZE), result));
+        }
+        assertEquals(impossibleSolved, SudokuPuzzleFormat.format(result));
+    }
+    
+    /**
+     * Test of getSolution method on the bundled benchmark puzzles, of class Sudoku_AI_SAT.
+     */
+    @Test
+    public void testGetSolutionBenchmarkPuzzles() throws IOException {
+        System.out.println("getSolution - benchmark puzzles");
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Sudoku_AI_SATTest.class.getResourceAsStream("benchmark-puzzles.txt"), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Integer[][] result = instance.getSolution(SudokuPuzzleFormat.parse(line, BOARDSIZE));
+                assertTrue(line, SudokuTestBoards.isValidSolution(SudokuPuzzleFormat.parse(line, BOARDSIZE), result));
+            }
+        }
+    }
+
+    /**
+     * Test of getName method, of class Sudoku_AI_SAT.
+     */
+    @Test
+    public void testGetName() {
+        System.out.println("getName");
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        String expResult = "CDCL SAT";
+        String result = instance.getName();
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of countSolutions method, of class Sudoku_AI_SAT.
+     */
+    @Test
+    public void testCountSolutions() {
+        System.out.println("countSolutions");
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        
+        System.out.println("Check a valid puzzle has one solution and is left unchanged");
+        Integer[][] impossible = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        assertEquals(1, instance.countSolutions(impossible, 2));
+        assertEquals(SudokuSolverController.IMPOSSIBLE_PUZZLE, SudokuPuzzleFormat.format(impossible));
+        
+        System.out.println("Check counting stops at the limit");
+        Integer[][] hard = SudokuPuzzleFormat.parse(SudokuSolverController.HARD_PUZZLE, BOARDSIZE);
+        assertEquals(2, instance.countSolutions(hard, 2));
+        assertEquals(SudokuSolverController.HARD_PUZZLE, SudokuPuzzleFormat.format(hard));
+        assertEquals(50, instance.countSolutions(new Integer[BOARDSIZE][BOARDSIZE], 50));
+        
+        System.out.println("Check every 4x4 board is found once");
+        assertEquals(288, new Sudoku_AI_SAT(2).countSolutions(new Integer[4][4], 1000));
+        
+        System.out.println("Check a contradicting puzzle has no solutions");
+        Integer[][] contradicting = new Integer[BOARDSIZE][BOARDSIZE];
+        contradicting[0][0] = 1;
+        contradicting[1][1] = 1;
+        assertEquals(0, instance.countSolutions(contradicting, 2));
+    }
+    
+    /**
+     * Test of solve method with a cancellation, of class Sudoku_AI_SAT.
+     */
+    @Test
+    public void testSolveCancelled() {
+        System.out.println("solve - cancelled");
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        
+        System.out.println("Check a cancelled solve stops with an empty board");
+        SudokuCancellation cancellation = new SudokuCancellation();
+        cancellation.cancel();
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, cancellation);
+        assertEquals(SudokuSolveResult.Status.CANCELLED, result.getStatus());
+        assertFalse(result.isSolved());
+        for (Integer[] row : result.getSolution()){
+            assertArrayEquals(new Integer[BOARDSIZE], row);
+        }
+        
+        System.out.println("Check the next solve is not affected");
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        result = instance.solve(puzzle, new SudokuCancellation());
+        assertEquals(SudokuSolveResult.Status.SOLVED, result.getStatus());
+        assertSame(puzzle, result.getSolution());
+        assertFalse(SudokuPuzzleFormat.format(puzzle).contains("0"));
+    }
+    
+    /**
+     * Test of the statistics returned by solve, of class Sudoku_AI_SAT.
+     */
+    @Test
+    public void testSolveStats() {
+        System.out.println("solve - stats");
+        Sudoku_AI_SAT instance = new Sudoku_AI_SAT(BOXSIZE);
+        List<SudokuSolveResult> published = new ArrayList<>();
+        instance.setSolveListener((Sudoku_AI algorithm, SudokuSolveResult result) -> {
+            assertSame(instance, algorithm);
+            published.add(result);
+        });
+        
+        Integer[][] puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.IMPOSSIBLE_PUZZLE, BOARDSIZE);
+        SudokuSolveResult result = instance.solve(puzzle, null);
+        SudokuSolveStats stats = result.getStats();
+        
+        System.out.println("Check the search was counted");
+        assertTrue(result.isSolved());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getBacktracks() > 0);                          //Conflicts learnt from
+        assertTrue(stats.getElapsedNanos() > 0);
+        assertTrue(stats.getPropagations() > 0);
+        assertTrue(stats.getMaxDepth() > 0);
+        
+        System.out.println("Check the result was published to the listener");
+        assertEquals(1, published.size());
+        assertSame(result, published.get(0));
+        
+        System.out.println("Check the counters start again for the next solve");
+        instance.setSolveListener(null);
+        puzzle = SudokuPuzzleFormat.parse(SudokuSolverController.EASY_PUZZLE, BOARDSIZE);
+        assertEquals(0, instance.solve(puzzle, null).getStats().getBacktracks());
+        assertEquals(1, published.size());
+    }
+    
+    /**
+     * Test of luby method, of class Sudoku_AI_SAT.
+     */
+    @Test
+    public void testLuby() {
+        System.out.println("luby");
+        int[] expResult = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expResult.length; i++) {
+            assertEquals(expResult[i], Sudoku_AI_SAT.luby(i));
+        }
+    }
+    
+}